@@ -18,6 +18,7 @@ const RCTNetworkingNative = require('NativeModules').Networking;
 const convertRequestBody = require('convertRequestBody');
 
 import type {RequestBody} from 'convertRequestBody';
+import type {RequestPriority} from './XMLHttpRequest';
 
 type Header = [string, string];
 
@@ -58,6 +59,7 @@ class RCTNetworking extends NativeEventEmitter {
     timeout: number,
     callback: (requestId: number) => any,
     withCredentials: boolean,
+    priority?: RequestPriority,
   ) {
     const body = convertRequestBody(data);
     if (body && body.formData) {
@@ -72,7 +74,7 @@ class RCTNetworking extends NativeEventEmitter {
       url,
       requestId,
       convertHeadersMapToArray(headers),
-      {...body, trackingName},
+      {...body, trackingName, priority},
       responseType,
       incrementalUpdates,
       timeout,
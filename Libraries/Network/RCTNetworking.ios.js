@@ -17,7 +17,7 @@ const convertRequestBody = require('convertRequestBody');
 
 import type {RequestBody} from 'convertRequestBody';
 
-import type {NativeResponseType} from './XMLHttpRequest';
+import type {NativeResponseType, RequestPriority} from './XMLHttpRequest';
 
 class RCTNetworking extends NativeEventEmitter {
   isAvailable: boolean = true;
@@ -37,13 +37,14 @@ class RCTNetworking extends NativeEventEmitter {
     timeout: number,
     callback: (requestId: number) => any,
     withCredentials: boolean,
+    priority?: RequestPriority,
   ) {
     const body = convertRequestBody(data);
     RCTNetworkingNative.sendRequest(
       {
         method,
         url,
-        data: {...body, trackingName},
+        data: {...body, trackingName, priority},
         headers,
         responseType,
         incrementalUpdates,
@@ -33,6 +33,7 @@ export type ResponseType =
   | 'json'
   | 'text';
 export type Response = ?Object | string;
+export type RequestPriority = 'high' | 'normal' | 'low';
 
 type XHRInterceptor = {
   requestSent(id: number, url: string, method: string, headers: Object): void,
@@ -142,6 +143,7 @@ class XMLHttpRequest extends EventTarget(...XHR_EVENTS) {
   _url: ?string = null;
   _timedOut: boolean = false;
   _trackingName: string = 'unknown';
+  _priority: RequestPriority = 'normal';
   _incrementalEvents: boolean = false;
 
   static setInterceptor(interceptor: ?XHRInterceptor) {
@@ -448,6 +450,15 @@ class XMLHttpRequest extends EventTarget(...XHR_EVENTS) {
     return this;
   }
 
+  /**
+   * Custom extension for scheduling requests. Queued low priority requests,
+   * like prefetches, are overtaken by normal and high priority ones.
+   */
+  setPriority(priority: RequestPriority): XMLHttpRequest {
+    this._priority = priority;
+    return this;
+  }
+
   open(method: string, url: string, async: ?boolean): void {
     /* Other optional arguments are not supported yet */
     if (this.readyState !== this.UNSENT) {
@@ -531,6 +542,7 @@ class XMLHttpRequest extends EventTarget(...XHR_EVENTS) {
       this.timeout,
       this.__didCreateRequest.bind(this),
       this.withCredentials,
+      this._priority,
     );
   }
 
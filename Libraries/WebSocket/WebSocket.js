@@ -50,7 +50,43 @@ const CLOSED = 3;
 
 const CLOSE_NORMAL = 1000;
 
-const WEBSOCKET_EVENTS = ['close', 'error', 'message', 'open'];
+/**
+ * Length of `text` once encoded as UTF-8, the way the native side counts what
+ * it has written. Lone surrogates take one byte, as they do in OkHttp.
+ */
+function utf8ByteLength(text: string): number {
+  let length = 0;
+  for (let i = 0; i < text.length; i++) {
+    const c = text.charCodeAt(i);
+    if (c < 0x80) {
+      length += 1;
+    } else if (c < 0x800) {
+      length += 2;
+    } else if (c >= 0xd800 && c <= 0xdbff && i + 1 < text.length) {
+      const next = text.charCodeAt(i + 1);
+      if (next >= 0xdc00 && next <= 0xdfff) {
+        length += 4;
+        i++;
+      } else {
+        length += 1;
+      }
+    } else if (c >= 0xd800 && c <= 0xdfff) {
+      length += 1;
+    } else {
+      length += 3;
+    }
+  }
+  return length;
+}
+
+const WEBSOCKET_EVENTS = [
+  'close',
+  'drain',
+  'error',
+  'message',
+  'open',
+  'sendrejected',
+];
 
 let nextWebSocketId = 0;
 
@@ -75,13 +111,18 @@ class WebSocket extends EventTarget(...WEBSOCKET_EVENTS) {
   _eventEmitter: NativeEventEmitter;
   _subscriptions: Array<EventSubscription>;
   _binaryType: ?BinaryType;
+  // The bytes sent, and how many of them native has written to the socket.
+  _sentBytes: number = 0;
+  _writtenBytes: number = 0;
 
   onclose: ?Function;
+  ondrain: ?Function;
   onerror: ?Function;
   onmessage: ?Function;
   onopen: ?Function;
+  onsendrejected: ?Function;
 
-  bufferedAmount: number;
+  bufferedAmount: number = 0;
   extension: ?string;
   protocol: ?string;
   readyState: number = CONNECTING;
@@ -94,14 +135,14 @@ class WebSocket extends EventTarget(...WEBSOCKET_EVENTS) {
   constructor(
     url: string,
     protocols: ?string | ?Array<string>,
-    options: ?{headers?: {origin?: string}},
+    options: ?{headers?: {origin?: string}, batchMessages?: boolean},
   ) {
     super();
     if (typeof protocols === 'string') {
       protocols = [protocols];
     }
 
-    const {headers = {}, ...unrecognized} = options || {};
+    const {headers = {}, batchMessages, ...unrecognized} = options || {};
 
     // Preserve deprecated backwards compatibility for the 'origin' option
     /* $FlowFixMe(>=0.68.0 site=react_native_fb) This comment suppresses an
@@ -148,7 +189,7 @@ class WebSocket extends EventTarget(...WEBSOCKET_EVENTS) {
     WebSocketModule.connect(
       url,
       protocols,
-      {headers},
+      {headers, batchMessages: !!batchMessages},
       this._socketId,
     );
   }
@@ -194,16 +235,19 @@ class WebSocket extends EventTarget(...WEBSOCKET_EVENTS) {
         BlobManager.isAvailable,
         'Native module BlobModule is required for blob support',
       );
+      this._didSend(data.size);
       BlobManager.sendOverSocket(data, this._socketId);
       return;
     }
 
     if (typeof data === 'string') {
+      this._didSendText(data);
       WebSocketModule.send(data, this._socketId);
       return;
     }
 
     if (data instanceof ArrayBuffer || ArrayBuffer.isView(data)) {
+      this._didSend(data.byteLength);
       WebSocketModule.sendBinary(binaryToBase64(data), this._socketId);
       return;
     }
@@ -234,27 +278,111 @@ class WebSocket extends EventTarget(...WEBSOCKET_EVENTS) {
     }
   }
 
+  _didSend(byteLength: number): void {
+    // Only Android reports how much of what was sent has been written.
+    if (Platform.OS === 'android') {
+      this._sentBytes += byteLength;
+      this._updateBufferedAmount();
+    }
+  }
+
+  _didSendText(text: string): void {
+    // Skip encoding the text where nothing is counted.
+    if (Platform.OS === 'android') {
+      this._didSend(utf8ByteLength(text));
+    }
+  }
+
+  _updateBufferedAmount(): void {
+    this.bufferedAmount = Math.max(0, this._sentBytes - this._writtenBytes);
+  }
+
   _unregisterEvents(): void {
     this._subscriptions.forEach(e => e.remove());
     this._subscriptions = [];
   }
 
+  _dispatchMessage(type: string, data: any): void {
+    switch (type) {
+      case 'binary':
+        data = base64.toByteArray(data).buffer;
+        break;
+      case 'blob':
+        data = BlobManager.createFromOptions(data);
+        break;
+    }
+    this.dispatchEvent(new WebSocketEvent('message', {data}));
+  }
+
   _registerEvents(): void {
     this._subscriptions = [
       this._eventEmitter.addListener('websocketMessage', ev => {
         if (ev.id !== this._socketId) {
           return;
         }
-        let data = ev.data;
-        switch (ev.type) {
-          case 'binary':
-            data = base64.toByteArray(ev.data).buffer;
-            break;
-          case 'blob':
-            data = BlobManager.createFromOptions(ev.data);
-            break;
+        this._dispatchMessage(ev.type, ev.data);
+      }),
+      // Sent instead of `websocketMessage` by sockets opened with the
+      // `batchMessages` option. Text messages are strings, binary messages are
+      // the length of their part of `binaryData`.
+      this._eventEmitter.addListener('websocketMessageBatch', ev => {
+        if (ev.id !== this._socketId) {
+          return;
         }
-        this.dispatchEvent(new WebSocketEvent('message', {data}));
+        const binaryData = ev.binaryData
+          ? base64.toByteArray(ev.binaryData).buffer
+          : new ArrayBuffer(0);
+        let offset = 0;
+        ev.messages.forEach(message => {
+          if (typeof message === 'string') {
+            this._dispatchMessage('text', message);
+          } else if (typeof message === 'number') {
+            this.dispatchEvent(
+              new WebSocketEvent('message', {
+                data: binaryData.slice(offset, offset + message),
+              }),
+            );
+            offset += message;
+          } else {
+            this._dispatchMessage(message.type, message.data);
+          }
+        });
+      }),
+      // Sent once the messages parked above the native send queue's
+      // high-water mark, or rejected over its limit, have been handed over
+      // and there is room to send more.
+      this._eventEmitter.addListener('websocketDrain', ev => {
+        if (ev.id !== this._socketId) {
+          return;
+        }
+        this._writtenBytes = ev.writtenBytes;
+        this._updateBufferedAmount();
+        this.dispatchEvent(
+          new WebSocketEvent('drain', {bufferedAmount: this.bufferedAmount}),
+        );
+      }),
+      // Sent once what was sent has been written to the socket.
+      this._eventEmitter.addListener('websocketWritten', ev => {
+        if (ev.id !== this._socketId) {
+          return;
+        }
+        this._writtenBytes = ev.writtenBytes;
+        this._updateBufferedAmount();
+      }),
+      // The socket stays open, the message is dropped.
+      this._eventEmitter.addListener('websocketSendRejected', ev => {
+        if (ev.id !== this._socketId) {
+          return;
+        }
+        this._sentBytes -= ev.size;
+        this._writtenBytes = ev.writtenBytes;
+        this._updateBufferedAmount();
+        this.dispatchEvent(
+          new WebSocketEvent('sendrejected', {
+            message: 'Send queue is full, wait for the drain event',
+            size: ev.size,
+          }),
+        );
       }),
       this._eventEmitter.addListener('websocketOpen', ev => {
         if (ev.id !== this._socketId) {
@@ -16,6 +16,10 @@
  * The `type` property is "open", "close", "message", "error" respectively.
  *
  * In case of "message", the `data` property contains the incoming data.
+ *
+ * On Android, `drain` and `sendrejected` events are also dispatched, once
+ * messages can be sent again after the send queue filled up, and when a
+ * message was dropped because it was full.
  */
 class WebSocketEvent {
   constructor(type, eventInitDict) {
@@ -14,6 +14,8 @@ jest.mock('NativeEventEmitter');
 jest.setMock('NativeModules', {
   WebSocketModule: {
     connect: () => {},
+    send: () => {},
+    sendBinary: () => {},
   },
 });
 
@@ -27,4 +29,58 @@ describe('WebSocket', function() {
   it('should have connection lifecycle constants defined on the instance', () => {
     expect(new WebSocket('wss://echo.websocket.org').CONNECTING).toEqual(0);
   });
+
+  it('should count sent bytes as buffered until they are written', () => {
+    const Platform = require('Platform');
+    const OS = Platform.OS;
+    Platform.OS = 'android';
+    const socket = new WebSocket('wss://echo.websocket.org');
+    socket.readyState = WebSocket.OPEN;
+    const listeners = {};
+    socket._eventEmitter.addListener.mock.calls.forEach(([name, listener]) => {
+      listeners[name] = listener;
+    });
+
+    socket.send('hello');
+    socket.send(new Uint8Array(3));
+    expect(socket.bufferedAmount).toEqual(8);
+
+    listeners.websocketWritten({id: socket._socketId, writtenBytes: 5});
+    expect(socket.bufferedAmount).toEqual(3);
+
+    // EventTarget is mocked out.
+    socket.dispatchEvent = jest.fn();
+    socket.send('rejected');
+    listeners.websocketSendRejected({
+      id: socket._socketId,
+      size: 8,
+      writtenBytes: 8,
+    });
+    expect(socket.bufferedAmount).toEqual(0);
+    expect(socket.dispatchEvent.mock.calls[0][0].type).toEqual('sendrejected');
+    Platform.OS = OS;
+  });
+
+  it('should count sent text by its length in UTF-8', () => {
+    const Platform = require('Platform');
+    const OS = Platform.OS;
+    Platform.OS = 'android';
+    const socket = new WebSocket('wss://echo.websocket.org');
+    socket.readyState = WebSocket.OPEN;
+    const listeners = {};
+    socket._eventEmitter.addListener.mock.calls.forEach(([name, listener]) => {
+      listeners[name] = listener;
+    });
+
+    // 1 + 2 + 3 + 1 + 4 bytes.
+    socket.send('h\u00e9\u20ac\u0000\ud83d\ude00');
+    expect(socket.bufferedAmount).toEqual(11);
+    // A lone surrogate is written as a single '?'.
+    socket.send('\ud83d');
+    expect(socket.bufferedAmount).toEqual(12);
+
+    listeners.websocketWritten({id: socket._socketId, writtenBytes: 12});
+    expect(socket.bufferedAmount).toEqual(0);
+    Platform.OS = OS;
+  });
 });
@@ -203,6 +203,8 @@ public class JavaMethodWrapper implements NativeModule.NativeMethod {
   private final Class[] mParameterTypes;
   private final int mParamLength;
   private final JavaModuleWrapper mModuleWrapper;
+  private final @Nullable ReactMethodDispatcher<NativeModule> mDispatcher;
+  private final int mDispatcherMethodIndex;
   private String mType = BaseJavaModule.METHOD_TYPE_ASYNC;
   private boolean mArgumentsProcessed = false;
   private @Nullable ArgumentExtractor[] mArgumentExtractors;
@@ -211,7 +213,24 @@ public class JavaMethodWrapper implements NativeModule.NativeMethod {
   private @Nullable int mJSArgumentsNeeded;
 
   public JavaMethodWrapper(JavaModuleWrapper module, Method method, boolean isSync) {
+    this(module, method, isSync, null);
+  }
+
+  /**
+   * @param dispatcher generated dispatcher of the class declaring {@code method}. Used to call the
+   * method if it handles it, the method is called through reflection otherwise.
+   */
+  public JavaMethodWrapper(
+      JavaModuleWrapper module,
+      Method method,
+      boolean isSync,
+      @Nullable ReactMethodDispatcher<NativeModule> dispatcher) {
     mModuleWrapper = module;
+    int dispatcherMethodIndex = dispatcher == null
+        ? ReactMethodDispatcher.NO_METHOD
+        : dispatcher.getMethodIndex(method.getName());
+    mDispatcher = dispatcherMethodIndex == ReactMethodDispatcher.NO_METHOD ? null : dispatcher;
+    mDispatcherMethodIndex = dispatcherMethodIndex;
     mMethod = method;
     mMethod.setAccessible(true);
     mParameterTypes = mMethod.getParameterTypes();
@@ -353,6 +372,13 @@ public class JavaMethodWrapper implements NativeModule.NativeMethod {
           traceName + " got " + parameters.size() + " arguments, expected " + mJSArgumentsNeeded);
       }
 
+      if (mDispatcher != null) {
+        // The dispatcher reports arguments of unexpected types itself.
+        mDispatcher.invoke(
+            mModuleWrapper.getModule(), mDispatcherMethodIndex, jsInstance, parameters);
+        return;
+      }
+
       int i = 0, jsArgumentsConsumed = 0;
       try {
         for (; i < mArgumentExtractors.length; i++) {
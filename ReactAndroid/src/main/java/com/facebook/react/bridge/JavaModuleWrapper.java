@@ -84,6 +84,7 @@ public class JavaModuleWrapper {
       classForMethods = superClass;
     }
     Method[] targetMethods = classForMethods.getDeclaredMethods();
+    ReactMethodDispatcher<NativeModule> dispatcher = findGeneratedDispatcher(classForMethods);
 
     for (Method targetMethod : targetMethods) {
       ReactMethod annotation = targetMethod.getAnnotation(ReactMethod.class);
@@ -96,7 +97,11 @@ public class JavaModuleWrapper {
             "Java Module " + getName() + " method name already registered: " + methodName);
         }
         MethodDescriptor md = new MethodDescriptor();
-        JavaMethodWrapper method = new JavaMethodWrapper(this, targetMethod, annotation.isBlockingSynchronousMethod());
+        JavaMethodWrapper method = new JavaMethodWrapper(
+            this,
+            targetMethod,
+            annotation.isBlockingSynchronousMethod(),
+            dispatcher);
         md.name = methodName;
         md.type = method.getType();
         if (md.type == BaseJavaModule.METHOD_TYPE_SYNC) {
@@ -110,6 +115,25 @@ public class JavaModuleWrapper {
     Systrace.endSection(TRACE_TAG_REACT_JAVA_BRIDGE);
   }
 
+  /**
+   * The dispatcher generated for {@code cls} only accepts instances of it, which the module is.
+   */
+  @SuppressWarnings("unchecked")
+  private static @Nullable ReactMethodDispatcher<NativeModule> findGeneratedDispatcher(
+      Class<?> cls) {
+    String clsName = cls.getName();
+    try {
+      Class<?> dispatcherClass =
+          Class.forName(clsName + "$$ReactMethodDispatcher", true, cls.getClassLoader());
+      return (ReactMethodDispatcher<NativeModule>) dispatcherClass.newInstance();
+    } catch (ClassNotFoundException e) {
+      // Not generated for this module, its methods are called through reflection.
+      return null;
+    } catch (InstantiationException | IllegalAccessException e) {
+      throw new RuntimeException("Unable to instantiate method dispatcher for " + clsName, e);
+    }
+  }
+
   @DoNotStrip
   public List<MethodDescriptor> getMethodDescriptors() {
     if (mDescs.isEmpty()) {
@@ -92,4 +92,8 @@ public enum ReactMarkerConstants {
   ON_FRAGMENT_CREATE,
   JAVASCRIPT_EXECUTOR_FACTORY_INJECT_START,
   JAVASCRIPT_EXECUTOR_FACTORY_INJECT_END,
+  LOAD_TYPEFACE_START,
+  LOAD_TYPEFACE_END,
+  LAYOUT_ROOT_START,
+  LAYOUT_ROOT_END,
 }
@@ -0,0 +1,33 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.bridge;
+
+/**
+ * Calls the {@link ReactMethod}s declared by a native module class directly, without reflection
+ * and without boxing primitive arguments.
+ *
+ * Implementations are generated by {@code ReactMethodDispatcherProcessor} as
+ * {@code <module class>$$ReactMethodDispatcher}. {@link JavaModuleWrapper} uses them when they
+ * exist, and falls back to invoking methods through reflection otherwise.
+ */
+public interface ReactMethodDispatcher<T extends NativeModule> {
+
+  int NO_METHOD = -1;
+
+  /**
+   * @return the index to pass to {@link #invoke} for the given method, or {@link #NO_METHOD} if
+   * the dispatcher doesn't handle it.
+   */
+  int getMethodIndex(String methodName);
+
+  /**
+   * Extracts the arguments of the method with the given index from {@code jsArguments} and calls
+   * it. The number of arguments must have been checked by the caller.
+   */
+  void invoke(T module, int methodIndex, JSInstance jsInstance, ReadableArray jsArguments);
+}
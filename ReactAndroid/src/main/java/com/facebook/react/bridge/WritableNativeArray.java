@@ -37,6 +37,14 @@ public class WritableNativeArray extends ReadableNativeArray implements Writable
   @Override
   public native void pushString(String value);
 
+  /**
+   * Pushes the first {@code count} values of the given array with a single JNI call.
+   *
+   * @throws IllegalArgumentException if {@code count} is negative or greater than the length of
+   * {@code values}.
+   */
+  public native void pushInts(int[] values, int count);
+
   // Note: this consumes the map so do not reuse it.
   @Override
   public void pushArray(WritableArray array) {
@@ -16,6 +16,7 @@
 -keepnames class * extends com.facebook.react.uimanager.ReactShadowNode
 -keep class **$$PropsSetter
 -keep class **$$ReactModuleInfoProvider
+-keep class **$$ReactMethodDispatcher
 -keep class com.facebook.react.bridge.ReadableType { *; }
 
 -keepnames class com.facebook.quicklog.QuickPerformanceLogger {
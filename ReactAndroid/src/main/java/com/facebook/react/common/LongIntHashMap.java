@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.common;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from long keys to int values. Like a HashMap<Long, Integer> but without
+ * the autoboxing, and with a {@link #clear()} that runs in constant time and doesn't allocate, so
+ * the same instance can be reused every frame.
+ *
+ * Slots are marked as occupied by stamping them with the current generation; clearing the map just
+ * starts a new generation.
+ */
+public class LongIntHashMap {
+
+  private static final float MAX_LOAD_FACTOR = 0.5f;
+
+  private long[] mKeys;
+  private int[] mValues;
+  private int[] mGenerations;
+  private int mGeneration = 1;
+  private int mMask;
+  private int mSize;
+
+  public static LongIntHashMap createWithInitialCapacity(int initialCapacity) {
+    return new LongIntHashMap(initialCapacity);
+  }
+
+  private LongIntHashMap(int initialCapacity) {
+    allocate(tableSizeFor(initialCapacity));
+  }
+
+  /**
+   * @return the value for the given key, or {@code missingValue} if the key isn't present.
+   */
+  public int get(long key, int missingValue) {
+    int slot = hash(key) & mMask;
+    while (mGenerations[slot] == mGeneration) {
+      if (mKeys[slot] == key) {
+        return mValues[slot];
+      }
+      slot = (slot + 1) & mMask;
+    }
+    return missingValue;
+  }
+
+  public boolean containsKey(long key) {
+    int slot = hash(key) & mMask;
+    while (mGenerations[slot] == mGeneration) {
+      if (mKeys[slot] == key) {
+        return true;
+      }
+      slot = (slot + 1) & mMask;
+    }
+    return false;
+  }
+
+  public void put(long key, int value) {
+    int slot = hash(key) & mMask;
+    while (mGenerations[slot] == mGeneration) {
+      if (mKeys[slot] == key) {
+        mValues[slot] = value;
+        return;
+      }
+      slot = (slot + 1) & mMask;
+    }
+    mGenerations[slot] = mGeneration;
+    mKeys[slot] = key;
+    mValues[slot] = value;
+    mSize++;
+    if (mSize > (mMask + 1) * MAX_LOAD_FACTOR) {
+      rehash((mMask + 1) * 2);
+    }
+  }
+
+  public int size() {
+    return mSize;
+  }
+
+  public boolean isEmpty() {
+    return mSize == 0;
+  }
+
+  /**
+   * Removes all entries. Keeps the current table, so a map that has grown to fit a frame's worth of
+   * entries won't allocate again on subsequent frames.
+   */
+  public void clear() {
+    mSize = 0;
+    mGeneration++;
+    if (mGeneration == 0) {
+      // The generation wrapped around, stale stamps could match again.
+      Arrays.fill(mGenerations, 0);
+      mGeneration = 1;
+    }
+  }
+
+  private void rehash(int newTableSize) {
+    long[] oldKeys = mKeys;
+    int[] oldValues = mValues;
+    int[] oldGenerations = mGenerations;
+    int oldGeneration = mGeneration;
+
+    allocate(newTableSize);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldGenerations[i] == oldGeneration) {
+        int slot = hash(oldKeys[i]) & mMask;
+        while (mGenerations[slot] == mGeneration) {
+          slot = (slot + 1) & mMask;
+        }
+        mGenerations[slot] = mGeneration;
+        mKeys[slot] = oldKeys[i];
+        mValues[slot] = oldValues[i];
+      }
+    }
+  }
+
+  private void allocate(int tableSize) {
+    mKeys = new long[tableSize];
+    mValues = new int[tableSize];
+    mGenerations = new int[tableSize];
+    mGeneration = 1;
+    mMask = tableSize - 1;
+  }
+
+  private static int tableSizeFor(int capacity) {
+    int minSize = (int) Math.ceil(Math.max(1, capacity) / MAX_LOAD_FACTOR);
+    return Integer.highestOneBit(Math.max(2, minSize) - 1) << 1;
+  }
+
+  private static int hash(long key) {
+    // Murmur3 finalizer, spreads view tags that only differ in their low bits.
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    return (int) key;
+  }
+}
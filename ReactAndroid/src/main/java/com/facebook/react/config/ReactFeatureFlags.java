@@ -30,4 +30,63 @@ public class ReactFeatureFlags {
    * Reduce the number of Java-JS interops while accessing native maps
    */
   public static boolean useMapNativeAccessor = false;
+
+  /**
+   * Stage UI events through a lock-free ring in EventDispatcher instead of a locked list
+   */
+  public static boolean useLockFreeEventStaging = false;
+
+  /**
+   * Keep the AsyncStorage database in write-ahead logging mode and serve reads of hot keys from an
+   * in-memory LRU cache
+   */
+  public static boolean useAsyncStorageReadCache = false;
+
+  /**
+   * Keep JS timers in a hierarchical timer wheel instead of a priority queue in Timing
+   */
+  public static boolean useTimerWheel = false;
+
+  /**
+   * Send text and base64 network response bodies to JS in bounded chunks as they are read, instead
+   * of reading whole bodies into memory first
+   */
+  public static boolean useStreamingNetworkResponses = false;
+
+  /**
+   * Let identical GET requests that are in flight at the same time share one call in
+   * NetworkingModule, sending its response to each of them
+   */
+  public static boolean coalesceNetworkRequests = false;
+
+  /**
+   * Look up the size of text in TextMeasurementCache before building a Layout to measure it, so
+   * that text measured before with the same attributes and width isn't laid out again. Text nodes
+   * don't use the cache with useMeasuredTextLayout, since they need the Layout itself
+   */
+  public static boolean cacheTextMeasurements = false;
+
+  /**
+   * Hand the Layout ReactTextShadowNode measured text with to ReactTextView, so that newly mounted
+   * text is drawn without being laid out again on the UI thread
+   */
+  public static boolean useMeasuredTextLayout = false;
+
+  /**
+   * Record the layout props set on a shadow node by one update and set them on its YogaNode in a
+   * single JNI call
+   */
+  public static boolean batchYogaStyleUpdates = false;
+
+  /**
+   * Read the layouts that changed back from Yoga in one JNI call per root, and apply them without
+   * asking every visited shadow node whether it is dirty
+   */
+  public static boolean readLayoutsInBulk = false;
+
+  /**
+   * Only lay out the roots that have shadow nodes that were updated or dirtied since their last
+   * layout, instead of every root on every batch
+   */
+  public static boolean layoutDirtyRootsOnly = false;
 }
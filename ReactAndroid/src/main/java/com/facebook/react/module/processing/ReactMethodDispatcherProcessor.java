@@ -0,0 +1,381 @@
+// Copyright (c) Facebook, Inc. and its affiliates.
+
+// This source code is licensed under the MIT license found in the
+// LICENSE file in the root directory of this source tree.
+
+package com.facebook.react.module.processing;
+
+import static javax.lang.model.element.Modifier.PRIVATE;
+import static javax.lang.model.element.Modifier.PUBLIC;
+import static javax.tools.Diagnostic.Kind.ERROR;
+
+import com.facebook.infer.annotation.SuppressFieldNotInitialized;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedSourceVersion;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * Generates a {@code ReactMethodDispatcher} named {@code <classname>$$ReactMethodDispatcher} for
+ * every class declaring methods annotated with {@code ReactMethod}. The dispatcher calls these
+ * methods directly with arguments read from the JS arguments array, instead of boxing every
+ * argument and going through reflection.
+ *
+ * Classes that can't be called from generated code (private classes, private or overloaded
+ * methods, unsupported argument types) are skipped, and their methods are still called through
+ * reflection at runtime. Checked exceptions thrown by a method are rethrown wrapped in a
+ * {@code RuntimeException}, as the reflection path does.
+ */
+@SupportedAnnotationTypes("com.facebook.react.bridge.ReactMethod")
+@SupportedSourceVersion(SourceVersion.RELEASE_7)
+public class ReactMethodDispatcherProcessor extends AbstractProcessor {
+
+  private static final String REACT_METHOD_ANNOTATION = "com.facebook.react.bridge.ReactMethod";
+  private static final String NATIVE_MODULE_TYPE = "com.facebook.react.bridge.NativeModule";
+  private static final String BRIDGE_PACKAGE = "com.facebook.react.bridge";
+
+  private static final ClassName DISPATCHER_TYPE =
+      ClassName.get(BRIDGE_PACKAGE, "ReactMethodDispatcher");
+  private static final ClassName JS_INSTANCE_TYPE = ClassName.get(BRIDGE_PACKAGE, "JSInstance");
+  private static final ClassName READABLE_ARRAY_TYPE =
+      ClassName.get(BRIDGE_PACKAGE, "ReadableArray");
+  private static final ClassName READABLE_MAP_TYPE = ClassName.get(BRIDGE_PACKAGE, "ReadableMap");
+  private static final ClassName DYNAMIC_TYPE = ClassName.get(BRIDGE_PACKAGE, "Dynamic");
+  private static final ClassName DYNAMIC_FROM_ARRAY_TYPE =
+      ClassName.get(BRIDGE_PACKAGE, "DynamicFromArray");
+  private static final ClassName CALLBACK_TYPE = ClassName.get(BRIDGE_PACKAGE, "Callback");
+  private static final ClassName CALLBACK_IMPL_TYPE = ClassName.get(BRIDGE_PACKAGE, "CallbackImpl");
+  private static final ClassName PROMISE_TYPE = ClassName.get(BRIDGE_PACKAGE, "Promise");
+  private static final ClassName PROMISE_IMPL_TYPE = ClassName.get(BRIDGE_PACKAGE, "PromiseImpl");
+  private static final ClassName UNEXPECTED_NATIVE_TYPE_EXCEPTION_TYPE =
+      ClassName.get(BRIDGE_PACKAGE, "UnexpectedNativeTypeException");
+  private static final ClassName NATIVE_ARGUMENTS_PARSE_EXCEPTION_TYPE =
+      ClassName.get(BRIDGE_PACKAGE, "NativeArgumentsParseException");
+  private static final TypeName STRING_TYPE = TypeName.get(String.class);
+
+  @SuppressFieldNotInitialized
+  private Filer mFiler;
+  @SuppressFieldNotInitialized
+  private Elements mElements;
+  @SuppressFieldNotInitialized
+  private Messager mMessager;
+  @SuppressFieldNotInitialized
+  private Types mTypes;
+
+  @Override
+  public synchronized void init(ProcessingEnvironment processingEnv) {
+    super.init(processingEnv);
+
+    mFiler = processingEnv.getFiler();
+    mElements = processingEnv.getElementUtils();
+    mMessager = processingEnv.getMessager();
+    mTypes = processingEnv.getTypeUtils();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    TypeElement reactMethodType = mElements.getTypeElement(REACT_METHOD_ANNOTATION);
+    TypeElement nativeModuleType = mElements.getTypeElement(NATIVE_MODULE_TYPE);
+    if (reactMethodType == null || nativeModuleType == null) {
+      return false;
+    }
+    TypeMirror nativeModule = mTypes.erasure(nativeModuleType.asType());
+
+    Map<TypeElement, List<ExecutableElement>> methodsByClass = new LinkedHashMap<>();
+    for (Element element : roundEnv.getElementsAnnotatedWith(reactMethodType)) {
+      if (element.getKind() != ElementKind.METHOD) {
+        continue;
+      }
+      TypeElement classElement = (TypeElement) element.getEnclosingElement();
+      List<ExecutableElement> methods = methodsByClass.get(classElement);
+      if (methods == null) {
+        methods = new ArrayList<>();
+        methodsByClass.put(classElement, methods);
+      }
+      methods.add((ExecutableElement) element);
+    }
+
+    for (Map.Entry<TypeElement, List<ExecutableElement>> entry : methodsByClass.entrySet()) {
+      TypeElement classElement = entry.getKey();
+      List<ExecutableElement> methods = entry.getValue();
+      if (!mTypes.isAssignable(mTypes.erasure(classElement.asType()), nativeModule) ||
+          !canDispatch(classElement, methods)) {
+        continue;
+      }
+
+      // Sort by name, so method indices are stable across builds
+      Collections.sort(
+          methods, new Comparator<ExecutableElement>() {
+            @Override
+            public int compare(ExecutableElement a, ExecutableElement b) {
+              return a.getSimpleName().toString().compareTo(b.getSimpleName().toString());
+            }
+          });
+      try {
+        generateCode(classElement, methods);
+      } catch (IOException e) {
+        mMessager.printMessage(ERROR, e.getMessage(), classElement);
+      }
+    }
+
+    return false;
+  }
+
+  private static boolean canDispatch(TypeElement classElement, List<ExecutableElement> methods) {
+    if (classElement.getModifiers().contains(PRIVATE)) {
+      return false;
+    }
+    for (Element enclosing = classElement.getEnclosingElement();
+        enclosing.getKind() != ElementKind.PACKAGE;
+        enclosing = enclosing.getEnclosingElement()) {
+      if (enclosing.getModifiers().contains(PRIVATE)) {
+        return false;
+      }
+    }
+
+    Set<String> methodNames = new HashSet<>();
+    for (ExecutableElement method : methods) {
+      if (method.getModifiers().contains(PRIVATE) ||
+          !methodNames.add(method.getSimpleName().toString())) {
+        return false;
+      }
+      for (VariableElement parameter : method.getParameters()) {
+        if (!isSupportedArgumentType(TypeName.get(parameter.asType()))) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static boolean isSupportedArgumentType(TypeName type) {
+    return type.equals(TypeName.BOOLEAN) || type.equals(TypeName.BOOLEAN.box()) ||
+        type.equals(TypeName.INT) || type.equals(TypeName.INT.box()) ||
+        type.equals(TypeName.DOUBLE) || type.equals(TypeName.DOUBLE.box()) ||
+        type.equals(TypeName.FLOAT) || type.equals(TypeName.FLOAT.box()) ||
+        type.equals(STRING_TYPE) ||
+        type.equals(READABLE_MAP_TYPE) ||
+        type.equals(READABLE_ARRAY_TYPE) ||
+        type.equals(DYNAMIC_TYPE) ||
+        type.equals(CALLBACK_TYPE) ||
+        type.equals(PROMISE_TYPE);
+  }
+
+  private void generateCode(TypeElement classElement, List<ExecutableElement> methods)
+      throws IOException {
+    ClassName className = ClassName.get(classElement);
+    String packageName = className.packageName();
+
+    MethodSpec getMethodIndex = MethodSpec.methodBuilder("getMethodIndex")
+        .addModifiers(PUBLIC)
+        .addAnnotation(Override.class)
+        .addParameter(STRING_TYPE, "methodName")
+        .returns(TypeName.INT)
+        .addCode(generateGetMethodIndex(methods))
+        .build();
+
+    MethodSpec invoke = MethodSpec.methodBuilder("invoke")
+        .addModifiers(PUBLIC)
+        .addAnnotation(Override.class)
+        .addParameter(className, "module")
+        .addParameter(TypeName.INT, "methodIndex")
+        .addParameter(JS_INSTANCE_TYPE, "jsInstance")
+        .addParameter(READABLE_ARRAY_TYPE, "jsArguments")
+        .returns(TypeName.VOID)
+        .addCode(generateInvoke(methods))
+        .build();
+
+    String dispatcherClassName =
+        getClassName(classElement, packageName) + "$$ReactMethodDispatcher";
+    TypeSpec dispatcherClass = TypeSpec.classBuilder(dispatcherClassName)
+        .addSuperinterface(ParameterizedTypeName.get(DISPATCHER_TYPE, className))
+        .addModifiers(PUBLIC)
+        .addMethod(getMethodIndex)
+        .addMethod(invoke)
+        .build();
+
+    JavaFile javaFile = JavaFile.builder(packageName, dispatcherClass)
+        .addFileComment("Generated by " + getClass().getName())
+        .build();
+
+    javaFile.writeTo(mFiler);
+  }
+
+  private static String getClassName(TypeElement type, String packageName) {
+    int packageLen = packageName.length() + 1;
+    return type.getQualifiedName().toString().substring(packageLen).replace('.', '$');
+  }
+
+  private static CodeBlock generateGetMethodIndex(List<ExecutableElement> methods) {
+    CodeBlock.Builder builder = CodeBlock.builder();
+    builder.add("switch (methodName) {\n").indent();
+    for (int i = 0; i < methods.size(); i++) {
+      builder.add("case $S:\n", methods.get(i).getSimpleName().toString())
+          .indent()
+          .addStatement("return $L", i)
+          .unindent();
+    }
+    builder.add("default:\n")
+        .indent()
+        .addStatement("return NO_METHOD")
+        .unindent();
+    builder.unindent().add("}\n");
+    return builder.build();
+  }
+
+  /**
+   * Generates a case per method, which reads the arguments into locals and then calls the method.
+   * Only reading the arguments is guarded, so that an {@code UnexpectedNativeTypeException} thrown
+   * by the method itself isn't reported as a problem with its arguments.
+   */
+  private CodeBlock generateInvoke(List<ExecutableElement> methods) {
+    CodeBlock.Builder builder = CodeBlock.builder();
+    builder.add("switch (methodIndex) {\n").indent();
+    for (int i = 0; i < methods.size(); i++) {
+      ExecutableElement method = methods.get(i);
+      String methodName = method.getSimpleName().toString();
+      List<? extends VariableElement> parameters = method.getParameters();
+      builder.add("case $L: {\n", i).indent();
+      for (int j = 0; j < parameters.size(); j++) {
+        builder.addStatement("$T arg$L", TypeName.get(parameters.get(j).asType()), j);
+      }
+      if (!parameters.isEmpty()) {
+        builder.beginControlFlow("try");
+        int jsArgumentIndex = 0;
+        for (int j = 0; j < parameters.size(); j++) {
+          TypeName type = TypeName.get(parameters.get(j).asType());
+          builder.add("arg$L = ", j);
+          jsArgumentIndex += addArgumentExtractor(builder, type, jsArgumentIndex);
+          builder.add(";\n");
+        }
+        builder.nextControlFlow("catch ($T e)", UNEXPECTED_NATIVE_TYPE_EXCEPTION_TYPE)
+            .addStatement(
+                "throw new $T(e.getMessage() + $S + module.getName() + $S, e)",
+                NATIVE_ARGUMENTS_PARSE_EXCEPTION_TYPE,
+                " (constructing arguments for ",
+                "." + methodName + ")")
+            .endControlFlow();
+      }
+      boolean throwsCheckedException = throwsCheckedException(method);
+      if (throwsCheckedException) {
+        builder.beginControlFlow("try");
+      }
+      builder.add("module.$L(", methodName);
+      for (int j = 0; j < parameters.size(); j++) {
+        builder.add(j > 0 ? ", arg$L" : "arg$L", j);
+      }
+      builder.add(");\n");
+      if (throwsCheckedException) {
+        builder.nextControlFlow("catch ($T e)", RuntimeException.class)
+            .addStatement("throw e")
+            .nextControlFlow("catch ($T e)", Exception.class)
+            .addStatement(
+                "throw new $T($S + module.getName() + $S, e)",
+                RuntimeException.class,
+                "Could not invoke ",
+                "." + methodName)
+            .endControlFlow();
+      }
+      builder.addStatement("break").unindent();
+      builder.add("}\n");
+    }
+    builder.add("default:\n")
+        .indent()
+        .addStatement(
+            "throw new $T($S + methodIndex)",
+            IllegalArgumentException.class,
+            "Unknown method index: ")
+        .unindent();
+    builder.unindent().add("}\n");
+    return builder.build();
+  }
+
+  private boolean throwsCheckedException(ExecutableElement method) {
+    TypeMirror runtimeException = mElements.getTypeElement("java.lang.RuntimeException").asType();
+    TypeMirror error = mElements.getTypeElement("java.lang.Error").asType();
+    for (TypeMirror thrownType : method.getThrownTypes()) {
+      if (!mTypes.isAssignable(thrownType, runtimeException) &&
+          !mTypes.isAssignable(thrownType, error)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Adds the expression reading an argument of the given type, the same way
+   * {@code JavaMethodWrapper}'s argument extractors do.
+   *
+   * @return the number of JS arguments consumed.
+   */
+  private static int addArgumentExtractor(
+      CodeBlock.Builder builder,
+      TypeName type,
+      int jsArgumentIndex) {
+    if (type.equals(TypeName.BOOLEAN) || type.equals(TypeName.BOOLEAN.box())) {
+      builder.add("jsArguments.getBoolean($L)", jsArgumentIndex);
+    } else if (type.equals(TypeName.INT) || type.equals(TypeName.INT.box())) {
+      builder.add("(int) jsArguments.getDouble($L)", jsArgumentIndex);
+    } else if (type.equals(TypeName.DOUBLE) || type.equals(TypeName.DOUBLE.box())) {
+      builder.add("jsArguments.getDouble($L)", jsArgumentIndex);
+    } else if (type.equals(TypeName.FLOAT) || type.equals(TypeName.FLOAT.box())) {
+      builder.add("(float) jsArguments.getDouble($L)", jsArgumentIndex);
+    } else if (type.equals(STRING_TYPE)) {
+      builder.add("jsArguments.getString($L)", jsArgumentIndex);
+    } else if (type.equals(READABLE_MAP_TYPE)) {
+      builder.add("jsArguments.getMap($L)", jsArgumentIndex);
+    } else if (type.equals(READABLE_ARRAY_TYPE)) {
+      builder.add("jsArguments.getArray($L)", jsArgumentIndex);
+    } else if (type.equals(DYNAMIC_TYPE)) {
+      builder.add("$T.create(jsArguments, $L)", DYNAMIC_FROM_ARRAY_TYPE, jsArgumentIndex);
+    } else if (type.equals(CALLBACK_TYPE)) {
+      addCallbackExtractor(builder, jsArgumentIndex);
+    } else if (type.equals(PROMISE_TYPE)) {
+      builder.add("new $T(", PROMISE_IMPL_TYPE);
+      addCallbackExtractor(builder, jsArgumentIndex);
+      builder.add(", ");
+      addCallbackExtractor(builder, jsArgumentIndex + 1);
+      builder.add(")");
+      return 2;
+    } else {
+      throw new IllegalArgumentException("Unsupported argument type: " + type);
+    }
+    return 1;
+  }
+
+  private static void addCallbackExtractor(CodeBlock.Builder builder, int jsArgumentIndex) {
+    builder.add(
+        "jsArguments.isNull($L) ? null : new $T(jsInstance, (int) jsArguments.getDouble($L))",
+        jsArgumentIndex,
+        CALLBACK_IMPL_TYPE,
+        jsArgumentIndex);
+  }
+}
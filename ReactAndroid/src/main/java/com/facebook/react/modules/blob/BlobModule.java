@@ -11,11 +11,14 @@ import android.content.Context;
 import android.content.res.Resources;
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.AsyncTask;
 import android.provider.MediaStore;
 import android.support.annotation.Nullable;
 import android.webkit.MimeTypeMap;
 
+import com.facebook.common.logging.FLog;
 import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.GuardedAsyncTask;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
@@ -23,20 +26,17 @@ import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.common.MapBuilder;
+import com.facebook.react.common.ReactConstants;
 import com.facebook.react.module.annotations.ReactModule;
 import com.facebook.react.modules.network.NetworkingModule;
 import com.facebook.react.modules.websocket.WebSocketModule;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
@@ -44,13 +44,16 @@ import okhttp3.MediaType;
 import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
 import okio.ByteString;
+import okio.Okio;
 
 @ReactModule(name = BlobModule.NAME)
 public class BlobModule extends ReactContextBaseJavaModule {
 
   protected static final String NAME = "BlobModule";
 
-  private final Map<String, byte[]> mBlobs = new HashMap<>();
+  private static final String BLOB_DIRECTORY_NAME = "blobs";
+
+  private final BlobStore mStore;
 
   private final WebSocketModule.ContentHandler mWebSocketContentHandler =
     new WebSocketModule.ContentHandler() {
@@ -86,12 +89,13 @@ public class BlobModule extends ReactContextBaseJavaModule {
 
       @Override
       public WritableMap fetch(Uri uri) throws IOException {
-        byte[] data = getBytesFromUri(uri);
+        String blobId = UUID.randomUUID().toString();
+        int size = storeFromUri(uri, blobId);
 
         WritableMap blob = Arguments.createMap();
-        blob.putString("blobId", store(data));
+        blob.putString("blobId", blobId);
         blob.putInt("offset", 0);
-        blob.putInt("size", data.length);
+        blob.putInt("size", size);
         blob.putString("type", getMimeTypeFromUri(uri));
 
         // Needed for files
@@ -120,12 +124,15 @@ public class BlobModule extends ReactContextBaseJavaModule {
         }
         ReadableMap blob = data.getMap("blob");
         String blobId = blob.getString("blobId");
-        byte[] bytes = resolve(
+        ByteBuffer buffer = resolveBuffer(
           blobId,
           blob.getInt("offset"),
           blob.getInt("size"));
+        if (buffer == null) {
+          throw new IllegalArgumentException("Cannot send blob " + blobId + ", blob not found.");
+        }
 
-        return RequestBody.create(MediaType.parse(type), bytes);
+        return new BlobRequestBody(MediaType.parse(type), buffer);
       }
     };
 
@@ -138,17 +145,37 @@ public class BlobModule extends ReactContextBaseJavaModule {
 
       @Override
       public WritableMap toResponseData(ResponseBody body) throws IOException {
-        byte[] data = body.bytes();
+        // Written into the blob as it is downloaded, larger bodies straight to disk.
+        String blobId = UUID.randomUUID().toString();
+        int size = mStore.store(body.source(), blobId);
         WritableMap blob = Arguments.createMap();
-        blob.putString("blobId", store(data));
+        blob.putString("blobId", blobId);
         blob.putInt("offset", 0);
-        blob.putInt("size", data.length);
+        blob.putInt("size", size);
         return blob;
       }
     };
 
   public BlobModule(ReactApplicationContext reactContext) {
     super(reactContext);
+    // Each instance spills to its own directory, which it removes when it is destroyed.
+    File blobsDirectory = new File(reactContext.getCacheDir(), BLOB_DIRECTORY_NAME);
+    File directory = new File(blobsDirectory, UUID.randomUUID().toString());
+    mStore = new BlobStore(directory, BlobStore.DEFAULT_SPILL_THRESHOLD_BYTES);
+    removeStaleDirectories(blobsDirectory, directory);
+  }
+
+  /**
+   * Removes the directories of modules that were killed before they were destroyed. Directories
+   * still in use by other modules, in this process or in another one, are kept.
+   */
+  private void removeStaleDirectories(final File blobsDirectory, final File directory) {
+    new GuardedAsyncTask<Void, Void>(getReactApplicationContext()) {
+      @Override
+      protected void doInBackgroundGuarded(Void... params) {
+        BlobStore.deleteStaleDirectories(blobsDirectory, directory);
+      }
+    }.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
   }
 
   @Override
@@ -178,14 +205,32 @@ public class BlobModule extends ReactContextBaseJavaModule {
   }
 
   public void store(byte[] data, String blobId) {
-    mBlobs.put(blobId, data);
+    mStore.store(data, blobId);
   }
 
   public void remove(String blobId) {
-    mBlobs.remove(blobId);
+    mStore.remove(blobId);
+  }
+
+  @Override
+  public void onCatalystInstanceDestroy() {
+    new GuardedAsyncTask<Void, Void>(getReactApplicationContext()) {
+      @Override
+      protected void doInBackgroundGuarded(Void... params) {
+        mStore.clear();
+      }
+    }.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
   }
 
   public @Nullable byte[] resolve(Uri uri) {
+    return toByteArray(resolveBuffer(uri));
+  }
+
+  /**
+   * @return the data of the blob slice the URI refers to, see
+   * {@link #resolveBuffer(String, int, int)}.
+   */
+  public @Nullable ByteBuffer resolveBuffer(Uri uri) {
     String blobId = uri.getLastPathSegment();
     int offset = 0;
     int size = -1;
@@ -197,42 +242,76 @@ public class BlobModule extends ReactContextBaseJavaModule {
     if (sizeParam != null) {
       size = Integer.parseInt(sizeParam, 10);
     }
-    return resolve(blobId, offset, size);
+    return resolveBuffer(blobId, offset, size);
   }
 
-  public @Nullable byte[] resolve(String blobId, int offset, int size) {
-    byte[] data = mBlobs.get(blobId);
-    if (data == null) {
+  /**
+   * @return the file holding the data of the whole blob the URI refers to, null if the URI refers
+   * to a part of it or the blob is kept in memory.
+   */
+  /* package */ @Nullable File resolveFile(Uri uri) {
+    String blobId = uri.getLastPathSegment();
+    String offsetParam = uri.getQueryParameter("offset");
+    String sizeParam = uri.getQueryParameter("size");
+    if ((offsetParam != null && Integer.parseInt(offsetParam, 10) != 0) ||
+        (sizeParam != null && Integer.parseInt(sizeParam, 10) != mStore.getSize(blobId))) {
       return null;
     }
-    if (size == -1) {
-      size = data.length - offset;
-    }
-    if (offset > 0 || size != data.length) {
-      data = Arrays.copyOfRange(data, offset, offset + size);
+    return mStore.getFile(blobId);
+  }
+
+  public @Nullable byte[] resolve(String blobId, int offset, int size) {
+    return toByteArray(resolveBuffer(blobId, offset, size));
+  }
+
+  /**
+   * Resolves a slice of the blob without copying its data. Large blobs are backed by a file, so
+   * prefer reading the buffer in parts over copying it into one array.
+   *
+   * @param size the size of the slice, -1 for the rest of the blob
+   * @return a buffer of the slice's data, null if the blob doesn't exist or can't be read
+   */
+  public @Nullable ByteBuffer resolveBuffer(String blobId, int offset, int size) {
+    try {
+      return mStore.slice(blobId, offset, size);
+    } catch (IOException e) {
+      FLog.e(ReactConstants.TAG, "Could not read blob " + blobId, e);
+      return null;
     }
-    return data;
   }
 
   public @Nullable byte[] resolve(ReadableMap blob) {
     return resolve(blob.getString("blobId"), blob.getInt("offset"), blob.getInt("size"));
   }
 
-  private byte[] getBytesFromUri(Uri contentUri) throws IOException {
+  private static @Nullable byte[] toByteArray(@Nullable ByteBuffer buffer) {
+    if (buffer == null) {
+      return null;
+    }
+    // Blobs are stored as is, so resolving a whole blob kept in memory doesn't need a copy.
+    if (buffer.hasArray() &&
+        buffer.arrayOffset() == 0 &&
+        buffer.array().length == buffer.remaining()) {
+      return buffer.array();
+    }
+    byte[] data = new byte[buffer.remaining()];
+    buffer.get(data);
+    return data;
+  }
+
+  /**
+   * Copies the content of the URI into the blob with the given id, a part at a time.
+   *
+   * @return the size of the blob.
+   */
+  private int storeFromUri(Uri contentUri, String blobId) throws IOException {
     InputStream is = getReactApplicationContext().getContentResolver().openInputStream(contentUri);
 
     if (is == null) {
       throw new FileNotFoundException("File not found for " + contentUri);
     }
 
-    ByteArrayOutputStream byteBuffer = new ByteArrayOutputStream();
-    int bufferSize = 1024;
-    byte[] buffer = new byte[bufferSize];
-    int len;
-    while ((len = is.read(buffer)) != -1) {
-      byteBuffer.write(buffer, 0, len);
-    }
-    return byteBuffer.toByteArray();
+    return mStore.store(Okio.source(is), blobId);
   }
 
   private String getNameFromUri(Uri contentUri) {
@@ -314,30 +393,39 @@ public class BlobModule extends ReactContextBaseJavaModule {
 
   @ReactMethod
   public void createFromParts(ReadableArray parts, String blobId) {
-    int totalBlobSize = 0;
-    ArrayList<byte[]> partList = new ArrayList<>(parts.size());
-    for (int i = 0; i < parts.size(); i++) {
-      ReadableMap part = parts.getMap(i);
-      switch (part.getString("type")) {
-        case "blob":
-          ReadableMap blob = part.getMap("data");
-          totalBlobSize += blob.getInt("size");
-          partList.add(i, resolve(blob));
-          break;
-        case "string":
-          byte[] bytes = part.getString("data").getBytes(Charset.forName("UTF-8"));
-          totalBlobSize += bytes.length;
-          partList.add(i, bytes);
-          break;
-        default:
-          throw new IllegalArgumentException("Invalid type for blob: " + part.getString("type"));
+    // The parts are written one after the other, without concatenating them in memory first.
+    BlobStore.Writer writer = mStore.newWriter();
+    try {
+      for (int i = 0; i < parts.size(); i++) {
+        ReadableMap part = parts.getMap(i);
+        switch (part.getString("type")) {
+          case "blob":
+            ReadableMap blob = part.getMap("data");
+            String partBlobId = blob.getString("blobId");
+            ByteBuffer buffer = resolveBuffer(
+                partBlobId,
+                blob.getInt("offset"),
+                blob.getInt("size"));
+            if (buffer == null) {
+              throw new IllegalArgumentException(
+                  "Cannot create blob " + blobId + ", blob " + partBlobId + " not found.");
+            }
+            writer.write(buffer);
+            break;
+          case "string":
+            byte[] bytes = part.getString("data").getBytes(Charset.forName("UTF-8"));
+            writer.write(bytes, 0, bytes.length);
+            break;
+          default:
+            throw new IllegalArgumentException("Invalid type for blob: " + part.getString("type"));
+        }
       }
+      writer.commit(blobId);
+    } catch (IOException e) {
+      throw new RuntimeException("Could not create blob " + blobId, e);
+    } finally {
+      writer.close();
     }
-    ByteBuffer buffer = ByteBuffer.allocate(totalBlobSize);
-    for (byte[] bytes : partList) {
-      buffer.put(bytes);
-    }
-    store(buffer.array(), blobId);
   }
 
   @ReactMethod
@@ -11,14 +11,18 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.AsyncTask;
 import android.os.ParcelFileDescriptor;
 import android.support.annotation.Nullable;
 import com.facebook.react.ReactApplication;
 import com.facebook.react.ReactNativeHost;
 import com.facebook.react.bridge.ReactContext;
+import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 public final class BlobProvider extends ContentProvider {
 
@@ -71,7 +75,13 @@ public final class BlobProvider extends ContentProvider {
       throw new RuntimeException("No blob module associated with BlobProvider");
     }
 
-    byte[] data = blobModule.resolve(uri);
+    // Whole blobs written to disk are read straight from their file.
+    File file = blobModule.resolveFile(uri);
+    if (file != null) {
+      return ParcelFileDescriptor.open(file, ParcelFileDescriptor.MODE_READ_ONLY);
+    }
+
+    final ByteBuffer data = blobModule.resolveBuffer(uri);
     if (data == null) {
       throw new FileNotFoundException("Cannot open " + uri.toString() + ", blob not found.");
     }
@@ -85,13 +95,28 @@ public final class BlobProvider extends ContentProvider {
     ParcelFileDescriptor readSide = pipe[0];
     ParcelFileDescriptor writeSide = pipe[1];
 
-    OutputStream outputStream = new ParcelFileDescriptor.AutoCloseOutputStream(writeSide);
-    try {
-      outputStream.write(data);
-      outputStream.close();
-    } catch (IOException exception) {
-      return null;
-    }
+    // Write to the pipe while the reader reads from it, a part at a time, since it only buffers
+    // a few kilobytes.
+    final FileOutputStream outputStream = new ParcelFileDescriptor.AutoCloseOutputStream(writeSide);
+    AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          FileChannel channel = outputStream.getChannel();
+          while (data.hasRemaining()) {
+            channel.write(data);
+          }
+        } catch (IOException exception) {
+          // The reader closed the pipe before reading all of the blob.
+        } finally {
+          try {
+            outputStream.close();
+          } catch (IOException exception) {
+            // Nothing left to do.
+          }
+        }
+      }
+    });
 
     return readSide;
   }
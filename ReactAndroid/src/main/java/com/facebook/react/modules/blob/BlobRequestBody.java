@@ -0,0 +1,53 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.facebook.react.modules.blob;
+
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+
+/**
+ * Uploads a slice of a blob, streaming it from the blob's storage a segment at a time instead of
+ * copying the whole slice into an array first.
+ */
+/* package */ class BlobRequestBody extends RequestBody {
+
+  private final @Nullable MediaType mContentType;
+  private final ByteBuffer mData;
+
+  /* package */ BlobRequestBody(@Nullable MediaType contentType, ByteBuffer data) {
+    mContentType = contentType;
+    mData = data;
+  }
+
+  @Override
+  public @Nullable MediaType contentType() {
+    return mContentType;
+  }
+
+  @Override
+  public long contentLength() {
+    return mData.remaining();
+  }
+
+  @Override
+  public void writeTo(BufferedSink sink) throws IOException {
+    // OkHttp writes the body again when it retries a request, so don't consume the buffer.
+    ByteBuffer data = mData.duplicate();
+    byte[] segment = new byte[Math.min(data.remaining(), BlobStore.SEGMENT_SIZE_BYTES)];
+    while (data.hasRemaining()) {
+      int count = Math.min(data.remaining(), segment.length);
+      data.get(segment, 0, count);
+      sink.write(segment, 0, count);
+    }
+  }
+}
@@ -0,0 +1,427 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+package com.facebook.react.modules.blob;
+
+import android.support.annotation.Nullable;
+
+import com.facebook.common.logging.FLog;
+import com.facebook.react.common.ReactConstants;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import okio.Buffer;
+import okio.Source;
+
+/**
+ * Holds the data of the blobs of a {@link BlobModule}.
+ *
+ * Blobs up to the spill threshold are kept in memory. Larger blobs are written to a file in the
+ * store's directory, and their slices are served from a read-only mapping of that file, so they
+ * never take up heap.
+ *
+ * A store holds an exclusive lock on a file next to its directory for as long as the directory
+ * exists, so that directories left behind by killed processes can be told apart from the ones of
+ * stores that are still alive, see {@link #deleteStaleDirectories}.
+ */
+/* package */ class BlobStore {
+
+  /* package */ static final int DEFAULT_SPILL_THRESHOLD_BYTES = 1024 * 1024; // 1MB
+  /* package */ static final int SEGMENT_SIZE_BYTES = 8 * 1024;
+  /* package */ static final String LOCK_FILE_SUFFIX = ".lock";
+
+  private static class Blob {
+    private final int mSize;
+    private final @Nullable byte[] mBytes;
+    private final @Nullable File mFile;
+    private @Nullable ByteBuffer mMappedFile;
+
+    private Blob(byte[] bytes, int size) {
+      mSize = size;
+      mBytes = bytes;
+      mFile = null;
+    }
+
+    private Blob(File file, int size) {
+      mSize = size;
+      mBytes = null;
+      mFile = file;
+    }
+  }
+
+  /**
+   * Writes the data of a new blob, in memory until it grows past the spill threshold and to a file
+   * from then on.
+   */
+  /* package */ class Writer extends OutputStream {
+    private byte[] mBuffer = new byte[256];
+    private int mSize;
+    private @Nullable File mFile;
+    private @Nullable FileChannel mFileChannel;
+
+    private Writer() {
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int count) throws IOException {
+      write(ByteBuffer.wrap(bytes, offset, count));
+    }
+
+    /**
+     * Writes the remaining bytes of the buffer without copying them to the heap first.
+     */
+    /* package */ void write(ByteBuffer buffer) throws IOException {
+      int count = buffer.remaining();
+      if ((long) mSize + count > Integer.MAX_VALUE) {
+        throw new IOException("Blob exceeds the maximum size of " + Integer.MAX_VALUE + " bytes");
+      }
+      if (mFileChannel == null && mSize + count > mSpillThresholdBytes) {
+        spill();
+      }
+      if (mFileChannel != null) {
+        while (buffer.hasRemaining()) {
+          mFileChannel.write(buffer);
+        }
+      } else {
+        if (mSize + count > mBuffer.length) {
+          mBuffer = Arrays.copyOf(mBuffer, Math.max(mSize + count, mBuffer.length * 2));
+        }
+        buffer.get(mBuffer, mSize, count);
+      }
+      mSize += count;
+    }
+
+    /**
+     * Stores the written data as the blob with the given id, and closes the writer.
+     *
+     * @return the size of the blob.
+     */
+    /* package */ int commit(String blobId) throws IOException {
+      Blob blob;
+      if (mFileChannel != null) {
+        mFileChannel.close();
+        mFileChannel = null;
+        blob = new Blob(mFile, mSize);
+      } else {
+        blob = new Blob(mBuffer.length == mSize ? mBuffer : Arrays.copyOf(mBuffer, mSize), mSize);
+      }
+      mBuffer = null;
+      put(blobId, blob);
+      return mSize;
+    }
+
+    /**
+     * Drops the data written so far, for blobs that could not be written entirely.
+     */
+    @Override
+    public void close() {
+      if (mFileChannel != null) {
+        try {
+          mFileChannel.close();
+        } catch (IOException e) {
+          // Nothing we can do, the file is deleted below anyway.
+        }
+        mFileChannel = null;
+        mFile.delete();
+      }
+      mBuffer = null;
+    }
+
+    private void spill() throws IOException {
+      createDirectory();
+      mFile = new File(mDirectory, UUID.randomUUID().toString());
+      mFileChannel = new FileOutputStream(mFile).getChannel();
+      ByteBuffer written = ByteBuffer.wrap(mBuffer, 0, mSize);
+      while (written.hasRemaining()) {
+        mFileChannel.write(written);
+      }
+      mBuffer = null;
+    }
+  }
+
+  private final File mDirectory;
+  private final int mSpillThresholdBytes;
+  private final Map<String, Blob> mBlobs = new HashMap<>();
+  // Holds the lock on the lock file while the directory exists.
+  private @Nullable FileChannel mLockChannel;
+
+  /**
+   * @param directory where blobs larger than the spill threshold are written, it is only created
+   * once a blob has to be written
+   */
+  /* package */ BlobStore(File directory, int spillThresholdBytes) {
+    mDirectory = directory;
+    mSpillThresholdBytes = spillThresholdBytes;
+  }
+
+  /* package */ Writer newWriter() {
+    return new Writer();
+  }
+
+  /**
+   * Stores the data, writing it to a file if it is larger than the spill threshold so that the
+   * array doesn't have to stay in memory. If the file can't be written, the array is kept.
+   */
+  /* package */ void store(byte[] data, String blobId) {
+    if (data.length > mSpillThresholdBytes) {
+      Writer writer = newWriter();
+      try {
+        writer.write(data, 0, data.length);
+        writer.commit(blobId);
+        return;
+      } catch (IOException e) {
+        FLog.w(ReactConstants.TAG, "Could not write blob to disk, keeping it in memory", e);
+      } finally {
+        writer.close();
+      }
+    }
+    put(blobId, new Blob(data, data.length));
+  }
+
+  /**
+   * Reads the source to its end into the blob with the given id, a segment at a time, so that
+   * large bodies and streams never have to be held in memory at once.
+   *
+   * @return the size of the blob.
+   */
+  /* package */ int store(Source source, String blobId) throws IOException {
+    Writer writer = newWriter();
+    try {
+      Buffer segment = new Buffer();
+      byte[] bytes = new byte[SEGMENT_SIZE_BYTES];
+      while (source.read(segment, SEGMENT_SIZE_BYTES) != -1) {
+        while (!segment.exhausted()) {
+          int count = segment.read(bytes, 0, bytes.length);
+          writer.write(bytes, 0, count);
+        }
+      }
+      return writer.commit(blobId);
+    } finally {
+      writer.close();
+      source.close();
+    }
+  }
+
+  /**
+   * @return the size of the blob, -1 if it doesn't exist.
+   */
+  /* package */ synchronized int getSize(String blobId) {
+    Blob blob = mBlobs.get(blobId);
+    return blob != null ? blob.mSize : -1;
+  }
+
+  /**
+   * @return the file holding the data of the blob, null if it is kept in memory or doesn't exist.
+   */
+  /* package */ synchronized @Nullable File getFile(String blobId) {
+    Blob blob = mBlobs.get(blobId);
+    return blob != null ? blob.mFile : null;
+  }
+
+  /**
+   * @param size the size of the slice, -1 for the rest of the blob
+   * @return a view of the slice of the blob's data that shares it rather than copying it, null if
+   * the blob doesn't exist.
+   */
+  /* package */ @Nullable ByteBuffer slice(String blobId, int offset, int size) throws IOException {
+    Blob blob;
+    synchronized (this) {
+      blob = mBlobs.get(blobId);
+    }
+    if (blob == null) {
+      return null;
+    }
+    if (size == -1) {
+      size = blob.mSize - offset;
+    }
+    if (offset < 0 || size < 0 || offset + size > blob.mSize) {
+      throw new IndexOutOfBoundsException(
+          "Slice " + offset + "+" + size + " out of bounds of blob of size " + blob.mSize);
+    }
+    if (blob.mBytes != null) {
+      return ByteBuffer.wrap(blob.mBytes, offset, size).slice();
+    }
+    ByteBuffer slice = map(blob).duplicate();
+    slice.position(offset);
+    slice.limit(offset + size);
+    return slice.slice();
+  }
+
+  /* package */ void remove(String blobId) {
+    Blob blob;
+    synchronized (this) {
+      blob = mBlobs.remove(blobId);
+    }
+    // Mappings of the file stay valid after it has been deleted.
+    if (blob != null && blob.mFile != null) {
+      blob.mFile.delete();
+    }
+  }
+
+  /**
+   * Removes all blobs, and the directory they were written to.
+   */
+  /* package */ void clear() {
+    FileChannel lockChannel;
+    synchronized (this) {
+      mBlobs.clear();
+      lockChannel = mLockChannel;
+      mLockChannel = null;
+    }
+    deleteDirectory(mDirectory);
+    if (lockChannel != null) {
+      getLockFile(mDirectory).delete();
+      closeQuietly(lockChannel);
+    }
+  }
+
+  /**
+   * Deletes the directories in {@code blobsDirectory}, other than {@code liveDirectory}, whose lock
+   * isn't held by a store, along with their lock files.
+   */
+  /* package */ static void deleteStaleDirectories(File blobsDirectory, File liveDirectory) {
+    File[] files = blobsDirectory.listFiles();
+    if (files == null) {
+      return;
+    }
+    Set<String> directoryNames = new HashSet<>();
+    for (File file : files) {
+      String name = file.getName();
+      if (name.endsWith(LOCK_FILE_SUFFIX)) {
+        name = name.substring(0, name.length() - LOCK_FILE_SUFFIX.length());
+      }
+      if (!name.equals(liveDirectory.getName())) {
+        directoryNames.add(name);
+      }
+    }
+    for (String name : directoryNames) {
+      File directory = new File(blobsDirectory, name);
+      File lockFile = getLockFile(directory);
+      // Both may have been removed since they were listed.
+      if (!directory.exists() && !lockFile.exists()) {
+        continue;
+      }
+      FileChannel channel = null;
+      try {
+        channel = new RandomAccessFile(lockFile, "rw").getChannel();
+        FileLock lock;
+        try {
+          lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+          // Held by a store of this process.
+          lock = null;
+        }
+        if (lock != null) {
+          deleteDirectory(directory);
+          lockFile.delete();
+        }
+      } catch (IOException e) {
+        FLog.w(ReactConstants.TAG, "Could not remove blob directory " + directory, e);
+      } finally {
+        if (channel != null) {
+          closeQuietly(channel);
+        }
+      }
+    }
+  }
+
+  /**
+   * Deletes a directory blobs were written to, along with the blob files in it.
+   */
+  /* package */ static void deleteDirectory(File directory) {
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  /**
+   * Creates the directory, after taking the lock that keeps other processes from deleting it.
+   */
+  private synchronized void createDirectory() throws IOException {
+    File lockFile = getLockFile(mDirectory);
+    while (mLockChannel == null) {
+      File blobsDirectory = lockFile.getParentFile();
+      if (!blobsDirectory.isDirectory() && !blobsDirectory.mkdirs()) {
+        throw new IOException("Could not create blob directory " + blobsDirectory);
+      }
+      FileChannel channel = new RandomAccessFile(lockFile, "rw").getChannel();
+      try {
+        channel.lock();
+      } catch (IOException e) {
+        closeQuietly(channel);
+        throw e;
+      }
+      // Another process may have found the new lock file before it was locked, and deleted it.
+      if (lockFile.exists()) {
+        mLockChannel = channel;
+      } else {
+        closeQuietly(channel);
+      }
+    }
+    if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+      throw new IOException("Could not create blob directory " + mDirectory);
+    }
+  }
+
+  private static File getLockFile(File directory) {
+    return new File(directory.getParentFile(), directory.getName() + LOCK_FILE_SUFFIX);
+  }
+
+  private static void closeQuietly(FileChannel channel) {
+    try {
+      channel.close();
+    } catch (IOException e) {
+      // Closing releases the lock, there is nothing else to do.
+    }
+  }
+
+  private void put(String blobId, Blob blob) {
+    Blob previous;
+    synchronized (this) {
+      previous = mBlobs.put(blobId, blob);
+    }
+    if (previous != null && previous.mFile != null) {
+      previous.mFile.delete();
+    }
+  }
+
+  private static ByteBuffer map(Blob blob) throws IOException {
+    synchronized (blob) {
+      if (blob.mMappedFile == null) {
+        RandomAccessFile file = new RandomAccessFile(blob.mFile, "r");
+        try {
+          blob.mMappedFile = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, blob.mSize);
+        } finally {
+          file.close();
+        }
+      }
+      return blob.mMappedFile;
+    }
+  }
+}
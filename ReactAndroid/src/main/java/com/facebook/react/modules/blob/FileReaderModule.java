@@ -16,6 +16,9 @@ import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.module.annotations.ReactModule;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
 
 @ReactModule(name = FileReaderModule.NAME)
 public class FileReaderModule extends ReactContextBaseJavaModule {
@@ -39,7 +42,8 @@ public class FileReaderModule extends ReactContextBaseJavaModule {
   @ReactMethod
   public void readAsText(ReadableMap blob, String encoding, Promise promise) {
 
-    byte[] bytes = getBlobModule().resolve(
+    // Decoded straight from the blob's storage, without copying its bytes first.
+    ByteBuffer bytes = getBlobModule().resolveBuffer(
         blob.getString("blobId"),
         blob.getInt("offset"),
         blob.getInt("size"));
@@ -50,7 +54,7 @@ public class FileReaderModule extends ReactContextBaseJavaModule {
     }
 
     try {
-      promise.resolve(new String(bytes, encoding));
+      promise.resolve(Charset.forName(encoding).decode(bytes).toString());
     } catch (Exception e) {
       promise.reject(e);
     }
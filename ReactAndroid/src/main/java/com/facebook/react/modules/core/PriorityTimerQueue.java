@@ -0,0 +1,54 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.modules.core;
+
+import javax.annotation.Nullable;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * {@link TimerQueue} keeping timers sorted by target time in a binary heap. Adding, removing and
+ * expiring a timer takes O(log n), removing a timer that hasn't expired takes O(n).
+ */
+/* package */ class PriorityTimerQueue implements TimerQueue {
+
+  private final PriorityQueue<Timing.Timer> mTimers = new PriorityQueue<Timing.Timer>(
+      11, // Default capacity: for some reason they don't expose a (Comparator) constructor
+      new Comparator<Timing.Timer>() {
+        @Override
+        public int compare(Timing.Timer lhs, Timing.Timer rhs) {
+          long diff = lhs.mTargetTime - rhs.mTargetTime;
+          if (diff == 0) {
+            return 0;
+          } else if (diff < 0) {
+            return -1;
+          } else {
+            return 1;
+          }
+        }
+      });
+
+  @Override
+  public void add(Timing.Timer timer) {
+    mTimers.add(timer);
+  }
+
+  @Override
+  public void remove(Timing.Timer timer) {
+    mTimers.remove(timer);
+  }
+
+  @Override
+  public @Nullable Timing.Timer pollExpired(long timeMillis) {
+    if (!mTimers.isEmpty() && mTimers.peek().mTargetTime < timeMillis) {
+      return mTimers.poll();
+    }
+    return null;
+  }
+}
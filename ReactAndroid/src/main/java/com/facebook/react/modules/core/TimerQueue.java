@@ -0,0 +1,28 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.modules.core;
+
+import javax.annotation.Nullable;
+
+/**
+ * Holds the pending JS timers of {@link Timing}. Implementations are not thread safe, callers
+ * synchronize access.
+ */
+/* package */ interface TimerQueue {
+
+  void add(Timing.Timer timer);
+
+  void remove(Timing.Timer timer);
+
+  /**
+   * Removes and returns one of the timers whose target time is before {@code timeMillis}.
+   *
+   * @return the timer, or null if none has expired.
+   */
+  @Nullable Timing.Timer pollExpired(long timeMillis);
+}
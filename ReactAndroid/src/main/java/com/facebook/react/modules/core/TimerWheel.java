@@ -0,0 +1,220 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.modules.core;
+
+import javax.annotation.Nullable;
+
+/**
+ * Hierarchical timer wheel: a {@link TimerQueue} where adding and removing a timer take constant
+ * time, and expiring timers costs constant time per millisecond elapsed plus the number of timers
+ * expired.
+ *
+ * Timers are hashed into buckets of doubly linked lists by target time. The root level has one
+ * bucket per millisecond for the next {@link #ROOT_SLOTS} milliseconds. Each following level has
+ * {@link #LEVEL_SLOTS} buckets, each as wide as the whole level below it. When time reaches the
+ * start of a bucket of a higher level, its timers are redistributed ("cascaded") to the levels
+ * below. Time only advances in {@link #pollExpired}; stretches of time in which no bucket is
+ * reached are skipped over.
+ */
+/* package */ class TimerWheel implements TimerQueue {
+
+  private static final int ROOT_BITS = 8;
+  private static final int ROOT_SLOTS = 1 << ROOT_BITS;
+  private static final int ROOT_MASK = ROOT_SLOTS - 1;
+  private static final int LEVEL_BITS = 6;
+  private static final int LEVEL_SLOTS = 1 << LEVEL_BITS;
+  private static final int LEVEL_MASK = LEVEL_SLOTS - 1;
+  // 8 + 4 * 6 bits cover 2^32ms, longer timers are parked in the last level until they get closer.
+  private static final int LEVELS = 5;
+
+  // Timers that have expired but haven't been polled yet.
+  private static final int EXPIRED_BUCKET = ROOT_SLOTS + (LEVELS - 1) * LEVEL_SLOTS;
+  /* package */ static final int NO_BUCKET = -1;
+
+  private final Timing.Timer[] mHeads = new Timing.Timer[EXPIRED_BUCKET + 1];
+  private final Timing.Timer[] mTails = new Timing.Timer[EXPIRED_BUCKET + 1];
+  private final int[] mLevelSizes = new int[LEVELS];
+  private int mWheelSize;
+  // All timers with a target time before this have been expired.
+  private long mCurrentTime;
+
+  /* package */ TimerWheel(long currentTimeMillis) {
+    mCurrentTime = currentTimeMillis;
+  }
+
+  @Override
+  public void add(Timing.Timer timer) {
+    long targetTime = timer.mTargetTime;
+    long delta = targetTime - mCurrentTime;
+    if (delta < 0) {
+      link(timer, EXPIRED_BUCKET);
+      return;
+    }
+
+    int bucket;
+    if (delta < ROOT_SLOTS) {
+      bucket = (int) (targetTime & ROOT_MASK);
+    } else {
+      int level = 1;
+      int shift = ROOT_BITS;
+      while (level < LEVELS - 1 && delta >= (long) LEVEL_SLOTS << shift) {
+        level++;
+        shift += LEVEL_BITS;
+      }
+      long slot = delta < (long) LEVEL_SLOTS << shift ?
+          targetTime >> shift :
+          (mCurrentTime >> shift) + LEVEL_SLOTS - 1;
+      bucket = getFirstBucket(level) + (int) (slot & LEVEL_MASK);
+    }
+    link(timer, bucket);
+  }
+
+  @Override
+  public void remove(Timing.Timer timer) {
+    if (timer.mBucket != NO_BUCKET) {
+      unlink(timer);
+    }
+  }
+
+  @Override
+  public @Nullable Timing.Timer pollExpired(long timeMillis) {
+    advance(timeMillis);
+    Timing.Timer timer = mHeads[EXPIRED_BUCKET];
+    if (timer != null) {
+      unlink(timer);
+    }
+    return timer;
+  }
+
+  /**
+   * Moves the timers with a target time before {@code timeMillis} to the expired bucket.
+   */
+  private void advance(long timeMillis) {
+    while (mCurrentTime < timeMillis) {
+      if (mWheelSize == 0) {
+        mCurrentTime = timeMillis;
+        return;
+      }
+
+      if ((mCurrentTime & ROOT_MASK) == 0) {
+        cascade();
+      }
+
+      if (mLevelSizes[0] == 0) {
+        long nextCascadeTime = getNextCascadeTime(timeMillis);
+        if (nextCascadeTime > mCurrentTime) {
+          mCurrentTime = nextCascadeTime;
+          continue;
+        }
+      }
+
+      int bucket = (int) (mCurrentTime & ROOT_MASK);
+      Timing.Timer timer = mHeads[bucket];
+      while (timer != null) {
+        Timing.Timer next = timer.mNext;
+        unlink(timer);
+        link(timer, EXPIRED_BUCKET);
+        timer = next;
+      }
+      mCurrentTime++;
+    }
+  }
+
+  /**
+   * Redistributes the buckets of the higher levels that start at the current time.
+   */
+  private void cascade() {
+    int shift = ROOT_BITS;
+    for (int level = 1; level < LEVELS; level++) {
+      if (mLevelSizes[level] > 0) {
+        int bucket = getFirstBucket(level) + (int) ((mCurrentTime >> shift) & LEVEL_MASK);
+        Timing.Timer timer = mHeads[bucket];
+        while (timer != null) {
+          Timing.Timer next = timer.mNext;
+          unlink(timer);
+          add(timer);
+          timer = next;
+        }
+      }
+      // Buckets of the next level start at multiples of the span of this level.
+      if (((mCurrentTime >> shift) & LEVEL_MASK) != 0) {
+        break;
+      }
+      shift += LEVEL_BITS;
+    }
+  }
+
+  /**
+   * Only called while the root level is empty.
+   *
+   * @return the next time a non empty bucket gets cascaded, or {@code limit} if that is later.
+   */
+  private long getNextCascadeTime(long limit) {
+    long nextCascadeTime = limit;
+    int shift = ROOT_BITS;
+    for (int level = 1; level < LEVELS; level++, shift += LEVEL_BITS) {
+      if (mLevelSizes[level] == 0) {
+        continue;
+      }
+      long firstSlot = (mCurrentTime + (1L << shift) - 1) >> shift;
+      for (int i = 0; i < LEVEL_SLOTS; i++) {
+        long slot = firstSlot + i;
+        if (mHeads[getFirstBucket(level) + (int) (slot & LEVEL_MASK)] != null) {
+          nextCascadeTime = Math.min(nextCascadeTime, slot << shift);
+          break;
+        }
+      }
+    }
+    return nextCascadeTime;
+  }
+
+  private static int getFirstBucket(int level) {
+    return level == 0 ? 0 : ROOT_SLOTS + (level - 1) * LEVEL_SLOTS;
+  }
+
+  private static int getLevel(int bucket) {
+    return bucket < ROOT_SLOTS ? 0 : 1 + (bucket - ROOT_SLOTS) / LEVEL_SLOTS;
+  }
+
+  private void link(Timing.Timer timer, int bucket) {
+    timer.mBucket = bucket;
+    timer.mNext = null;
+    timer.mPrev = mTails[bucket];
+    if (timer.mPrev == null) {
+      mHeads[bucket] = timer;
+    } else {
+      timer.mPrev.mNext = timer;
+    }
+    mTails[bucket] = timer;
+    if (bucket != EXPIRED_BUCKET) {
+      mLevelSizes[getLevel(bucket)]++;
+      mWheelSize++;
+    }
+  }
+
+  private void unlink(Timing.Timer timer) {
+    int bucket = timer.mBucket;
+    if (timer.mPrev == null) {
+      mHeads[bucket] = timer.mNext;
+    } else {
+      timer.mPrev.mNext = timer.mNext;
+    }
+    if (timer.mNext == null) {
+      mTails[bucket] = timer.mPrev;
+    } else {
+      timer.mNext.mPrev = timer.mPrev;
+    }
+    timer.mBucket = NO_BUCKET;
+    timer.mNext = null;
+    timer.mPrev = null;
+    if (bucket != EXPIRED_BUCKET) {
+      mLevelSizes[getLevel(bucket)]--;
+      mWheelSize--;
+    }
+  }
+}
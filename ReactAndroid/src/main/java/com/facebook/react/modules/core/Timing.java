@@ -9,20 +9,24 @@ package com.facebook.react.modules.core;
 
 import javax.annotation.Nullable;
 
-import java.util.Comparator;
-import java.util.PriorityQueue;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import android.util.SparseArray;
 
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.LifecycleEventListener;
+import com.facebook.react.bridge.PerformanceCounter;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.UiThreadUtil;
 import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableNativeArray;
 import com.facebook.react.common.SystemClock;
+import com.facebook.react.config.ReactFeatureFlags;
 import com.facebook.react.devsupport.interfaces.DevSupportManager;
 import com.facebook.react.jstasks.HeadlessJsTaskContext;
 import com.facebook.react.jstasks.HeadlessJsTaskEventListener;
@@ -30,10 +34,13 @@ import com.facebook.react.module.annotations.ReactModule;
 
 /**
  * Native module for JS timer execution. Timers fire on frame boundaries.
+ *
+ * The number of timers fired per frame and the time spent firing them are exposed through
+ * {@link #getPerformanceCounters()}.
  */
 @ReactModule(name = Timing.NAME)
 public final class Timing extends ReactContextBaseJavaModule implements LifecycleEventListener,
-  HeadlessJsTaskEventListener {
+  HeadlessJsTaskEventListener, PerformanceCounter {
 
   public static final String NAME = "Timing";
 
@@ -47,13 +54,18 @@ public final class Timing extends ReactContextBaseJavaModule implements Lifecycl
 
   private final DevSupportManager mDevSupportManager;
 
-  private static class Timer {
-    private final int mCallbackID;
-    private final boolean mRepeat;
-    private final int mInterval;
-    private long mTargetTime;
+  /* package */ static class Timer {
+    /* package */ final int mCallbackID;
+    /* package */ final boolean mRepeat;
+    /* package */ final int mInterval;
+    /* package */ long mTargetTime;
+
+    // Only used by TimerWheel
+    /* package */ int mBucket = TimerWheel.NO_BUCKET;
+    /* package */ @Nullable Timer mPrev;
+    /* package */ @Nullable Timer mNext;
 
-    private Timer(
+    /* package */ Timer(
         int callbackID,
         long initialTargetTime,
         int duration,
@@ -67,8 +79,8 @@ public final class Timing extends ReactContextBaseJavaModule implements Lifecycl
 
   private class TimerFrameCallback extends ChoreographerCompat.FrameCallback {
 
-    // Temporary map for constructing the individual arrays of timers to call
-    private @Nullable WritableArray mTimersToCall = null;
+    // Reused every frame to collect the ids of the timers to call
+    private int[] mTimerIdsToCall = new int[16];
 
     /**
      * Calls all timers that have expired since the last time this frame callback was called.
@@ -79,14 +91,16 @@ public final class Timing extends ReactContextBaseJavaModule implements Lifecycl
         return;
       }
 
+      long startTimeNanos = SystemClock.nanoTime();
       long frameTimeMillis = frameTimeNanos / 1000000;
+      int timersToCallCount = 0;
       synchronized (mTimerGuard) {
-        while (!mTimers.isEmpty() && mTimers.peek().mTargetTime < frameTimeMillis) {
-          Timer timer = mTimers.poll();
-          if (mTimersToCall == null) {
-            mTimersToCall = Arguments.createArray();
+        Timer timer;
+        while ((timer = mTimers.pollExpired(frameTimeMillis)) != null) {
+          if (timersToCallCount == mTimerIdsToCall.length) {
+            mTimerIdsToCall = Arrays.copyOf(mTimerIdsToCall, timersToCallCount * 2);
           }
-          mTimersToCall.pushInt(timer.mCallbackID);
+          mTimerIdsToCall[timersToCallCount++] = timer.mCallbackID;
           if (timer.mRepeat) {
             timer.mTargetTime = frameTimeMillis + timer.mInterval;
             mTimers.add(timer);
@@ -96,12 +110,14 @@ public final class Timing extends ReactContextBaseJavaModule implements Lifecycl
         }
       }
 
-      if (mTimersToCall != null) {
-        getReactApplicationContext().getJSModule(JSTimers.class).callTimers(mTimersToCall);
-        mTimersToCall = null;
+      if (timersToCallCount > 0) {
+        WritableArray timersToCall = Arguments.createArray();
+        pushInts(timersToCall, mTimerIdsToCall, timersToCallCount);
+        getReactApplicationContext().getJSModule(JSTimers.class).callTimers(timersToCall);
       }
 
       mReactChoreographer.postFrameCallback(ReactChoreographer.CallbackType.TIMERS_EVENTS, this);
+      recordFrame(timersToCallCount, SystemClock.nanoTime() - startTimeNanos);
     }
   }
 
@@ -169,7 +185,7 @@ public final class Timing extends ReactContextBaseJavaModule implements Lifecycl
 
   private final Object mTimerGuard = new Object();
   private final Object mIdleCallbackGuard = new Object();
-  private final PriorityQueue<Timer> mTimers;
+  private final TimerQueue mTimers;
   private final SparseArray<Timer> mTimerIdsToTimers;
   private final AtomicBoolean isPaused = new AtomicBoolean(true);
   private final AtomicBoolean isRunningTasks = new AtomicBoolean(false);
@@ -181,25 +197,31 @@ public final class Timing extends ReactContextBaseJavaModule implements Lifecycl
   private boolean mFrameIdleCallbackPosted = false;
   private boolean mSendIdleEvents = false;
 
+  // Performance counters, written on the UI thread and read by whoever profiles, guarded by this.
+  private long mFrameCount;
+  private long mFramesWithTimersCount;
+  private long mTimersFiredCount;
+  private long mMaxTimersFiredPerFrame;
+  private long mFrameCallbackTimeNanos;
+  private long mMaxFrameCallbackTimeNanos;
+
   public Timing(ReactApplicationContext reactContext, DevSupportManager devSupportManager) {
+    this(reactContext, devSupportManager, ReactFeatureFlags.useTimerWheel);
+  }
+
+  /**
+   * @param useTimerWheel keep timers in a {@link TimerWheel}, where creating and deleting timers
+   * takes constant time, instead of a priority queue sorted by target time.
+   */
+  public Timing(
+      ReactApplicationContext reactContext,
+      DevSupportManager devSupportManager,
+      boolean useTimerWheel) {
     super(reactContext);
     mDevSupportManager = devSupportManager;
-    // We store timers sorted by finish time.
-    mTimers = new PriorityQueue<Timer>(
-        11, // Default capacity: for some reason they don't expose a (Comparator) constructor
-        new Comparator<Timer>() {
-          @Override
-          public int compare(Timer lhs, Timer rhs) {
-            long diff = lhs.mTargetTime - rhs.mTargetTime;
-            if (diff == 0) {
-              return 0;
-            } else if (diff < 0) {
-              return -1;
-            } else {
-              return 1;
-            }
-          }
-        });
+    mTimers = useTimerWheel ?
+        new TimerWheel(SystemClock.nanoTime() / 1000000) :
+        new PriorityTimerQueue();
     mTimerIdsToTimers = new SparseArray<>();
     mReactChoreographer = ReactChoreographer.getInstance();
   }
@@ -320,6 +342,56 @@ public final class Timing extends ReactContextBaseJavaModule implements Lifecycl
     return NAME;
   }
 
+  /**
+   * Resets the performance counters, so the next {@link #getPerformanceCounters()} covers the
+   * frames from now on.
+   */
+  @Override
+  public synchronized void profileNextBatch() {
+    mFrameCount = 0;
+    mFramesWithTimersCount = 0;
+    mTimersFiredCount = 0;
+    mMaxTimersFiredPerFrame = 0;
+    mFrameCallbackTimeNanos = 0;
+    mMaxFrameCallbackTimeNanos = 0;
+  }
+
+  @Override
+  public synchronized Map<String, Long> getPerformanceCounters() {
+    Map<String, Long> perfMap = new HashMap<>();
+    perfMap.put("Frames", mFrameCount);
+    perfMap.put("FramesWithTimers", mFramesWithTimersCount);
+    perfMap.put("TimersFired", mTimersFiredCount);
+    perfMap.put("MaxTimersFiredPerFrame", mMaxTimersFiredPerFrame);
+    perfMap.put("FrameCallbackTimeNs", mFrameCallbackTimeNanos);
+    perfMap.put("MaxFrameCallbackTimeNs", mMaxFrameCallbackTimeNanos);
+    return perfMap;
+  }
+
+  private synchronized void recordFrame(int timersFired, long frameCallbackTimeNanos) {
+    mFrameCount++;
+    if (timersFired > 0) {
+      mFramesWithTimersCount++;
+      mTimersFiredCount += timersFired;
+      mMaxTimersFiredPerFrame = Math.max(mMaxTimersFiredPerFrame, timersFired);
+    }
+    mFrameCallbackTimeNanos += frameCallbackTimeNanos;
+    mMaxFrameCallbackTimeNanos = Math.max(mMaxFrameCallbackTimeNanos, frameCallbackTimeNanos);
+  }
+
+  /**
+   * Pushes the first {@code count} ids with a single JNI call when the array is native.
+   */
+  private static void pushInts(WritableArray array, int[] values, int count) {
+    if (array instanceof WritableNativeArray) {
+      ((WritableNativeArray) array).pushInts(values, count);
+      return;
+    }
+    for (int i = 0; i < count; i++) {
+      array.pushInt(values[i]);
+    }
+  }
+
   @ReactMethod
   public void createTimer(
       final int callbackID,
@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.modules.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+import android.util.Base64;
+
+import okio.BufferedSource;
+
+/**
+ * Reads a response body in bounded chunks and hands each chunk over as soon as it has been read,
+ * decoding text or base64 encoding binary data one chunk at a time. The whole body is never held
+ * in memory: the buffers are allocated once per response, and only the string of each chunk is
+ * allocated as the body is read.
+ */
+/* package */ class ChunkedResponseReader {
+
+  /* package */ interface ChunkListener {
+    /**
+     * @param bytesRead the number of bytes of the body read so far.
+     */
+    void onChunk(String chunk, long bytesRead);
+  }
+
+  // A multiple of 3, so that base64 encoded chunks can be concatenated without padding in between.
+  /* package */ static final int CHUNK_SIZE_BYTES = 3 * 16 * 1024;
+
+  private final byte[] mBuffer = new byte[CHUNK_SIZE_BYTES];
+
+  /**
+   * Decodes the body with the given charset. Characters split across chunks are carried over to
+   * the next chunk, malformed input is replaced.
+   */
+  /* package */ void readText(
+      BufferedSource source,
+      Charset charset,
+      ChunkListener listener) throws IOException {
+    CharsetDecoder decoder = charset.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    ByteBuffer bytes = ByteBuffer.wrap(mBuffer);
+    CharBuffer chars = CharBuffer.allocate(
+        (int) Math.ceil(CHUNK_SIZE_BYTES * decoder.maxCharsPerByte()));
+    long bytesRead = 0;
+    int carriedOver = 0;
+    boolean endOfInput = false;
+    while (!endOfInput) {
+      int buffered = fill(source, carriedOver);
+      endOfInput = buffered < mBuffer.length;
+      bytesRead += buffered - carriedOver;
+
+      bytes.limit(buffered);
+      bytes.position(0);
+      chars.clear();
+      decoder.decode(bytes, chars, endOfInput);
+      if (endOfInput) {
+        decoder.flush(chars);
+      }
+      carriedOver = bytes.remaining();
+      System.arraycopy(mBuffer, bytes.position(), mBuffer, 0, carriedOver);
+
+      chars.flip();
+      if (chars.hasRemaining()) {
+        listener.onChunk(chars.toString(), bytesRead);
+      }
+    }
+  }
+
+  /**
+   * Base64 encodes the body. The encoded chunks concatenate to the encoding of the whole body.
+   */
+  /* package */ void readBase64(BufferedSource source, ChunkListener listener) throws IOException {
+    long bytesRead = 0;
+    int buffered;
+    do {
+      buffered = fill(source, 0);
+      if (buffered > 0) {
+        bytesRead += buffered;
+        listener.onChunk(Base64.encodeToString(mBuffer, 0, buffered, Base64.NO_WRAP), bytesRead);
+      }
+    } while (buffered == mBuffer.length);
+  }
+
+  /**
+   * Reads into the buffer after the first {@code offset} bytes until it is full or the source is
+   * exhausted.
+   *
+   * @return the number of bytes in the buffer.
+   */
+  private int fill(BufferedSource source, int offset) throws IOException {
+    int count = offset;
+    while (count < mBuffer.length) {
+      int read = source.read(mBuffer, count, mBuffer.length - count);
+      if (read == -1) {
+        break;
+      }
+      count += read;
+    }
+    return count;
+  }
+}
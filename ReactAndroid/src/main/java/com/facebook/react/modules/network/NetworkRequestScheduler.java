@@ -0,0 +1,269 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.modules.network;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+
+import com.facebook.react.common.SystemClock;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import okhttp3.Response;
+
+/**
+ * Decides when the calls of NetworkingModule are handed to OkHttp, which would otherwise run them
+ * in arrival order.
+ *
+ * Calls wait in one queue per priority. Whenever a call finishes, queued calls are started in
+ * order of priority, then arrival, as long as the total, per host and per priority concurrency
+ * limits allow. The total and per host limits are those of the client's {@link Dispatcher}, so it
+ * never has to queue calls itself. A low priority call that is still queued is overtaken by every higher priority
+ * call issued after it, and low priority calls never take more than a few connections, so
+ * prefetches can't hold up requests the user is waiting for.
+ */
+/* package */ class NetworkRequestScheduler {
+
+  public static final int PRIORITY_HIGH = 0;
+  public static final int PRIORITY_NORMAL = 1;
+  public static final int PRIORITY_LOW = 2;
+  private static final int PRIORITY_COUNT = 3;
+  private static final String[] PRIORITY_NAMES = {"High", "Normal", "Low"};
+
+  /* package */ static final int MAX_LOW_PRIORITY_REQUESTS = 2;
+
+  private static class ScheduledCall {
+    private final int mRequestId;
+    private final int mPriority;
+    private final String mHost;
+    private final Call mCall;
+    private final Callback mCallback;
+    private final long mEnqueueTime;
+    private long mStartTime = -1;
+
+    private ScheduledCall(
+        int requestId,
+        int priority,
+        String host,
+        Call call,
+        Callback callback,
+        long enqueueTime) {
+      mRequestId = requestId;
+      mPriority = priority;
+      mHost = host;
+      mCall = call;
+      mCallback = callback;
+      mEnqueueTime = enqueueTime;
+    }
+  }
+
+  private final Dispatcher mDispatcher;
+  private final ArrayList<LinkedList<ScheduledCall>> mQueues = new ArrayList<>(PRIORITY_COUNT);
+  // Calls by request id, from when they are enqueued until they finish.
+  private final HashMap<Integer, ScheduledCall> mCalls = new HashMap<>();
+  private final HashMap<String, Integer> mRunningCallsPerHost = new HashMap<>();
+  private final int[] mRunningCallsPerPriority = new int[PRIORITY_COUNT];
+  private int mRunningCalls;
+
+  // Performance counters
+  private final long[] mStartedCallCounts = new long[PRIORITY_COUNT];
+  private final long[] mQueueWaitTimesMs = new long[PRIORITY_COUNT];
+  private final long[] mMaxQueueWaitTimesMs = new long[PRIORITY_COUNT];
+
+  /* package */ NetworkRequestScheduler(Dispatcher dispatcher) {
+    mDispatcher = dispatcher;
+    for (int i = 0; i < PRIORITY_COUNT; i++) {
+      mQueues.add(new LinkedList<ScheduledCall>());
+    }
+  }
+
+  /**
+   * @return the priority with the given name, {@link #PRIORITY_NORMAL} if it is unknown.
+   */
+  /* package */ static int parsePriority(@Nullable String priority) {
+    if ("high".equals(priority)) {
+      return PRIORITY_HIGH;
+    } else if ("low".equals(priority)) {
+      return PRIORITY_LOW;
+    }
+    return PRIORITY_NORMAL;
+  }
+
+  /**
+   * Enqueues the call with OkHttp right away if the limits allow, or queues it until they do.
+   */
+  /* package */ void enqueue(
+      int requestId,
+      int priority,
+      String host,
+      Call call,
+      Callback callback) {
+    ArrayList<ScheduledCall> callsToStart;
+    synchronized (this) {
+      ScheduledCall scheduledCall =
+          new ScheduledCall(requestId, priority, host, call, callback, SystemClock.uptimeMillis());
+      mCalls.put(requestId, scheduledCall);
+      mQueues.get(priority).add(scheduledCall);
+      callsToStart = takeCallsToStart();
+    }
+    start(callsToStart);
+  }
+
+  /**
+   * Cancels the call of the given request. A call that is still queued is dropped and reported as
+   * canceled to its callback, like OkHttp does for canceled calls. A call that has been started
+   * may not have been handed to OkHttp yet, canceling it makes OkHttp fail it once it is.
+   *
+   * @return false if the request is unknown or its call has finished.
+   */
+  /* package */ boolean cancel(int requestId) {
+    ScheduledCall scheduledCall;
+    boolean wasQueued;
+    synchronized (this) {
+      scheduledCall = mCalls.get(requestId);
+      if (scheduledCall == null) {
+        return false;
+      }
+      wasQueued = scheduledCall.mStartTime == -1;
+      if (wasQueued) {
+        mCalls.remove(requestId);
+        mQueues.get(scheduledCall.mPriority).remove(scheduledCall);
+      }
+    }
+    scheduledCall.mCall.cancel();
+    if (wasQueued) {
+      scheduledCall.mCallback.onFailure(scheduledCall.mCall, new IOException("Canceled"));
+    }
+    return true;
+  }
+
+  /**
+   * @return how long the request has waited, or waited before it was started, in milliseconds.
+   * -1 if the request has completed or is unknown.
+   */
+  /* package */ synchronized long getQueueWaitTimeMs(int requestId) {
+    ScheduledCall scheduledCall = mCalls.get(requestId);
+    if (scheduledCall == null) {
+      return -1;
+    }
+    long endTime =
+        scheduledCall.mStartTime != -1 ? scheduledCall.mStartTime : SystemClock.uptimeMillis();
+    return endTime - scheduledCall.mEnqueueTime;
+  }
+
+  /* package */ synchronized void resetPerformanceCounters() {
+    for (int i = 0; i < PRIORITY_COUNT; i++) {
+      mStartedCallCounts[i] = 0;
+      mQueueWaitTimesMs[i] = 0;
+      mMaxQueueWaitTimesMs[i] = 0;
+    }
+  }
+
+  /* package */ synchronized Map<String, Long> getPerformanceCounters() {
+    Map<String, Long> perfMap = new HashMap<>();
+    int queuedCalls = 0;
+    for (int i = 0; i < PRIORITY_COUNT; i++) {
+      queuedCalls += mQueues.get(i).size();
+      perfMap.put(PRIORITY_NAMES[i] + "PriorityRequests", mStartedCallCounts[i]);
+      perfMap.put(PRIORITY_NAMES[i] + "PriorityQueueWaitTimeMs", mQueueWaitTimesMs[i]);
+      perfMap.put(PRIORITY_NAMES[i] + "PriorityMaxQueueWaitTimeMs", mMaxQueueWaitTimesMs[i]);
+    }
+    perfMap.put("QueuedRequests", (long) queuedCalls);
+    perfMap.put("RunningRequests", (long) mRunningCalls);
+    return perfMap;
+  }
+
+  private void onFinished(ScheduledCall scheduledCall) {
+    ArrayList<ScheduledCall> callsToStart;
+    synchronized (this) {
+      mCalls.remove(scheduledCall.mRequestId);
+      mRunningCalls--;
+      mRunningCallsPerPriority[scheduledCall.mPriority]--;
+      int runningCallsForHost = mRunningCallsPerHost.get(scheduledCall.mHost);
+      if (runningCallsForHost == 1) {
+        mRunningCallsPerHost.remove(scheduledCall.mHost);
+      } else {
+        mRunningCallsPerHost.put(scheduledCall.mHost, runningCallsForHost - 1);
+      }
+      callsToStart = takeCallsToStart();
+    }
+    start(callsToStart);
+  }
+
+  /**
+   * Marks the calls that can start now as running. They are handed to OkHttp once the lock is
+   * released.
+   */
+  private ArrayList<ScheduledCall> takeCallsToStart() {
+    ArrayList<ScheduledCall> callsToStart = new ArrayList<>();
+    long now = SystemClock.uptimeMillis();
+    // The limits can be changed on the dispatcher at any time.
+    int maxRequests = mDispatcher.getMaxRequests();
+    int maxRequestsPerHost = mDispatcher.getMaxRequestsPerHost();
+    for (int priority = 0; priority < PRIORITY_COUNT; priority++) {
+      int maxRequestsForPriority =
+          priority == PRIORITY_LOW ? MAX_LOW_PRIORITY_REQUESTS : maxRequests;
+      Iterator<ScheduledCall> queue = mQueues.get(priority).iterator();
+      while (queue.hasNext() &&
+          mRunningCalls < maxRequests &&
+          mRunningCallsPerPriority[priority] < maxRequestsForPriority) {
+        ScheduledCall scheduledCall = queue.next();
+        Integer runningCallsForHost = mRunningCallsPerHost.get(scheduledCall.mHost);
+        if (runningCallsForHost != null && runningCallsForHost >= maxRequestsPerHost) {
+          continue;
+        }
+        queue.remove();
+        mRunningCalls++;
+        mRunningCallsPerPriority[priority]++;
+        mRunningCallsPerHost.put(
+            scheduledCall.mHost,
+            runningCallsForHost == null ? 1 : runningCallsForHost + 1);
+
+        scheduledCall.mStartTime = now;
+        long queueWaitTimeMs = now - scheduledCall.mEnqueueTime;
+        mStartedCallCounts[priority]++;
+        mQueueWaitTimesMs[priority] += queueWaitTimeMs;
+        mMaxQueueWaitTimesMs[priority] = Math.max(mMaxQueueWaitTimesMs[priority], queueWaitTimeMs);
+        callsToStart.add(scheduledCall);
+      }
+    }
+    return callsToStart;
+  }
+
+  private void start(ArrayList<ScheduledCall> callsToStart) {
+    for (int i = 0; i < callsToStart.size(); i++) {
+      final ScheduledCall scheduledCall = callsToStart.get(i);
+      scheduledCall.mCall.enqueue(new Callback() {
+        @Override
+        public void onFailure(Call call, IOException e) {
+          try {
+            scheduledCall.mCallback.onFailure(call, e);
+          } finally {
+            onFinished(scheduledCall);
+          }
+        }
+
+        @Override
+        public void onResponse(Call call, Response response) throws IOException {
+          try {
+            scheduledCall.mCallback.onResponse(call, response);
+          } finally {
+            onFinished(scheduledCall);
+          }
+        }
+      });
+    }
+  }
+}
@@ -16,9 +16,11 @@ import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.PerformanceCounter;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.common.StandardCharsets;
 import com.facebook.react.common.network.OkHttpCallUtil;
+import com.facebook.react.config.ReactFeatureFlags;
 import com.facebook.react.module.annotations.ReactModule;
 import com.facebook.react.modules.core.DeviceEventManagerModule.RCTDeviceEventEmitter;
 
@@ -28,6 +30,7 @@ import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -46,6 +49,7 @@ import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
+import okio.BufferedSource;
 import okio.ByteString;
 import okio.GzipSource;
 import okio.Okio;
@@ -54,7 +58,8 @@ import okio.Okio;
  * Implements the XMLHttpRequest JavaScript interface.
  */
 @ReactModule(name = NetworkingModule.NAME)
-public final class NetworkingModule extends ReactContextBaseJavaModule {
+public final class NetworkingModule extends ReactContextBaseJavaModule
+    implements PerformanceCounter {
 
   /**
    * Allows to implement a custom fetching process for specific URIs. It is the handler's job
@@ -110,20 +115,34 @@ public final class NetworkingModule extends ReactContextBaseJavaModule {
   private static final String REQUEST_BODY_KEY_URI = "uri";
   private static final String REQUEST_BODY_KEY_FORMDATA = "formData";
   private static final String REQUEST_BODY_KEY_BASE64 = "base64";
+  private static final String REQUEST_KEY_PRIORITY = "priority";
   private static final String USER_AGENT_HEADER_NAME = "user-agent";
   private static final int CHUNK_TIMEOUT_NS = 100 * 1000000; // 100ms
   private static final int MAX_CHUNK_SIZE_BETWEEN_FLUSHES = 8 * 1024; // 8K
+  private static final ProgressListener NO_OP_LISTENER = new ProgressListener() {
+    @Override
+    public void onProgress(long bytesWritten, long contentLength, boolean done) {
+    }
+  };
 
   private final OkHttpClient mClient;
   private final ForwardingCookieHandler mCookieHandler;
   private final @Nullable String mDefaultUserAgent;
   private final CookieJarContainer mCookieJarContainer;
   private final Set<Integer> mRequestIds;
+  private final NetworkRequestScheduler mScheduler;
+  private final RequestCoalescer mCoalescer = new RequestCoalescer();
   private final List<RequestBodyHandler> mRequestBodyHandlers = new ArrayList<>();
   private final List<UriHandler> mUriHandlers = new ArrayList<>();
   private final List<ResponseHandler> mResponseHandlers = new ArrayList<>();
   private boolean mShuttingDown;
 
+  // Performance counters
+  private long mResponseCount;
+  private long mCacheHitCount;
+  private long mCacheBytesSaved;
+  private long mCoalescingBytesSaved;
+
   /* package */ NetworkingModule(
       ReactApplicationContext reactContext,
       @Nullable String defaultUserAgent,
@@ -139,6 +158,7 @@ public final class NetworkingModule extends ReactContextBaseJavaModule {
       client = clientBuilder.build();
     }
     mClient = client;
+    mScheduler = new NetworkRequestScheduler(mClient.dispatcher());
     mCookieHandler = new ForwardingCookieHandler(reactContext);
     mCookieJarContainer = (CookieJarContainer) mClient.cookieJar();
     mShuttingDown = false;
@@ -163,7 +183,7 @@ public final class NetworkingModule extends ReactContextBaseJavaModule {
    * @param context the ReactContext of the application
    */
   public NetworkingModule(final ReactApplicationContext context) {
-    this(context, null, OkHttpClientProvider.createClient(), null);
+    this(context, null, OkHttpClientProvider.createClient(context), null);
   }
 
   /**
@@ -174,7 +194,7 @@ public final class NetworkingModule extends ReactContextBaseJavaModule {
   public NetworkingModule(
     ReactApplicationContext context,
     List<NetworkInterceptorCreator> networkInterceptorCreators) {
-    this(context, null, OkHttpClientProvider.createClient(), networkInterceptorCreators);
+    this(context, null, OkHttpClientProvider.createClient(context), networkInterceptorCreators);
   }
 
   /**
@@ -183,7 +203,7 @@ public final class NetworkingModule extends ReactContextBaseJavaModule {
    * caller does not provide one explicitly
    */
   public NetworkingModule(ReactApplicationContext context, String defaultUserAgent) {
-    this(context, defaultUserAgent, OkHttpClientProvider.createClient(), null);
+    this(context, defaultUserAgent, OkHttpClientProvider.createClient(context), null);
   }
 
   @Override
@@ -196,6 +216,44 @@ public final class NetworkingModule extends ReactContextBaseJavaModule {
     return NAME;
   }
 
+  /**
+   * Resets the request scheduler's and response counters, so the next
+   * {@link #getPerformanceCounters()} covers the requests started from now on.
+   */
+  @Override
+  public void profileNextBatch() {
+    mScheduler.resetPerformanceCounters();
+    mCoalescer.resetPerformanceCounters();
+    synchronized (this) {
+      mResponseCount = 0;
+      mCacheHitCount = 0;
+      mCacheBytesSaved = 0;
+      mCoalescingBytesSaved = 0;
+    }
+  }
+
+  /**
+   * @return the number of requests started per priority and how long they were queued, along with
+   * the number of requests currently queued and running, the share of responses served from the
+   * HTTP cache and the number of requests that joined an identical one in flight, with the body
+   * bytes each saved downloading.
+   */
+  @Override
+  public Map<String, Long> getPerformanceCounters() {
+    Map<String, Long> perfMap = mScheduler.getPerformanceCounters();
+    perfMap.put("CoalescedRequests", mCoalescer.getCoalescedRequestCount());
+    synchronized (this) {
+      perfMap.put("Responses", mResponseCount);
+      perfMap.put("CacheHits", mCacheHitCount);
+      perfMap.put(
+          "CacheHitRatioPercent",
+          mResponseCount > 0 ? mCacheHitCount * 100 / mResponseCount : 0);
+      perfMap.put("CacheBytesSaved", mCacheBytesSaved);
+      perfMap.put("CoalescingBytesSaved", mCoalescingBytesSaved);
+    }
+    return perfMap;
+  }
+
   @Override
   public void onCatalystInstanceDestroy() {
     mShuttingDown = true;
@@ -427,19 +485,46 @@ public final class NetworkingModule extends ReactContextBaseJavaModule {
       method,
       wrapRequestBodyWithProgressEmitter(requestBody, eventEmitter, requestId));
 
+    int priority = NetworkRequestScheduler.parsePriority(
+        data != null && data.hasKey(REQUEST_KEY_PRIORITY) && !data.isNull(REQUEST_KEY_PRIORITY) ?
+            data.getString(REQUEST_KEY_PRIORITY) :
+            null);
+    Request request = requestBuilder.build();
     addRequest(requestId);
-    client.newCall(requestBuilder.build()).enqueue(
+
+    // Identical GETs in flight at the same time share one call, as long as their responses are
+    // read in one piece and can be sent to each of them.
+    final @Nullable RequestCoalescer.InFlightRequest inFlightRequest;
+    if (ReactFeatureFlags.coalesceNetworkRequests &&
+        isCoalescible(method, responseType, useIncrementalUpdates)) {
+      inFlightRequest = mCoalescer.join(
+          RequestCoalescer.getKey(request, responseType, withCredentials, timeout),
+          requestId);
+      if (!inFlightRequest.isCalledBy(requestId)) {
+        return;
+      }
+    } else {
+      inFlightRequest = null;
+    }
+
+    mScheduler.enqueue(
+        requestId,
+        priority,
+        request.url().host(),
+        client.newCall(request),
         new Callback() {
           @Override
           public void onFailure(Call call, IOException e) {
             if (mShuttingDown) {
               return;
             }
-            removeRequest(requestId);
             String errorMessage = e.getMessage() != null
                     ? e.getMessage()
                     : "Error while executing request: " + e.getClass().getSimpleName();
-            ResponseUtil.onRequestError(eventEmitter, requestId, errorMessage, e);
+            for (int waitingRequestId : getWaitingRequestIds(requestId, inFlightRequest)) {
+              removeRequest(waitingRequestId);
+              ResponseUtil.onRequestError(eventEmitter, waitingRequestId, errorMessage, e);
+            }
           }
 
           @Override
@@ -447,15 +532,21 @@ public final class NetworkingModule extends ReactContextBaseJavaModule {
             if (mShuttingDown) {
               return;
             }
-            removeRequest(requestId);
+            int[] requestIds = getWaitingRequestIds(requestId, inFlightRequest);
             // Before we touch the body send headers to JS
-            ResponseUtil.onResponseReceived(
-              eventEmitter,
-              requestId,
-              response.code(),
-              translateHeaders(response.headers()),
-              response.request().url().toString());
+            for (int waitingRequestId : requestIds) {
+              removeRequest(waitingRequestId);
+              ResponseUtil.onResponseReceived(
+                eventEmitter,
+                waitingRequestId,
+                response.code(),
+                translateHeaders(response.headers()),
+                response.request().url().toString());
+            }
 
+            // Count the body bytes that were read from the cache or sent to more than one
+            // request, rather than downloaded for each of them.
+            ProgressResponseBody countedResponseBody = null;
             try {
               // OkHttp implements something called transparent gzip, which mean that it will
               // automatically add the Accept-Encoding gzip header and handle decoding internally.
@@ -475,23 +566,41 @@ public final class NetworkingModule extends ReactContextBaseJavaModule {
                     -1L,
                     Okio.buffer(gzipSource));
               }
+              if (responseBody != null &&
+                  (response.cacheResponse() != null || requestIds.length > 1)) {
+                countedResponseBody = new ProgressResponseBody(responseBody, NO_OP_LISTENER);
+                responseBody = countedResponseBody;
+              }
+
+              // Coalesced requests were only joined if their responses are read in one piece
+              // below.
+              if (inFlightRequest == null) {
+                // Check if a handler is registered
+                for (ResponseHandler handler : mResponseHandlers) {
+                  if (handler.supports(responseType)) {
+                    WritableMap res = handler.toResponseData(responseBody);
+                    ResponseUtil.onDataReceived(eventEmitter, requestId, res);
+                    ResponseUtil.onRequestSuccess(eventEmitter, requestId);
+                    return;
+                  }
+                }
 
-              // Check if a handler is registered
-              for (ResponseHandler handler : mResponseHandlers) {
-                if (handler.supports(responseType)) {
-                  WritableMap res = handler.toResponseData(responseBody);
-                  ResponseUtil.onDataReceived(eventEmitter, requestId, res);
+                // Forward the body to JS chunk by chunk as it is read, instead of reading all of
+                // it into memory first.
+                if (ReactFeatureFlags.useStreamingNetworkResponses &&
+                    (responseType.equals("text") || responseType.equals("base64"))) {
+                  readInChunks(eventEmitter, requestId, responseType, responseBody);
                   ResponseUtil.onRequestSuccess(eventEmitter, requestId);
                   return;
                 }
-              }
 
-              // If JS wants progress updates during the download, and it requested a text response,
-              // periodically send response data updates to JS.
-              if (useIncrementalUpdates && responseType.equals("text")) {
-                readWithProgress(eventEmitter, requestId, responseBody);
-                ResponseUtil.onRequestSuccess(eventEmitter, requestId);
-                return;
+                // If JS wants progress updates during the download, and it requested a text
+                // response, periodically send response data updates to JS.
+                if (useIncrementalUpdates && responseType.equals("text")) {
+                  readWithProgress(eventEmitter, requestId, responseBody);
+                  ResponseUtil.onRequestSuccess(eventEmitter, requestId);
+                  return;
+                }
               }
 
               // Otherwise send the data in one big chunk, in the format that JS requested.
@@ -507,21 +616,74 @@ public final class NetworkingModule extends ReactContextBaseJavaModule {
                     // Javascript layer.
                     // Introduced to fix issue #7463.
                   } else {
-                    ResponseUtil.onRequestError(eventEmitter, requestId, e.getMessage(), e);
+                    for (int waitingRequestId : requestIds) {
+                      ResponseUtil.onRequestError(
+                          eventEmitter,
+                          waitingRequestId,
+                          e.getMessage(),
+                          e);
+                    }
                   }
                 }
               } else if (responseType.equals("base64")) {
                 responseString = Base64.encodeToString(responseBody.bytes(), Base64.NO_WRAP);
               }
-              ResponseUtil.onDataReceived(eventEmitter, requestId, responseString);
-              ResponseUtil.onRequestSuccess(eventEmitter, requestId);
+              for (int waitingRequestId : requestIds) {
+                ResponseUtil.onDataReceived(eventEmitter, waitingRequestId, responseString);
+                ResponseUtil.onRequestSuccess(eventEmitter, waitingRequestId);
+              }
             } catch (IOException e) {
-              ResponseUtil.onRequestError(eventEmitter, requestId, e.getMessage(), e);
+              for (int waitingRequestId : requestIds) {
+                ResponseUtil.onRequestError(eventEmitter, waitingRequestId, e.getMessage(), e);
+              }
+            } finally {
+              recordResponse(
+                  response,
+                  countedResponseBody != null ? countedResponseBody.totalBytesRead() : 0,
+                  requestIds.length);
             }
           }
         });
   }
 
+  private boolean isCoalescible(
+      String method,
+      String responseType,
+      boolean useIncrementalUpdates) {
+    if (!method.equalsIgnoreCase("GET") ||
+        useIncrementalUpdates ||
+        ReactFeatureFlags.useStreamingNetworkResponses ||
+        !(responseType.equals("text") || responseType.equals("base64"))) {
+      return false;
+    }
+    for (ResponseHandler handler : mResponseHandlers) {
+      if (handler.supports(responseType)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int[] getWaitingRequestIds(
+      int requestId,
+      @Nullable RequestCoalescer.InFlightRequest inFlightRequest) {
+    return inFlightRequest != null ? mCoalescer.finish(inFlightRequest) : new int[] {requestId};
+  }
+
+  private synchronized void recordResponse(
+      Response response,
+      long countedBodyBytes,
+      int requestCount) {
+    mResponseCount++;
+    if (response.cacheResponse() != null) {
+      mCacheHitCount++;
+      mCacheBytesSaved += countedBodyBytes;
+    }
+    if (requestCount > 1) {
+      mCoalescingBytesSaved += countedBodyBytes * (requestCount - 1);
+    }
+  }
+
   private RequestBody wrapRequestBodyWithProgressEmitter(
       final RequestBody requestBody,
       final RCTDeviceEventEmitter eventEmitter,
@@ -580,6 +742,43 @@ public final class NetworkingModule extends ReactContextBaseJavaModule {
     }
   }
 
+  /**
+   * Sends the body to JS as incremental data, which JS appends to the response. Base64 encoded
+   * chunks concatenate to the encoding of the whole body.
+   */
+  private void readInChunks(
+      final RCTDeviceEventEmitter eventEmitter,
+      final int requestId,
+      String responseType,
+      ResponseBody responseBody) throws IOException {
+    final long contentLength = responseBody.contentLength();
+    ChunkedResponseReader.ChunkListener listener = new ChunkedResponseReader.ChunkListener() {
+      @Override
+      public void onChunk(String chunk, long bytesRead) {
+        ResponseUtil.onIncrementalDataReceived(
+          eventEmitter,
+          requestId,
+          chunk,
+          bytesRead,
+          contentLength);
+      }
+    };
+
+    ChunkedResponseReader reader = new ChunkedResponseReader();
+    BufferedSource source = responseBody.source();
+    try {
+      if (responseType.equals("text")) {
+        Charset charset = responseBody.contentType() == null ? StandardCharsets.UTF_8 :
+          responseBody.contentType().charset(StandardCharsets.UTF_8);
+        reader.readText(source, charset, listener);
+      } else {
+        reader.readBase64(source, listener);
+      }
+    } finally {
+      source.close();
+    }
+  }
+
   private static boolean shouldDispatch(long now, long last) {
     return last + CHUNK_TIMEOUT_NS < now;
   }
@@ -592,6 +791,17 @@ public final class NetworkingModule extends ReactContextBaseJavaModule {
     mRequestIds.remove(requestId);
   }
 
+  /**
+   * @return how long the request has been, or was, queued by the scheduler before it was handed
+   * to OkHttp, in milliseconds. -1 if the request isn't in flight.
+   */
+  public synchronized long getQueueWaitTimeMs(int requestId) {
+    if (!mRequestIds.contains(requestId)) {
+      return -1;
+    }
+    return mScheduler.getQueueWaitTimeMs(requestId);
+  }
+
   private synchronized void cancelAllRequests() {
     for (Integer requestId : mRequestIds) {
       cancelRequest(requestId);
@@ -621,13 +831,19 @@ public final class NetworkingModule extends ReactContextBaseJavaModule {
     removeRequest(requestId);
   }
 
-  private void cancelRequest(final int requestId) {
+  private void cancelRequest(int requestId) {
+    // A request that shares its call with others only stops waiting for it.
+    final int callRequestId = mCoalescer.leave(requestId);
+    if (callRequestId == RequestCoalescer.NO_REQUEST) {
+      return;
+    }
     // We have to use AsyncTask since this might trigger a NetworkOnMainThreadException, this is an
     // open issue on OkHttp: https://github.com/square/okhttp/issues/869
     new GuardedAsyncTask<Void, Void>(getReactApplicationContext()) {
       @Override
       protected void doInBackgroundGuarded(Void... params) {
-        OkHttpCallUtil.cancelTag(mClient, Integer.valueOf(requestId));
+        mScheduler.cancel(callRequestId);
+        OkHttpCallUtil.cancelTag(mClient, Integer.valueOf(callRequestId));
       }
     }.execute();
   }
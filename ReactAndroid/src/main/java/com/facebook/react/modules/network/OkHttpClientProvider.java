@@ -7,16 +7,19 @@
 
 package com.facebook.react.modules.network;
 
+import android.content.Context;
 import android.os.Build;
 
 import com.facebook.common.logging.FLog;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
 
+import okhttp3.Cache;
 import okhttp3.ConnectionSpec;
 import okhttp3.OkHttpClient;
 import okhttp3.TlsVersion;
@@ -27,6 +30,14 @@ import okhttp3.TlsVersion;
  */
 public class OkHttpClientProvider {
 
+  private static final String CACHE_DIRECTORY_NAME = "http-cache";
+
+  // Size of the HTTP response cache of clients created for a context, 0 for no cache.
+  private static int sCacheSizeBytes = 0;
+
+  // Shared by the clients created for a context, so that one Cache owns the cache directory.
+  private static @Nullable Cache sCache;
+
   // Centralized OkHttpClient for all networking requests.
   private static @Nullable OkHttpClient sClient;
 
@@ -37,6 +48,17 @@ public class OkHttpClientProvider {
     sFactory = factory;
   }
 
+  /**
+   * Enables the HTTP response cache of clients created for a context, which is off by default.
+   * The cache is created once per process, with the size set when the first of these clients is
+   * created.
+   *
+   * @param cacheSizeBytes the maximum size of the cache in bytes, 0 for no cache
+   */
+  public static void setCacheSize(int cacheSizeBytes) {
+    sCacheSizeBytes = cacheSizeBytes;
+  }
+
   public static OkHttpClient getOkHttpClient() {
     if (sClient == null) {
       sClient = createClient();
@@ -57,6 +79,17 @@ public class OkHttpClientProvider {
     return createClientBuilder().build();
   }
 
+  /**
+   * Creates a client that caches responses in the application's cache directory, according to
+   * their cache headers, if a cache size was set with {@link #setCacheSize}.
+   */
+  public static OkHttpClient createClient(Context context) {
+    if (sFactory != null) {
+      return sFactory.createNewNetworkModuleClient();
+    }
+    return createClientBuilder(context).build();
+  }
+
   public static OkHttpClient.Builder createClientBuilder() {
     // No timeouts by default
     OkHttpClient.Builder client = new OkHttpClient.Builder()
@@ -68,6 +101,30 @@ public class OkHttpClientProvider {
     return enableTls12OnPreLollipop(client);
   }
 
+  public static OkHttpClient.Builder createClientBuilder(Context context) {
+    return createClientBuilder(context, sCacheSizeBytes);
+  }
+
+  /**
+   * @param cacheSize the maximum size of the HTTP response cache in bytes, 0 for no cache. Only
+   * used if no client created for a context has a cache yet.
+   */
+  public static OkHttpClient.Builder createClientBuilder(Context context, int cacheSize) {
+    OkHttpClient.Builder client = createClientBuilder();
+    if (cacheSize == 0) {
+      return client;
+    }
+    return client.cache(getCache(context, cacheSize));
+  }
+
+  private static synchronized Cache getCache(Context context, int cacheSize) {
+    if (sCache == null) {
+      File cacheDirectory = new File(context.getCacheDir(), CACHE_DIRECTORY_NAME);
+      sCache = new Cache(cacheDirectory, cacheSize);
+    }
+    return sCache;
+  }
+
   /*
     On Android 4.1-4.4 (API level 16 to 19) TLS 1.1 and 1.2 are
     available but not enabled by default. The following method
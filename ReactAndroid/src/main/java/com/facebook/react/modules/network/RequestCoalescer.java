@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.modules.network;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import okhttp3.Request;
+
+/**
+ * Joins identical GET requests that are in flight at the same time, so that only the first one
+ * goes to the network and its response is sent to every request that joined it.
+ *
+ * Requests are identical when they have the same URL and headers, and are read the same way.
+ * Aborting one request of a group only detaches it, the shared call is canceled once the last
+ * request waiting for it is aborted.
+ */
+/* package */ class RequestCoalescer {
+
+  /* package */ static final int NO_REQUEST = -1;
+
+  /* package */ static class InFlightRequest {
+    private final String mKey;
+    private final int mCallRequestId;
+    private final ArrayList<Integer> mRequestIds = new ArrayList<>();
+
+    private InFlightRequest(String key, int callRequestId) {
+      mKey = key;
+      mCallRequestId = callRequestId;
+    }
+
+    /**
+     * @return whether the request with the given id has to make the call that the requests of this
+     * group wait for.
+     */
+    /* package */ boolean isCalledBy(int requestId) {
+      return mCallRequestId == requestId;
+    }
+  }
+
+  private final HashMap<String, InFlightRequest> mInFlightRequests = new HashMap<>();
+  private final HashMap<Integer, InFlightRequest> mInFlightRequestsById = new HashMap<>();
+  private long mCoalescedRequestCount;
+
+  /**
+   * @return the key identifying requests identical to the given one.
+   */
+  /* package */ static String getKey(
+      Request request,
+      String responseType,
+      boolean withCredentials,
+      int timeout) {
+    return request.url() + "\n" +
+        request.headers() +
+        responseType + "\n" +
+        withCredentials + "\n" +
+        timeout;
+  }
+
+  /**
+   * Adds the request to the in-flight request with the same key, or starts a new one that the
+   * request has to make the call for.
+   */
+  /* package */ synchronized InFlightRequest join(String key, int requestId) {
+    InFlightRequest inFlightRequest = mInFlightRequests.get(key);
+    if (inFlightRequest == null) {
+      inFlightRequest = new InFlightRequest(key, requestId);
+      mInFlightRequests.put(key, inFlightRequest);
+    } else {
+      mCoalescedRequestCount++;
+    }
+    inFlightRequest.mRequestIds.add(requestId);
+    mInFlightRequestsById.put(requestId, inFlightRequest);
+    return inFlightRequest;
+  }
+
+  /**
+   * Called once the call of the in-flight request completed. Requests with the same key issued
+   * after this make a new call.
+   *
+   * @return the ids of the requests still waiting for the response.
+   */
+  /* package */ synchronized int[] finish(InFlightRequest inFlightRequest) {
+    if (mInFlightRequests.get(inFlightRequest.mKey) == inFlightRequest) {
+      mInFlightRequests.remove(inFlightRequest.mKey);
+    }
+    int[] requestIds = new int[inFlightRequest.mRequestIds.size()];
+    for (int i = 0; i < requestIds.length; i++) {
+      requestIds[i] = inFlightRequest.mRequestIds.get(i);
+      mInFlightRequestsById.remove(requestIds[i]);
+    }
+    inFlightRequest.mRequestIds.clear();
+    return requestIds;
+  }
+
+  /**
+   * Detaches the aborted request from its in-flight request.
+   *
+   * @return the id of the request whose call has to be canceled, {@link #NO_REQUEST} if other
+   * requests still wait for it.
+   */
+  /* package */ synchronized int leave(int requestId) {
+    InFlightRequest inFlightRequest = mInFlightRequestsById.remove(requestId);
+    if (inFlightRequest == null) {
+      return requestId;
+    }
+    inFlightRequest.mRequestIds.remove(Integer.valueOf(requestId));
+    if (!inFlightRequest.mRequestIds.isEmpty()) {
+      return NO_REQUEST;
+    }
+    if (mInFlightRequests.get(inFlightRequest.mKey) == inFlightRequest) {
+      mInFlightRequests.remove(inFlightRequest.mKey);
+    }
+    return inFlightRequest.mCallRequestId;
+  }
+
+  /* package */ synchronized long getCoalescedRequestCount() {
+    return mCoalescedRequestCount;
+  }
+
+  /* package */ synchronized void resetPerformanceCounters() {
+    mCoalescedRequestCount = 0;
+  }
+}
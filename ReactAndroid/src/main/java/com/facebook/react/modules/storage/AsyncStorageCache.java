@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.modules.storage;
+
+import javax.annotation.Nullable;
+
+import java.util.HashMap;
+
+import android.util.LruCache;
+
+/**
+ * Bounded in-memory LRU of the values of recently read and written AsyncStorage keys, including
+ * keys known to have no value.
+ *
+ * Writes register their keys with {@link #beginWrite} when they are issued and
+ * {@link #endWrite} once they have been committed or rolled back. While a key has writes pending
+ * it is treated as not cached, so a read issued after a write never observes the value from
+ * before it.
+ *
+ * Values are put with the generation (see {@link #getGeneration}) read when the operation that
+ * produced them started. Clearing the cache starts a new generation, so values read from the
+ * database before a clear are dropped rather than cached after it.
+ */
+/* package */ class AsyncStorageCache {
+
+  // Marks keys that are known not to be in the database.
+  private static final Object NO_VALUE = new Object();
+
+  private final LruCache<String, Object> mValues;
+  private final HashMap<String, Integer> mPendingWrites = new HashMap<>();
+  private int mPendingClears;
+  private int mGeneration;
+
+  /* package */ AsyncStorageCache(int maxSizeBytes) {
+    mValues = new LruCache<String, Object>(maxSizeBytes) {
+      @Override
+      protected int sizeOf(String key, Object value) {
+        int chars = key.length() + (value instanceof String ? ((String) value).length() : 0);
+        return chars * 2;
+      }
+    };
+  }
+
+  /**
+   * Looks up all the given keys.
+   *
+   * @param values filled with the cached values, null for keys known to have no value.
+   * @return true if every key was cached, in which case {@code values} is complete.
+   */
+  /* package */ synchronized boolean get(String[] keys, String[] values) {
+    if (mPendingClears > 0) {
+      return false;
+    }
+    for (int i = 0; i < keys.length; i++) {
+      String key = keys[i];
+      if (key == null || mPendingWrites.containsKey(key)) {
+        return false;
+      }
+      Object value = mValues.get(key);
+      if (value == null) {
+        return false;
+      }
+      values[i] = value == NO_VALUE ? null : (String) value;
+    }
+    return true;
+  }
+
+  /**
+   * @return the current generation, to be read before the database is accessed.
+   */
+  /* package */ synchronized int getGeneration() {
+    return mGeneration;
+  }
+
+  /**
+   * Records the value of a key as read from, or committed to, the database, unless the cache has
+   * been cleared since the given generation.
+   */
+  /* package */ synchronized void put(String key, @Nullable String value, int generation) {
+    if (generation == mGeneration) {
+      mValues.put(key, value == null ? NO_VALUE : value);
+    }
+  }
+
+  /* package */ synchronized void remove(String key) {
+    mValues.remove(key);
+  }
+
+  /* package */ synchronized void beginWrite(String key) {
+    Integer pending = mPendingWrites.get(key);
+    mPendingWrites.put(key, pending == null ? 1 : pending + 1);
+  }
+
+  /* package */ synchronized void endWrite(String key) {
+    Integer pending = mPendingWrites.get(key);
+    if (pending == null || pending <= 1) {
+      mPendingWrites.remove(key);
+    } else {
+      mPendingWrites.put(key, pending - 1);
+    }
+  }
+
+  /* package */ synchronized void beginClear() {
+    mPendingClears++;
+  }
+
+  /* package */ synchronized void endClear() {
+    mValues.evictAll();
+    mGeneration++;
+    mPendingClears--;
+  }
+}
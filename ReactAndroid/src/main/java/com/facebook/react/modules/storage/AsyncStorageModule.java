@@ -7,7 +7,8 @@
 
 package com.facebook.react.modules.storage;
 
-import java.util.ArrayDeque;
+import javax.annotation.Nullable;
+
 import java.util.HashSet;
 import java.util.concurrent.Executor;
 
@@ -23,10 +24,12 @@ import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableType;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.common.ReactConstants;
 import com.facebook.react.common.annotations.VisibleForTesting;
+import com.facebook.react.config.ReactFeatureFlags;
 import com.facebook.react.module.annotations.ReactModule;
 import com.facebook.react.modules.common.ModuleDataCleaner;
 
@@ -44,51 +47,40 @@ public final class AsyncStorageModule
   // https://raw.githubusercontent.com/android/platform_external_sqlite/master/dist/sqlite3.c
   private static final int MAX_SQL_KEYS = 999;
 
+  private static final int READ_CACHE_SIZE_BYTES = 1024 * 1024;
+
+  private static final int MAX_CONCURRENT_READS = 4;
+
   private ReactDatabaseSupplier mReactDatabaseSupplier;
+  // Only used with ReactFeatureFlags.useAsyncStorageReadCache
+  private final @Nullable AsyncStorageCache mCache;
   private boolean mShuttingDown = false;
 
-  // Adapted from https://android.googlesource.com/platform/frameworks/base.git/+/1488a3a19d4681a41fb45570c15e14d99db1cb66/core/java/android/os/AsyncTask.java#237
-  private class SerialExecutor implements Executor {
-    private final ArrayDeque<Runnable> mTasks = new ArrayDeque<Runnable>();
-    private Runnable mActive;
-    private final Executor executor;
+  private final AsyncStorageScheduler mScheduler;
 
-    SerialExecutor(Executor executor) {
-      this.executor = executor;
-    }
-
-    public synchronized void execute(final Runnable r) {
-      mTasks.offer(new Runnable() {
-        public void run() {
-          try {
-            r.run();
-          } finally {
-            scheduleNext();
-          }
-        }
-      });
-      if (mActive == null) {
-        scheduleNext();
-      }
-    }
-    synchronized void scheduleNext() {
-      if ((mActive = mTasks.poll()) != null) {
-        executor.execute(mActive);
-      }
-    }
-  }
-
-  private final SerialExecutor executor;
-  
   public AsyncStorageModule(ReactApplicationContext reactContext) {
     this(reactContext, AsyncTask.THREAD_POOL_EXECUTOR);
   }
 
   @VisibleForTesting
   AsyncStorageModule(ReactApplicationContext reactContext, Executor executor) {
+    this(reactContext, executor, ReactFeatureFlags.useAsyncStorageReadCache);
+  }
+
+  @VisibleForTesting
+  AsyncStorageModule(
+      ReactApplicationContext reactContext,
+      Executor executor,
+      boolean useReadCache) {
     super(reactContext);
-    this.executor = new SerialExecutor(executor);
+    mScheduler = new AsyncStorageScheduler(executor, MAX_CONCURRENT_READS);
     mReactDatabaseSupplier = ReactDatabaseSupplier.getInstance(reactContext);
+    if (useReadCache) {
+      mCache = new AsyncStorageCache(READ_CACHE_SIZE_BYTES);
+      mReactDatabaseSupplier.setWriteAheadLoggingEnabled(true);
+    } else {
+      mCache = null;
+    }
   }
 
   @Override
@@ -96,6 +88,14 @@ public final class AsyncStorageModule
     return NAME;
   }
 
+  /**
+   * Reads of the given keys, e.g. the ones needed to render the first screen, are started ahead
+   * of other reads.
+   */
+  public void addPriorityKeys(Iterable<String> keys) {
+    mScheduler.addPriorityKeys(keys);
+  }
+
   @Override
   public void initialize() {
     super.initialize();
@@ -112,7 +112,18 @@ public final class AsyncStorageModule
     // Clear local storage. If fails, crash, since the app is potentially in a bad state and could
     // cause a privacy violation. We're still not recovering from this well, but at least the error
     // will be reported to the server.
-    mReactDatabaseSupplier.clearAndCloseDatabase();
+    // This doesn't wait for the operations already running, so the cache is not served while the
+    // database is cleared, and values they read before the clear are not cached after it.
+    if (mCache != null) {
+      mCache.beginClear();
+    }
+    try {
+      mReactDatabaseSupplier.clearAndCloseDatabase();
+    } finally {
+      if (mCache != null) {
+        mCache.endClear();
+      }
+    }
   }
 
   /**
@@ -126,9 +137,15 @@ public final class AsyncStorageModule
       return;
     }
 
+    final String[] keyStrings = getKeys(keys);
+    if (mCache != null && multiGetFromCache(keyStrings, callback)) {
+      return;
+    }
+
     new GuardedAsyncTask<Void, Void>(getReactApplicationContext()) {
       @Override
       protected void doInBackgroundGuarded(Void... params) {
+        int cacheGeneration = mCache != null ? mCache.getGeneration() : 0;
         if (!ensureDatabase()) {
           callback.invoke(AsyncStorageErrorUtil.getDBError(null), null);
           return;
@@ -163,6 +180,9 @@ public final class AsyncStorageModule
                 row.pushString(cursor.getString(1));
                 data.pushArray(row);
                 keysRemaining.remove(cursor.getString(0));
+                if (mCache != null) {
+                  mCache.put(cursor.getString(0), cursor.getString(1), cacheGeneration);
+                }
               } while (cursor.moveToNext());
             }
           } catch (Exception e) {
@@ -178,13 +198,16 @@ public final class AsyncStorageModule
             row.pushString(key);
             row.pushNull();
             data.pushArray(row);
+            if (mCache != null && key != null) {
+              mCache.put(key, null, cacheGeneration);
+            }
           }
           keysRemaining.clear();
         }
 
         callback.invoke(null, data);
       }
-    }.executeOnExecutor(executor);
+    }.executeOnExecutor(mScheduler.forRead(keyStrings));
   }
 
   /**
@@ -199,12 +222,24 @@ public final class AsyncStorageModule
       return;
     }
 
+    final String[] writtenKeys = getKeys(keyValueArray);
+    beginWrites(writtenKeys);
     new GuardedAsyncTask<Void, Void>(getReactApplicationContext()) {
       @Override
       protected void doInBackgroundGuarded(Void... params) {
+        int cacheGeneration = mCache != null ? mCache.getGeneration() : 0;
+        boolean committed = false;
+        try {
+          committed = multiSetInBackground();
+        } finally {
+          endWrites(writtenKeys, committed ? keyValueArray : null, cacheGeneration);
+        }
+      }
+
+      private boolean multiSetInBackground() {
         if (!ensureDatabase()) {
           callback.invoke(AsyncStorageErrorUtil.getDBError(null));
-          return;
+          return false;
         }
 
         String sql = "INSERT OR REPLACE INTO " + TABLE_CATALYST + " VALUES (?, ?);";
@@ -215,15 +250,15 @@ public final class AsyncStorageModule
           for (int idx=0; idx < keyValueArray.size(); idx++) {
             if (keyValueArray.getArray(idx).size() != 2) {
               error = AsyncStorageErrorUtil.getInvalidValueError(null);
-              return;
+              return false;
             }
             if (keyValueArray.getArray(idx).getString(0) == null) {
               error = AsyncStorageErrorUtil.getInvalidKeyError(null);
-              return;
+              return false;
             }
             if (keyValueArray.getArray(idx).getString(1) == null) {
               error = AsyncStorageErrorUtil.getInvalidValueError(null);
-              return;
+              return false;
             }
 
             statement.clearBindings();
@@ -247,11 +282,13 @@ public final class AsyncStorageModule
         }
         if (error != null) {
           callback.invoke(error);
+          return false;
         } else {
           callback.invoke();
+          return true;
         }
       }
-    }.executeOnExecutor(executor);
+    }.executeOnExecutor(mScheduler.forWrite(writtenKeys));
   }
 
   /**
@@ -264,9 +301,21 @@ public final class AsyncStorageModule
       return;
     }
 
+    final String[] removedKeys = getKeys(keys);
+    beginWrites(removedKeys);
     new GuardedAsyncTask<Void, Void>(getReactApplicationContext()) {
       @Override
       protected void doInBackgroundGuarded(Void... params) {
+        try {
+          multiRemoveInBackground();
+        } finally {
+          // Removed keys are left to be read again rather than cached as missing, the removal may
+          // have been rolled back.
+          endWrites(removedKeys);
+        }
+      }
+
+      private void multiRemoveInBackground() {
         if (!ensureDatabase()) {
           callback.invoke(AsyncStorageErrorUtil.getDBError(null));
           return;
@@ -302,7 +351,7 @@ public final class AsyncStorageModule
           callback.invoke();
         }
       }
-    }.executeOnExecutor(executor);
+    }.executeOnExecutor(mScheduler.forWrite(removedKeys));
   }
 
   /**
@@ -311,9 +360,20 @@ public final class AsyncStorageModule
    */
   @ReactMethod
   public void multiMerge(final ReadableArray keyValueArray, final Callback callback) {
+    final String[] mergedKeys = getKeys(keyValueArray);
+    beginWrites(mergedKeys);
     new GuardedAsyncTask<Void, Void>(getReactApplicationContext()) {
       @Override
       protected void doInBackgroundGuarded(Void... params) {
+        try {
+          multiMergeInBackground();
+        } finally {
+          // The merged values are only known to the database, they are cached on the next read.
+          endWrites(mergedKeys);
+        }
+      }
+
+      private void multiMergeInBackground() {
         if (!ensureDatabase()) {
           callback.invoke(AsyncStorageErrorUtil.getDBError(null));
           return;
@@ -365,7 +425,7 @@ public final class AsyncStorageModule
           callback.invoke();
         }
       }
-    }.executeOnExecutor(executor);
+    }.executeOnExecutor(mScheduler.forWrite(mergedKeys));
   }
 
   /**
@@ -373,9 +433,22 @@ public final class AsyncStorageModule
    */
   @ReactMethod
   public void clear(final Callback callback) {
+    if (mCache != null) {
+      mCache.beginClear();
+    }
     new GuardedAsyncTask<Void, Void>(getReactApplicationContext()) {
       @Override
       protected void doInBackgroundGuarded(Void... params) {
+        try {
+          clearInBackground();
+        } finally {
+          if (mCache != null) {
+            mCache.endClear();
+          }
+        }
+      }
+
+      private void clearInBackground() {
         if (!mReactDatabaseSupplier.ensureDatabase()) {
           callback.invoke(AsyncStorageErrorUtil.getDBError(null));
           return;
@@ -388,7 +461,7 @@ public final class AsyncStorageModule
           callback.invoke(AsyncStorageErrorUtil.getError(null, e.getMessage()));
         }
       }
-    }.executeOnExecutor(executor);
+    }.executeOnExecutor(mScheduler.forWrite(null));
   }
 
   /**
@@ -422,7 +495,97 @@ public final class AsyncStorageModule
         }
         callback.invoke(null, data);
       }
-    }.executeOnExecutor(executor);
+    }.executeOnExecutor(mScheduler.forRead(null));
+  }
+
+  /**
+   * Answers a multiGet from the read cache, without waiting for queued writes, if all the keys are
+   * cached.
+   *
+   * @return true if the callback was invoked.
+   */
+  private boolean multiGetFromCache(String[] keys, Callback callback) {
+    String[] values = new String[keys.length];
+    if (!mCache.get(keys, values)) {
+      return false;
+    }
+
+    WritableArray data = Arguments.createArray();
+    for (int i = 0; i < keys.length; i++) {
+      WritableArray row = Arguments.createArray();
+      row.pushString(keys[i]);
+      row.pushString(values[i]);
+      data.pushArray(row);
+    }
+    callback.invoke(null, data);
+    return true;
+  }
+
+  /**
+   * Returns the keys of the given array, which holds either keys or (key, value) pairs. Entries
+   * without a valid key are returned as null.
+   */
+  private static String[] getKeys(ReadableArray keysOrKeyValues) {
+    String[] keys = new String[keysOrKeyValues.size()];
+    for (int i = 0; i < keys.length; i++) {
+      if (keysOrKeyValues.getType(i) == ReadableType.String) {
+        keys[i] = keysOrKeyValues.getString(i);
+      } else if (keysOrKeyValues.getType(i) == ReadableType.Array) {
+        ReadableArray keyValue = keysOrKeyValues.getArray(i);
+        if (keyValue.size() > 0 && keyValue.getType(0) == ReadableType.String) {
+          keys[i] = keyValue.getString(0);
+        }
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * Marks the given keys as being written, so the cache doesn't serve them until
+   * {@link #endWrites} is called.
+   */
+  private void beginWrites(String[] keys) {
+    if (mCache == null) {
+      return;
+    }
+    for (String key : keys) {
+      if (key != null) {
+        mCache.beginWrite(key);
+      }
+    }
+  }
+
+  /**
+   * Drops the given keys from the cache, once their writes have been committed or rolled back.
+   */
+  private void endWrites(String[] keys) {
+    endWrites(keys, null, 0);
+  }
+
+  /**
+   * @param committedKeyValues the (key, value) pairs that were committed, to be cached. Keys
+   * without a committed value are dropped from the cache.
+   * @param cacheGeneration the generation of the cache when the write started, only used to cache
+   * committed values.
+   */
+  private void endWrites(
+      String[] keys,
+      @Nullable ReadableArray committedKeyValues,
+      int cacheGeneration) {
+    if (mCache == null) {
+      return;
+    }
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] == null) {
+        continue;
+      }
+      if (committedKeyValues != null) {
+        mCache.put(keys[i], committedKeyValues.getArray(i).getString(1), cacheGeneration);
+      } else {
+        mCache.remove(keys[i]);
+      }
+      mCache.endWrite(keys[i]);
+    }
   }
 
   /**
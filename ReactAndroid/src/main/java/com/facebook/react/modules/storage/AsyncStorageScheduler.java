@@ -0,0 +1,327 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.modules.storage;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Schedules AsyncStorage operations on a background executor. Replaces running every operation
+ * one after another: reads of keys that no pending write touches run right away, several at a
+ * time, instead of waiting behind unrelated writes.
+ *
+ * Operations are ordered per key, in the order they were issued:
+ * - writes run one at a time, in order;
+ * - a read waits for the writes issued before it that touch any of its keys;
+ * - a write waits for the reads issued before it that touch any of its keys.
+ * Operations on all keys (clear, getAllKeys) conflict with every write issued around them.
+ *
+ * Reads of priority keys (see {@link #addPriorityKeys}) are started before other reads when the
+ * maximum number of concurrent reads is reached.
+ *
+ * Each operation counts the unfinished operations it has to wait for when it is issued, found
+ * through the last write and the unfinished reads of each of its keys, and is started once they
+ * have all finished. Since writes run in order, a read only has to wait for the last write issued
+ * before it on any of its keys.
+ */
+/* package */ class AsyncStorageScheduler {
+
+  private static class Operation {
+    private final Runnable mRunnable;
+    // null for operations on all keys
+    private final @Nullable Set<String> mKeys;
+    private final boolean mIsWrite;
+    private final boolean mIsPriority;
+    private long mSequenceNumber;
+    // The unfinished operations this one waits for.
+    private int mBlockerCount;
+    // The operations waiting for this one.
+    private @Nullable ArrayList<Operation> mDependents;
+
+    private Operation(
+        Runnable runnable,
+        @Nullable Set<String> keys,
+        boolean isWrite,
+        boolean isPriority) {
+      mRunnable = runnable;
+      mKeys = keys;
+      mIsWrite = isWrite;
+      mIsPriority = isPriority;
+    }
+
+    private void addDependent(Operation operation) {
+      if (mDependents == null) {
+        mDependents = new ArrayList<>();
+      }
+      mDependents.add(operation);
+      operation.mBlockerCount++;
+    }
+  }
+
+  /**
+   * The unfinished operations on a key that later operations on it may have to wait for.
+   */
+  private static class KeyState {
+    private @Nullable Operation mLastWrite;
+    private final Set<Operation> mReads = new HashSet<>();
+  }
+
+  private final Executor mExecutor;
+  private final int mMaxConcurrentReads;
+  private final Set<String> mPriorityKeys = Collections.synchronizedSet(new HashSet<String>());
+  private final HashMap<String, KeyState> mKeyStates = new HashMap<>();
+  private @Nullable Operation mLastWrite;
+  private @Nullable Operation mLastAllKeysWrite;
+  private final Set<Operation> mReads = new HashSet<>();
+  private final Set<Operation> mAllKeysReads = new HashSet<>();
+  // Reads that no longer wait for any write, but for a free slot.
+  private final ArrayDeque<Operation> mReadyPriorityReads = new ArrayDeque<>();
+  private final ArrayDeque<Operation> mReadyReads = new ArrayDeque<>();
+  private int mRunningReads;
+  private long mNextSequenceNumber;
+
+  /* package */ AsyncStorageScheduler(Executor executor, int maxConcurrentReads) {
+    mExecutor = executor;
+    mMaxConcurrentReads = maxConcurrentReads;
+  }
+
+  /**
+   * Reads of these keys, e.g. the ones needed to render the first screen, are started ahead of
+   * other reads.
+   */
+  /* package */ void addPriorityKeys(Iterable<String> keys) {
+    for (String key : keys) {
+      mPriorityKeys.add(key);
+    }
+  }
+
+  /**
+   * @param keys the keys read, or null to read all keys.
+   */
+  /* package */ Executor forRead(@Nullable String[] keys) {
+    return new OperationExecutor(keys, false);
+  }
+
+  /**
+   * @param keys the keys written, or null to write all keys.
+   */
+  /* package */ Executor forWrite(@Nullable String[] keys) {
+    return new OperationExecutor(keys, true);
+  }
+
+  private class OperationExecutor implements Executor {
+    private final @Nullable String[] mKeys;
+    private final boolean mIsWrite;
+
+    private OperationExecutor(@Nullable String[] keys, boolean isWrite) {
+      mKeys = keys;
+      mIsWrite = isWrite;
+    }
+
+    @Override
+    public void execute(Runnable runnable) {
+      Set<String> keys = null;
+      boolean isPriority = false;
+      if (mKeys != null) {
+        keys = new HashSet<>();
+        for (String key : mKeys) {
+          keys.add(key);
+          isPriority |= !mIsWrite && mPriorityKeys.contains(key);
+        }
+      }
+      schedule(new Operation(runnable, keys, mIsWrite, isPriority));
+    }
+  }
+
+  private void schedule(Operation operation) {
+    ArrayList<Operation> operationsToStart = new ArrayList<>();
+    synchronized (this) {
+      operation.mSequenceNumber = mNextSequenceNumber++;
+      if (operation.mIsWrite) {
+        scheduleWrite(operation);
+      } else {
+        scheduleRead(operation);
+      }
+      if (operation.mBlockerCount == 0) {
+        onUnblocked(operation, operationsToStart);
+      }
+      takeReadsToStart(operationsToStart);
+    }
+    start(operationsToStart);
+  }
+
+  /**
+   * Makes the write wait for the previous write, and for the unfinished reads of its keys.
+   */
+  private void scheduleWrite(Operation write) {
+    Set<Operation> blockers = new HashSet<>();
+    if (mLastWrite != null) {
+      blockers.add(mLastWrite);
+    }
+    if (write.mKeys == null) {
+      blockers.addAll(mReads);
+    } else {
+      blockers.addAll(mAllKeysReads);
+      for (String key : write.mKeys) {
+        KeyState keyState = mKeyStates.get(key);
+        if (keyState != null) {
+          blockers.addAll(keyState.mReads);
+        }
+      }
+    }
+    for (Operation blocker : blockers) {
+      blocker.addDependent(write);
+    }
+
+    mLastWrite = write;
+    if (write.mKeys == null) {
+      mLastAllKeysWrite = write;
+    } else {
+      for (String key : write.mKeys) {
+        getKeyState(key).mLastWrite = write;
+      }
+    }
+  }
+
+  /**
+   * Makes the read wait for the last write issued before it on any of its keys.
+   */
+  private void scheduleRead(Operation read) {
+    Operation blocker;
+    if (read.mKeys == null) {
+      blocker = mLastWrite;
+    } else {
+      blocker = mLastAllKeysWrite;
+      for (String key : read.mKeys) {
+        KeyState keyState = mKeyStates.get(key);
+        if (keyState != null && keyState.mLastWrite != null &&
+            (blocker == null || keyState.mLastWrite.mSequenceNumber > blocker.mSequenceNumber)) {
+          blocker = keyState.mLastWrite;
+        }
+      }
+    }
+    if (blocker != null) {
+      blocker.addDependent(read);
+    }
+
+    mReads.add(read);
+    if (read.mKeys == null) {
+      mAllKeysReads.add(read);
+    } else {
+      for (String key : read.mKeys) {
+        getKeyState(key).mReads.add(read);
+      }
+    }
+  }
+
+  private void onFinished(Operation operation) {
+    ArrayList<Operation> operationsToStart = new ArrayList<>();
+    synchronized (this) {
+      if (operation.mIsWrite) {
+        if (mLastWrite == operation) {
+          mLastWrite = null;
+        }
+        if (mLastAllKeysWrite == operation) {
+          mLastAllKeysWrite = null;
+        }
+      } else {
+        mRunningReads--;
+        mReads.remove(operation);
+        mAllKeysReads.remove(operation);
+      }
+      if (operation.mKeys != null) {
+        for (String key : operation.mKeys) {
+          KeyState keyState = mKeyStates.get(key);
+          if (keyState.mLastWrite == operation) {
+            keyState.mLastWrite = null;
+          }
+          keyState.mReads.remove(operation);
+          if (keyState.mLastWrite == null && keyState.mReads.isEmpty()) {
+            mKeyStates.remove(key);
+          }
+        }
+      }
+      if (operation.mDependents != null) {
+        for (int i = 0; i < operation.mDependents.size(); i++) {
+          Operation dependent = operation.mDependents.get(i);
+          dependent.mBlockerCount--;
+          if (dependent.mBlockerCount == 0) {
+            onUnblocked(dependent, operationsToStart);
+          }
+        }
+        operation.mDependents = null;
+      }
+      takeReadsToStart(operationsToStart);
+    }
+    start(operationsToStart);
+  }
+
+  /**
+   * Writes start as soon as they stop waiting, there is only ever one such write. Reads wait for a
+   * free slot.
+   */
+  private void onUnblocked(Operation operation, ArrayList<Operation> operationsToStart) {
+    if (operation.mIsWrite) {
+      operationsToStart.add(operation);
+    } else if (operation.mIsPriority) {
+      mReadyPriorityReads.add(operation);
+    } else {
+      mReadyReads.add(operation);
+    }
+  }
+
+  /**
+   * Takes the reads that can start now, priority reads first. All operations are handed to the
+   * executor once the lock is released, as it may run them synchronously.
+   */
+  private void takeReadsToStart(ArrayList<Operation> operationsToStart) {
+    while (mRunningReads < mMaxConcurrentReads) {
+      Operation read = mReadyPriorityReads.poll();
+      if (read == null) {
+        read = mReadyReads.poll();
+      }
+      if (read == null) {
+        return;
+      }
+      mRunningReads++;
+      operationsToStart.add(read);
+    }
+  }
+
+  private KeyState getKeyState(String key) {
+    KeyState keyState = mKeyStates.get(key);
+    if (keyState == null) {
+      keyState = new KeyState();
+      mKeyStates.put(key, keyState);
+    }
+    return keyState;
+  }
+
+  private void start(ArrayList<Operation> operations) {
+    for (int i = 0; i < operations.size(); i++) {
+      final Operation operation = operations.get(i);
+      mExecutor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            operation.mRunnable.run();
+          } finally {
+            onFinished(operation);
+          }
+        }
+      });
+    }
+  }
+}
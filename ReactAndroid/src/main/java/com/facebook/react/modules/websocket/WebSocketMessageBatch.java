@@ -0,0 +1,249 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.modules.websocket;
+
+import android.util.Base64;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.common.SystemClock;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Map;
+import javax.annotation.Nullable;
+import okio.ByteString;
+
+/**
+ * Collects the messages a socket receives until they are delivered to JS as one
+ * `websocketMessageBatch` event.
+ *
+ * The event has the id of the socket and a `messages` array, holding the text of text messages,
+ * the length of binary messages and the params of messages read by a content handler, in the
+ * order they were received. The payloads of binary messages are concatenated into one
+ * `binaryData` Base64 string, written from a buffer that is reused across batches.
+ *
+ * When more than {@link #MAX_PENDING_BYTES} are waiting to be delivered, adding a message blocks
+ * the socket's reader until the batch has been taken, so that a socket JS can't keep up with is
+ * throttled by TCP flow control rather than growing the batch without bounds.
+ */
+/* package */ class WebSocketMessageBatch {
+
+  /* package */ static final int MAX_PENDING_BYTES = 4 * 1024 * 1024; // 4MB
+  // Buffers grown larger than this by a burst of messages are released once it is delivered.
+  private static final int MAX_RETAINED_BUFFER_BYTES = 64 * 1024;
+
+  /**
+   * Gives access to the buffer of the stream, so it can be encoded without copying it first.
+   */
+  private static class BinaryDataStream extends ByteArrayOutputStream {
+    private byte[] getBuffer() {
+      return buf;
+    }
+  }
+
+  private final int mId;
+  private final ArrayList<Object> mMessages = new ArrayList<>();
+  private BinaryDataStream mBinaryData = new BinaryDataStream();
+  private int mPendingBytes;
+  private boolean mClosed;
+
+  // Performance counters
+  private long mMessageCount;
+  private long mByteCount;
+  private long mBatchCount;
+  private long mMaxBatchMessageCount;
+  private long mBackpressuredMessageCount;
+  private long mBackpressureTimeMs;
+  private long mDroppedMessageCount;
+
+  /* package */ WebSocketMessageBatch(int id) {
+    mId = id;
+  }
+
+  /**
+   * @return whether the message started a new batch, which has to be scheduled for delivery.
+   */
+  /* package */ synchronized boolean addText(String text) {
+    if (!awaitCapacity()) {
+      return false;
+    }
+    // Text is counted by its length, which is what is sent over the bridge.
+    return add(text, text.length());
+  }
+
+  /**
+   * @return whether the message started a new batch, which has to be scheduled for delivery.
+   */
+  /* package */ synchronized boolean addBinary(ByteString bytes) {
+    if (!awaitCapacity()) {
+      return false;
+    }
+    try {
+      bytes.write(mBinaryData);
+    } catch (IOException e) {
+      // ByteArrayOutputStream doesn't throw.
+      throw new AssertionError(e);
+    }
+    return add(bytes.size(), bytes.size());
+  }
+
+  /**
+   * Adds a message that was read by a content handler into the given params.
+   *
+   * @param size the size of the message as it was received
+   * @return whether the message started a new batch, which has to be scheduled for delivery.
+   */
+  /* package */ synchronized boolean addMessage(WritableMap params, int size) {
+    if (!awaitCapacity()) {
+      return false;
+    }
+    return add(params, size);
+  }
+
+  /**
+   * Takes the messages added so far, and unblocks the socket's reader if it waits for them to be
+   * delivered.
+   *
+   * @return the event to send to JS, null if there are no messages.
+   */
+  /* package */ synchronized @Nullable WritableMap take() {
+    if (mMessages.isEmpty()) {
+      return null;
+    }
+    WritableArray messages = Arguments.createArray();
+    for (int i = 0; i < mMessages.size(); i++) {
+      Object message = mMessages.get(i);
+      if (message instanceof String) {
+        messages.pushString((String) message);
+      } else if (message instanceof Integer) {
+        messages.pushInt((Integer) message);
+      } else {
+        messages.pushMap((WritableMap) message);
+      }
+    }
+    WritableMap event = Arguments.createMap();
+    event.putInt("id", mId);
+    event.putArray("messages", messages);
+    if (mBinaryData.size() > 0) {
+      event.putString(
+          "binaryData",
+          Base64.encodeToString(mBinaryData.getBuffer(), 0, mBinaryData.size(), Base64.NO_WRAP));
+    }
+
+    mBatchCount++;
+    mMaxBatchMessageCount = Math.max(mMaxBatchMessageCount, mMessages.size());
+    mMessages.clear();
+    mPendingBytes = 0;
+    if (mBinaryData.getBuffer().length > MAX_RETAINED_BUFFER_BYTES) {
+      mBinaryData = new BinaryDataStream();
+    } else {
+      mBinaryData.reset();
+    }
+    notifyAll();
+    return event;
+  }
+
+  /**
+   * Drops the messages that haven't been taken, and those received from now on, and unblocks the
+   * socket's reader.
+   */
+  /* package */ synchronized void close() {
+    mClosed = true;
+    mDroppedMessageCount += mMessages.size();
+    mMessages.clear();
+    mPendingBytes = 0;
+    mBinaryData = new BinaryDataStream();
+    notifyAll();
+  }
+
+  /* package */ synchronized void resetPerformanceCounters() {
+    mMessageCount = 0;
+    mByteCount = 0;
+    mBatchCount = 0;
+    mMaxBatchMessageCount = 0;
+    mBackpressuredMessageCount = 0;
+    mBackpressureTimeMs = 0;
+    mDroppedMessageCount = 0;
+  }
+
+  /**
+   * Adds the counters of this socket to the map, prefixed by its id.
+   */
+  /* package */ synchronized void putPerformanceCounters(Map<String, Long> perfMap) {
+    String prefix = "WebSocket" + mId + ".";
+    perfMap.put(prefix + "Messages", mMessageCount);
+    perfMap.put(prefix + "Bytes", mByteCount);
+    perfMap.put(prefix + "Batches", mBatchCount);
+    perfMap.put(prefix + "MaxBatchMessages", mMaxBatchMessageCount);
+    perfMap.put(prefix + "BackpressuredMessages", mBackpressuredMessageCount);
+    perfMap.put(prefix + "BackpressureTimeMs", mBackpressureTimeMs);
+    perfMap.put(prefix + "DroppedMessages", mDroppedMessageCount);
+  }
+
+  /**
+   * Adds the counters of this socket to the totals in the map under the given prefix, so that the
+   * counters of closed sockets can be kept without keeping their batches.
+   */
+  /* package */ synchronized void addPerformanceCounters(Map<String, Long> perfMap, String prefix) {
+    addCounter(perfMap, prefix + "Messages", mMessageCount);
+    addCounter(perfMap, prefix + "Bytes", mByteCount);
+    addCounter(perfMap, prefix + "Batches", mBatchCount);
+    Long maxBatchMessageCount = perfMap.get(prefix + "MaxBatchMessages");
+    perfMap.put(
+        prefix + "MaxBatchMessages",
+        maxBatchMessageCount != null ?
+            Math.max(maxBatchMessageCount, mMaxBatchMessageCount) :
+            mMaxBatchMessageCount);
+    addCounter(perfMap, prefix + "BackpressuredMessages", mBackpressuredMessageCount);
+    addCounter(perfMap, prefix + "BackpressureTimeMs", mBackpressureTimeMs);
+    addCounter(perfMap, prefix + "DroppedMessages", mDroppedMessageCount);
+  }
+
+  private static void addCounter(Map<String, Long> perfMap, String key, long value) {
+    Long total = perfMap.get(key);
+    perfMap.put(key, total != null ? total + value : value);
+  }
+
+  /**
+   * Waits until the pending messages fit the limit.
+   *
+   * @return false if the batch was closed, and the message has to be dropped.
+   */
+  private boolean awaitCapacity() {
+    if (mPendingBytes >= MAX_PENDING_BYTES && !mClosed) {
+      mBackpressuredMessageCount++;
+      long startTime = SystemClock.uptimeMillis();
+      try {
+        while (mPendingBytes >= MAX_PENDING_BYTES && !mClosed) {
+          wait();
+        }
+      } catch (InterruptedException e) {
+        // The message is delivered anyway, the socket is being shut down.
+        Thread.currentThread().interrupt();
+      }
+      mBackpressureTimeMs += SystemClock.uptimeMillis() - startTime;
+    }
+    if (mClosed) {
+      mDroppedMessageCount++;
+      return false;
+    }
+    return true;
+  }
+
+  private boolean add(Object message, int size) {
+    boolean startsBatch = mMessages.isEmpty();
+    mMessages.add(message);
+    mPendingBytes += size;
+    mMessageCount++;
+    mByteCount += size;
+    return startsBatch;
+  }
+}
@@ -9,6 +9,7 @@ package com.facebook.react.modules.websocket;
 
 import com.facebook.common.logging.FLog;
 import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.PerformanceCounter;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
@@ -17,10 +18,14 @@ import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.ReadableMapKeySetIterator;
 import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.UiThreadUtil;
 import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.common.LifecycleState;
 import com.facebook.react.common.ReactConstants;
 import com.facebook.react.module.annotations.ReactModule;
+import com.facebook.react.modules.core.ChoreographerCompat;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
+import com.facebook.react.modules.core.ReactChoreographer;
 import com.facebook.react.modules.network.ForwardingCookieHandler;
 import java.io.IOException;
 import java.net.URI;
@@ -29,6 +34,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 import okhttp3.OkHttpClient;
@@ -39,7 +46,8 @@ import okhttp3.WebSocketListener;
 import okio.ByteString;
 
 @ReactModule(name = WebSocketModule.NAME, hasConstants = false)
-public final class WebSocketModule extends ReactContextBaseJavaModule {
+public final class WebSocketModule extends ReactContextBaseJavaModule
+    implements PerformanceCounter {
   public static final String NAME="WebSocketModule";
   public interface ContentHandler {
     void onMessage(String text, WritableMap params);
@@ -49,6 +57,13 @@ public final class WebSocketModule extends ReactContextBaseJavaModule {
 
   private final Map<Integer, WebSocket> mWebSocketConnections = new ConcurrentHashMap<>();
   private final Map<Integer, ContentHandler> mContentHandlers = new ConcurrentHashMap<>();
+  // Batches of the sockets that were connected with the `batchMessages` option.
+  private final Map<Integer, WebSocketMessageBatch> mMessageBatches = new ConcurrentHashMap<>();
+  // Totals of the counters of the batches of sockets closed since the counters were reset.
+  private final Map<String, Long> mClosedBatchCounters = new HashMap<>();
+  private final Map<Integer, WebSocketSendQueue> mSendQueues = new ConcurrentHashMap<>();
+  // Polls the queues of sockets with parked messages, created once a socket opens.
+  private @Nullable ScheduledExecutorService mSendQueueExecutor;
 
   private ReactContext mReactContext;
   private ForwardingCookieHandler mCookieHandler;
@@ -70,6 +85,51 @@ public final class WebSocketModule extends ReactContextBaseJavaModule {
     return NAME;
   }
 
+  @Override
+  public void onCatalystInstanceDestroy() {
+    // Unblocks the readers of sockets waiting for JS to take their messages.
+    for (WebSocketMessageBatch batch : mMessageBatches.values()) {
+      batch.close();
+    }
+    synchronized (this) {
+      if (mSendQueueExecutor != null) {
+        mSendQueueExecutor.shutdownNow();
+        mSendQueueExecutor = null;
+      }
+    }
+  }
+
+  /**
+   * Resets the counters of the open sockets, and forgets the closed ones.
+   */
+  @Override
+  public void profileNextBatch() {
+    for (WebSocketSendQueue sendQueue : mSendQueues.values()) {
+      sendQueue.resetPerformanceCounters();
+    }
+    for (WebSocketMessageBatch batch : mMessageBatches.values()) {
+      batch.resetPerformanceCounters();
+    }
+    synchronized (mClosedBatchCounters) {
+      mClosedBatchCounters.clear();
+    }
+  }
+
+  @Override
+  public Map<String, Long> getPerformanceCounters() {
+    Map<String, Long> perfMap = new HashMap<>();
+    for (WebSocketMessageBatch batch : mMessageBatches.values()) {
+      batch.putPerformanceCounters(perfMap);
+    }
+    synchronized (mClosedBatchCounters) {
+      perfMap.putAll(mClosedBatchCounters);
+    }
+    for (WebSocketSendQueue sendQueue : mSendQueues.values()) {
+      sendQueue.putPerformanceCounters(perfMap);
+    }
+    return perfMap;
+  }
+
   public void setContentHandler(final int id, final ContentHandler contentHandler) {
     if (contentHandler != null) {
       mContentHandlers.put(id, contentHandler);
@@ -120,6 +180,17 @@ public final class WebSocketModule extends ReactContextBaseJavaModule {
       builder.addHeader("origin", getDefaultOrigin(url));
     }
 
+    final WebSocketMessageBatch messageBatch;
+    if (options != null &&
+        options.hasKey("batchMessages") &&
+        options.getType("batchMessages").equals(ReadableType.Boolean) &&
+        options.getBoolean("batchMessages")) {
+      messageBatch = new WebSocketMessageBatch(id);
+      mMessageBatches.put(id, messageBatch);
+    } else {
+      messageBatch = null;
+    }
+
     if (protocols != null && protocols.size() > 0) {
       StringBuilder protocolsValue = new StringBuilder("");
       for (int i = 0; i < protocols.size(); i++) {
@@ -141,6 +212,7 @@ public final class WebSocketModule extends ReactContextBaseJavaModule {
 
           @Override
           public void onOpen(WebSocket webSocket, Response response) {
+            mSendQueues.put(id, createSendQueue(id, webSocket));
             mWebSocketConnections.put(id, webSocket);
             WritableMap params = Arguments.createMap();
             params.putInt("id", id);
@@ -154,6 +226,8 @@ public final class WebSocketModule extends ReactContextBaseJavaModule {
 
           @Override
           public void onClosed(WebSocket webSocket, int code, String reason) {
+            flushAndClose(id, messageBatch);
+            closeSendQueue(id);
             WritableMap params = Arguments.createMap();
             params.putInt("id", id);
             params.putInt("code", code);
@@ -163,31 +237,53 @@ public final class WebSocketModule extends ReactContextBaseJavaModule {
 
           @Override
           public void onFailure(WebSocket webSocket, Throwable t, Response response) {
+            flushAndClose(id, messageBatch);
+            closeSendQueue(id);
             notifyWebSocketFailed(id, t.getMessage());
           }
 
           @Override
           public void onMessage(WebSocket webSocket, String text) {
+            ContentHandler contentHandler = mContentHandlers.get(id);
+            if (messageBatch != null && contentHandler == null) {
+              if (messageBatch.addText(text)) {
+                scheduleFlush(messageBatch);
+              }
+              return;
+            }
+
             WritableMap params = Arguments.createMap();
             params.putInt("id", id);
             params.putString("type", "text");
 
-            ContentHandler contentHandler = mContentHandlers.get(id);
             if (contentHandler != null) {
               contentHandler.onMessage(text, params);
             } else {
               params.putString("data", text);
             }
+            if (messageBatch != null) {
+              if (messageBatch.addMessage(params, text.length())) {
+                scheduleFlush(messageBatch);
+              }
+              return;
+            }
             sendEvent("websocketMessage", params);
           }
 
           @Override
           public void onMessage(WebSocket webSocket, ByteString bytes) {
+            ContentHandler contentHandler = mContentHandlers.get(id);
+            if (messageBatch != null && contentHandler == null) {
+              if (messageBatch.addBinary(bytes)) {
+                scheduleFlush(messageBatch);
+              }
+              return;
+            }
+
             WritableMap params = Arguments.createMap();
             params.putInt("id", id);
             params.putString("type", "binary");
 
-            ContentHandler contentHandler = mContentHandlers.get(id);
             if (contentHandler != null) {
               contentHandler.onMessage(bytes, params);
             } else {
@@ -196,6 +292,12 @@ public final class WebSocketModule extends ReactContextBaseJavaModule {
               params.putString("data", text);
             }
 
+            if (messageBatch != null) {
+              if (messageBatch.addMessage(params, bytes.size())) {
+                scheduleFlush(messageBatch);
+              }
+              return;
+            }
             sendEvent("websocketMessage", params);
           }
         });
@@ -213,6 +315,7 @@ public final class WebSocketModule extends ReactContextBaseJavaModule {
       return;
     }
     try {
+      closeSendQueue(id);
       client.close(code, reason);
       mWebSocketConnections.remove(id);
       mContentHandlers.remove(id);
@@ -243,7 +346,7 @@ public final class WebSocketModule extends ReactContextBaseJavaModule {
       return;
     }
     try {
-      client.send(message);
+      send(id, client, message);
     } catch (Exception e) {
       notifyWebSocketFailed(id, e.getMessage());
     }
@@ -268,7 +371,7 @@ public final class WebSocketModule extends ReactContextBaseJavaModule {
       return;
     }
     try {
-      client.send(ByteString.decodeBase64(base64String));
+      send(id, client, ByteString.decodeBase64(base64String));
     } catch (Exception e) {
       notifyWebSocketFailed(id, e.getMessage());
     }
@@ -292,7 +395,7 @@ public final class WebSocketModule extends ReactContextBaseJavaModule {
       return;
     }
     try {
-      client.send(byteString);
+      send(id, client, byteString);
     } catch (Exception e) {
       notifyWebSocketFailed(id, e.getMessage());
     }
@@ -317,12 +420,132 @@ public final class WebSocketModule extends ReactContextBaseJavaModule {
       return;
     }
     try {
-      client.send(ByteString.EMPTY);
+      send(id, client, ByteString.EMPTY);
     } catch (Exception e) {
       notifyWebSocketFailed(id, e.getMessage());
     }
   }
 
+  private WebSocketSendQueue createSendQueue(final int id, WebSocket webSocket) {
+    ScheduledExecutorService executor;
+    synchronized (this) {
+      if (mSendQueueExecutor == null) {
+        mSendQueueExecutor = Executors.newSingleThreadScheduledExecutor();
+      }
+      executor = mSendQueueExecutor;
+    }
+    return new WebSocketSendQueue(
+        id,
+        webSocket,
+        executor,
+        new WebSocketSendQueue.Listener() {
+          @Override
+          public void onDrain(long writtenBytes) {
+            WritableMap params = Arguments.createMap();
+            params.putInt("id", id);
+            params.putDouble("writtenBytes", writtenBytes);
+            sendEvent("websocketDrain", params);
+          }
+
+          @Override
+          public void onWritten(long writtenBytes) {
+            WritableMap params = Arguments.createMap();
+            params.putInt("id", id);
+            params.putDouble("writtenBytes", writtenBytes);
+            sendEvent("websocketWritten", params);
+          }
+        });
+  }
+
+  private void closeSendQueue(int id) {
+    WebSocketSendQueue sendQueue = mSendQueues.remove(id);
+    if (sendQueue != null) {
+      sendQueue.close();
+    }
+  }
+
+  private void send(int id, WebSocket client, String text) {
+    WebSocketSendQueue sendQueue = mSendQueues.get(id);
+    if (sendQueue == null) {
+      client.send(text);
+    } else if (sendQueue.send(text) == WebSocketSendQueue.RESULT_REJECTED) {
+      notifySendRejected(id, sendQueue, WebSocketSendQueue.utf8Length(text));
+    }
+  }
+
+  private void send(int id, WebSocket client, ByteString bytes) {
+    WebSocketSendQueue sendQueue = mSendQueues.get(id);
+    if (sendQueue == null) {
+      client.send(bytes);
+    } else if (sendQueue.send(bytes) == WebSocketSendQueue.RESULT_REJECTED) {
+      notifySendRejected(id, sendQueue, bytes.size());
+    }
+  }
+
+  private void notifySendRejected(int id, WebSocketSendQueue sendQueue, long size) {
+    WritableMap params = Arguments.createMap();
+    params.putInt("id", id);
+    params.putDouble("size", size);
+    params.putDouble("writtenBytes", sendQueue.getWrittenBytes());
+    sendEvent("websocketSendRejected", params);
+  }
+
+  /**
+   * Delivers the batch on the next frame, so that the messages received until then are sent to
+   * JS in one event. While the app is in the background, frames may not be drawn, so it is
+   * delivered as soon as the JS thread gets to it instead.
+   */
+  private void scheduleFlush(final WebSocketMessageBatch messageBatch) {
+    final Runnable flushRunnable = new Runnable() {
+      @Override
+      public void run() {
+        flush(messageBatch);
+      }
+    };
+    if (mReactContext.getLifecycleState() != LifecycleState.RESUMED) {
+      mReactContext.runOnJSQueueThread(flushRunnable);
+      return;
+    }
+    UiThreadUtil.runOnUiThread(new Runnable() {
+      @Override
+      public void run() {
+        ReactChoreographer.getInstance().postFrameCallback(
+            ReactChoreographer.CallbackType.TIMERS_EVENTS,
+            new ChoreographerCompat.FrameCallback() {
+              @Override
+              public void doFrame(long frameTimeNanos) {
+                mReactContext.runOnJSQueueThread(flushRunnable);
+              }
+            });
+      }
+    });
+  }
+
+  private void flush(WebSocketMessageBatch messageBatch) {
+    // Taken and sent under the batch's lock, so batches reach JS in the order they were taken.
+    synchronized (messageBatch) {
+      WritableMap event = messageBatch.take();
+      if (event != null) {
+        sendEvent("websocketMessageBatch", event);
+      }
+    }
+  }
+
+  /**
+   * Delivers the messages received before the socket closed ahead of the close event, and drops
+   * the batch, keeping only its counters.
+   */
+  private void flushAndClose(int id, @Nullable WebSocketMessageBatch messageBatch) {
+    if (messageBatch != null) {
+      flush(messageBatch);
+      messageBatch.close();
+      mMessageBatches.remove(id);
+      synchronized (mClosedBatchCounters) {
+        messageBatch.addPerformanceCounters(mClosedBatchCounters, "ClosedWebSockets.");
+      }
+    }
+  }
+
   private void notifyWebSocketFailed(int id, String message) {
     WritableMap params = Arguments.createMap();
     params.putInt("id", id);
@@ -0,0 +1,305 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.modules.websocket;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import okhttp3.WebSocket;
+import okio.ByteString;
+
+/**
+ * Bounds the data a socket holds on to while it is being sent.
+ *
+ * OkHttp queues whatever it is given, and closes the socket once its queue is over 16MB. Messages
+ * are only handed to OkHttp while its queue is under {@link #HIGH_WATER_MARK_BYTES}. Messages sent
+ * above it are parked, in order, and handed over as the queue is written out, which is polled
+ * every {@link #DRAIN_POLL_INTERVAL_MS} since OkHttp doesn't report it. Once everything parked
+ * has been handed over and the queue is back under half the high-water mark, the listener's
+ * {@link Listener#onDrain} is called, so the sender knows it can go on. Messages that would take
+ * the buffered amount over {@link #MAX_BUFFERED_BYTES} are rejected, and the listener is called the
+ * same way once there is room again.
+ *
+ * The queue is also polled after messages are handed over, until OkHttp has written them out, to
+ * call {@link Listener#onWritten}. The sender counts the bytes it sends, and both callbacks report
+ * how many of them have been written, so it can tell how many are still buffered.
+ *
+ * Text is counted by its length in UTF-8, as OkHttp counts it in its queue.
+ */
+/* package */ class WebSocketSendQueue {
+
+  /* package */ static final long HIGH_WATER_MARK_BYTES = 1024 * 1024; // 1MB
+  /* package */ static final long MAX_BUFFERED_BYTES = 8 * 1024 * 1024; // 8MB
+  /* package */ static final long DRAIN_POLL_INTERVAL_MS = 16;
+
+  /* package */ static final int RESULT_SENT = 0;
+  /* package */ static final int RESULT_PARKED = 1;
+  /* package */ static final int RESULT_REJECTED = 2;
+
+  /* package */ interface Listener {
+    /**
+     * Called once the messages parked or rejected have been handed over and the queue is low
+     * enough to send more.
+     */
+    void onDrain(long writtenBytes);
+
+    /**
+     * Called once the messages handed over have been written to the socket, unless
+     * {@link #onDrain} reported it.
+     */
+    void onWritten(long writtenBytes);
+  }
+
+  private final int mId;
+  private final WebSocket mWebSocket;
+  private final ScheduledExecutorService mExecutor;
+  private final Listener mListener;
+  private static class ParkedMessage {
+    // A String or a ByteString.
+    private final Object mMessage;
+    private final long mSize;
+
+    private ParkedMessage(Object message, long size) {
+      mMessage = message;
+      mSize = size;
+    }
+  }
+
+  // Messages not handed to OkHttp yet.
+  private final ArrayDeque<ParkedMessage> mParkedMessages = new ArrayDeque<>();
+  private long mParkedBytes;
+  // The bytes handed to OkHttp so far, some of which it may still be queueing.
+  private long mHandedOverBytes;
+  // Whether messages were parked or rejected since the listener was last told it can send more.
+  private boolean mBackedUp;
+  private @Nullable ScheduledFuture<?> mDrainFuture;
+  private boolean mClosed;
+
+  // Performance counters
+  private long mSentMessageCount;
+  private long mParkedMessageCount;
+  private long mRejectedMessageCount;
+  private long mMaxBufferedBytes;
+  private long mDrainCount;
+
+  private final Runnable mDrainRunnable = new Runnable() {
+    @Override
+    public void run() {
+      drain();
+    }
+  };
+
+  /* package */ WebSocketSendQueue(
+      int id,
+      WebSocket webSocket,
+      ScheduledExecutorService executor,
+      Listener listener) {
+    mId = id;
+    mWebSocket = webSocket;
+    mExecutor = executor;
+    mListener = listener;
+  }
+
+  /**
+   * @return {@link #RESULT_SENT} if the text was handed to OkHttp, {@link #RESULT_PARKED} if it
+   * will be once the queue allows it, {@link #RESULT_REJECTED} if it was dropped.
+   */
+  /* package */ int send(String text) {
+    return send(text, utf8Length(text));
+  }
+
+  /**
+   * @return {@link #RESULT_SENT} if the bytes were handed to OkHttp, {@link #RESULT_PARKED} if
+   * they will be once the queue allows it, {@link #RESULT_REJECTED} if they were dropped.
+   */
+  /* package */ int send(ByteString bytes) {
+    return send(bytes, bytes.size());
+  }
+
+  /**
+   * @return the bytes queued by OkHttp and parked, that haven't been written to the socket yet.
+   */
+  /* package */ synchronized long getBufferedAmount() {
+    return mWebSocket.queueSize() + mParkedBytes;
+  }
+
+  /**
+   * @return the bytes OkHttp has written to the socket so far.
+   */
+  /* package */ synchronized long getWrittenBytes() {
+    return mHandedOverBytes - mWebSocket.queueSize();
+  }
+
+  /**
+   * Hands the parked messages that fit under the high-water mark to OkHttp, and calls the listener
+   * once they all have been and its queue is low enough, or once it is empty.
+   */
+  /* package */ void drain() {
+    long writtenBytes;
+    boolean drained = false;
+    synchronized (this) {
+      if (mClosed || mDrainFuture == null) {
+        return;
+      }
+      long queueSize = mWebSocket.queueSize();
+      while (!mParkedMessages.isEmpty()) {
+        ParkedMessage message = mParkedMessages.peek();
+        if (queueSize > 0 && queueSize + message.mSize > HIGH_WATER_MARK_BYTES) {
+          break;
+        }
+        mParkedMessages.poll();
+        mParkedBytes -= message.mSize;
+        write(message.mMessage, message.mSize);
+        queueSize += message.mSize;
+      }
+      if (!mParkedMessages.isEmpty()) {
+        return;
+      }
+      if (mBackedUp) {
+        if (queueSize > HIGH_WATER_MARK_BYTES / 2) {
+          return;
+        }
+        mBackedUp = false;
+        mDrainCount++;
+        drained = true;
+      } else if (queueSize > 0) {
+        return;
+      }
+      // Once the sender is told it can send more, the queue is still polled until it is empty.
+      if (queueSize == 0) {
+        mDrainFuture.cancel(false);
+        mDrainFuture = null;
+      }
+      writtenBytes = mHandedOverBytes - queueSize;
+    }
+    if (drained) {
+      mListener.onDrain(writtenBytes);
+    } else {
+      mListener.onWritten(writtenBytes);
+    }
+  }
+
+  /**
+   * Hands the parked messages to OkHttp, so they are sent ahead of the close frame, and stops
+   * polling the queue. Messages sent from now on go to OkHttp, which drops them once the socket is
+   * closed.
+   */
+  /* package */ synchronized void close() {
+    mClosed = true;
+    while (!mParkedMessages.isEmpty()) {
+      ParkedMessage message = mParkedMessages.poll();
+      write(message.mMessage, message.mSize);
+    }
+    mParkedBytes = 0;
+    if (mDrainFuture != null) {
+      mDrainFuture.cancel(false);
+      mDrainFuture = null;
+    }
+  }
+
+  /* package */ synchronized void resetPerformanceCounters() {
+    mSentMessageCount = 0;
+    mParkedMessageCount = 0;
+    mRejectedMessageCount = 0;
+    mMaxBufferedBytes = 0;
+    mDrainCount = 0;
+  }
+
+  /**
+   * Adds the counters of this socket to the map, prefixed by its id.
+   */
+  /* package */ synchronized void putPerformanceCounters(Map<String, Long> perfMap) {
+    String prefix = "WebSocket" + mId + ".";
+    perfMap.put(prefix + "SentMessages", mSentMessageCount);
+    perfMap.put(prefix + "ParkedMessages", mParkedMessageCount);
+    perfMap.put(prefix + "RejectedMessages", mRejectedMessageCount);
+    perfMap.put(prefix + "MaxBufferedBytes", mMaxBufferedBytes);
+    perfMap.put(prefix + "Drains", mDrainCount);
+  }
+
+  private synchronized int send(Object message, long size) {
+    if (mClosed) {
+      write(message, size);
+      return RESULT_SENT;
+    }
+    long queueSize = mWebSocket.queueSize();
+    long bufferedAmount = queueSize + mParkedBytes + size;
+    // A message larger than the limit is still sent once nothing else is buffered.
+    if (bufferedAmount > MAX_BUFFERED_BYTES && bufferedAmount > size) {
+      mRejectedMessageCount++;
+      // The sender is told once it can send again.
+      mBackedUp = true;
+      scheduleDrain();
+      return RESULT_REJECTED;
+    }
+    mMaxBufferedBytes = Math.max(mMaxBufferedBytes, bufferedAmount);
+    if (mParkedMessages.isEmpty() &&
+        (queueSize == 0 || queueSize + size <= HIGH_WATER_MARK_BYTES)) {
+      write(message, size);
+      // The sender is told once it has been written.
+      scheduleDrain();
+      return RESULT_SENT;
+    }
+    mParkedMessages.add(new ParkedMessage(message, size));
+    mParkedBytes += size;
+    mParkedMessageCount++;
+    mBackedUp = true;
+    scheduleDrain();
+    return RESULT_PARKED;
+  }
+
+  private void scheduleDrain() {
+    if (mDrainFuture == null) {
+      mDrainFuture = mExecutor.scheduleWithFixedDelay(
+          mDrainRunnable,
+          DRAIN_POLL_INTERVAL_MS,
+          DRAIN_POLL_INTERVAL_MS,
+          TimeUnit.MILLISECONDS);
+    }
+  }
+
+  private void write(Object message, long size) {
+    mSentMessageCount++;
+    mHandedOverBytes += size;
+    if (message instanceof String) {
+      mWebSocket.send((String) message);
+    } else {
+      mWebSocket.send((ByteString) message);
+    }
+  }
+
+  /**
+   * @return the number of bytes of the given text encoded in UTF-8, without encoding it. Unpaired
+   * surrogates are counted as the single '?' byte they are encoded as.
+   */
+  /* package */ static long utf8Length(String text) {
+    long length = 0;
+    int textLength = text.length();
+    for (int i = 0; i < textLength; i++) {
+      char c = text.charAt(i);
+      if (c < 0x80) {
+        length += 1;
+      } else if (c < 0x800) {
+        length += 2;
+      } else if (Character.isHighSurrogate(c) &&
+          i + 1 < textLength &&
+          Character.isLowSurrogate(text.charAt(i + 1))) {
+        length += 4;
+        i++;
+      } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+        length += 1;
+      } else {
+        length += 3;
+      }
+    }
+    return length;
+  }
+}
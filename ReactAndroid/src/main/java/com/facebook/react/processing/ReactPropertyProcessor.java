@@ -59,6 +59,9 @@ import javax.lang.model.util.Types;
  * per shadow node/view manager that is named {@code <classname>$$PropSetter}. This class contains methods
  * to retrieve the name and type of all methods and a way to set these properties without
  * reflection.
+ *
+ * A setter is generated for every concrete, non-private class, including generic ones. Classes
+ * without a generated setter fall back to the reflection based ViewManagersPropertyCache at runtime.
  */
 @SupportedAnnotationTypes("com.facebook.react.uimanager.annotations.ReactPropertyHolder")
 @SupportedSourceVersion(SourceVersion.RELEASE_7)
@@ -73,6 +76,7 @@ public class ReactPropertyProcessor extends AbstractProcessor {
   private static final TypeName READABLE_ARRAY_TYPE = TypeName.get(ReadableArray.class);
   private static final TypeName DYNAMIC_TYPE = TypeName.get(Dynamic.class);
 
+  private static final TypeName VIEW_TYPE = ClassName.get("android.view", "View");
   private static final TypeName VIEW_MANAGER_TYPE =
       ClassName.get("com.facebook.react.uimanager", "ViewManager");
   private static final TypeName SHADOW_NODE_IMPL_TYPE =
@@ -194,6 +198,11 @@ public class ReactPropertyProcessor extends AbstractProcessor {
   private ClassInfo parseClass(ClassName className, TypeElement typeElement) {
     TypeName targetType = getTargetType(typeElement.asType());
     TypeName viewType = isShadowNodeType(targetType) ? null : targetType;
+    if (viewType instanceof TypeVariableName) {
+      // Generic view managers get a setter typed with the bound of their view type, the generated
+      // calls then go through the erased signatures of the annotated methods.
+      viewType = getBoundType((TypeVariableName) viewType);
+    }
 
     ClassInfo classInfo = new ClassInfo(className, typeElement, viewType);
     findProperties(classInfo, typeElement);
@@ -249,6 +258,20 @@ public class ReactPropertyProcessor extends AbstractProcessor {
     return getTargetType(types.get(0));
   }
 
+  private static TypeName getBoundType(TypeVariableName typeVariable) {
+    if (typeVariable.bounds.isEmpty()) {
+      return VIEW_TYPE;
+    }
+
+    TypeName bound = typeVariable.bounds.get(0);
+    if (bound instanceof TypeVariableName) {
+      return getBoundType((TypeVariableName) bound);
+    } else if (bound instanceof ParameterizedTypeName) {
+      return ((ParameterizedTypeName) bound).rawType;
+    }
+    return bound;
+  }
+
   private void generateCode(ClassInfo classInfo, List<PropertyInfo> properties)
       throws IOException, ReactPropertyException {
     MethodSpec getMethods = MethodSpec.methodBuilder("getProperties")
@@ -442,8 +465,7 @@ public class ReactPropertyProcessor extends AbstractProcessor {
 
   private static boolean shouldIgnoreClass(ClassInfo classInfo) {
     return classInfo.mElement.getModifiers().contains(PRIVATE)
-        || classInfo.mElement.getModifiers().contains(ABSTRACT)
-        || classInfo.mViewType instanceof TypeVariableName;
+        || classInfo.mElement.getModifiers().contains(ABSTRACT);
   }
 
   private static boolean shouldWarnClass(ClassInfo classInfo) {
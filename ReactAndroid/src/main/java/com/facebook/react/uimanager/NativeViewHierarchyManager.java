@@ -67,6 +67,9 @@ public class NativeViewHierarchyManager {
 
   private static final String TAG = NativeViewHierarchyManager.class.getSimpleName();
 
+  /** Number of ints per view in a packed layout batch, see {@link #updateLayout(int[], int)}. */
+  public static final int LAYOUT_BATCH_ENTRY_SIZE = 6;
+
   private final AnimationRegistry mAnimationRegistry;
   private final SparseArray<View> mTagsToViews;
   private final SparseArray<ViewManager> mTagsToViewManagers;
@@ -150,9 +153,33 @@ public class NativeViewHierarchyManager {
     viewManager.updateExtraData(viewToUpdate, extraData);
   }
 
+  /**
+   * Applies a packed batch of layout updates in a single pass. Each of the first {@code entryCount}
+   * entries of {@code layoutBatch} is {@link #LAYOUT_BATCH_ENTRY_SIZE} ints: parent tag, tag, x, y,
+   * width and height.
+   */
+  public synchronized void updateLayout(int[] layoutBatch, int entryCount) {
+    UiThreadUtil.assertOnUiThread();
+    for (int i = 0; i < entryCount; i++) {
+      int offset = i * LAYOUT_BATCH_ENTRY_SIZE;
+      applyLayout(
+          layoutBatch[offset],
+          layoutBatch[offset + 1],
+          layoutBatch[offset + 2],
+          layoutBatch[offset + 3],
+          layoutBatch[offset + 4],
+          layoutBatch[offset + 5]);
+    }
+  }
+
   public synchronized void updateLayout(
       int parentTag, int tag, int x, int y, int width, int height) {
     UiThreadUtil.assertOnUiThread();
+    applyLayout(parentTag, tag, x, y, width, height);
+  }
+
+  /** Callers hold the lock and have checked that they are on the UI thread. */
+  private void applyLayout(int parentTag, int tag, int x, int y, int width, int height) {
     SystraceMessage.beginSection(
         Systrace.TRACE_TAG_REACT_VIEW,
         "NativeViewHierarchyManager_updateLayout")
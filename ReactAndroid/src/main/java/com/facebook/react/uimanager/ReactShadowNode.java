@@ -12,6 +12,7 @@ import com.facebook.yoga.YogaDirection;
 import com.facebook.yoga.YogaDisplay;
 import com.facebook.yoga.YogaFlexDirection;
 import com.facebook.yoga.YogaJustify;
+import com.facebook.yoga.YogaLayoutBuffer;
 import com.facebook.yoga.YogaMeasureFunction;
 import com.facebook.yoga.YogaNode;
 import com.facebook.yoga.YogaOverflow;
@@ -150,6 +151,14 @@ public interface ReactShadowNode<T extends ReactShadowNode> {
 
   void calculateLayout();
 
+  /**
+   * Like {@link #calculateLayout()}, but reads the layouts that changed back through the given
+   * buffer in one call.
+   *
+   * @return the number of nodes whose layout changed.
+   */
+  int calculateLayout(YogaLayoutBuffer layoutBuffer);
+
   boolean hasNewLayout();
 
   void markLayoutSeen();
@@ -12,6 +12,7 @@ import com.facebook.debug.holder.PrinterHolder;
 import com.facebook.debug.tags.ReactDebugOverlayTags;
 import com.facebook.infer.annotation.Assertions;
 import com.facebook.react.common.build.ReactBuildConfig;
+import com.facebook.react.config.ReactFeatureFlags;
 import com.facebook.react.uimanager.annotations.ReactPropertyHolder;
 import com.facebook.yoga.YogaAlign;
 import com.facebook.yoga.YogaBaselineFunction;
@@ -22,6 +23,7 @@ import com.facebook.yoga.YogaDisplay;
 import com.facebook.yoga.YogaEdge;
 import com.facebook.yoga.YogaFlexDirection;
 import com.facebook.yoga.YogaJustify;
+import com.facebook.yoga.YogaLayoutBuffer;
 import com.facebook.yoga.YogaMeasureFunction;
 import com.facebook.yoga.YogaNode;
 import com.facebook.yoga.YogaOverflow;
@@ -330,7 +332,16 @@ public class ReactShadowNodeImpl implements ReactShadowNode<ReactShadowNodeImpl>
 
   @Override
   public final void updateProperties(ReactStylesDiffMap props) {
-    ViewManagerPropertyUpdater.updateProps(this, props);
+    if (mYogaNode == null || !ReactFeatureFlags.batchYogaStyleUpdates) {
+      ViewManagerPropertyUpdater.updateProps(this, props);
+    } else {
+      mYogaNode.beginStyleBatch();
+      try {
+        ViewManagerPropertyUpdater.updateProps(this, props);
+      } finally {
+        mYogaNode.applyStyleBatch();
+      }
+    }
     onAfterUpdateTransaction();
   }
 
@@ -468,6 +479,14 @@ public class ReactShadowNodeImpl implements ReactShadowNode<ReactShadowNodeImpl>
     mYogaNode.calculateLayout(YogaConstants.UNDEFINED, YogaConstants.UNDEFINED);
   }
 
+  @Override
+  public int calculateLayout(YogaLayoutBuffer layoutBuffer) {
+    return mYogaNode.calculateLayout(
+        YogaConstants.UNDEFINED,
+        YogaConstants.UNDEFINED,
+        layoutBuffer);
+  }
+
   @Override
   public final boolean hasNewLayout() {
     return mYogaNode != null && mYogaNode.hasNewLayout();
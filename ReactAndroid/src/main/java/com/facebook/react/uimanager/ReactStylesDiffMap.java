@@ -36,9 +36,22 @@ import com.facebook.react.bridge.Dynamic;
 public class ReactStylesDiffMap {
 
   /* package */ final ReadableMap mBackingMap;
+  // Whether the IDs of the keys of mBackingMap are kept once resolved, and shared by the shadow node
+  // and the view that apply this map. See ViewManagersPropertyCache#getPropIds.
+  /* package */ final boolean mKeepPropIds;
+  /* package */ volatile @Nullable ViewManagersPropertyCache.PropIds mPropIds;
 
   public ReactStylesDiffMap(ReadableMap props) {
+    this(props, false);
+  }
+
+  /**
+   * @param keepPropIds whether the given map is left unchanged once wrapped, so that the IDs of its
+   * keys only need to be resolved once.
+   */
+  /* package */ ReactStylesDiffMap(ReadableMap props, boolean keepPropIds) {
     mBackingMap = props;
+    mKeepPropIds = keepPropIds;
   }
 
   public boolean hasKey(String name) {
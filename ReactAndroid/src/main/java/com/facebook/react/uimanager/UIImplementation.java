@@ -18,19 +18,24 @@ import com.facebook.react.animation.Animation;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Callback;
 import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactMarker;
+import com.facebook.react.bridge.ReactMarkerConstants;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.UiThreadUtil;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.common.ReactConstants;
+import com.facebook.react.config.ReactFeatureFlags;
 import com.facebook.react.modules.i18nmanager.I18nUtil;
 import com.facebook.react.uimanager.common.MeasureSpecProvider;
 import com.facebook.react.uimanager.common.SizeMonitoringFrameLayout;
+import com.facebook.react.uimanager.debug.NotThreadSafeUIOperationsFrameListener;
 import com.facebook.react.uimanager.debug.NotThreadSafeViewHierarchyUpdateDebugListener;
 import com.facebook.react.uimanager.events.EventDispatcher;
 import com.facebook.systrace.Systrace;
 import com.facebook.systrace.SystraceMessage;
 import com.facebook.yoga.YogaDirection;
+import com.facebook.yoga.YogaLayoutBuffer;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -52,6 +57,7 @@ public class UIImplementation {
   private final UIViewOperationQueue mOperationsQueue;
   private final NativeViewHierarchyOptimizer mNativeViewHierarchyOptimizer;
   private final int[] mMeasureBuffer = new int[4];
+  private final YogaLayoutBuffer mLayoutBuffer = new YogaLayoutBuffer();
 
   private long mLastCalculateLayoutTime = 0;
   protected @Nullable LayoutUpdateListener mLayoutUpdateListener;
@@ -269,10 +275,13 @@ public class UIImplementation {
 
   public void profileNextBatch() {
     mOperationsQueue.profileNextBatch();
+    mViewManagers.profileNextBatch();
   }
 
   public Map<String, Long> getProfiledBatchPerfCounters() {
-    return mOperationsQueue.getProfiledBatchPerfCounters();
+    Map<String, Long> perfMap = mOperationsQueue.getProfiledBatchPerfCounters();
+    mViewManagers.putPerformanceCounters(perfMap);
+    return perfMap;
   }
 
   /**
@@ -291,7 +300,8 @@ public class UIImplementation {
 
     ReactStylesDiffMap styles = null;
     if (props != null) {
-      styles = new ReactStylesDiffMap(props);
+      // Props received from JS don't change once they're applied.
+      styles = new ReactStylesDiffMap(props, true);
       cssNode.updateProperties(styles);
     }
 
@@ -321,7 +331,7 @@ public class UIImplementation {
     }
 
     if (props != null) {
-      ReactStylesDiffMap styles = new ReactStylesDiffMap(props);
+      ReactStylesDiffMap styles = new ReactStylesDiffMap(props, true);
       cssNode.updateProperties(styles);
       handleUpdateView(cssNode, className, styles);
     }
@@ -681,35 +691,56 @@ public class UIImplementation {
       Systrace.TRACE_TAG_REACT_JAVA_BRIDGE,
       "UIImplementation.updateViewHierarchy");
     try {
+      boolean layoutDirtyRootsOnly = ReactFeatureFlags.layoutDirtyRootsOnly;
+      if (layoutDirtyRootsOnly) {
+        // Only some roots are laid out, so the layout time is summed over the ones that are.
+        mLastCalculateLayoutTime = 0;
+      }
       for (int i = 0; i < mShadowNodeRegistry.getRootNodeCount(); i++) {
         int tag = mShadowNodeRegistry.getRootTag(i);
         ReactShadowNode cssRoot = mShadowNodeRegistry.getNode(tag);
 
         if (mMeasuredRootNodes.contains(tag)) {
-          SystraceMessage.beginSection(
-                  Systrace.TRACE_TAG_REACT_JAVA_BRIDGE,
-                  "UIImplementation.notifyOnBeforeLayoutRecursive")
-              .arg("rootTag", cssRoot.getReactTag())
-              .flush();
-          try {
-            notifyOnBeforeLayoutRecursive(cssRoot);
-          } finally {
-            Systrace.endSection(Systrace.TRACE_TAG_REACT_JAVA_BRIDGE);
+          // Updates and dirtied Yoga nodes propagate up to the root, so a root without updates has
+          // no node that needs to be laid out or applied again.
+          if (layoutDirtyRootsOnly && !cssRoot.hasUpdates()) {
+            continue;
           }
 
-          calculateRootLayout(cssRoot);
-          SystraceMessage.beginSection(
-                  Systrace.TRACE_TAG_REACT_JAVA_BRIDGE, "UIImplementation.applyUpdatesRecursive")
-              .arg("rootTag", cssRoot.getReactTag())
-              .flush();
+          // The root is identified by the marker's instance key, so that no string is created.
+          if (layoutDirtyRootsOnly) {
+            ReactMarker.logMarker(ReactMarkerConstants.LAYOUT_ROOT_START, tag);
+          }
           try {
-            applyUpdatesRecursive(cssRoot, 0f, 0f);
+            SystraceMessage.beginSection(
+                    Systrace.TRACE_TAG_REACT_JAVA_BRIDGE,
+                    "UIImplementation.notifyOnBeforeLayoutRecursive")
+                .arg("rootTag", cssRoot.getReactTag())
+                .flush();
+            try {
+              notifyOnBeforeLayoutRecursive(cssRoot);
+            } finally {
+              Systrace.endSection(Systrace.TRACE_TAG_REACT_JAVA_BRIDGE);
+            }
+
+            calculateRootLayout(cssRoot);
+            SystraceMessage.beginSection(
+                    Systrace.TRACE_TAG_REACT_JAVA_BRIDGE, "UIImplementation.applyUpdatesRecursive")
+                .arg("rootTag", cssRoot.getReactTag())
+                .flush();
+            try {
+              applyUpdatesRecursive(cssRoot, 0f, 0f);
+            } finally {
+              Systrace.endSection(Systrace.TRACE_TAG_REACT_JAVA_BRIDGE);
+            }
+
+            if (mLayoutUpdateListener != null) {
+              mOperationsQueue.enqueueLayoutUpdateFinished(cssRoot, mLayoutUpdateListener);
+            }
           } finally {
-            Systrace.endSection(Systrace.TRACE_TAG_REACT_JAVA_BRIDGE);
-          }
-
-          if (mLayoutUpdateListener != null) {
-            mOperationsQueue.enqueueLayoutUpdateFinished(cssRoot, mLayoutUpdateListener);
+            if (layoutDirtyRootsOnly) {
+              ReactMarker.logMarker(ReactMarkerConstants.LAYOUT_ROOT_END, tag);
+            }
           }
         }
       }
@@ -838,6 +869,18 @@ public class UIImplementation {
     mOperationsQueue.setViewHierarchyUpdateDebugListener(listener);
   }
 
+  /**
+   * See {@link UIViewOperationQueue#setBatchedOperationsFrameBudgetMs}.
+   */
+  public void setBatchedOperationsFrameBudgetMs(int budgetMs) {
+    mOperationsQueue.setBatchedOperationsFrameBudgetMs(budgetMs);
+  }
+
+  public void setUIOperationsFrameListener(
+      @Nullable NotThreadSafeUIOperationsFrameListener listener) {
+    mOperationsQueue.setUIOperationsFrameListener(listener);
+  }
+
   protected final void removeShadowNode(ReactShadowNode nodeToRemove) {
     removeShadowNodeRecursive(nodeToRemove);
     nodeToRemove.dispose();
@@ -955,10 +998,17 @@ public class UIImplementation {
         .flush();
     long startTime = SystemClock.uptimeMillis();
     try {
-      cssRoot.calculateLayout();
+      if (ReactFeatureFlags.readLayoutsInBulk) {
+        cssRoot.calculateLayout(mLayoutBuffer);
+      } else {
+        cssRoot.calculateLayout();
+      }
     } finally {
       Systrace.endSection(Systrace.TRACE_TAG_REACT_JAVA_BRIDGE);
-      mLastCalculateLayoutTime = SystemClock.uptimeMillis() - startTime;
+      long calculateLayoutTime = SystemClock.uptimeMillis() - startTime;
+      mLastCalculateLayoutTime = ReactFeatureFlags.layoutDirtyRootsOnly
+          ? mLastCalculateLayoutTime + calculateLayoutTime
+          : calculateLayoutTime;
     }
   }
 
@@ -966,7 +1016,13 @@ public class UIImplementation {
       ReactShadowNode cssNode,
       float absoluteX,
       float absoluteY) {
-    if (!cssNode.hasUpdates()) {
+    if (ReactFeatureFlags.readLayoutsInBulk) {
+      // The root was just laid out, so no node under it is dirty, and the ones whose layout changed
+      // were marked when their layout was read back.
+      if (!cssNode.hasUnseenUpdates() && !cssNode.hasNewLayout()) {
+        return;
+      }
+    } else if (!cssNode.hasUpdates()) {
       return;
     }
 
@@ -38,6 +38,7 @@ import com.facebook.react.module.annotations.ReactModule;
 import com.facebook.react.uimanager.common.MeasureSpecProvider;
 import com.facebook.react.uimanager.common.SizeMonitoringFrameLayout;
 import com.facebook.react.uimanager.common.ViewUtil;
+import com.facebook.react.uimanager.debug.NotThreadSafeUIOperationsFrameListener;
 import com.facebook.react.uimanager.debug.NotThreadSafeViewHierarchyUpdateDebugListener;
 import com.facebook.react.uimanager.events.EventDispatcher;
 import com.facebook.react.uimanager.events.RCTEventEmitter;
@@ -756,6 +757,18 @@ public class UIManagerModule extends ReactContextBaseJavaModule
     mUIImplementation.setViewHierarchyUpdateDebugListener(listener);
   }
 
+  /**
+   * See {@link UIViewOperationQueue#setBatchedOperationsFrameBudgetMs}.
+   */
+  public void setBatchedOperationsFrameBudgetMs(int budgetMs) {
+    mUIImplementation.setBatchedOperationsFrameBudgetMs(budgetMs);
+  }
+
+  public void setUIOperationsFrameListener(
+      @Nullable NotThreadSafeUIOperationsFrameListener listener) {
+    mUIImplementation.setUIOperationsFrameListener(listener);
+  }
+
   public EventDispatcher getEventDispatcher() {
     return mEventDispatcher;
   }
@@ -841,13 +854,17 @@ public class UIManagerModule extends ReactContextBaseJavaModule
         });
   }
 
-  /** Listener that drops the CSSNode pool on low memory when the app is backgrounded. */
+  /**
+   * Listener that drops the CSSNode and UI operation pools on low memory when the app is
+   * backgrounded.
+   */
   private class MemoryTrimCallback implements ComponentCallbacks2 {
 
     @Override
     public void onTrimMemory(int level) {
       if (level >= TRIM_MEMORY_MODERATE) {
         YogaNodePool.get().clear();
+        mUIImplementation.getUIViewOperationQueue().clearOperationPools();
       }
     }
 
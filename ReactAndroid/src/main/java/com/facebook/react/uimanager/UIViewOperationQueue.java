@@ -8,6 +8,7 @@
 package com.facebook.react.uimanager;
 
 import android.os.SystemClock;
+import android.view.View;
 import com.facebook.common.logging.FLog;
 import com.facebook.react.animation.Animation;
 import com.facebook.react.animation.AnimationRegistry;
@@ -19,14 +20,17 @@ import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.SoftAssertions;
 import com.facebook.react.bridge.UiThreadUtil;
+import com.facebook.react.common.ClearableSynchronizedPool;
 import com.facebook.react.common.ReactConstants;
 import com.facebook.react.modules.core.ReactChoreographer;
 import com.facebook.react.uimanager.common.SizeMonitoringFrameLayout;
+import com.facebook.react.uimanager.debug.NotThreadSafeUIOperationsFrameListener;
 import com.facebook.react.uimanager.debug.NotThreadSafeViewHierarchyUpdateDebugListener;
 import com.facebook.systrace.Systrace;
 import com.facebook.systrace.SystraceMessage;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import javax.annotation.Nullable;
@@ -40,13 +44,22 @@ import javax.annotation.concurrent.GuardedBy;
  * execute all the JS operation coming from a single batch a single loop of the main (UI) android
  * looper.
  *
- * TODO(7135923): Pooling of operation objects
+ * The high-volume operations (layout, properties and children updates) are pooled. A pooled
+ * operation is owned by this queue from the moment it's enqueued until its batch has executed on
+ * the UI thread, at which point it's released back to its pool. Operations passed in through
+ * {@link #enqueueUIOperation} are never recycled.
+ *
  * TODO(5694019): Consider a better data structure for operations queue to save on allocations
  */
 public class UIViewOperationQueue {
 
   public static final int DEFAULT_MIN_TIME_LEFT_IN_FRAME_FOR_NONBATCHED_OPERATION_MS = 8;
 
+  private static final int OPERATIONS_POOL_SIZE = 1024;
+  private static final int INITIAL_LAYOUT_BATCH_CAPACITY = 1;
+  private static final int NO_FRAME_BUDGET = -1;
+  private static final long NO_DEADLINE = -1;
+
   private final int[] mMeasureBuffer = new int[4];
 
   /**
@@ -69,6 +82,19 @@ public class UIViewOperationQueue {
     }
   }
 
+  /**
+   * A {@link UIOperation} that is obtained from a pool and released back into it by
+   * {@link #recycle()} once it has been executed.
+   */
+  private interface PooledOperation extends UIOperation {
+
+    /**
+     * Drops references held by this operation and releases it to its pool. The operation must not
+     * be used afterwards.
+     */
+    void recycle();
+  }
+
   private final class RemoveRootViewOperation extends ViewOperation {
 
     public RemoveRootViewOperation(int tag) {
@@ -81,12 +107,16 @@ public class UIViewOperationQueue {
     }
   }
 
-  private final class UpdatePropertiesOperation extends ViewOperation {
+  private final class UpdatePropertiesOperation extends ViewOperation implements PooledOperation {
 
-    private final ReactStylesDiffMap mProps;
+    private @Nullable ReactStylesDiffMap mProps;
 
-    private UpdatePropertiesOperation(int tag, ReactStylesDiffMap props) {
-      super(tag);
+    private UpdatePropertiesOperation() {
+      super(View.NO_ID);
+    }
+
+    private void init(int tag, ReactStylesDiffMap props) {
+      mTag = tag;
       mProps = props;
     }
 
@@ -94,6 +124,12 @@ public class UIViewOperationQueue {
     public void execute() {
       mNativeViewHierarchyManager.updateProperties(mTag, mProps);
     }
+
+    @Override
+    public void recycle() {
+      mProps = null;
+      mUpdatePropertiesOperationPool.release(this);
+    }
   }
 
   private final class EmitOnLayoutEventOperation extends ViewOperation {
@@ -145,34 +181,58 @@ public class UIViewOperationQueue {
   }
 
   /**
-   * Operation for updating native view's position and size. The operation is not created directly
+   * Operation for updating native views' positions and sizes. The operation is not created directly
    * by a {@link UIManagerModule} call from JS. Instead it gets inflated using computed position
    * and size values by CSSNodeDEPRECATED hierarchy.
+   *
+   * Consecutive layout updates are packed into a single operation backed by one int[], laid out as
+   * {@link NativeViewHierarchyManager#LAYOUT_BATCH_ENTRY_SIZE} ints per view, so that frames that
+   * only move views create a constant number of objects. Any other operation ends a batch, so most
+   * batches of a mount hold a single view: the buffer starts at one entry and grows when needed.
    */
-  private final class UpdateLayoutOperation extends ViewOperation {
+  private final class UpdateLayoutBatchOperation implements PooledOperation {
 
-    private final int mParentTag, mX, mY, mWidth, mHeight;
+    private int[] mLayoutBatch =
+        new int[INITIAL_LAYOUT_BATCH_CAPACITY * NativeViewHierarchyManager.LAYOUT_BATCH_ENTRY_SIZE];
+    private int mEntryCount;
 
-    public UpdateLayoutOperation(
+    private void add(
         int parentTag,
         int tag,
         int x,
         int y,
         int width,
         int height) {
-      super(tag);
-      mParentTag = parentTag;
-      mX = x;
-      mY = y;
-      mWidth = width;
-      mHeight = height;
-      Systrace.startAsyncFlow(Systrace.TRACE_TAG_REACT_VIEW, "updateLayout", mTag);
+      int offset = mEntryCount * NativeViewHierarchyManager.LAYOUT_BATCH_ENTRY_SIZE;
+      if (offset + NativeViewHierarchyManager.LAYOUT_BATCH_ENTRY_SIZE > mLayoutBatch.length) {
+        mLayoutBatch = Arrays.copyOf(mLayoutBatch, 2 * mLayoutBatch.length);
+      }
+      mLayoutBatch[offset] = parentTag;
+      mLayoutBatch[offset + 1] = tag;
+      mLayoutBatch[offset + 2] = x;
+      mLayoutBatch[offset + 3] = y;
+      mLayoutBatch[offset + 4] = width;
+      mLayoutBatch[offset + 5] = height;
+      mEntryCount++;
+      Systrace.startAsyncFlow(Systrace.TRACE_TAG_REACT_VIEW, "updateLayout", tag);
     }
 
     @Override
     public void execute() {
-      Systrace.endAsyncFlow(Systrace.TRACE_TAG_REACT_VIEW, "updateLayout", mTag);
-      mNativeViewHierarchyManager.updateLayout(mParentTag, mTag, mX, mY, mWidth, mHeight);
+      for (int i = 0; i < mEntryCount; i++) {
+        Systrace.endAsyncFlow(
+            Systrace.TRACE_TAG_REACT_VIEW,
+            "updateLayout",
+            mLayoutBatch[i * NativeViewHierarchyManager.LAYOUT_BATCH_ENTRY_SIZE + 1]);
+      }
+      mNativeViewHierarchyManager.updateLayout(mLayoutBatch, mEntryCount);
+    }
+
+    @Override
+    public void recycle() {
+      // The buffer is kept, so a recycled operation doesn't need to grow again.
+      mEntryCount = 0;
+      mUpdateLayoutBatchOperationPool.release(this);
     }
   }
 
@@ -205,18 +265,22 @@ public class UIViewOperationQueue {
     }
   }
 
-  private final class ManageChildrenOperation extends ViewOperation {
+  private final class ManageChildrenOperation extends ViewOperation implements PooledOperation {
 
-    private final @Nullable int[] mIndicesToRemove;
-    private final @Nullable ViewAtIndex[] mViewsToAdd;
-    private final @Nullable int[] mTagsToDelete;
+    private @Nullable int[] mIndicesToRemove;
+    private @Nullable ViewAtIndex[] mViewsToAdd;
+    private @Nullable int[] mTagsToDelete;
 
-    public ManageChildrenOperation(
+    private ManageChildrenOperation() {
+      super(View.NO_ID);
+    }
+
+    private void init(
         int tag,
         @Nullable int[] indicesToRemove,
         @Nullable ViewAtIndex[] viewsToAdd,
         @Nullable int[] tagsToDelete) {
-      super(tag);
+      mTag = tag;
       mIndicesToRemove = indicesToRemove;
       mViewsToAdd = viewsToAdd;
       mTagsToDelete = tagsToDelete;
@@ -230,6 +294,14 @@ public class UIViewOperationQueue {
           mViewsToAdd,
           mTagsToDelete);
     }
+
+    @Override
+    public void recycle() {
+      mIndicesToRemove = null;
+      mViewsToAdd = null;
+      mTagsToDelete = null;
+      mManageChildrenOperationPool.release(this);
+    }
   }
 
   private final class SetChildrenOperation extends ViewOperation {
@@ -605,17 +677,25 @@ public class UIViewOperationQueue {
   private final Object mNonBatchedOperationsLock = new Object();
   private final DispatchUIFrameCallback mDispatchUIFrameCallback;
   private final ReactApplicationContext mReactApplicationContext;
+  private final ClearableSynchronizedPool<UpdateLayoutBatchOperation>
+      mUpdateLayoutBatchOperationPool = new ClearableSynchronizedPool<>(OPERATIONS_POOL_SIZE);
+  private final ClearableSynchronizedPool<UpdatePropertiesOperation>
+      mUpdatePropertiesOperationPool = new ClearableSynchronizedPool<>(OPERATIONS_POOL_SIZE);
+  private final ClearableSynchronizedPool<ManageChildrenOperation> mManageChildrenOperationPool =
+      new ClearableSynchronizedPool<>(OPERATIONS_POOL_SIZE);
 
   // Only called from the UIManager queue?
   private ArrayList<UIOperation> mOperations = new ArrayList<>();
 
   @GuardedBy("mDispatchRunnablesLock")
-  private ArrayList<Runnable> mDispatchUIRunnables = new ArrayList<>();
+  private ArrayList<DispatchBatchRunnable> mDispatchUIRunnables = new ArrayList<>();
 
   @GuardedBy("mNonBatchedOperationsLock")
   private ArrayDeque<UIOperation> mNonBatchedOperations = new ArrayDeque<>();
 
   private @Nullable NotThreadSafeViewHierarchyUpdateDebugListener mViewHierarchyUpdateDebugListener;
+  private @Nullable NotThreadSafeUIOperationsFrameListener mUIOperationsFrameListener;
+  private volatile int mBatchedOperationsFrameBudgetMs = NO_FRAME_BUDGET;
   private boolean mIsDispatchUIFrameCallbackEnqueued = false;
   private boolean mIsInIllegalUIState = false;
   private boolean mIsProfilingNextBatch = false;
@@ -651,6 +731,22 @@ public class UIViewOperationQueue {
     mViewHierarchyUpdateDebugListener = listener;
   }
 
+  /**
+   * Opts into executing batches incrementally: pending batches are spread over as many frames as
+   * needed so that at most about {@code budgetMs} are spent executing them per frame. A batch may
+   * create its views over several frames, but everything else it does to the view hierarchy is
+   * executed in a single frame, see {@link DispatchBatchRunnable#executeUntil}. Pass -1 to execute
+   * all pending batches in a single frame, which is the default.
+   */
+  public void setBatchedOperationsFrameBudgetMs(int budgetMs) {
+    mBatchedOperationsFrameBudgetMs = budgetMs;
+  }
+
+  public void setUIOperationsFrameListener(
+      @Nullable NotThreadSafeUIOperationsFrameListener listener) {
+    mUIOperationsFrameListener = listener;
+  }
+
   public void profileNextBatch() {
     mIsProfilingNextBatch = true;
     mProfiledBatchCommitStartTime = 0;
@@ -671,6 +767,16 @@ public class UIViewOperationQueue {
     return mOperations.isEmpty();
   }
 
+  /**
+   * Drops the pooled operation objects, e.g. on memory pressure. Operations that are currently
+   * enqueued are unaffected and will be released into the emptied pools once they've executed.
+   */
+  /* package */ void clearOperationPools() {
+    mUpdateLayoutBatchOperationPool.clear();
+    mUpdatePropertiesOperationPool.clear();
+    mManageChildrenOperationPool.clear();
+  }
+
   public void addRootView(
     final int tag,
     final SizeMonitoringFrameLayout rootView,
@@ -751,7 +857,12 @@ public class UIViewOperationQueue {
   }
 
   public void enqueueUpdateProperties(int reactTag, String className, ReactStylesDiffMap props) {
-    mOperations.add(new UpdatePropertiesOperation(reactTag, props));
+    UpdatePropertiesOperation operation = mUpdatePropertiesOperationPool.acquire();
+    if (operation == null) {
+      operation = new UpdatePropertiesOperation();
+    }
+    operation.init(reactTag, props);
+    mOperations.add(operation);
   }
 
   public void enqueueOnLayoutEvent(
@@ -771,8 +882,21 @@ public class UIViewOperationQueue {
       int y,
       int width,
       int height) {
-    mOperations.add(
-        new UpdateLayoutOperation(parentTag, reactTag, x, y, width, height));
+    // Append to the previous operation if it's a layout batch, this keeps the relative order of
+    // layout updates and any other operation intact.
+    UIOperation lastOperation =
+        mOperations.isEmpty() ? null : mOperations.get(mOperations.size() - 1);
+    UpdateLayoutBatchOperation operation;
+    if (lastOperation instanceof UpdateLayoutBatchOperation) {
+      operation = (UpdateLayoutBatchOperation) lastOperation;
+    } else {
+      operation = mUpdateLayoutBatchOperationPool.acquire();
+      if (operation == null) {
+        operation = new UpdateLayoutBatchOperation();
+      }
+      mOperations.add(operation);
+    }
+    operation.add(parentTag, reactTag, x, y, width, height);
   }
 
   public void enqueueManageChildren(
@@ -780,8 +904,12 @@ public class UIViewOperationQueue {
       @Nullable int[] indicesToRemove,
       @Nullable ViewAtIndex[] viewsToAdd,
       @Nullable int[] tagsToDelete) {
-    mOperations.add(
-        new ManageChildrenOperation(reactTag, indicesToRemove, viewsToAdd, tagsToDelete));
+    ManageChildrenOperation operation = mManageChildrenOperationPool.acquire();
+    if (operation == null) {
+      operation = new ManageChildrenOperation();
+    }
+    operation.init(reactTag, indicesToRemove, viewsToAdd, tagsToDelete);
+    mOperations.add(operation);
   }
 
   public void enqueueSetChildren(
@@ -891,72 +1019,14 @@ public class UIViewOperationQueue {
         mViewHierarchyUpdateDebugListener.onViewHierarchyUpdateEnqueued();
       }
 
-      Runnable runOperations =
-          new Runnable() {
-            @Override
-            public void run() {
-              SystraceMessage.beginSection(Systrace.TRACE_TAG_REACT_JAVA_BRIDGE, "DispatchUI")
-                  .arg("BatchId", batchId)
-                  .flush();
-              try {
-                long runStartTime = SystemClock.uptimeMillis();
-
-                // All nonBatchedOperations should be executed before regular operations as
-                // regular operations may depend on them
-                if (nonBatchedOperations != null) {
-                  for (UIOperation op : nonBatchedOperations) {
-                    op.execute();
-                  }
-                }
-
-                if (batchedOperations != null) {
-                  for (UIOperation op : batchedOperations) {
-                    op.execute();
-                  }
-                }
-
-                if (mIsProfilingNextBatch && mProfiledBatchCommitStartTime == 0) {
-                  mProfiledBatchCommitStartTime = commitStartTime;
-                  mProfiledBatchLayoutTime = layoutTime;
-                  mProfiledBatchDispatchViewUpdatesTime = dispatchViewUpdatesTime;
-                  mProfiledBatchRunStartTime = runStartTime;
-
-                  Systrace.beginAsyncSection(
-                      Systrace.TRACE_TAG_REACT_JAVA_BRIDGE,
-                      "delayBeforeDispatchViewUpdates",
-                      0,
-                      mProfiledBatchCommitStartTime * 1000000);
-                  Systrace.endAsyncSection(
-                      Systrace.TRACE_TAG_REACT_JAVA_BRIDGE,
-                      "delayBeforeDispatchViewUpdates",
-                      0,
-                      mProfiledBatchDispatchViewUpdatesTime * 1000000);
-                  Systrace.beginAsyncSection(
-                      Systrace.TRACE_TAG_REACT_JAVA_BRIDGE,
-                      "delayBeforeBatchRunStart",
-                      0,
-                      mProfiledBatchDispatchViewUpdatesTime * 1000000);
-                  Systrace.endAsyncSection(
-                      Systrace.TRACE_TAG_REACT_JAVA_BRIDGE,
-                      "delayBeforeBatchRunStart",
-                      0,
-                      mProfiledBatchRunStartTime * 1000000);
-                }
-
-                // Clear layout animation, as animation only apply to current UI operations batch.
-                mNativeViewHierarchyManager.clearLayoutAnimation();
-
-                if (mViewHierarchyUpdateDebugListener != null) {
-                  mViewHierarchyUpdateDebugListener.onViewHierarchyUpdateFinished();
-                }
-              } catch (Exception e) {
-                mIsInIllegalUIState = true;
-                throw e;
-              } finally {
-                Systrace.endSection(Systrace.TRACE_TAG_REACT_JAVA_BRIDGE);
-              }
-            }
-          };
+      DispatchBatchRunnable runOperations =
+          new DispatchBatchRunnable(
+              batchId,
+              commitStartTime,
+              layoutTime,
+              dispatchViewUpdatesTime,
+              nonBatchedOperations,
+              batchedOperations);
 
       SystraceMessage.beginSection(
         Systrace.TRACE_TAG_REACT_JAVA_BRIDGE,
@@ -999,26 +1069,42 @@ public class UIViewOperationQueue {
   }
 
   private void flushPendingBatches() {
+    flushPendingBatches(NO_DEADLINE);
+  }
+
+  /**
+   * Executes pending batches in order until they're all done or {@code deadlineNanos} has passed.
+   *
+   * @return whether all pending batches have been executed.
+   */
+  private boolean flushPendingBatches(long deadlineNanos) {
     if (mIsInIllegalUIState) {
       FLog.w(
         ReactConstants.TAG,
         "Not flushing pending UI operations because of previously thrown Exception");
-      return;
+      return true;
     }
 
-    final ArrayList<Runnable> runnables;
+    final ArrayList<DispatchBatchRunnable> runnables;
     synchronized (mDispatchRunnablesLock) {
       if (!mDispatchUIRunnables.isEmpty()) {
         runnables = mDispatchUIRunnables;
         mDispatchUIRunnables = new ArrayList<>();
       } else {
-        return;
+        return true;
       }
     }
 
     final long batchedExecutionStartTime = SystemClock.uptimeMillis();
-    for (Runnable runnable : runnables) {
-      runnable.run();
+    for (int i = 0; i < runnables.size(); i++) {
+      if ((i > 0 && isPastDeadline(deadlineNanos))
+          || !runnables.get(i).executeUntil(deadlineNanos)) {
+        // Out of budget: keep the unfinished batches ahead of any batch dispatched in the meantime.
+        synchronized (mDispatchRunnablesLock) {
+          mDispatchUIRunnables.addAll(0, runnables.subList(i, runnables.size()));
+        }
+        return false;
+      }
     }
 
     if (mIsProfilingNextBatch) {
@@ -1034,6 +1120,137 @@ public class UIViewOperationQueue {
       Systrace.endAsyncSection(Systrace.TRACE_TAG_REACT_JAVA_BRIDGE, "batchedExecutionTime", 0);
     }
     mNonBatchedExecutionTotalTime = 0;
+    return true;
+  }
+
+  private static boolean isPastDeadline(long deadlineNanos) {
+    return deadlineNanos != NO_DEADLINE && System.nanoTime() > deadlineNanos;
+  }
+
+  /**
+   * Executes the operations of one batch on the UI thread. When a frame budget is set (see
+   * {@link #setBatchedOperationsFrameBudgetMs}) a batch may be executed over several frames.
+   */
+  private final class DispatchBatchRunnable implements Runnable {
+
+    private final int mBatchId;
+    private final long mCommitStartTime;
+    private final long mLayoutTime;
+    private final long mDispatchViewUpdatesTime;
+    private final @Nullable ArrayDeque<UIOperation> mNonBatchedOperationsToRun;
+    private final @Nullable ArrayList<UIOperation> mBatchedOperations;
+    private long mRunStartTime = 0;
+
+    private DispatchBatchRunnable(
+        int batchId,
+        long commitStartTime,
+        long layoutTime,
+        long dispatchViewUpdatesTime,
+        @Nullable ArrayDeque<UIOperation> nonBatchedOperations,
+        @Nullable ArrayList<UIOperation> batchedOperations) {
+      mBatchId = batchId;
+      mCommitStartTime = commitStartTime;
+      mLayoutTime = layoutTime;
+      mDispatchViewUpdatesTime = dispatchViewUpdatesTime;
+      mNonBatchedOperationsToRun = nonBatchedOperations;
+      mBatchedOperations = batchedOperations;
+    }
+
+    @Override
+    public void run() {
+      executeUntil(NO_DEADLINE);
+    }
+
+    /**
+     * Executes the remaining operations of this batch, in order, stopping early once
+     * {@code deadlineNanos} (in the {@link System#nanoTime()} base) has passed. At least one
+     * operation is executed per call, so a batch always makes progress.
+     *
+     * Only the views the batch creates are created over several calls, since they aren't attached
+     * to a root view until the rest of the batch executes. The rest of the batch is executed in a
+     * single call, so that every root view is drawn either before or after the whole batch.
+     *
+     * @return whether the batch has been completely executed.
+     */
+    public boolean executeUntil(long deadlineNanos) {
+      SystraceMessage.beginSection(Systrace.TRACE_TAG_REACT_JAVA_BRIDGE, "DispatchUI")
+          .arg("BatchId", mBatchId)
+          .flush();
+      try {
+        if (mRunStartTime == 0) {
+          mRunStartTime = SystemClock.uptimeMillis();
+        }
+
+        // All nonBatchedOperations should be executed before regular operations as
+        // regular operations may depend on them
+        boolean hasExecutedOperations = false;
+        if (mNonBatchedOperationsToRun != null) {
+          while (!mNonBatchedOperationsToRun.isEmpty()) {
+            if (hasExecutedOperations && isPastDeadline(deadlineNanos)) {
+              return false;
+            }
+            mNonBatchedOperationsToRun.pollFirst().execute();
+            hasExecutedOperations = true;
+          }
+        }
+        if (hasExecutedOperations && isPastDeadline(deadlineNanos)) {
+          return false;
+        }
+
+        if (mBatchedOperations != null) {
+          for (int i = 0; i < mBatchedOperations.size(); i++) {
+            UIOperation op = mBatchedOperations.get(i);
+            op.execute();
+            if (op instanceof PooledOperation) {
+              // Nothing references the operation once it has executed, see the ownership rule in
+              // the class comment.
+              ((PooledOperation) op).recycle();
+            }
+          }
+        }
+
+        if (mIsProfilingNextBatch && mProfiledBatchCommitStartTime == 0) {
+          mProfiledBatchCommitStartTime = mCommitStartTime;
+          mProfiledBatchLayoutTime = mLayoutTime;
+          mProfiledBatchDispatchViewUpdatesTime = mDispatchViewUpdatesTime;
+          mProfiledBatchRunStartTime = mRunStartTime;
+
+          Systrace.beginAsyncSection(
+              Systrace.TRACE_TAG_REACT_JAVA_BRIDGE,
+              "delayBeforeDispatchViewUpdates",
+              0,
+              mProfiledBatchCommitStartTime * 1000000);
+          Systrace.endAsyncSection(
+              Systrace.TRACE_TAG_REACT_JAVA_BRIDGE,
+              "delayBeforeDispatchViewUpdates",
+              0,
+              mProfiledBatchDispatchViewUpdatesTime * 1000000);
+          Systrace.beginAsyncSection(
+              Systrace.TRACE_TAG_REACT_JAVA_BRIDGE,
+              "delayBeforeBatchRunStart",
+              0,
+              mProfiledBatchDispatchViewUpdatesTime * 1000000);
+          Systrace.endAsyncSection(
+              Systrace.TRACE_TAG_REACT_JAVA_BRIDGE,
+              "delayBeforeBatchRunStart",
+              0,
+              mProfiledBatchRunStartTime * 1000000);
+        }
+
+        // Clear layout animation, as animation only apply to current UI operations batch.
+        mNativeViewHierarchyManager.clearLayoutAnimation();
+
+        if (mViewHierarchyUpdateDebugListener != null) {
+          mViewHierarchyUpdateDebugListener.onViewHierarchyUpdateFinished();
+        }
+        return true;
+      } catch (Exception e) {
+        mIsInIllegalUIState = true;
+        throw e;
+      } finally {
+        Systrace.endSection(Systrace.TRACE_TAG_REACT_JAVA_BRIDGE);
+      }
+    }
   }
 
   /**
@@ -1071,20 +1288,42 @@ public class UIViewOperationQueue {
         return;
       }
 
+      long frameExecutionStartTime = SystemClock.uptimeMillis();
+      boolean hasExecutedOperations;
       Systrace.beginSection(Systrace.TRACE_TAG_REACT_JAVA_BRIDGE, "dispatchNonBatchedUIOperations");
       try {
-        dispatchPendingNonBatchedOperations(frameTimeNanos);
+        hasExecutedOperations = dispatchPendingNonBatchedOperations(frameTimeNanos);
       } finally {
         Systrace.endSection(Systrace.TRACE_TAG_REACT_JAVA_BRIDGE);
       }
 
-      flushPendingBatches();
+      synchronized (mDispatchRunnablesLock) {
+        // Flushing always makes progress on the first pending batch.
+        hasExecutedOperations |= !mDispatchUIRunnables.isEmpty();
+      }
+      int frameBudgetMs = mBatchedOperationsFrameBudgetMs;
+      boolean hasPendingBatches;
+      if (frameBudgetMs == NO_FRAME_BUDGET) {
+        hasPendingBatches = !flushPendingBatches(NO_DEADLINE);
+      } else {
+        hasPendingBatches = !flushPendingBatches(frameTimeNanos + frameBudgetMs * 1000000L);
+      }
+
+      if (hasExecutedOperations && mUIOperationsFrameListener != null) {
+        mUIOperationsFrameListener.onUIOperationsFrameExecuted(
+            SystemClock.uptimeMillis() - frameExecutionStartTime,
+            hasPendingBatches);
+      }
 
       ReactChoreographer.getInstance().postFrameCallback(
         ReactChoreographer.CallbackType.DISPATCH_UI, this);
     }
 
-    private void dispatchPendingNonBatchedOperations(long frameTimeNanos) {
+    /**
+     * @return whether any operation was executed.
+     */
+    private boolean dispatchPendingNonBatchedOperations(long frameTimeNanos) {
+      boolean hasExecutedOperations = false;
       while (true) {
         long timeLeftInFrame = FRAME_TIME_MS - ((System.nanoTime() - frameTimeNanos) / 1000000);
         if (timeLeftInFrame < mMinTimeLeftInFrameForNonBatchedOperationMs) {
@@ -1103,6 +1342,7 @@ public class UIViewOperationQueue {
         try {
           long nonBatchedExecutionStartTime = SystemClock.uptimeMillis();
           nextOperation.execute();
+          hasExecutedOperations = true;
           mNonBatchedExecutionTotalTime +=
               SystemClock.uptimeMillis() - nonBatchedExecutionStartTime;
         } catch (Exception e) {
@@ -1110,6 +1350,7 @@ public class UIViewOperationQueue {
           throw e;
         }
       }
+      return hasExecutedOperations;
     }
   }
 }
@@ -44,6 +44,10 @@ public class ViewManagerPropertyUpdater {
       V v,
       ReactStylesDiffMap props) {
     ViewManagerSetter<T, V> setter = findManagerSetter(manager.getClass());
+    if (setter instanceof FallbackViewManagerSetter) {
+      ((FallbackViewManagerSetter<T, V>) setter).setProperties(manager, v, props);
+      return;
+    }
     ReadableMap propMap = props.mBackingMap;
     ReadableMapKeySetIterator iterator = propMap.keySetIterator();
     while (iterator.hasNextKey()) {
@@ -54,6 +58,10 @@ public class ViewManagerPropertyUpdater {
 
   public static <T extends ReactShadowNode> void updateProps(T node, ReactStylesDiffMap props) {
     ShadowNodeSetter<T> setter = findNodeSetter(node.getClass());
+    if (setter instanceof FallbackShadowNodeSetter) {
+      ((FallbackShadowNodeSetter<T>) setter).setProperties(node, props);
+      return;
+    }
     ReadableMap propMap = props.mBackingMap;
     ReadableMapKeySetIterator iterator = propMap.keySetIterator();
     while (iterator.hasNextKey()) {
@@ -105,7 +113,8 @@ public class ViewManagerPropertyUpdater {
   private static <T> T findGeneratedSetter(Class<?> cls) {
     String clsName = cls.getName();
     try {
-      Class<?> setterClass = Class.forName(clsName + "$$PropsSetter");
+      // The setter is generated next to the class, which may not be loaded by our class loader.
+      Class<?> setterClass = Class.forName(clsName + "$$PropsSetter", true, cls.getClassLoader());
       //noinspection unchecked
       return (T) setterClass.newInstance();
     } catch (ClassNotFoundException e) {
@@ -118,16 +127,30 @@ public class ViewManagerPropertyUpdater {
 
   private static class FallbackViewManagerSetter<T extends ViewManager, V extends View>
       implements ViewManagerSetter<T, V> {
-    private final Map<String, ViewManagersPropertyCache.PropSetter> mPropSetters;
+    // Indexed by prop ID.
+    private final ViewManagersPropertyCache.PropSetter[] mPropSetters;
 
     private FallbackViewManagerSetter(Class<? extends ViewManager> viewManagerClass) {
-      mPropSetters =
-          ViewManagersPropertyCache.getNativePropSettersForViewManagerClass(viewManagerClass);
+      FLog.w(TAG, "Updating props of " + viewManagerClass + " through reflection");
+      mPropSetters = ViewManagersPropertyCache.getPropSetterTable(
+          ViewManagersPropertyCache.getNativePropSettersForViewManagerClass(viewManagerClass));
+    }
+
+    private void setProperties(T manager, V v, ReactStylesDiffMap props) {
+      for (int propId : ViewManagersPropertyCache.getPropIds(props)) {
+        ViewManagersPropertyCache.PropSetter setter =
+            ViewManagersPropertyCache.findPropSetter(mPropSetters, propId);
+        if (setter != null) {
+          setter.updateViewProp(manager, v, props);
+        }
+      }
     }
 
     @Override
     public void setProperty(T manager, V v, String name, ReactStylesDiffMap props) {
-      ViewManagersPropertyCache.PropSetter setter = mPropSetters.get(name);
+      ViewManagersPropertyCache.PropSetter setter = ViewManagersPropertyCache.findPropSetter(
+          mPropSetters,
+          ViewManagersPropertyCache.getPropId(name));
       if (setter != null) {
         setter.updateViewProp(manager, v, props);
       }
@@ -135,24 +158,40 @@ public class ViewManagerPropertyUpdater {
 
     @Override
     public void getProperties(Map<String, String> props) {
-      for (ViewManagersPropertyCache.PropSetter setter : mPropSetters.values()) {
-        props.put(setter.getPropName(), setter.getPropType());
+      for (ViewManagersPropertyCache.PropSetter setter : mPropSetters) {
+        if (setter != null) {
+          props.put(setter.getPropName(), setter.getPropType());
+        }
       }
     }
   }
 
   private static class FallbackShadowNodeSetter<T extends ReactShadowNode>
       implements ShadowNodeSetter<T> {
-    private final Map<String, ViewManagersPropertyCache.PropSetter> mPropSetters;
+    // Indexed by prop ID.
+    private final ViewManagersPropertyCache.PropSetter[] mPropSetters;
 
     private FallbackShadowNodeSetter(Class<? extends ReactShadowNode> shadowNodeClass) {
-      mPropSetters =
-          ViewManagersPropertyCache.getNativePropSettersForShadowNodeClass(shadowNodeClass);
+      FLog.w(TAG, "Updating props of " + shadowNodeClass + " through reflection");
+      mPropSetters = ViewManagersPropertyCache.getPropSetterTable(
+          ViewManagersPropertyCache.getNativePropSettersForShadowNodeClass(shadowNodeClass));
+    }
+
+    private void setProperties(ReactShadowNode node, ReactStylesDiffMap props) {
+      for (int propId : ViewManagersPropertyCache.getPropIds(props)) {
+        ViewManagersPropertyCache.PropSetter setter =
+            ViewManagersPropertyCache.findPropSetter(mPropSetters, propId);
+        if (setter != null) {
+          setter.updateShadowNodeProp(node, props);
+        }
+      }
     }
 
     @Override
     public void setProperty(ReactShadowNode node, String name, ReactStylesDiffMap props) {
-      ViewManagersPropertyCache.PropSetter setter = mPropSetters.get(name);
+      ViewManagersPropertyCache.PropSetter setter = ViewManagersPropertyCache.findPropSetter(
+          mPropSetters,
+          ViewManagersPropertyCache.getPropId(name));
       if (setter != null) {
         setter.updateShadowNodeProp(node, props);
       }
@@ -160,8 +199,10 @@ public class ViewManagerPropertyUpdater {
 
     @Override
     public void getProperties(Map<String, String> props) {
-      for (ViewManagersPropertyCache.PropSetter setter : mPropSetters.values()) {
-        props.put(setter.getPropName(), setter.getPropType());
+      for (ViewManagersPropertyCache.PropSetter setter : mPropSetters) {
+        if (setter != null) {
+          props.put(setter.getPropName(), setter.getPropType());
+        }
       }
     }
   }
@@ -7,6 +7,7 @@
 
 package com.facebook.react.uimanager;
 
+import com.facebook.react.bridge.PerformanceCounter;
 import com.facebook.react.common.MapBuilder;
 import java.util.List;
 import java.util.Map;
@@ -15,6 +16,9 @@ import javax.annotation.Nullable;
 /**
  * Class that stores the mapping between native view name used in JS and the corresponding instance
  * of {@link ViewManager}.
+ *
+ * View managers that implement {@link PerformanceCounter} have their counters reported with the
+ * UIManager's. Lazily resolved view managers are only reported once they have been used.
  */
 public final class ViewManagerRegistry {
 
@@ -42,7 +46,7 @@ public final class ViewManagerRegistry {
     mViewManagerResolver = null;
   }
 
-  public ViewManager get(String className) {
+  public synchronized ViewManager get(String className) {
     ViewManager viewManager = mViewManagers.get(className);
     if (viewManager != null) {
       return viewManager;
@@ -56,4 +60,20 @@ public final class ViewManagerRegistry {
     }
     throw new IllegalViewOperationException("No ViewManager defined for class " + className);
   }
+
+  /* package */ synchronized void profileNextBatch() {
+    for (ViewManager viewManager : mViewManagers.values()) {
+      if (viewManager instanceof PerformanceCounter) {
+        ((PerformanceCounter) viewManager).profileNextBatch();
+      }
+    }
+  }
+
+  /* package */ synchronized void putPerformanceCounters(Map<String, Long> perfMap) {
+    for (ViewManager viewManager : mViewManagers.values()) {
+      if (viewManager instanceof PerformanceCounter) {
+        perfMap.putAll(((PerformanceCounter) viewManager).getPerformanceCounters());
+      }
+    }
+  }
 }
@@ -11,22 +11,42 @@ import com.facebook.react.bridge.Dynamic;
 import com.facebook.react.bridge.JSApplicationIllegalArgumentException;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
 import com.facebook.react.uimanager.annotations.ReactProp;
 import com.facebook.react.uimanager.annotations.ReactPropGroup;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nullable;
 
 /**
  * This class is responsible for holding view manager property setters and is used in a process of
  * updating views with the new properties set in JS.
+ *
+ * The setters call the annotated methods through reflection. They are only used as a fallback by
+ * {@link ViewManagerPropertyUpdater} for classes without a {@code $$PropsSetter} generated by
+ * {@code ReactPropertyProcessor}.
+ *
+ * The name of every prop a setter is created for is interned to a small integer ID, shared by all
+ * view managers and shadow nodes. The fallback setters lay out their {@link PropSetter}s in an array
+ * indexed by prop ID (see {@link #getPropSetterTable}), and the keys of a
+ * {@link ReactStylesDiffMap} are resolved to IDs once (see {@link #getPropIds}), so that the shadow
+ * node and the view that apply the same map don't each look its keys up by name.
  */
 /*package*/ class ViewManagersPropertyCache {
 
   private static final Map<Class, Map<String, PropSetter>> CLASS_PROPS_CACHE = new HashMap<>();
   private static final Map<String, PropSetter> EMPTY_PROPS_MAP = new HashMap<>();
+  private static final PropSetter[] EMPTY_PROP_SETTER_TABLE = new PropSetter[0];
+
+  /*package*/ static final int NO_PROP_ID = -1;
+
+  // Written while setters are created and read from any thread that applies props. The IDs are not
+  // cleared with the setters, as resolved PropIds may outlive them.
+  private static final Map<String, Integer> PROP_IDS = new ConcurrentHashMap<>();
+  private static volatile int sPropIdCount = 0;
 
   public static void clear() {
     CLASS_PROPS_CACHE.clear();
@@ -36,20 +56,14 @@ import javax.annotation.Nullable;
   /*package*/ static abstract class PropSetter {
 
     protected final String mPropName;
+    protected final int mPropId;
     protected final String mPropType;
     protected final Method mSetter;
     protected final @Nullable Integer mIndex; /* non-null only for group setters */
 
-    // The following Object arrays are used to prevent extra allocations from varargs when we call
-    // Method.invoke. It's safe for those objects to be static as we update properties in a single
-    // thread sequentially
-    private static final Object[] VIEW_MGR_ARGS = new Object[2];
-    private static final Object[] VIEW_MGR_GROUP_ARGS = new Object[3];
-    private static final Object[] SHADOW_ARGS = new Object[1];
-    private static final Object[] SHADOW_GROUP_ARGS = new Object[2];
-
     private PropSetter(ReactProp prop, String defaultType, Method setter) {
       mPropName = prop.name();
+      mPropId = internPropId(mPropName);
       mPropType = ReactProp.USE_DEFAULT_TYPE.equals(prop.customType()) ?
           defaultType : prop.customType();
       mSetter = setter;
@@ -58,6 +72,7 @@ import javax.annotation.Nullable;
 
     private PropSetter(ReactPropGroup prop, String defaultType, Method setter, int index) {
       mPropName = prop.names()[index];
+      mPropId = internPropId(mPropName);
       mPropType = ReactPropGroup.USE_DEFAULT_TYPE.equals(prop.customType()) ?
           defaultType : prop.customType();
       mSetter = setter;
@@ -77,17 +92,12 @@ import javax.annotation.Nullable;
         View viewToUpdate,
         ReactStylesDiffMap props) {
       try {
+        // The argument arrays are allocated per call: views and shadow nodes may be updated from
+        // different threads, so sharing them would not be safe.
         if (mIndex == null) {
-          VIEW_MGR_ARGS[0] = viewToUpdate;
-          VIEW_MGR_ARGS[1] = extractProperty(props);
-          mSetter.invoke(viewManager, VIEW_MGR_ARGS);
-          Arrays.fill(VIEW_MGR_ARGS, null);
+          mSetter.invoke(viewManager, viewToUpdate, extractProperty(props));
         } else {
-          VIEW_MGR_GROUP_ARGS[0] = viewToUpdate;
-          VIEW_MGR_GROUP_ARGS[1] = mIndex;
-          VIEW_MGR_GROUP_ARGS[2] = extractProperty(props);
-          mSetter.invoke(viewManager, VIEW_MGR_GROUP_ARGS);
-          Arrays.fill(VIEW_MGR_GROUP_ARGS, null);
+          mSetter.invoke(viewManager, viewToUpdate, mIndex, extractProperty(props));
         }
       } catch (Throwable t) {
         FLog.e(ViewManager.class, "Error while updating prop " + mPropName, t);
@@ -101,14 +111,9 @@ import javax.annotation.Nullable;
         ReactStylesDiffMap props) {
       try {
         if (mIndex == null) {
-          SHADOW_ARGS[0] = extractProperty(props);
-          mSetter.invoke(nodeToUpdate, SHADOW_ARGS);
-          Arrays.fill(SHADOW_ARGS, null);
+          mSetter.invoke(nodeToUpdate, extractProperty(props));
         } else {
-          SHADOW_GROUP_ARGS[0] = mIndex;
-          SHADOW_GROUP_ARGS[1] = extractProperty(props);
-          mSetter.invoke(nodeToUpdate, SHADOW_GROUP_ARGS);
-          Arrays.fill(SHADOW_GROUP_ARGS, null);
+          mSetter.invoke(nodeToUpdate, mIndex, extractProperty(props));
         }
       } catch (Throwable t) {
         FLog.e(ViewManager.class, "Error while updating prop " + mPropName, t);
@@ -281,6 +286,98 @@ import javax.annotation.Nullable;
     }
   }
 
+  /**
+   * The interned IDs of the keys of a {@link ReactStylesDiffMap}, in the order of its key set.
+   */
+  /*package*/ static final class PropIds {
+
+    private final int[] mIds;
+    // The number of interned prop names when the IDs were resolved. A key without an ID gets one if
+    // a setter for it is created later.
+    private final int mPropIdCount;
+    private final boolean mHasUnknownProps;
+
+    private PropIds(ReadableMap props) {
+      int propIdCount = sPropIdCount;
+      int[] ids = new int[8];
+      int count = 0;
+      boolean hasUnknownProps = false;
+      ReadableMapKeySetIterator iterator = props.keySetIterator();
+      while (iterator.hasNextKey()) {
+        int propId = getPropId(iterator.nextKey());
+        hasUnknownProps |= propId == NO_PROP_ID;
+        if (count == ids.length) {
+          ids = Arrays.copyOf(ids, count * 2);
+        }
+        ids[count++] = propId;
+      }
+      mIds = count == ids.length ? ids : Arrays.copyOf(ids, count);
+      mPropIdCount = propIdCount;
+      mHasUnknownProps = hasUnknownProps;
+    }
+
+    private boolean isCurrent() {
+      return !mHasUnknownProps || mPropIdCount == sPropIdCount;
+    }
+  }
+
+  /**
+   * @return the ID interned for the given prop name, or {@link #NO_PROP_ID} if no setter has been
+   * created for it.
+   */
+  /*package*/ static int getPropId(String propName) {
+    Integer propId = PROP_IDS.get(propName);
+    return propId == null ? NO_PROP_ID : propId;
+  }
+
+  private static synchronized int internPropId(String propName) {
+    Integer propId = PROP_IDS.get(propName);
+    if (propId == null) {
+      propId = sPropIdCount;
+      PROP_IDS.put(propName, propId);
+      sPropIdCount = propId + 1;
+    }
+    return propId;
+  }
+
+  /**
+   * @return the IDs of the keys of the given map, with {@link #NO_PROP_ID} for keys no setter has
+   * been created for. They are resolved once for maps that keep them.
+   */
+  /*package*/ static int[] getPropIds(ReactStylesDiffMap props) {
+    PropIds propIds = props.mPropIds;
+    if (propIds == null || !propIds.isCurrent()) {
+      propIds = new PropIds(props.mBackingMap);
+      if (props.mKeepPropIds) {
+        props.mPropIds = propIds;
+      }
+    }
+    return propIds.mIds;
+  }
+
+  /**
+   * Lays out the given setters in an array indexed by prop ID. Use {@link #findPropSetter} to look
+   * up a prop in the returned table.
+   */
+  /*package*/ static PropSetter[] getPropSetterTable(Map<String, PropSetter> propSetters) {
+    if (propSetters.isEmpty()) {
+      return EMPTY_PROP_SETTER_TABLE;
+    }
+    int maxPropId = NO_PROP_ID;
+    for (PropSetter setter : propSetters.values()) {
+      maxPropId = Math.max(maxPropId, setter.mPropId);
+    }
+    PropSetter[] table = new PropSetter[maxPropId + 1];
+    for (PropSetter setter : propSetters.values()) {
+      table[setter.mPropId] = setter;
+    }
+    return table;
+  }
+
+  /*package*/ static @Nullable PropSetter findPropSetter(PropSetter[] table, int propId) {
+    return propId >= 0 && propId < table.length ? table[propId] : null;
+  }
+
   /*package*/ static Map<String, String> getNativePropsForView(
       Class<? extends ViewManager> viewManagerTopClass,
       Class<? extends ReactShadowNode> shadowNodeTopClass) {
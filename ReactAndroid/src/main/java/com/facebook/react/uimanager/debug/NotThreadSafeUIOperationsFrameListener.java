@@ -0,0 +1,29 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.uimanager.debug;
+
+import com.facebook.react.uimanager.UIViewOperationQueue;
+
+/**
+ * A listener that is notified about the time spent executing UI operations in each frame, e.g. to
+ * tune {@link UIViewOperationQueue#setBatchedOperationsFrameBudgetMs}. This listener should only be
+ * used for debug purposes and should not affect application state.
+ *
+ * NB: this listener is always called from the UI thread.
+ */
+public interface NotThreadSafeUIOperationsFrameListener {
+
+  /**
+   * Called from the main thread at the end of every frame in which UI operations are dispatched.
+   *
+   * @param executionTimeMs time spent executing UI operations during this frame
+   * @param hasPendingBatches whether some batches were left for the following frames because the
+   * frame budget ran out
+   */
+  void onUIOperationsFrameExecuted(long executionTimeMs, boolean hasPendingBatches);
+}
@@ -7,12 +7,13 @@
 
 package com.facebook.react.uimanager.events;
 
-import android.util.LongSparseArray;
 import com.facebook.infer.annotation.Assertions;
 import com.facebook.react.bridge.LifecycleEventListener;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.UiThreadUtil;
+import com.facebook.react.common.LongIntHashMap;
 import com.facebook.react.common.MapBuilder;
+import com.facebook.react.config.ReactFeatureFlags;
 import com.facebook.react.modules.core.ChoreographerCompat;
 import com.facebook.react.modules.core.ReactChoreographer;
 import com.facebook.react.uimanager.common.UIManagerType;
@@ -59,6 +60,9 @@ import javax.annotation.Nullable;
  */
 public class EventDispatcher implements LifecycleEventListener {
 
+  private static final int LOCK_FREE_STAGING_CAPACITY = 512;
+  private static final int NO_EVENT_IDX = -1;
+
   private static final Comparator<Event> EVENT_COMPARATOR = new Comparator<Event>() {
     @Override
     public int compare(Event lhs, Event rhs) {
@@ -86,7 +90,8 @@ public class EventDispatcher implements LifecycleEventListener {
   private final Object mEventsStagingLock = new Object();
   private final Object mEventsToDispatchLock = new Object();
   private final ReactApplicationContext mReactContext;
-  private final LongSparseArray<Integer> mEventCookieToLastEventIdx = new LongSparseArray<>();
+  private final LongIntHashMap mEventCookieToLastEventIdx =
+    LongIntHashMap.createWithInitialCapacity(16);
   private final Map<String, Short> mEventNameToEventId = MapBuilder.newHashMap();
   private final DispatchEventsRunnable mDispatchEventsRunnable = new DispatchEventsRunnable();
   private final ArrayList<Event> mEventStaging = new ArrayList<>();
@@ -95,6 +100,7 @@ public class EventDispatcher implements LifecycleEventListener {
   private final ScheduleDispatchFrameCallback mCurrentFrameCallback =
     new ScheduleDispatchFrameCallback();
   private final AtomicInteger mHasDispatchScheduledCount = new AtomicInteger();
+  private final @Nullable LockFreeEventStagingQueue mLockFreeEventStaging;
 
   private Event[] mEventsToDispatch = new Event[16];
   private int mEventsToDispatchSize = 0;
@@ -106,6 +112,9 @@ public class EventDispatcher implements LifecycleEventListener {
     mReactContext = reactContext;
     mReactContext.addLifecycleEventListener(this);
     mReactEventEmitter = new ReactEventEmitter(mReactContext);
+    mLockFreeEventStaging = ReactFeatureFlags.useLockFreeEventStaging
+        ? new LockFreeEventStagingQueue(LOCK_FREE_STAGING_CAPACITY)
+        : null;
   }
 
   /**
@@ -114,16 +123,32 @@ public class EventDispatcher implements LifecycleEventListener {
   public void dispatchEvent(Event event) {
     Assertions.assertCondition(event.isInitialized(), "Dispatched event hasn't been initialized");
 
-    for (EventDispatcherListener listener : mListeners) {
-      listener.onEventDispatch(event);
+    // Iterate by index, this runs for every event.
+    for (int i = 0; i < mListeners.size(); i++) {
+      mListeners.get(i).onEventDispatch(event);
     }
     
-    synchronized (mEventsStagingLock) {
-      mEventStaging.add(event);
+    if (mLockFreeEventStaging != null) {
+      // The async flow has to be started before the event is published, since the UI thread may
+      // move it to the dispatch queue as soon as it's in the ring.
       Systrace.startAsyncFlow(
           Systrace.TRACE_TAG_REACT_JAVA_BRIDGE,
           event.getEventName(),
           event.getUniqueID());
+      if (!mLockFreeEventStaging.offer(event)) {
+        // The ring is full, fall back to the locked staging list.
+        synchronized (mEventsStagingLock) {
+          mEventStaging.add(event);
+        }
+      }
+    } else {
+      synchronized (mEventsStagingLock) {
+        mEventStaging.add(event);
+        Systrace.startAsyncFlow(
+            Systrace.TRACE_TAG_REACT_JAVA_BRIDGE,
+            event.getEventName(),
+            event.getUniqueID());
+      }
     }
     if (mReactEventEmitter != null) {
       // If the host activity is paused, the frame callback may not be currently
@@ -195,50 +220,64 @@ public class EventDispatcher implements LifecycleEventListener {
    * frame and another from this frame during the next.
    */
   private void moveStagedEventsToDispatchQueue() {
+    if (mLockFreeEventStaging != null) {
+      synchronized (mEventsToDispatchLock) {
+        Event event;
+        while ((event = mLockFreeEventStaging.poll()) != null) {
+          addStagedEventToEventsToDispatch(event);
+        }
+      }
+    }
     synchronized (mEventsStagingLock) {
       synchronized (mEventsToDispatchLock) {
         for (int i = 0; i < mEventStaging.size(); i++) {
-          Event event = mEventStaging.get(i);
+          addStagedEventToEventsToDispatch(mEventStaging.get(i));
+        }
+      }
+      mEventStaging.clear();
+    }
+  }
 
-          if (!event.canCoalesce()) {
-            addEventToEventsToDispatch(event);
-            continue;
-          }
+  /**
+   * Adds a staged event to the dispatch queue, coalescing it with the last queued event that has the
+   * same cookie if possible. Must be called while holding {@link #mEventsToDispatchLock}.
+   */
+  private void addStagedEventToEventsToDispatch(Event event) {
+    if (!event.canCoalesce()) {
+      addEventToEventsToDispatch(event);
+      return;
+    }
 
-          long eventCookie = getEventCookie(
-              event.getViewTag(),
-              event.getEventName(),
-              event.getCoalescingKey());
-
-          Event eventToAdd = null;
-          Event eventToDispose = null;
-          Integer lastEventIdx = mEventCookieToLastEventIdx.get(eventCookie);
-
-          if (lastEventIdx == null) {
-            eventToAdd = event;
-            mEventCookieToLastEventIdx.put(eventCookie, mEventsToDispatchSize);
-          } else {
-            Event lastEvent = mEventsToDispatch[lastEventIdx];
-            Event coalescedEvent = event.coalesce(lastEvent);
-            if (coalescedEvent != lastEvent) {
-              eventToAdd = coalescedEvent;
-              mEventCookieToLastEventIdx.put(eventCookie, mEventsToDispatchSize);
-              eventToDispose = lastEvent;
-              mEventsToDispatch[lastEventIdx] = null;
-            } else {
-              eventToDispose = event;
-            }
-          }
+    long eventCookie = getEventCookie(
+        event.getViewTag(),
+        event.getEventName(),
+        event.getCoalescingKey());
 
-          if (eventToAdd != null) {
-            addEventToEventsToDispatch(eventToAdd);
-          }
-          if (eventToDispose != null) {
-            eventToDispose.dispose();
-          }
-        }
+    Event eventToAdd = null;
+    Event eventToDispose = null;
+    int lastEventIdx = mEventCookieToLastEventIdx.get(eventCookie, NO_EVENT_IDX);
+
+    if (lastEventIdx == NO_EVENT_IDX) {
+      eventToAdd = event;
+      mEventCookieToLastEventIdx.put(eventCookie, mEventsToDispatchSize);
+    } else {
+      Event lastEvent = mEventsToDispatch[lastEventIdx];
+      Event coalescedEvent = event.coalesce(lastEvent);
+      if (coalescedEvent != lastEvent) {
+        eventToAdd = coalescedEvent;
+        mEventCookieToLastEventIdx.put(eventCookie, mEventsToDispatchSize);
+        eventToDispose = lastEvent;
+        mEventsToDispatch[lastEventIdx] = null;
+      } else {
+        eventToDispose = event;
       }
-      mEventStaging.clear();
+    }
+
+    if (eventToAdd != null) {
+      addEventToEventsToDispatch(eventToAdd);
+    }
+    if (eventToDispose != null) {
+      eventToDispose.dispose();
     }
   }
 
@@ -254,7 +293,7 @@ public class EventDispatcher implements LifecycleEventListener {
     return getEventCookie(viewTag, eventTypeId, coalescingKey);
   }
 
-  private static long getEventCookie(int viewTag, short eventTypeId, short coalescingKey) {
+  /* package */ static long getEventCookie(int viewTag, short eventTypeId, short coalescingKey) {
     return viewTag |
         (((long) eventTypeId) & 0xffff) << 32 |
         (((long) coalescingKey) & 0xffff) << 48;
@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.uimanager.events;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.Nullable;
+
+/**
+ * Bounded, lock-free, multi-producer single-consumer queue used by {@link EventDispatcher} to stage
+ * events without taking a monitor on the producing thread.
+ *
+ * Any thread may call {@link #offer}. Only one thread at a time (the UI thread, from the frame
+ * callback) may call {@link #poll}. Each slot carries a sequence number so that the consumer never
+ * observes a slot whose producer has claimed it but not yet published the event into it.
+ *
+ * When the queue is full {@link #offer} returns false and the caller is expected to fall back to a
+ * locked staging path; the queue never blocks a producer.
+ */
+/* package */ class LockFreeEventStagingQueue {
+
+  private final int mMask;
+  private final AtomicReferenceArray<Event> mEvents;
+  private final AtomicLongArray mSequences;
+  private final AtomicLong mProducerIndex = new AtomicLong();
+  // Only written by the consumer, volatile so that isEmpty can be called from any thread.
+  private volatile long mConsumerIndex = 0;
+
+  /**
+   * @param capacity the number of slots, rounded up to the next power of two.
+   */
+  public LockFreeEventStagingQueue(int capacity) {
+    int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+    mMask = size - 1;
+    mEvents = new AtomicReferenceArray<>(size);
+    mSequences = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      mSequences.set(i, i);
+    }
+  }
+
+  public int capacity() {
+    return mMask + 1;
+  }
+
+  /**
+   * Stages the given event. Safe to call from any thread.
+   *
+   * @return false if the queue is full and the event was not staged.
+   */
+  public boolean offer(Event event) {
+    while (true) {
+      long index = mProducerIndex.get();
+      int slot = (int) index & mMask;
+      long diff = mSequences.get(slot) - index;
+      if (diff == 0) {
+        if (mProducerIndex.compareAndSet(index, index + 1)) {
+          mEvents.lazySet(slot, event);
+          mSequences.set(slot, index + 1);
+          return true;
+        }
+      } else if (diff < 0) {
+        // The consumer hasn't released this slot since the last lap: the queue is full.
+        return false;
+      }
+      // Another producer claimed this index first, retry with the new one.
+    }
+  }
+
+  /**
+   * Removes the oldest published event. Must only be called from the single consumer thread.
+   *
+   * @return the event, or null if no published event is available.
+   */
+  public @Nullable Event poll() {
+    long index = mConsumerIndex;
+    int slot = (int) index & mMask;
+    if (mSequences.get(slot) != index + 1) {
+      return null;
+    }
+    Event event = mEvents.get(slot);
+    mEvents.lazySet(slot, null);
+    mSequences.set(slot, index + mMask + 1);
+    mConsumerIndex = index + 1;
+    return event;
+  }
+
+  /**
+   * Safe to call from any thread.
+   *
+   * @return whether every event claimed by a producer has been consumed. Published-ness is not
+   * checked, so a false result may be followed by {@link #poll} returning null.
+   */
+  public boolean isEmpty() {
+    return mProducerIndex.get() == mConsumerIndex;
+  }
+}
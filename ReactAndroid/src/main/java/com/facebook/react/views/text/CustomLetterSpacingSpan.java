@@ -41,6 +41,10 @@ public class CustomLetterSpacingSpan extends MetricAffectingSpan {
     apply(paint);
   }
 
+  public float getLetterSpacing() {
+    return mLetterSpacing;
+  }
+
   private void apply(TextPaint paint) {
     // mLetterSpacing and paint.getTextSize() are both in pixels,
     // yielding an accurate em value.
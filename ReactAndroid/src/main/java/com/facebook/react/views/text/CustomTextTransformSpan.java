@@ -28,6 +28,10 @@ public class CustomTextTransformSpan extends ReplacementSpan {
     mTransform = transform;
   }
 
+  public TextTransform getTransform() {
+    return mTransform;
+  }
+
   @Override
   public void draw(Canvas canvas, CharSequence text, int start, int end, float x, int top, int y, int bottom, Paint paint) {
     CharSequence transformedText = transformText(text);
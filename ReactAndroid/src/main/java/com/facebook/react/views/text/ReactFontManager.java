@@ -9,13 +9,23 @@ package com.facebook.react.views.text;
 
 import javax.annotation.Nullable;
 
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
 import android.content.res.AssetManager;
 import android.graphics.Typeface;
+import android.os.AsyncTask;
 import android.util.SparseArray;
 
+import com.facebook.react.bridge.ReactMarker;
+import com.facebook.react.bridge.ReactMarkerConstants;
+import com.facebook.react.common.annotations.VisibleForTesting;
+
 /**
  * Class responsible to load and cache Typeface objects. It will first try to load typefaces inside
  * the assets/fonts folder and if it doesn't find the right Typeface in that folder will fall back
@@ -23,6 +33,11 @@ import android.util.SparseArray;
  * each font family the bold, italic and bold_italic variants are supported. Given a "family" font
  * family the files in the assets/fonts folder need to be family.ttf(.otf) family_bold.ttf(.otf)
  * family_italic.ttf(.otf) and family_bold_italic.ttf(.otf)
+ *
+ * The files in the assets/fonts folder are listed once, so that variants a family doesn't have
+ * fall back on the system Typeface without trying to open them. Typefaces can be loaded ahead of
+ * time on a background thread with {@link #preloadTypefaces}, so that the first layout of text
+ * using them doesn't have to wait for them to be read.
  */
 public class ReactFontManager {
 
@@ -32,17 +47,21 @@ public class ReactFontManager {
       "_italic",
       "_bold_italic"};
   private static final String[] FILE_EXTENSIONS = {".ttf", ".otf"};
-  private static final String FONTS_ASSET_PATH = "fonts/";
+  private static final String FONTS_ASSET_DIRECTORY = "fonts";
+  private static final String FONTS_ASSET_PATH = FONTS_ASSET_DIRECTORY + "/";
 
   private static ReactFontManager sReactFontManagerInstance;
 
   private Map<String, FontFamily> mFontCache;
+  // Names of the files in the fonts folder, null until they have been listed.
+  private @Nullable Set<String> mFontAssets;
 
-  private ReactFontManager() {
+  @VisibleForTesting
+  /* package */ ReactFontManager() {
     mFontCache = new HashMap<>();
   }
 
-  public static ReactFontManager getInstance() {
+  public static synchronized ReactFontManager getInstance() {
     if (sReactFontManagerInstance == null) {
       sReactFontManagerInstance = new ReactFontManager();
     }
@@ -54,23 +73,69 @@ public class ReactFontManager {
       String fontFamilyName,
       int style,
       AssetManager assetManager) {
-    FontFamily fontFamily = mFontCache.get(fontFamilyName);
-    if (fontFamily == null) {
-      fontFamily = new FontFamily();
-      mFontCache.put(fontFamilyName, fontFamily);
+    synchronized (this) {
+      FontFamily fontFamily = mFontCache.get(fontFamilyName);
+      if (fontFamily != null) {
+        Typeface typeface = fontFamily.getTypeface(style);
+        if (typeface != null) {
+          return typeface;
+        }
+      }
     }
 
-    Typeface typeface = fontFamily.getTypeface(style);
+    // Created without holding the lock, so lookups of loaded typefaces don't wait for it.
+    Typeface typeface = createTypeface(fontFamilyName, style, assetManager);
     if (typeface == null) {
-      typeface = createTypeface(fontFamilyName, style, assetManager);
-      if (typeface != null) {
-        fontFamily.setTypeface(style, typeface);
+      return null;
+    }
+    synchronized (this) {
+      FontFamily fontFamily = getOrCreateFontFamily(fontFamilyName);
+      // Another thread may have loaded it meanwhile, the typeface that was cached first is kept.
+      Typeface cachedTypeface = fontFamily.getTypeface(style);
+      if (cachedTypeface != null) {
+        return cachedTypeface;
       }
+      fontFamily.setTypeface(style, typeface);
     }
-
     return typeface;
   }
 
+  /**
+   * Loads the typefaces of the given font families in the given styles on a background thread, so
+   * that they are cached by the time text using them is laid out. Meant to be called on startup
+   * with the fonts the first screens use.
+   *
+   * @param styles
+   * @see {@link Typeface#DEFAULT}
+   * @see {@link Typeface#BOLD}
+   * @see {@link Typeface#ITALIC}
+   * @see {@link Typeface#BOLD_ITALIC}
+   */
+  public void preloadTypefaces(
+      AssetManager assetManager,
+      String[] fontFamilyNames,
+      int[] styles) {
+    preloadTypefaces(assetManager, fontFamilyNames, styles, AsyncTask.THREAD_POOL_EXECUTOR);
+  }
+
+  @VisibleForTesting
+  /* package */ void preloadTypefaces(
+      final AssetManager assetManager,
+      final String[] fontFamilyNames,
+      final int[] styles,
+      Executor executor) {
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        for (String fontFamilyName : fontFamilyNames) {
+          for (int style : styles) {
+            getTypeface(fontFamilyName, style, assetManager);
+          }
+        }
+      }
+    });
+  }
+
   /**
    * Add additional font family, or replace the exist one in the font memory cache.
    * @param style
@@ -81,37 +146,89 @@ public class ReactFontManager {
    */
   public void setTypeface(String fontFamilyName, int style, Typeface typeface) {
     if (typeface != null) {
-      FontFamily fontFamily = mFontCache.get(fontFamilyName);
-      if (fontFamily == null) {
-        fontFamily = new FontFamily();
-        mFontCache.put(fontFamilyName, fontFamily);
+      synchronized (this) {
+        getOrCreateFontFamily(fontFamilyName).setTypeface(style, typeface);
       }
-      fontFamily.setTypeface(style, typeface);
+      // Text using the family was measured with the typeface it replaces.
+      TextMeasurementCache.getInstance().clear();
     }
   }
 
-  private static
+  private FontFamily getOrCreateFontFamily(String fontFamilyName) {
+    FontFamily fontFamily = mFontCache.get(fontFamilyName);
+    if (fontFamily == null) {
+      fontFamily = new FontFamily();
+      mFontCache.put(fontFamilyName, fontFamily);
+    }
+    return fontFamily;
+  }
+
+  private
   @Nullable Typeface createTypeface(
       String fontFamilyName,
       int style,
       AssetManager assetManager) {
-    String extension = EXTENSIONS[style];
-    for (String fileExtension : FILE_EXTENSIONS) {
-      String fileName = new StringBuilder()
-          .append(FONTS_ASSET_PATH)
-          .append(fontFamilyName)
-          .append(extension)
-          .append(fileExtension)
-          .toString();
-      try {
-        return Typeface.createFromAsset(assetManager, fileName);
-      } catch (RuntimeException e) {
-        // unfortunately Typeface.createFromAsset throws an exception instead of returning null
-        // if the typeface doesn't exist
+    ReactMarker.logMarker(ReactMarkerConstants.LOAD_TYPEFACE_START, fontFamilyName);
+    try {
+      Set<String> fontAssets = getFontAssets(assetManager);
+      String extension = EXTENSIONS[style];
+      for (String fileExtension : FILE_EXTENSIONS) {
+        String fileName = new StringBuilder()
+            .append(fontFamilyName)
+            .append(extension)
+            .append(fileExtension)
+            .toString();
+        if (fontAssets != null && !fontAssets.contains(fileName)) {
+          continue;
+        }
+        try {
+          return createFromAsset(assetManager, FONTS_ASSET_PATH + fileName);
+        } catch (RuntimeException e) {
+          // unfortunately Typeface.createFromAsset throws an exception instead of returning null
+          // if the typeface doesn't exist
+        }
+      }
+
+      return Typeface.create(fontFamilyName, style);
+    } finally {
+      ReactMarker.logMarker(ReactMarkerConstants.LOAD_TYPEFACE_END, fontFamilyName);
+    }
+  }
+
+  /**
+   * @return the names of the files in the fonts folder, null if they can't be listed and every
+   * file has to be tried.
+   */
+  private @Nullable Set<String> getFontAssets(AssetManager assetManager) {
+    synchronized (this) {
+      if (mFontAssets != null) {
+        return mFontAssets;
       }
     }
+    String[] fileNames;
+    try {
+      fileNames = listFontAssets(assetManager);
+    } catch (IOException e) {
+      return null;
+    }
+    if (fileNames == null) {
+      return null;
+    }
+    Set<String> fontAssets = new HashSet<>(Arrays.asList(fileNames));
+    synchronized (this) {
+      mFontAssets = fontAssets;
+    }
+    return fontAssets;
+  }
+
+  @VisibleForTesting
+  /* package */ @Nullable String[] listFontAssets(AssetManager assetManager) throws IOException {
+    return assetManager.list(FONTS_ASSET_DIRECTORY);
+  }
 
-    return Typeface.create(fontFamilyName, style);
+  @VisibleForTesting
+  /* package */ Typeface createFromAsset(AssetManager assetManager, String path) {
+    return Typeface.createFromAsset(assetManager, path);
   }
 
   private static class FontFamily {
@@ -22,6 +22,7 @@ import com.facebook.infer.annotation.Assertions;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.config.ReactFeatureFlags;
 import com.facebook.react.uimanager.LayoutShadowNode;
 import com.facebook.react.uimanager.ReactShadowNodeImpl;
 import com.facebook.react.uimanager.Spacing;
@@ -50,6 +51,11 @@ public class ReactTextShadowNode extends ReactBaseTextShadowNode {
   private static final TextPaint sTextPaintInstance = new TextPaint(TextPaint.ANTI_ALIAS_FLAG);
 
   private @Nullable Spannable mPreparedSpannableText;
+  // With ReactFeatureFlags.useMeasuredTextLayout, text is measured with a paint of this node. It is
+  // handed to the view along with the layout built with it, and the node measures with a new one.
+  private @Nullable TextPaint mTextPaint;
+  // The layout of the last measurement that built one, handed to the view with the next update.
+  private @Nullable Layout mMeasuredLayout;
 
   private boolean mShouldNotifyOnTextLayout;
 
@@ -63,12 +69,37 @@ public class ReactTextShadowNode extends ReactBaseTextShadowNode {
             float height,
             YogaMeasureMode heightMode) {
           // TODO(5578671): Handle text direction (see View#getTextDirectionHeuristic)
-          TextPaint textPaint = sTextPaintInstance;
-          textPaint.setTextSize(mFontSize != UNSET ? mFontSize : getDefaultFontSize());
+          TextPaint textPaint = getTextPaint(mFontSize != UNSET ? mFontSize : getDefaultFontSize());
           Layout layout;
           Spanned text = Assertions.assertNotNull(
               mPreparedSpannableText,
               "Spannable element has not been prepared in onBeforeLayout");
+
+          // The layout is needed to report the lines of the text, or to be handed to the view. A
+          // cached size comes without one, and a layout can't be shared as it holds the spans and
+          // the paint of the node that built it.
+          TextMeasurementCache.Key cacheKey = null;
+          if (ReactFeatureFlags.cacheTextMeasurements &&
+              !ReactFeatureFlags.useMeasuredTextLayout &&
+              !mShouldNotifyOnTextLayout) {
+            cacheKey = TextMeasurementCache.getKey(
+                text,
+                textPaint.getTextSize(),
+                getTextAlign(),
+                mIncludeFontPadding,
+                mTextBreakStrategy,
+                mNumberOfLines,
+                width,
+                widthMode);
+          }
+          TextMeasurementCache measurementCache = TextMeasurementCache.getInstance();
+          if (cacheKey != null) {
+            Long measurement = measurementCache.get(cacheKey);
+            if (measurement != null) {
+              return measurement;
+            }
+          }
+
           BoringLayout.Metrics boring = BoringLayout.isBoring(text, textPaint);
           float desiredWidth = boring == null ?
               Layout.getDesiredWidth(text, textPaint) : Float.NaN;
@@ -150,9 +181,13 @@ public class ReactTextShadowNode extends ReactBaseTextShadowNode {
             }
           }
 
+          if (ReactFeatureFlags.useMeasuredTextLayout) {
+            mMeasuredLayout = layout;
+          }
+
           if (mShouldNotifyOnTextLayout) {
             WritableArray lines =
-              FontMetricsUtil.getFontMetrics(text, layout, sTextPaintInstance, getThemedContext());
+              FontMetricsUtil.getFontMetrics(text, layout, textPaint, getThemedContext());
             WritableMap event = Arguments.createMap();
             event.putArray("lines", lines);
             getThemedContext()
@@ -160,11 +195,17 @@ public class ReactTextShadowNode extends ReactBaseTextShadowNode {
                 .receiveEvent(getReactTag(), "topTextLayout", event);
           }
 
+          long measurement;
           if (mNumberOfLines != UNSET && mNumberOfLines < layout.getLineCount()) {
-            return YogaMeasureOutput.make(layout.getWidth(), layout.getLineBottom(mNumberOfLines - 1));
+            measurement =
+                YogaMeasureOutput.make(layout.getWidth(), layout.getLineBottom(mNumberOfLines - 1));
           } else {
-            return YogaMeasureOutput.make(layout.getWidth(), layout.getHeight());
+            measurement = YogaMeasureOutput.make(layout.getWidth(), layout.getHeight());
+          }
+          if (cacheKey != null) {
+            measurementCache.put(cacheKey, measurement);
           }
+          return measurement;
         }
       };
 
@@ -178,6 +219,18 @@ public class ReactTextShadowNode extends ReactBaseTextShadowNode {
     }
   }
 
+  private TextPaint getTextPaint(float textSize) {
+    if (!ReactFeatureFlags.useMeasuredTextLayout) {
+      sTextPaintInstance.setTextSize(textSize);
+      return sTextPaintInstance;
+    }
+    if (mTextPaint == null || mTextPaint.getTextSize() != textSize) {
+      mTextPaint = new TextPaint(TextPaint.ANTI_ALIAS_FLAG);
+      mTextPaint.setTextSize(textSize);
+    }
+    return mTextPaint;
+  }
+
   // Return text alignment according to LTR or RTL style
   private int getTextAlign() {
     int textAlign = mTextAlign;
@@ -194,6 +247,7 @@ public class ReactTextShadowNode extends ReactBaseTextShadowNode {
   @Override
   public void onBeforeLayout() {
     mPreparedSpannableText = spannedFromShadowNode(this, null);
+    mMeasuredLayout = null;
     markUpdated();
   }
 
@@ -214,6 +268,7 @@ public class ReactTextShadowNode extends ReactBaseTextShadowNode {
     super.onCollectExtraUpdates(uiViewOperationQueue);
 
     if (mPreparedSpannableText != null) {
+      Layout measuredLayout = mContainsImages ? null : mMeasuredLayout;
       ReactTextUpdate reactTextUpdate =
         new ReactTextUpdate(
           mPreparedSpannableText,
@@ -224,8 +279,14 @@ public class ReactTextShadowNode extends ReactBaseTextShadowNode {
           getPadding(Spacing.END),
           getPadding(Spacing.BOTTOM),
           getTextAlign(),
-          mTextBreakStrategy
+          mTextBreakStrategy,
+          measuredLayout
         );
+      mMeasuredLayout = null;
+      if (measuredLayout != null) {
+        // The view sets the color of the paint on the UI thread while it draws the layout.
+        mTextPaint = null;
+      }
       uiViewOperationQueue.enqueueUpdateExtraData(getReactTag(), reactTextUpdate);
     }
   }
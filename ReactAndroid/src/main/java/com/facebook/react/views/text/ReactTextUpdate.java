@@ -9,6 +9,7 @@ package com.facebook.react.views.text;
 
 import android.text.Layout;
 import android.text.Spannable;
+import javax.annotation.Nullable;
 
 /**
  * Class that contains the data needed for a text update.
@@ -26,6 +27,7 @@ public class ReactTextUpdate {
   private final float mPaddingBottom;
   private final int mTextAlign;
   private final int mTextBreakStrategy;
+  private final @Nullable Layout mLayout;
 
   /**
    * @deprecated Use a non-deprecated constructor for ReactTextUpdate instead. This one remains
@@ -62,6 +64,33 @@ public class ReactTextUpdate {
     float paddingBottom,
     int textAlign,
     int textBreakStrategy) {
+    this(text,
+        jsEventCounter,
+        containsImages,
+        paddingStart,
+        paddingTop,
+        paddingEnd,
+        paddingBottom,
+        textAlign,
+        textBreakStrategy,
+        null);
+  }
+
+  /**
+   * @param layout the layout the text was measured with, that the view can draw instead of laying
+   * the text out again. Its paint belongs to the view once it is passed.
+   */
+  public ReactTextUpdate(
+    Spannable text,
+    int jsEventCounter,
+    boolean containsImages,
+    float paddingStart,
+    float paddingTop,
+    float paddingEnd,
+    float paddingBottom,
+    int textAlign,
+    int textBreakStrategy,
+    @Nullable Layout layout) {
     mText = text;
     mJsEventCounter = jsEventCounter;
     mContainsImages = containsImages;
@@ -71,6 +100,7 @@ public class ReactTextUpdate {
     mPaddingBottom = paddingBottom;
     mTextAlign = textAlign;
     mTextBreakStrategy = textBreakStrategy;
+    mLayout = layout;
   }
 
   public Spannable getText() {
@@ -108,4 +138,8 @@ public class ReactTextUpdate {
   public int getTextBreakStrategy() {
     return mTextBreakStrategy;
   }
+
+  public @Nullable Layout getLayout() {
+    return mLayout;
+  }
 }
@@ -8,6 +8,7 @@
 package com.facebook.react.views.text;
 
 import android.content.Context;
+import android.graphics.Canvas;
 import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.text.Layout;
@@ -38,6 +39,9 @@ public class ReactTextView extends TextView implements ReactCompoundView {
 
   private ReactViewBackgroundManager mReactBackgroundManager;
   private Spannable mSpanned;
+  // The layout the text was measured with, drawn instead of one built by TextView until the view is
+  // measured at a width it doesn't fit.
+  private @Nullable Layout mPrecomputedLayout;
 
   public ReactTextView(Context context) {
     super(context);
@@ -55,6 +59,19 @@ public class ReactTextView extends TextView implements ReactCompoundView {
     if (getLayoutParams() == null) {
       setLayoutParams(EMPTY_LAYOUT_PARAMS);
     }
+    // Only a view that is shown for the first time can skip laying its text out, a view that was
+    // laid out before keeps the layout TextView built for it.
+    Layout layout = update.getLayout();
+    if (layout != null &&
+        !mContainsImages &&
+        !mTextIsSelectable &&
+        mNumberOfLines == ViewDefaults.NUMBER_OF_LINES &&
+        (getGravity() & Gravity.VERTICAL_GRAVITY_MASK) == Gravity.TOP &&
+        getLayout() == null) {
+      mPrecomputedLayout = layout;
+    } else {
+      mPrecomputedLayout = null;
+    }
     setText(update.getText());
     setPadding(
       (int) Math.floor(update.getPaddingLeft()),
@@ -74,6 +91,38 @@ public class ReactTextView extends TextView implements ReactCompoundView {
     }
   }
 
+  @Override
+  protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+    if (mPrecomputedLayout != null &&
+        MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.EXACTLY &&
+        MeasureSpec.getMode(heightMeasureSpec) == MeasureSpec.EXACTLY &&
+        MeasureSpec.getSize(widthMeasureSpec) - getCompoundPaddingLeft() -
+          getCompoundPaddingRight() == mPrecomputedLayout.getWidth()) {
+      setMeasuredDimension(
+        MeasureSpec.getSize(widthMeasureSpec),
+        MeasureSpec.getSize(heightMeasureSpec));
+      return;
+    }
+    mPrecomputedLayout = null;
+    super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+  }
+
+  @Override
+  protected void onDraw(Canvas canvas) {
+    Layout layout = mPrecomputedLayout;
+    if (layout == null) {
+      super.onDraw(canvas);
+      return;
+    }
+    // Spans set the color of the text they cover, the rest is drawn in the color of the view. The
+    // node handed its paint over with the layout, so only this view uses it.
+    layout.getPaint().setColor(getCurrentTextColor());
+    canvas.save();
+    canvas.translate(getCompoundPaddingLeft(), getExtendedPaddingTop());
+    layout.draw(canvas);
+    canvas.restore();
+  }
+
   @Override
   public int reactTagForTouch(float touchX, float touchY) {
     CharSequence text = getText();
@@ -82,7 +131,7 @@ public class ReactTextView extends TextView implements ReactCompoundView {
     int x = (int) touchX;
     int y = (int) touchY;
 
-    Layout layout = getLayout();
+    Layout layout = mPrecomputedLayout != null ? mPrecomputedLayout : getLayout();
     if (layout == null) {
       // If the layout is null, the view hasn't been properly laid out yet. Therefore, we can't find
       // the exact text tag that has been touched, and the correct tag to return is the default one.
@@ -123,6 +172,10 @@ public class ReactTextView extends TextView implements ReactCompoundView {
   @Override
   public void setTextIsSelectable(boolean selectable) {
     mTextIsSelectable = selectable;
+    if (selectable && mPrecomputedLayout != null) {
+      mPrecomputedLayout = null;
+      requestLayout();
+    }
     super.setTextIsSelectable(selectable);
   }
 
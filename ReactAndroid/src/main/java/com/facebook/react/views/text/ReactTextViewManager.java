@@ -10,6 +10,7 @@ package com.facebook.react.views.text;
 import android.text.Layout;
 import android.text.Spannable;
 import com.facebook.react.common.MapBuilder;
+import com.facebook.react.bridge.PerformanceCounter;
 import com.facebook.react.bridge.ReactContext;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
@@ -28,7 +29,8 @@ import com.facebook.yoga.YogaMeasureMode;
  */
 @ReactModule(name = ReactTextViewManager.REACT_CLASS)
 public class ReactTextViewManager
-    extends ReactTextAnchorViewManager<ReactTextView, ReactTextShadowNode> {
+    extends ReactTextAnchorViewManager<ReactTextView, ReactTextShadowNode>
+    implements PerformanceCounter {
 
   @VisibleForTesting
   public static final String REACT_CLASS = "RCTText";
@@ -123,4 +125,17 @@ public class ReactTextViewManager
       height,
       YogaMeasureMode.fromInt(heightMode));
   }
+
+  /**
+   * Resets the counters of the {@link TextMeasurementCache} shared by the text nodes.
+   */
+  @Override
+  public void profileNextBatch() {
+    TextMeasurementCache.getInstance().profileNextBatch();
+  }
+
+  @Override
+  public Map<String, Long> getPerformanceCounters() {
+    return TextMeasurementCache.getInstance().getPerformanceCounters();
+  }
 }
@@ -27,10 +27,12 @@ import com.facebook.react.bridge.ReactContext;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.ReadableNativeMap;
+import com.facebook.react.config.ReactFeatureFlags;
 import com.facebook.react.uimanager.PixelUtil;
 import com.facebook.react.uimanager.ReactStylesDiffMap;
 import com.facebook.yoga.YogaConstants;
 import com.facebook.yoga.YogaMeasureMode;
+import com.facebook.yoga.YogaMeasureOutput;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -226,6 +228,31 @@ public class TextLayoutManager {
       throw new IllegalStateException("Spannable element has not been prepared in onBeforeLayout");
     }
     Spanned text = preparedSpannableText;
+    int maximumNumberOfLines = paragraphAttributes.hasKey("maximumNumberOfLines") ? paragraphAttributes.getInt("maximumNumberOfLines") : UNSET;
+
+    TextMeasurementCache.Key cacheKey = null;
+    if (ReactFeatureFlags.cacheTextMeasurements) {
+      cacheKey = TextMeasurementCache.getKey(
+        text,
+        textPaint.getTextSize(),
+        UNSET,
+        includeFontPadding,
+        textBreakStrategy,
+        maximumNumberOfLines,
+        width,
+        widthYogaMeasureMode);
+    }
+    TextMeasurementCache measurementCache = TextMeasurementCache.getInstance();
+    if (cacheKey != null) {
+      Long measurement = measurementCache.get(cacheKey);
+      if (measurement != null) {
+        return new float[] {
+          PixelUtil.toSPFromPixel(YogaMeasureOutput.getWidth(measurement)),
+          PixelUtil.toSPFromPixel(YogaMeasureOutput.getHeight(measurement))
+        };
+      }
+    }
+
     BoringLayout.Metrics boring = BoringLayout.isBoring(text, textPaint);
     float desiredWidth = boring == null ?
       Layout.getDesiredWidth(text, textPaint) : Float.NaN;
@@ -294,8 +321,6 @@ public class TextLayoutManager {
       }
     }
 
-    int maximumNumberOfLines = paragraphAttributes.hasKey("maximumNumberOfLines") ? paragraphAttributes.getInt("maximumNumberOfLines") : UNSET;
-
     width = layout.getWidth();
     if (maximumNumberOfLines != UNSET
       && maximumNumberOfLines != 0
@@ -304,6 +329,9 @@ public class TextLayoutManager {
     } else {
       height = layout.getHeight();
     }
+    if (cacheKey != null) {
+      measurementCache.put(cacheKey, YogaMeasureOutput.make(width, height));
+    }
 
     return new float[] { PixelUtil.toSPFromPixel(width), PixelUtil.toSPFromPixel(height) };
   }
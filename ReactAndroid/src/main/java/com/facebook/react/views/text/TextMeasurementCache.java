@@ -0,0 +1,243 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.views.text;
+
+import javax.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import android.text.Spanned;
+import android.text.TextUtils;
+import android.text.style.AbsoluteSizeSpan;
+import android.text.style.BackgroundColorSpan;
+import android.text.style.ForegroundColorSpan;
+import android.text.style.StrikethroughSpan;
+import android.text.style.UnderlineSpan;
+
+import com.facebook.react.bridge.PerformanceCounter;
+import com.facebook.react.config.ReactFeatureFlags;
+import com.facebook.yoga.YogaMeasureMode;
+
+/**
+ * Caches the size text was measured at, so that laying out text that was measured before doesn't
+ * build a {@link android.text.Layout} again. Yoga measures a node several times in one pass, and
+ * the rows of a list often show the same labels.
+ *
+ * Measurements are keyed by the text, the spans that affect its metrics, the attributes of its
+ * node and the width it is measured at. Colors, decorations and react tags don't change the size of
+ * text, so identical labels of different nodes share an entry. Text with spans that aren't known,
+ * such as inline images, isn't cached. The mode only matters as far as the width is constrained or
+ * not, so measuring with EXACTLY and AT_MOST the same width is one entry. See {@link Key} for how
+ * the text is kept out of the key.
+ *
+ * The least recently used measurements are evicted once the cache is full. Its counters are
+ * reported with the UIManager's, through {@link ReactTextViewManager}. Text is only looked up here
+ * with {@link ReactFeatureFlags#cacheTextMeasurements}.
+ */
+public class TextMeasurementCache implements PerformanceCounter {
+
+  /* package */ static final int DEFAULT_MAX_SIZE = 512;
+
+  /* package */ static final int MAX_COPIED_TEXT_LENGTH = 64;
+
+  private static @Nullable TextMeasurementCache sInstance;
+
+  private final LinkedHashMap<Key, Long> mMeasurements;
+
+  // Performance counters
+  private long mHitCount;
+  private long mMissCount;
+  private long mEvictionCount;
+
+  /* package */ TextMeasurementCache(final int maxSize) {
+    mMeasurements = new LinkedHashMap<Key, Long>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Long> eldest) {
+        if (size() > maxSize) {
+          mEvictionCount++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  public static synchronized TextMeasurementCache getInstance() {
+    if (sInstance == null) {
+      sInstance = new TextMeasurementCache(DEFAULT_MAX_SIZE);
+    }
+    return sInstance;
+  }
+
+  /**
+   * Identifies a measurement without holding on to the whole text, so that a full cache of long
+   * paragraphs doesn't keep megabytes of characters alive. Texts are compared by their length, a
+   * hash of their characters and a copy of at most {@link #MAX_COPIED_TEXT_LENGTH} of their first
+   * characters; short labels, which are what repeats, are thus compared in full. Two longer texts
+   * are only mistaken for each other if they have the same length and beginning and their hashes
+   * collide. The attributes are compared as a string that describes them and the spans of the text.
+   */
+  /* package */ static final class Key {
+
+    private final int mTextLength;
+    private final int mTextHash;
+    private final String mCopiedText;
+    private final String mAttributes;
+    private final int mHashCode;
+
+    private Key(Spanned text, String attributes) {
+      int textHash = 0;
+      for (int i = 0; i < text.length(); i++) {
+        textHash = 31 * textHash + text.charAt(i);
+      }
+      mTextLength = text.length();
+      mTextHash = textHash;
+      mCopiedText = TextUtils.substring(
+          text,
+          0,
+          Math.min(text.length(), MAX_COPIED_TEXT_LENGTH));
+      mAttributes = attributes;
+      mHashCode = 31 * (31 * textHash + mTextLength) + attributes.hashCode();
+    }
+
+    /* package */ String getCopiedText() {
+      return mCopiedText;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return mHashCode == other.mHashCode &&
+          mTextLength == other.mTextLength &&
+          mTextHash == other.mTextHash &&
+          mCopiedText.equals(other.mCopiedText) &&
+          mAttributes.equals(other.mAttributes);
+    }
+
+    @Override
+    public int hashCode() {
+      return mHashCode;
+    }
+  }
+
+  /**
+   * @return the key of the measurement of the text with the given attributes at the given width,
+   * null if the text can't be cached.
+   */
+  /* package */ static @Nullable Key getKey(
+      Spanned text,
+      float fontSize,
+      int textAlign,
+      boolean includeFontPadding,
+      int textBreakStrategy,
+      int numberOfLines,
+      float width,
+      YogaMeasureMode widthMode) {
+    StringBuilder key = new StringBuilder(64);
+    key.append(fontSize).append(',')
+        .append(textAlign).append(',')
+        .append(includeFontPadding).append(',')
+        .append(textBreakStrategy).append(',')
+        .append(numberOfLines).append(',');
+    // Measured the same way as ReactTextShadowNode and TextLayoutManager decide it.
+    if (widthMode == YogaMeasureMode.UNDEFINED || width < 0) {
+      key.append('u');
+    } else {
+      key.append(width);
+    }
+
+    Object[] spans = text.getSpans(0, text.length(), Object.class);
+    for (Object span : spans) {
+      if (span instanceof ReactTagSpan ||
+          span instanceof ForegroundColorSpan ||
+          span instanceof BackgroundColorSpan ||
+          span instanceof UnderlineSpan ||
+          span instanceof StrikethroughSpan ||
+          span instanceof ShadowStyleSpan) {
+        continue;
+      }
+      key.append(';')
+          .append(text.getSpanStart(span)).append('-')
+          .append(text.getSpanEnd(span)).append(':');
+      if (span instanceof AbsoluteSizeSpan) {
+        AbsoluteSizeSpan sizeSpan = (AbsoluteSizeSpan) span;
+        key.append("size ").append(sizeSpan.getSize()).append(sizeSpan.getDip());
+      } else if (span instanceof CustomStyleSpan) {
+        CustomStyleSpan styleSpan = (CustomStyleSpan) span;
+        key.append("style ")
+            .append(styleSpan.getStyle()).append(',')
+            .append(styleSpan.getWeight()).append(',')
+            .append(styleSpan.getFontFamily());
+      } else if (span instanceof CustomLetterSpacingSpan) {
+        key.append("spacing ").append(((CustomLetterSpacingSpan) span).getLetterSpacing());
+      } else if (span instanceof CustomLineHeightSpan) {
+        key.append("height ").append(((CustomLineHeightSpan) span).getHeight());
+      } else if (span instanceof CustomTextTransformSpan) {
+        key.append("transform ").append(((CustomTextTransformSpan) span).getTransform());
+      } else {
+        return null;
+      }
+    }
+    return new Key(text, key.toString());
+  }
+
+  /**
+   * @return the measurement packed by {@link com.facebook.yoga.YogaMeasureOutput}, null if it
+   * isn't cached.
+   */
+  /* package */ synchronized @Nullable Long get(Key key) {
+    Long measurement = mMeasurements.get(key);
+    if (measurement != null) {
+      mHitCount++;
+    } else {
+      mMissCount++;
+    }
+    return measurement;
+  }
+
+  /* package */ synchronized void put(Key key, long measurement) {
+    mMeasurements.put(key, measurement);
+  }
+
+  /**
+   * Drops every measurement, for when text is measured differently than before, e.g. because a
+   * font family was replaced.
+   */
+  public synchronized void clear() {
+    mMeasurements.clear();
+  }
+
+  @Override
+  public synchronized void profileNextBatch() {
+    mHitCount = 0;
+    mMissCount = 0;
+    mEvictionCount = 0;
+  }
+
+  @Override
+  public synchronized Map<String, Long> getPerformanceCounters() {
+    Map<String, Long> perfMap = new HashMap<>();
+    long lookupCount = mHitCount + mMissCount;
+    perfMap.put("TextMeasurementCacheHits", mHitCount);
+    perfMap.put("TextMeasurementCacheMisses", mMissCount);
+    perfMap.put(
+        "TextMeasurementCacheHitRatioPercent",
+        lookupCount > 0 ? mHitCount * 100 / lookupCount : 0);
+    perfMap.put("TextMeasurementCacheEvictions", mEvictionCount);
+    perfMap.put("TextMeasurementCacheSize", (long) mMeasurements.size());
+    return perfMap;
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ *  Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ *  This source code is licensed under the MIT license found in the LICENSE
+ *  file in the root directory of this source tree.
+ *
+ */
+package com.facebook.yoga;
+
+import java.util.ArrayList;
+
+/**
+ * Holds the layouts {@link YogaNode#calculateLayout(float, float, YogaLayoutBuffer)} reads back
+ * from the native nodes in one call, so that the layout of a tree can be read without going
+ * through JNI for every node and every value. It is reused from one pass to the next, and grows
+ * with the number of nodes whose layout changed.
+ *
+ * The first value is the number of records that follow. A record describes a node whose layout
+ * changed, in depth-first order, by its depth below the root and its index in its owner, followed
+ * by its layout.
+ */
+public class YogaLayoutBuffer {
+
+  /* Those constants need to be in sync with YGJNI.cpp */
+  static final int RECORD_SIZE = 20;
+  static final int DEPTH = 0;
+  static final int INDEX = 1;
+  static final int LEFT = 2;
+  static final int TOP = 3;
+  static final int WIDTH = 4;
+  static final int HEIGHT = 5;
+  static final int DIRECTION = 6;
+  static final int DID_LEGACY_STRETCH_FLAG_AFFECT_LAYOUT = 7;
+  static final int MARGIN = 8;
+  static final int PADDING = 12;
+  static final int BORDER = 16;
+
+  private static final int INITIAL_RECORD_COUNT = 64;
+
+  /**
+   * Finds the nodes the records describe, and reads their layout.
+   */
+  /* package */ interface RecordReader<N> {
+    N getChildAt(N owner, int index);
+
+    void readRecord(N node, YogaLayoutBuffer buffer, int record);
+  }
+
+  /* package */ float[] mValues = new float[1 + INITIAL_RECORD_COUNT * RECORD_SIZE];
+  // The nodes on the path from the root to the node of the current record, by depth, while the
+  // records are read.
+  private final ArrayList<Object> mPath = new ArrayList<>();
+
+  /**
+   * @return the number of nodes whose layout changed in the last pass.
+   */
+  public int getRecordCount() {
+    return (int) mValues[0];
+  }
+
+  /**
+   * Hands every record to the reader along with its node, found from the root by following the
+   * path of the previous record.
+   *
+   * @return the number of records.
+   */
+  /* package */ <N> int readRecords(N root, RecordReader<N> reader) {
+    int recordCount = getRecordCount();
+    for (int record = 0; record < recordCount; record++) {
+      int depth = (int) get(record, DEPTH);
+      N node;
+      if (depth == 0) {
+        node = root;
+      } else {
+        @SuppressWarnings("unchecked")
+        N owner = (N) mPath.get(depth - 1);
+        node = reader.getChildAt(owner, (int) get(record, INDEX));
+      }
+      if (depth < mPath.size()) {
+        mPath.set(depth, node);
+      } else {
+        mPath.add(node);
+      }
+      reader.readRecord(node, this, record);
+    }
+    // Nodes removed from the tree aren't held on to until the next pass.
+    mPath.clear();
+    return recordCount;
+  }
+
+  /* package */ float getLeft(int record) {
+    return get(record, LEFT);
+  }
+
+  /* package */ float getTop(int record) {
+    return get(record, TOP);
+  }
+
+  /* package */ float getWidth(int record) {
+    return get(record, WIDTH);
+  }
+
+  /* package */ float getHeight(int record) {
+    return get(record, HEIGHT);
+  }
+
+  /* package */ int getDirection(int record) {
+    return (int) get(record, DIRECTION);
+  }
+
+  /* package */ boolean didLegacyStretchFlagAffectLayout(int record) {
+    return get(record, DID_LEGACY_STRETCH_FLAG_AFFECT_LAYOUT) != 0;
+  }
+
+  /**
+   * @param side 0 to 3 for left, top, right and bottom.
+   */
+  /* package */ float getMargin(int record, int side) {
+    return get(record, MARGIN + side);
+  }
+
+  /**
+   * @param side 0 to 3 for left, top, right and bottom.
+   */
+  /* package */ float getPadding(int record, int side) {
+    return get(record, PADDING + side);
+  }
+
+  /**
+   * @param side 0 to 3 for left, top, right and bottom.
+   */
+  /* package */ float getBorder(int record, int side) {
+    return get(record, BORDER + side);
+  }
+
+  private float get(int record, int field) {
+    return mValues[1 + record * RECORD_SIZE + field];
+  }
+}
@@ -41,6 +41,10 @@ public class YogaNode implements Cloneable {
 
   private boolean mHasSetPosition = false;
 
+  // Style changes recorded while mIsBatchingStyle, kept for the next batch once applied.
+  @Nullable private YogaStyleBuffer mStyleBuffer;
+  private boolean mIsBatchingStyle = false;
+
   @DoNotStrip
   private float mWidth = YogaConstants.UNDEFINED;
   @DoNotStrip
@@ -117,6 +121,10 @@ public class YogaNode implements Cloneable {
 
   private static native void jni_YGNodeReset(long nativePointer);
   public void reset() {
+    if (mStyleBuffer != null) {
+      mStyleBuffer.clear();
+    }
+    mIsBatchingStyle = false;
     mEdgeSetFlag = 0;
     mHasSetPosition = false;
     mHasNewLayout = true;
@@ -202,6 +210,7 @@ public class YogaNode implements Cloneable {
 
   @Override
   public YogaNode clone() {
+    applyPendingStyle();
     try {
       YogaNode clonedYogaNode = (YogaNode) super.clone();
       long clonedNativePointer = jni_YGNodeClone(mNativePointer, clonedYogaNode);
@@ -230,6 +239,7 @@ public class YogaNode implements Cloneable {
   }
 
   public YogaNode cloneWithNewChildren() {
+    applyPendingStyle();
     try {
       YogaNode clonedYogaNode = (YogaNode) super.clone();
       long clonedNativePointer = jni_YGNodeClone(mNativePointer, clonedYogaNode);
@@ -288,9 +298,73 @@ public class YogaNode implements Cloneable {
 
   private static native void jni_YGNodeCalculateLayout(long nativePointer, float width, float height);
   public void calculateLayout(float width, float height) {
+    applyPendingStyle();
     jni_YGNodeCalculateLayout(mNativePointer, width, height);
   }
 
+  private static native float[] jni_YGNodeCalculateLayoutIntoBuffer(
+      long nativePointer, float width, float height, float[] buffer);
+
+  /**
+   * Like {@link #calculateLayout(float, float)}, but reads the layouts that changed back from the
+   * native nodes with one call through the given buffer, instead of setting them on every node
+   * from native code.
+   *
+   * @return the number of nodes whose layout changed, which are the ones {@link #hasNewLayout()}
+   * is true for.
+   */
+  public int calculateLayout(float width, float height, YogaLayoutBuffer buffer) {
+    applyPendingStyle();
+    buffer.mValues =
+        jni_YGNodeCalculateLayoutIntoBuffer(mNativePointer, width, height, buffer.mValues);
+    return buffer.readRecords(this, LAYOUT_READER);
+  }
+
+  private static final YogaLayoutBuffer.RecordReader<YogaNode> LAYOUT_READER =
+      new YogaLayoutBuffer.RecordReader<YogaNode>() {
+        @Override
+        public YogaNode getChildAt(YogaNode owner, int index) {
+          return owner.getChildAt(index);
+        }
+
+        @Override
+        public void readRecord(YogaNode node, YogaLayoutBuffer buffer, int record) {
+          node.readLayout(buffer, record);
+        }
+      };
+
+  private void readLayout(YogaLayoutBuffer buffer, int record) {
+    mLeft = buffer.getLeft(record);
+    mTop = buffer.getTop(record);
+    mWidth = buffer.getWidth(record);
+    mHeight = buffer.getHeight(record);
+    mLayoutDirection = buffer.getDirection(record);
+    mDoesLegacyStretchFlagAffectsLayout = buffer.didLegacyStretchFlagAffectLayout(record);
+
+    if ((mEdgeSetFlag & MARGIN) == MARGIN) {
+      mMarginLeft = buffer.getMargin(record, 0);
+      mMarginTop = buffer.getMargin(record, 1);
+      mMarginRight = buffer.getMargin(record, 2);
+      mMarginBottom = buffer.getMargin(record, 3);
+    }
+
+    if ((mEdgeSetFlag & PADDING) == PADDING) {
+      mPaddingLeft = buffer.getPadding(record, 0);
+      mPaddingTop = buffer.getPadding(record, 1);
+      mPaddingRight = buffer.getPadding(record, 2);
+      mPaddingBottom = buffer.getPadding(record, 3);
+    }
+
+    if ((mEdgeSetFlag & BORDER) == BORDER) {
+      mBorderLeft = buffer.getBorder(record, 0);
+      mBorderTop = buffer.getBorder(record, 1);
+      mBorderRight = buffer.getBorder(record, 2);
+      mBorderBottom = buffer.getBorder(record, 3);
+    }
+
+    mHasNewLayout = true;
+  }
+
   public boolean hasNewLayout() {
     return mHasNewLayout;
   }
@@ -308,11 +382,17 @@ public class YogaNode implements Cloneable {
 
   private static native boolean jni_YGNodeIsDirty(long nativePointer);
   public boolean isDirty() {
+    applyPendingStyle();
     return jni_YGNodeIsDirty(mNativePointer);
   }
 
   private static native void jni_YGNodeCopyStyle(long dstNativePointer, long srcNativePointer);
   public void copyStyle(YogaNode srcNode) {
+    srcNode.applyPendingStyle();
+    if (mStyleBuffer != null) {
+      // The copied style replaces the changes recorded so far.
+      mStyleBuffer.clear();
+    }
     jni_YGNodeCopyStyle(mNativePointer, srcNode.mNativePointer);
   }
 
@@ -320,143 +400,255 @@ public class YogaNode implements Cloneable {
     mHasNewLayout = false;
   }
 
+  private static native void jni_YGNodeStyleSetBatch(
+      long nativePointer, int[] properties, float[] values, int count);
+
+  /**
+   * Records the style set on this node from now on instead of setting it on the native node one
+   * property at a time, until {@link #applyStyleBatch()} sets all of it in one call. Reading the
+   * style or laying out the node in between applies what was recorded so far first.
+   */
+  public void beginStyleBatch() {
+    if (mStyleBuffer == null) {
+      mStyleBuffer = new YogaStyleBuffer();
+    }
+    mIsBatchingStyle = true;
+  }
+
+  /**
+   * Sets the style recorded since {@link #beginStyleBatch()} on the native node, in the order it
+   * was set, and stops recording.
+   */
+  public void applyStyleBatch() {
+    applyPendingStyle();
+    mIsBatchingStyle = false;
+  }
+
+  private void applyPendingStyle() {
+    if (mStyleBuffer == null || mStyleBuffer.getCount() == 0) {
+      return;
+    }
+    jni_YGNodeStyleSetBatch(
+        mNativePointer,
+        mStyleBuffer.getProperties(),
+        mStyleBuffer.getValues(),
+        mStyleBuffer.getCount());
+    mStyleBuffer.clear();
+  }
+
   private static native int jni_YGNodeStyleGetDirection(long nativePointer);
   public YogaDirection getStyleDirection() {
+    applyPendingStyle();
     return YogaDirection.fromInt(jni_YGNodeStyleGetDirection(mNativePointer));
   }
 
   private static native void jni_YGNodeStyleSetDirection(long nativePointer, int direction);
   public void setDirection(YogaDirection direction) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.DIRECTION, direction.intValue());
+      return;
+    }
     jni_YGNodeStyleSetDirection(mNativePointer, direction.intValue());
   }
 
   private static native int jni_YGNodeStyleGetFlexDirection(long nativePointer);
   public YogaFlexDirection getFlexDirection() {
+    applyPendingStyle();
     return YogaFlexDirection.fromInt(jni_YGNodeStyleGetFlexDirection(mNativePointer));
   }
 
   private static native void jni_YGNodeStyleSetFlexDirection(long nativePointer, int flexDirection);
   public void setFlexDirection(YogaFlexDirection flexDirection) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.FLEX_DIRECTION, flexDirection.intValue());
+      return;
+    }
     jni_YGNodeStyleSetFlexDirection(mNativePointer, flexDirection.intValue());
   }
 
   private static native int jni_YGNodeStyleGetJustifyContent(long nativePointer);
   public YogaJustify getJustifyContent() {
+    applyPendingStyle();
     return YogaJustify.fromInt(jni_YGNodeStyleGetJustifyContent(mNativePointer));
   }
 
   private static native void jni_YGNodeStyleSetJustifyContent(long nativePointer, int justifyContent);
   public void setJustifyContent(YogaJustify justifyContent) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.JUSTIFY_CONTENT, justifyContent.intValue());
+      return;
+    }
     jni_YGNodeStyleSetJustifyContent(mNativePointer, justifyContent.intValue());
   }
 
   private static native int jni_YGNodeStyleGetAlignItems(long nativePointer);
   public YogaAlign getAlignItems() {
+    applyPendingStyle();
     return YogaAlign.fromInt(jni_YGNodeStyleGetAlignItems(mNativePointer));
   }
 
   private static native void jni_YGNodeStyleSetAlignItems(long nativePointer, int alignItems);
   public void setAlignItems(YogaAlign alignItems) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.ALIGN_ITEMS, alignItems.intValue());
+      return;
+    }
     jni_YGNodeStyleSetAlignItems(mNativePointer, alignItems.intValue());
   }
 
   private static native int jni_YGNodeStyleGetAlignSelf(long nativePointer);
   public YogaAlign getAlignSelf() {
+    applyPendingStyle();
     return YogaAlign.fromInt(jni_YGNodeStyleGetAlignSelf(mNativePointer));
   }
 
   private static native void jni_YGNodeStyleSetAlignSelf(long nativePointer, int alignSelf);
   public void setAlignSelf(YogaAlign alignSelf) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.ALIGN_SELF, alignSelf.intValue());
+      return;
+    }
     jni_YGNodeStyleSetAlignSelf(mNativePointer, alignSelf.intValue());
   }
 
   private static native int jni_YGNodeStyleGetAlignContent(long nativePointer);
   public YogaAlign getAlignContent() {
+    applyPendingStyle();
     return YogaAlign.fromInt(jni_YGNodeStyleGetAlignContent(mNativePointer));
   }
 
   private static native void jni_YGNodeStyleSetAlignContent(long nativePointer, int alignContent);
   public void setAlignContent(YogaAlign alignContent) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.ALIGN_CONTENT, alignContent.intValue());
+      return;
+    }
     jni_YGNodeStyleSetAlignContent(mNativePointer, alignContent.intValue());
   }
 
   private static native int jni_YGNodeStyleGetPositionType(long nativePointer);
   public YogaPositionType getPositionType() {
+    applyPendingStyle();
     return YogaPositionType.fromInt(jni_YGNodeStyleGetPositionType(mNativePointer));
   }
 
   private static native void jni_YGNodeStyleSetPositionType(long nativePointer, int positionType);
   public void setPositionType(YogaPositionType positionType) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.POSITION_TYPE, positionType.intValue());
+      return;
+    }
     jni_YGNodeStyleSetPositionType(mNativePointer, positionType.intValue());
   }
 
   private static native void jni_YGNodeStyleSetFlexWrap(long nativePointer, int wrapType);
   public void setWrap(YogaWrap flexWrap) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.FLEX_WRAP, flexWrap.intValue());
+      return;
+    }
     jni_YGNodeStyleSetFlexWrap(mNativePointer, flexWrap.intValue());
   }
 
   private static native int jni_YGNodeStyleGetOverflow(long nativePointer);
   public YogaOverflow getOverflow() {
+    applyPendingStyle();
     return YogaOverflow.fromInt(jni_YGNodeStyleGetOverflow(mNativePointer));
   }
 
   private static native void jni_YGNodeStyleSetOverflow(long nativePointer, int overflow);
   public void setOverflow(YogaOverflow overflow) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.OVERFLOW, overflow.intValue());
+      return;
+    }
     jni_YGNodeStyleSetOverflow(mNativePointer, overflow.intValue());
   }
 
   private static native int jni_YGNodeStyleGetDisplay(long nativePointer);
   public YogaDisplay getDisplay() {
+    applyPendingStyle();
     return YogaDisplay.fromInt(jni_YGNodeStyleGetDisplay(mNativePointer));
   }
 
   private static native void jni_YGNodeStyleSetDisplay(long nativePointer, int display);
   public void setDisplay(YogaDisplay display) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.DISPLAY, display.intValue());
+      return;
+    }
     jni_YGNodeStyleSetDisplay(mNativePointer, display.intValue());
   }
 
   private static native void jni_YGNodeStyleSetFlex(long nativePointer, float flex);
   public void setFlex(float flex) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.FLEX, flex);
+      return;
+    }
     jni_YGNodeStyleSetFlex(mNativePointer, flex);
   }
 
   private static native float jni_YGNodeStyleGetFlexGrow(long nativePointer);
   public float getFlexGrow() {
+    applyPendingStyle();
     return jni_YGNodeStyleGetFlexGrow(mNativePointer);
   }
 
   private static native void jni_YGNodeStyleSetFlexGrow(long nativePointer, float flexGrow);
   public void setFlexGrow(float flexGrow) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.FLEX_GROW, flexGrow);
+      return;
+    }
     jni_YGNodeStyleSetFlexGrow(mNativePointer, flexGrow);
   }
 
   private static native float jni_YGNodeStyleGetFlexShrink(long nativePointer);
   public float getFlexShrink() {
+    applyPendingStyle();
     return jni_YGNodeStyleGetFlexShrink(mNativePointer);
   }
 
   private static native void jni_YGNodeStyleSetFlexShrink(long nativePointer, float flexShrink);
   public void setFlexShrink(float flexShrink) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.FLEX_SHRINK, flexShrink);
+      return;
+    }
     jni_YGNodeStyleSetFlexShrink(mNativePointer, flexShrink);
   }
 
   private static native Object jni_YGNodeStyleGetFlexBasis(long nativePointer);
   public YogaValue getFlexBasis() {
+    applyPendingStyle();
     return (YogaValue) jni_YGNodeStyleGetFlexBasis(mNativePointer);
   }
 
   private static native void jni_YGNodeStyleSetFlexBasis(long nativePointer, float flexBasis);
   public void setFlexBasis(float flexBasis) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.FLEX_BASIS, flexBasis);
+      return;
+    }
     jni_YGNodeStyleSetFlexBasis(mNativePointer, flexBasis);
   }
 
   private static native void jni_YGNodeStyleSetFlexBasisPercent(long nativePointer, float percent);
   public void setFlexBasisPercent(float percent) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.FLEX_BASIS_PERCENT, percent);
+      return;
+    }
     jni_YGNodeStyleSetFlexBasisPercent(mNativePointer, percent);
   }
 
   private static native void jni_YGNodeStyleSetFlexBasisAuto(long nativePointer);
   public void setFlexBasisAuto() {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.FLEX_BASIS_AUTO, 0);
+      return;
+    }
     jni_YGNodeStyleSetFlexBasisAuto(mNativePointer);
   }
 
@@ -465,24 +657,37 @@ public class YogaNode implements Cloneable {
     if (!((mEdgeSetFlag & MARGIN) == MARGIN)) {
       return YogaValue.UNDEFINED;
     }
+    applyPendingStyle();
     return (YogaValue) jni_YGNodeStyleGetMargin(mNativePointer, edge.intValue());
   }
 
   private static native void jni_YGNodeStyleSetMargin(long nativePointer, int edge, float margin);
   public void setMargin(YogaEdge edge, float margin) {
     mEdgeSetFlag |= MARGIN;
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.MARGIN, edge, margin);
+      return;
+    }
     jni_YGNodeStyleSetMargin(mNativePointer, edge.intValue(), margin);
   }
 
   private static native void jni_YGNodeStyleSetMarginPercent(long nativePointer, int edge, float percent);
   public void setMarginPercent(YogaEdge edge, float percent) {
     mEdgeSetFlag |= MARGIN;
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.MARGIN_PERCENT, edge, percent);
+      return;
+    }
     jni_YGNodeStyleSetMarginPercent(mNativePointer, edge.intValue(), percent);
   }
 
   private static native void jni_YGNodeStyleSetMarginAuto(long nativePointer, int edge);
   public void setMarginAuto(YogaEdge edge) {
     mEdgeSetFlag |= MARGIN;
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.MARGIN_AUTO, edge, 0);
+      return;
+    }
     jni_YGNodeStyleSetMarginAuto(mNativePointer, edge.intValue());
   }
 
@@ -491,18 +696,27 @@ public class YogaNode implements Cloneable {
     if (!((mEdgeSetFlag & PADDING) == PADDING)) {
       return YogaValue.UNDEFINED;
     }
+    applyPendingStyle();
     return (YogaValue) jni_YGNodeStyleGetPadding(mNativePointer, edge.intValue());
   }
 
   private static native void jni_YGNodeStyleSetPadding(long nativePointer, int edge, float padding);
   public void setPadding(YogaEdge edge, float padding) {
     mEdgeSetFlag |= PADDING;
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.PADDING, edge, padding);
+      return;
+    }
     jni_YGNodeStyleSetPadding(mNativePointer, edge.intValue(), padding);
   }
 
   private static native void jni_YGNodeStyleSetPaddingPercent(long nativePointer, int edge, float percent);
   public void setPaddingPercent(YogaEdge edge, float percent) {
     mEdgeSetFlag |= PADDING;
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.PADDING_PERCENT, edge, percent);
+      return;
+    }
     jni_YGNodeStyleSetPaddingPercent(mNativePointer, edge.intValue(), percent);
   }
 
@@ -511,12 +725,17 @@ public class YogaNode implements Cloneable {
     if (!((mEdgeSetFlag & BORDER) == BORDER)) {
       return YogaConstants.UNDEFINED;
     }
+    applyPendingStyle();
     return jni_YGNodeStyleGetBorder(mNativePointer, edge.intValue());
   }
 
   private static native void jni_YGNodeStyleSetBorder(long nativePointer, int edge, float border);
   public void setBorder(YogaEdge edge, float border) {
     mEdgeSetFlag |= BORDER;
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.BORDER, edge, border);
+      return;
+    }
     jni_YGNodeStyleSetBorder(mNativePointer, edge.intValue(), border);
   }
 
@@ -525,128 +744,204 @@ public class YogaNode implements Cloneable {
     if (!mHasSetPosition) {
       return YogaValue.UNDEFINED;
     }
+    applyPendingStyle();
     return (YogaValue) jni_YGNodeStyleGetPosition(mNativePointer, edge.intValue());
   }
 
   private static native void jni_YGNodeStyleSetPosition(long nativePointer, int edge, float position);
   public void setPosition(YogaEdge edge, float position) {
     mHasSetPosition = true;
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.POSITION, edge, position);
+      return;
+    }
     jni_YGNodeStyleSetPosition(mNativePointer, edge.intValue(), position);
   }
 
   private static native void jni_YGNodeStyleSetPositionPercent(long nativePointer, int edge, float percent);
   public void setPositionPercent(YogaEdge edge, float percent) {
     mHasSetPosition = true;
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.POSITION_PERCENT, edge, percent);
+      return;
+    }
     jni_YGNodeStyleSetPositionPercent(mNativePointer, edge.intValue(), percent);
   }
 
   private static native Object jni_YGNodeStyleGetWidth(long nativePointer);
   public YogaValue getWidth() {
+    applyPendingStyle();
     return (YogaValue) jni_YGNodeStyleGetWidth(mNativePointer);
   }
 
   private static native void jni_YGNodeStyleSetWidth(long nativePointer, float width);
   public void setWidth(float width) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.WIDTH, width);
+      return;
+    }
     jni_YGNodeStyleSetWidth(mNativePointer, width);
   }
 
   private static native void jni_YGNodeStyleSetWidthPercent(long nativePointer, float percent);
   public void setWidthPercent(float percent) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.WIDTH_PERCENT, percent);
+      return;
+    }
     jni_YGNodeStyleSetWidthPercent(mNativePointer, percent);
   }
 
   private static native void jni_YGNodeStyleSetWidthAuto(long nativePointer);
   public void setWidthAuto() {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.WIDTH_AUTO, 0);
+      return;
+    }
     jni_YGNodeStyleSetWidthAuto(mNativePointer);
   }
 
   private static native Object jni_YGNodeStyleGetHeight(long nativePointer);
   public YogaValue getHeight() {
+    applyPendingStyle();
     return (YogaValue) jni_YGNodeStyleGetHeight(mNativePointer);
   }
 
   private static native void jni_YGNodeStyleSetHeight(long nativePointer, float height);
   public void setHeight(float height) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.HEIGHT, height);
+      return;
+    }
     jni_YGNodeStyleSetHeight(mNativePointer, height);
   }
 
   private static native void jni_YGNodeStyleSetHeightPercent(long nativePointer, float percent);
   public void setHeightPercent(float percent) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.HEIGHT_PERCENT, percent);
+      return;
+    }
     jni_YGNodeStyleSetHeightPercent(mNativePointer, percent);
   }
 
   private static native void jni_YGNodeStyleSetHeightAuto(long nativePointer);
   public void setHeightAuto() {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.HEIGHT_AUTO, 0);
+      return;
+    }
     jni_YGNodeStyleSetHeightAuto(mNativePointer);
   }
 
   private static native Object jni_YGNodeStyleGetMinWidth(long nativePointer);
   public YogaValue getMinWidth() {
+    applyPendingStyle();
     return (YogaValue) jni_YGNodeStyleGetMinWidth(mNativePointer);
   }
 
   private static native void jni_YGNodeStyleSetMinWidth(long nativePointer, float minWidth);
   public void setMinWidth(float minWidth) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.MIN_WIDTH, minWidth);
+      return;
+    }
     jni_YGNodeStyleSetMinWidth(mNativePointer, minWidth);
   }
 
   private static native void jni_YGNodeStyleSetMinWidthPercent(long nativePointer, float percent);
   public void setMinWidthPercent(float percent) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.MIN_WIDTH_PERCENT, percent);
+      return;
+    }
     jni_YGNodeStyleSetMinWidthPercent(mNativePointer, percent);
   }
 
   private static native Object jni_YGNodeStyleGetMinHeight(long nativePointer);
   public YogaValue getMinHeight() {
+    applyPendingStyle();
     return (YogaValue) jni_YGNodeStyleGetMinHeight(mNativePointer);
   }
 
   private static native void jni_YGNodeStyleSetMinHeight(long nativePointer, float minHeight);
   public void setMinHeight(float minHeight) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.MIN_HEIGHT, minHeight);
+      return;
+    }
     jni_YGNodeStyleSetMinHeight(mNativePointer, minHeight);
   }
 
   private static native void jni_YGNodeStyleSetMinHeightPercent(long nativePointer, float percent);
   public void setMinHeightPercent(float percent) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.MIN_HEIGHT_PERCENT, percent);
+      return;
+    }
     jni_YGNodeStyleSetMinHeightPercent(mNativePointer, percent);
   }
 
   private static native Object jni_YGNodeStyleGetMaxWidth(long nativePointer);
   public YogaValue getMaxWidth() {
+    applyPendingStyle();
     return (YogaValue) jni_YGNodeStyleGetMaxWidth(mNativePointer);
   }
 
   private static native void jni_YGNodeStyleSetMaxWidth(long nativePointer, float maxWidth);
   public void setMaxWidth(float maxWidth) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.MAX_WIDTH, maxWidth);
+      return;
+    }
     jni_YGNodeStyleSetMaxWidth(mNativePointer, maxWidth);
   }
 
   private static native void jni_YGNodeStyleSetMaxWidthPercent(long nativePointer, float percent);
   public void setMaxWidthPercent(float percent) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.MAX_WIDTH_PERCENT, percent);
+      return;
+    }
     jni_YGNodeStyleSetMaxWidthPercent(mNativePointer, percent);
   }
 
   private static native Object jni_YGNodeStyleGetMaxHeight(long nativePointer);
   public YogaValue getMaxHeight() {
+    applyPendingStyle();
     return (YogaValue) jni_YGNodeStyleGetMaxHeight(mNativePointer);
   }
 
   private static native void jni_YGNodeStyleSetMaxHeight(long nativePointer, float maxheight);
   public void setMaxHeight(float maxheight) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.MAX_HEIGHT, maxheight);
+      return;
+    }
     jni_YGNodeStyleSetMaxHeight(mNativePointer, maxheight);
   }
 
   private static native void jni_YGNodeStyleSetMaxHeightPercent(long nativePointer, float percent);
   public void setMaxHeightPercent(float percent) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.MAX_HEIGHT_PERCENT, percent);
+      return;
+    }
     jni_YGNodeStyleSetMaxHeightPercent(mNativePointer, percent);
   }
 
   private static native float jni_YGNodeStyleGetAspectRatio(long nativePointer);
   public float getAspectRatio() {
+    applyPendingStyle();
     return jni_YGNodeStyleGetAspectRatio(mNativePointer);
   }
 
   private static native void jni_YGNodeStyleSetAspectRatio(long nativePointer, float aspectRatio);
   public void setAspectRatio(float aspectRatio) {
+    if (mIsBatchingStyle) {
+      mStyleBuffer.add(YogaStyleBuffer.ASPECT_RATIO, aspectRatio);
+      return;
+    }
     jni_YGNodeStyleSetAspectRatio(mNativePointer, aspectRatio);
   }
 
@@ -786,6 +1081,7 @@ public class YogaNode implements Cloneable {
    * layout of the tree rooted at this node.
    */
   public void print() {
+    applyPendingStyle();
     jni_YGNodePrint(mNativePointer);
   }
 
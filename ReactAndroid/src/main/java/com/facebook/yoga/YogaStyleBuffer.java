@@ -0,0 +1,100 @@
+/*
+ *  Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ *  This source code is licensed under the MIT license found in the LICENSE
+ *  file in the root directory of this source tree.
+ *
+ */
+package com.facebook.yoga;
+
+import java.util.Arrays;
+
+/**
+ * Style changes of a {@link YogaNode} that are recorded between
+ * {@link YogaNode#beginStyleBatch()} and {@link YogaNode#applyStyleBatch()}, packed so that they
+ * are all written to the native node in one call.
+ *
+ * Every change is the property it sets, with the edge it sets it for in the upper bits, and a
+ * value. Enums are passed as their int value.
+ */
+/* package */ class YogaStyleBuffer {
+
+  /* Those constants need to be in sync with YGJNI.cpp */
+  static final int DIRECTION = 0;
+  static final int FLEX_DIRECTION = 1;
+  static final int JUSTIFY_CONTENT = 2;
+  static final int ALIGN_ITEMS = 3;
+  static final int ALIGN_SELF = 4;
+  static final int ALIGN_CONTENT = 5;
+  static final int POSITION_TYPE = 6;
+  static final int FLEX_WRAP = 7;
+  static final int OVERFLOW = 8;
+  static final int DISPLAY = 9;
+  static final int FLEX = 10;
+  static final int FLEX_GROW = 11;
+  static final int FLEX_SHRINK = 12;
+  static final int FLEX_BASIS = 13;
+  static final int FLEX_BASIS_PERCENT = 14;
+  static final int FLEX_BASIS_AUTO = 15;
+  static final int POSITION = 16;
+  static final int POSITION_PERCENT = 17;
+  static final int MARGIN = 18;
+  static final int MARGIN_PERCENT = 19;
+  static final int MARGIN_AUTO = 20;
+  static final int PADDING = 21;
+  static final int PADDING_PERCENT = 22;
+  static final int BORDER = 23;
+  static final int WIDTH = 24;
+  static final int WIDTH_PERCENT = 25;
+  static final int WIDTH_AUTO = 26;
+  static final int MIN_WIDTH = 27;
+  static final int MIN_WIDTH_PERCENT = 28;
+  static final int MAX_WIDTH = 29;
+  static final int MAX_WIDTH_PERCENT = 30;
+  static final int HEIGHT = 31;
+  static final int HEIGHT_PERCENT = 32;
+  static final int HEIGHT_AUTO = 33;
+  static final int MIN_HEIGHT = 34;
+  static final int MIN_HEIGHT_PERCENT = 35;
+  static final int MAX_HEIGHT = 36;
+  static final int MAX_HEIGHT_PERCENT = 37;
+  static final int ASPECT_RATIO = 38;
+
+  static final int EDGE_SHIFT = 8;
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private int[] mProperties = new int[INITIAL_CAPACITY];
+  private float[] mValues = new float[INITIAL_CAPACITY];
+  private int mCount;
+
+  void add(int property, float value) {
+    if (mCount == mProperties.length) {
+      mProperties = Arrays.copyOf(mProperties, mCount * 2);
+      mValues = Arrays.copyOf(mValues, mCount * 2);
+    }
+    mProperties[mCount] = property;
+    mValues[mCount] = value;
+    mCount++;
+  }
+
+  void add(int property, YogaEdge edge, float value) {
+    add(property | (edge.intValue() << EDGE_SHIFT), value);
+  }
+
+  int[] getProperties() {
+    return mProperties;
+  }
+
+  float[] getValues() {
+    return mValues;
+  }
+
+  int getCount() {
+    return mCount;
+  }
+
+  void clear() {
+    mCount = 0;
+  }
+}
@@ -9,6 +9,7 @@
 #include <yoga/YGNode.h>
 #include <yoga/Yoga.h>
 #include <iostream>
+#include <vector>
 
 using namespace facebook::jni;
 using namespace std;
@@ -151,6 +152,49 @@ static void YGTransferLayoutOutputsRecursive(YGNodeRef root) {
   }
 }
 
+/* Those constants need to be in sync with YogaLayoutBuffer.java */
+const int YGJNILayoutRecordSize = 20;
+
+static void YGCollectNewLayoutsRecursive(
+    YGNodeRef node,
+    int depth,
+    int index,
+    vector<float>& records) {
+  if (!node->getHasNewLayout()) {
+    return;
+  }
+
+  const float record[YGJNILayoutRecordSize] = {
+      static_cast<float>(depth),
+      static_cast<float>(index),
+      YGNodeLayoutGetLeft(node),
+      YGNodeLayoutGetTop(node),
+      YGNodeLayoutGetWidth(node),
+      YGNodeLayoutGetHeight(node),
+      static_cast<float>(YGNodeLayoutGetDirection(node)),
+      YGNodeLayoutGetDidLegacyStretchFlagAffectLayout(node) ? 1.0f : 0.0f,
+      YGNodeLayoutGetMargin(node, YGEdgeLeft),
+      YGNodeLayoutGetMargin(node, YGEdgeTop),
+      YGNodeLayoutGetMargin(node, YGEdgeRight),
+      YGNodeLayoutGetMargin(node, YGEdgeBottom),
+      YGNodeLayoutGetPadding(node, YGEdgeLeft),
+      YGNodeLayoutGetPadding(node, YGEdgeTop),
+      YGNodeLayoutGetPadding(node, YGEdgeRight),
+      YGNodeLayoutGetPadding(node, YGEdgeBottom),
+      YGNodeLayoutGetBorder(node, YGEdgeLeft),
+      YGNodeLayoutGetBorder(node, YGEdgeTop),
+      YGNodeLayoutGetBorder(node, YGEdgeRight),
+      YGNodeLayoutGetBorder(node, YGEdgeBottom),
+  };
+  records.insert(records.end(), record, record + YGJNILayoutRecordSize);
+  node->setHasNewLayout(false);
+
+  for (uint32_t i = 0; i < YGNodeGetChildCount(node); i++) {
+    YGCollectNewLayoutsRecursive(
+        YGNodeGetChild(node, i), depth + 1, i, records);
+  }
+}
+
 static void YGPrint(YGNodeRef node) {
   if (auto obj = YGNodeJobject(node)->lockLocal()) {
     cout << obj->toString() << endl;
@@ -396,6 +440,36 @@ void jni_YGNodeCalculateLayout(
   YGTransferLayoutOutputsRecursive(root);
 }
 
+local_ref<jfloatArray> jni_YGNodeCalculateLayoutIntoBuffer(
+    alias_ref<jclass>,
+    jlong nativePointer,
+    jfloat width,
+    jfloat height,
+    alias_ref<jfloatArray> buffer) {
+  const YGNodeRef root = _jlong2YGNodeRef(nativePointer);
+  YGNodeCalculateLayout(
+      root,
+      static_cast<float>(width),
+      static_cast<float>(height),
+      YGNodeStyleGetDirection(root));
+
+  // The first value is the number of records that follow.
+  vector<float> records(1);
+  YGCollectNewLayoutsRecursive(root, 0, 0, records);
+  records[0] = static_cast<float>(
+      (records.size() - 1) / YGJNILayoutRecordSize);
+
+  local_ref<jfloatArray> result;
+  if (buffer && buffer->size() >= records.size()) {
+    result = make_local(buffer);
+  } else {
+    // Leaves room for the layouts of later passes to grow.
+    result = JArrayFloat::newArray(records.size() + records.size() / 2);
+  }
+  result->setRegion(0, records.size(), records.data());
+  return result;
+}
+
 void jni_YGNodeMarkDirty(jlong nativePointer) {
   YGNodeMarkDirty(_jlong2YGNodeRef(nativePointer));
 }
@@ -544,6 +618,195 @@ YG_NODE_JNI_STYLE_UNIT_PROP(MaxHeight);
 // Yoga specific properties, not compatible with flexbox specification
 YG_NODE_JNI_STYLE_PROP(jfloat, float, AspectRatio);
 
+/* Those constants need to be in sync with YogaStyleBuffer.java */
+enum YGJNIStyleProperty {
+  YGJNIStyleDirection = 0,
+  YGJNIStyleFlexDirection = 1,
+  YGJNIStyleJustifyContent = 2,
+  YGJNIStyleAlignItems = 3,
+  YGJNIStyleAlignSelf = 4,
+  YGJNIStyleAlignContent = 5,
+  YGJNIStylePositionType = 6,
+  YGJNIStyleFlexWrap = 7,
+  YGJNIStyleOverflow = 8,
+  YGJNIStyleDisplay = 9,
+  YGJNIStyleFlex = 10,
+  YGJNIStyleFlexGrow = 11,
+  YGJNIStyleFlexShrink = 12,
+  YGJNIStyleFlexBasis = 13,
+  YGJNIStyleFlexBasisPercent = 14,
+  YGJNIStyleFlexBasisAuto = 15,
+  YGJNIStylePosition = 16,
+  YGJNIStylePositionPercent = 17,
+  YGJNIStyleMargin = 18,
+  YGJNIStyleMarginPercent = 19,
+  YGJNIStyleMarginAuto = 20,
+  YGJNIStylePadding = 21,
+  YGJNIStylePaddingPercent = 22,
+  YGJNIStyleBorder = 23,
+  YGJNIStyleWidth = 24,
+  YGJNIStyleWidthPercent = 25,
+  YGJNIStyleWidthAuto = 26,
+  YGJNIStyleMinWidth = 27,
+  YGJNIStyleMinWidthPercent = 28,
+  YGJNIStyleMaxWidth = 29,
+  YGJNIStyleMaxWidthPercent = 30,
+  YGJNIStyleHeight = 31,
+  YGJNIStyleHeightPercent = 32,
+  YGJNIStyleHeightAuto = 33,
+  YGJNIStyleMinHeight = 34,
+  YGJNIStyleMinHeightPercent = 35,
+  YGJNIStyleMaxHeight = 36,
+  YGJNIStyleMaxHeightPercent = 37,
+  YGJNIStyleAspectRatio = 38,
+};
+
+const int YGJNIStyleEdgeShift = 8;
+const int YGJNIStylePropertyMask = (1 << YGJNIStyleEdgeShift) - 1;
+
+static void YGJNISetStyle(YGNodeRef node, int property, float value) {
+  const YGEdge edge = static_cast<YGEdge>(property >> YGJNIStyleEdgeShift);
+  const int enumValue = static_cast<int>(value);
+  switch (property & YGJNIStylePropertyMask) {
+    case YGJNIStyleDirection:
+      YGNodeStyleSetDirection(node, static_cast<YGDirection>(enumValue));
+      break;
+    case YGJNIStyleFlexDirection:
+      YGNodeStyleSetFlexDirection(
+          node, static_cast<YGFlexDirection>(enumValue));
+      break;
+    case YGJNIStyleJustifyContent:
+      YGNodeStyleSetJustifyContent(node, static_cast<YGJustify>(enumValue));
+      break;
+    case YGJNIStyleAlignItems:
+      YGNodeStyleSetAlignItems(node, static_cast<YGAlign>(enumValue));
+      break;
+    case YGJNIStyleAlignSelf:
+      YGNodeStyleSetAlignSelf(node, static_cast<YGAlign>(enumValue));
+      break;
+    case YGJNIStyleAlignContent:
+      YGNodeStyleSetAlignContent(node, static_cast<YGAlign>(enumValue));
+      break;
+    case YGJNIStylePositionType:
+      YGNodeStyleSetPositionType(node, static_cast<YGPositionType>(enumValue));
+      break;
+    case YGJNIStyleFlexWrap:
+      YGNodeStyleSetFlexWrap(node, static_cast<YGWrap>(enumValue));
+      break;
+    case YGJNIStyleOverflow:
+      YGNodeStyleSetOverflow(node, static_cast<YGOverflow>(enumValue));
+      break;
+    case YGJNIStyleDisplay:
+      YGNodeStyleSetDisplay(node, static_cast<YGDisplay>(enumValue));
+      break;
+    case YGJNIStyleFlex:
+      YGNodeStyleSetFlex(node, value);
+      break;
+    case YGJNIStyleFlexGrow:
+      YGNodeStyleSetFlexGrow(node, value);
+      break;
+    case YGJNIStyleFlexShrink:
+      YGNodeStyleSetFlexShrink(node, value);
+      break;
+    case YGJNIStyleFlexBasis:
+      YGNodeStyleSetFlexBasis(node, value);
+      break;
+    case YGJNIStyleFlexBasisPercent:
+      YGNodeStyleSetFlexBasisPercent(node, value);
+      break;
+    case YGJNIStyleFlexBasisAuto:
+      YGNodeStyleSetFlexBasisAuto(node);
+      break;
+    case YGJNIStylePosition:
+      YGNodeStyleSetPosition(node, edge, value);
+      break;
+    case YGJNIStylePositionPercent:
+      YGNodeStyleSetPositionPercent(node, edge, value);
+      break;
+    case YGJNIStyleMargin:
+      YGNodeStyleSetMargin(node, edge, value);
+      break;
+    case YGJNIStyleMarginPercent:
+      YGNodeStyleSetMarginPercent(node, edge, value);
+      break;
+    case YGJNIStyleMarginAuto:
+      YGNodeStyleSetMarginAuto(node, edge);
+      break;
+    case YGJNIStylePadding:
+      YGNodeStyleSetPadding(node, edge, value);
+      break;
+    case YGJNIStylePaddingPercent:
+      YGNodeStyleSetPaddingPercent(node, edge, value);
+      break;
+    case YGJNIStyleBorder:
+      YGNodeStyleSetBorder(node, edge, value);
+      break;
+    case YGJNIStyleWidth:
+      YGNodeStyleSetWidth(node, value);
+      break;
+    case YGJNIStyleWidthPercent:
+      YGNodeStyleSetWidthPercent(node, value);
+      break;
+    case YGJNIStyleWidthAuto:
+      YGNodeStyleSetWidthAuto(node);
+      break;
+    case YGJNIStyleMinWidth:
+      YGNodeStyleSetMinWidth(node, value);
+      break;
+    case YGJNIStyleMinWidthPercent:
+      YGNodeStyleSetMinWidthPercent(node, value);
+      break;
+    case YGJNIStyleMaxWidth:
+      YGNodeStyleSetMaxWidth(node, value);
+      break;
+    case YGJNIStyleMaxWidthPercent:
+      YGNodeStyleSetMaxWidthPercent(node, value);
+      break;
+    case YGJNIStyleHeight:
+      YGNodeStyleSetHeight(node, value);
+      break;
+    case YGJNIStyleHeightPercent:
+      YGNodeStyleSetHeightPercent(node, value);
+      break;
+    case YGJNIStyleHeightAuto:
+      YGNodeStyleSetHeightAuto(node);
+      break;
+    case YGJNIStyleMinHeight:
+      YGNodeStyleSetMinHeight(node, value);
+      break;
+    case YGJNIStyleMinHeightPercent:
+      YGNodeStyleSetMinHeightPercent(node, value);
+      break;
+    case YGJNIStyleMaxHeight:
+      YGNodeStyleSetMaxHeight(node, value);
+      break;
+    case YGJNIStyleMaxHeightPercent:
+      YGNodeStyleSetMaxHeightPercent(node, value);
+      break;
+    case YGJNIStyleAspectRatio:
+      YGNodeStyleSetAspectRatio(node, value);
+      break;
+    default:
+      YGLog(node, YGLogLevelError, "Unknown style property %d\n", property);
+      break;
+  }
+}
+
+void jni_YGNodeStyleSetBatch(
+    alias_ref<jclass>,
+    jlong nativePointer,
+    alias_ref<JArrayInt> properties,
+    alias_ref<JArrayFloat> values,
+    jint count) {
+  const YGNodeRef node = _jlong2YGNodeRef(nativePointer);
+  auto propertiesRegion = properties->getRegion(0, count);
+  auto valuesRegion = values->getRegion(0, count);
+  for (jint i = 0; i < count; i++) {
+    YGJNISetStyle(
+        node, propertiesRegion[i], static_cast<float>(valuesRegion[i]));
+  }
+}
+
 jlong jni_YGConfigNew(alias_ref<jobject>) {
   return reinterpret_cast<jlong>(YGConfigNew());
 }
@@ -680,6 +943,7 @@ jint jni_YGNodeGetInstanceCount() {
           YGMakeCriticalNativeMethod(jni_YGNodeSetIsReferenceBaseline),      \
           YGMakeCriticalNativeMethod(jni_YGNodeIsReferenceBaseline),         \
           YGMakeNativeMethod(jni_YGNodeCalculateLayout),                     \
+          YGMakeNativeMethod(jni_YGNodeCalculateLayoutIntoBuffer),           \
           YGMakeCriticalNativeMethod(jni_YGNodeMarkDirty),                   \
           YGMakeCriticalNativeMethod(                                        \
               jni_YGNodeMarkDirtyAndPropogateToDescendants),                 \
@@ -749,6 +1013,7 @@ jint jni_YGNodeGetInstanceCount() {
           YGMakeCriticalNativeMethod(jni_YGNodeStyleSetMaxHeightPercent),    \
           YGMakeCriticalNativeMethod(jni_YGNodeStyleGetAspectRatio),         \
           YGMakeCriticalNativeMethod(jni_YGNodeStyleSetAspectRatio),         \
+          YGMakeNativeMethod(jni_YGNodeStyleSetBatch),                       \
           YGMakeCriticalNativeMethod(jni_YGNodeGetInstanceCount),            \
           YGMakeCriticalNativeMethod(jni_YGNodePrint),                       \
           YGMakeNativeMethod(jni_YGNodeClone),                               \
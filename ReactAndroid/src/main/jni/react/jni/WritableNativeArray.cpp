@@ -48,6 +48,23 @@ void WritableNativeArray::pushString(jstring value) {
   array_.push_back(wrap_alias(value)->toStdString());
 }
 
+void WritableNativeArray::pushInts(alias_ref<JArrayInt> values, jint count) {
+  throwIfConsumed();
+  // getRegion aborts instead of throwing when the region is out of bounds.
+  jint length = values ? static_cast<jint>(values->size()) : 0;
+  if (count < 0 || count > length) {
+    throwNewJavaException(gJavaLangIllegalArgumentException,
+                          "cannot push %d values of an int array of length %d", count, length);
+  }
+  if (count == 0) {
+    return;
+  }
+  auto buffer = values->getRegion(0, count);
+  for (jint i = 0; i < count; i++) {
+    array_.push_back(buffer[i]);
+  }
+}
+
 void WritableNativeArray::pushNativeArray(WritableNativeArray* otherArray) {
   if (otherArray == NULL) {
     pushNull();
@@ -74,6 +91,7 @@ void WritableNativeArray::registerNatives() {
       makeNativeMethod("pushDouble", WritableNativeArray::pushDouble),
       makeNativeMethod("pushInt", WritableNativeArray::pushInt),
       makeNativeMethod("pushString", WritableNativeArray::pushString),
+      makeNativeMethod("pushInts", WritableNativeArray::pushInts),
       makeNativeMethod("pushNativeArray", WritableNativeArray::pushNativeArray),
       makeNativeMethod("pushNativeMap", WritableNativeArray::pushNativeMap),
   });
@@ -28,6 +28,7 @@ struct WritableNativeArray
   void pushDouble(jdouble value);
   void pushInt(jint value);
   void pushString(jstring value);
+  void pushInts(jni::alias_ref<jni::JArrayInt> values, jint count);
   void pushNativeArray(WritableNativeArray* otherArray);
   void pushNativeMap(WritableNativeMap* map);
 
@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.common;
+
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link LongIntHashMap}
+ */
+public class LongIntHashMapTest {
+
+  @Test
+  public void testPutAndGet() {
+    LongIntHashMap map = LongIntHashMap.createWithInitialCapacity(2);
+    for (int i = 0; i < 1000; i++) {
+      map.put(cookie(i, 3, 0), i);
+    }
+    assertThat(map.size()).isEqualTo(1000);
+    for (int i = 0; i < 1000; i++) {
+      assertThat(map.get(cookie(i, 3, 0), -1)).isEqualTo(i);
+      assertThat(map.get(cookie(i, 4, 0), -1)).isEqualTo(-1);
+    }
+
+    map.put(cookie(7, 3, 0), 42);
+    assertThat(map.size()).isEqualTo(1000);
+    assertThat(map.get(cookie(7, 3, 0), -1)).isEqualTo(42);
+  }
+
+  @Test
+  public void testZeroAndNegativeKeys() {
+    LongIntHashMap map = LongIntHashMap.createWithInitialCapacity(4);
+    assertThat(map.containsKey(0)).isFalse();
+    map.put(0, 1);
+    map.put(-1, 2);
+    map.put(Long.MIN_VALUE, 3);
+    assertThat(map.get(0, -1)).isEqualTo(1);
+    assertThat(map.get(-1, -1)).isEqualTo(2);
+    assertThat(map.get(Long.MIN_VALUE, -1)).isEqualTo(3);
+  }
+
+  @Test
+  public void testClear() {
+    LongIntHashMap map = LongIntHashMap.createWithInitialCapacity(4);
+    for (int frame = 0; frame < 10; frame++) {
+      for (int i = 0; i < 20; i++) {
+        map.put(cookie(i, frame, 0), i);
+      }
+      assertThat(map.size()).isEqualTo(20);
+      map.clear();
+      assertThat(map.isEmpty()).isTrue();
+      for (int i = 0; i < 20; i++) {
+        assertThat(map.containsKey(cookie(i, frame, 0))).isFalse();
+      }
+    }
+  }
+
+  private static long cookie(int viewTag, int eventTypeId, int coalescingKey) {
+    return viewTag |
+        (((long) eventTypeId) & 0xffff) << 32 |
+        (((long) coalescingKey) & 0xffff) << 48;
+  }
+}
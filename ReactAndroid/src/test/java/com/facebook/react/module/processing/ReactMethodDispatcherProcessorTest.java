@@ -0,0 +1,350 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.module.processing;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+import static org.junit.Assume.assumeNotNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.facebook.react.bridge.BaseJavaModule;
+import com.facebook.react.bridge.CallbackImpl;
+import com.facebook.react.bridge.JSInstance;
+import com.facebook.react.bridge.JavaMethodWrapper;
+import com.facebook.react.bridge.JavaModuleWrapper;
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.ModuleHolder;
+import com.facebook.react.bridge.NativeArgumentsParseException;
+import com.facebook.react.bridge.NativeModule;
+import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReactMethodDispatcher;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableNativeArray;
+import com.facebook.react.bridge.UnexpectedNativeTypeException;
+import com.facebook.soloader.SoLoader;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.rule.PowerMockRule;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Tests for {@link ReactMethodDispatcherProcessor}: compiles a native module with the processor
+ * and calls its methods through the generated {@code $$ReactMethodDispatcher}, directly and as
+ * {@link JavaModuleWrapper} finds it.
+ */
+@PrepareForTest({ReadableNativeArray.class, SoLoader.class})
+@PowerMockIgnore({
+    "org.mockito.*",
+    "org.robolectric.*",
+    "android.*",
+    "javax.tools.*",
+    "javax.annotation.processing.*",
+    "javax.lang.model.*",
+    "com.sun.*"})
+@RunWith(RobolectricTestRunner.class)
+public class ReactMethodDispatcherProcessorTest {
+
+  @Rule
+  public PowerMockRule rule = new PowerMockRule();
+
+  private static final String PACKAGE_NAME = "com.facebook.react.module.processing.test";
+  private static final String MODULE_CLASS_NAME = PACKAGE_NAME + ".DispatchedModule";
+
+  private static final String DISPATCHED_MODULE =
+      "package " + PACKAGE_NAME + ";\n" +
+      "\n" +
+      "import com.facebook.react.bridge.BaseJavaModule;\n" +
+      "import com.facebook.react.bridge.Callback;\n" +
+      "import com.facebook.react.bridge.ReactMethod;\n" +
+      "import com.facebook.react.bridge.UnexpectedNativeTypeException;\n" +
+      "import java.io.IOException;\n" +
+      "\n" +
+      "public class DispatchedModule extends BaseJavaModule {\n" +
+      "  public double mSum;\n" +
+      "  public String mUpdateCalledBy;\n" +
+      "  public String mName;\n" +
+      "  public Callback mCallback;\n" +
+      "\n" +
+      "  @Override\n" +
+      "  public String getName() {\n" +
+      "    return \"DispatchedModule\";\n" +
+      "  }\n" +
+      "\n" +
+      "  @ReactMethod\n" +
+      "  public void update(int a, double b, float c, boolean d) {\n" +
+      "    mSum = a + b + c + (d ? 1 : 0);\n" +
+      "    mUpdateCalledBy = new Throwable().getStackTrace()[1].getClassName();\n" +
+      "  }\n" +
+      "\n" +
+      "  @ReactMethod\n" +
+      "  public void setName(String name, Callback callback) {\n" +
+      "    mName = name;\n" +
+      "    mCallback = callback;\n" +
+      "  }\n" +
+      "\n" +
+      "  @ReactMethod\n" +
+      "  public void fail() {\n" +
+      "    throw new UnexpectedNativeTypeException(\"Thrown by fail\");\n" +
+      "  }\n" +
+      "\n" +
+      "  @ReactMethod\n" +
+      "  public void read(String path) throws IOException {\n" +
+      "    throw new IOException(\"Cannot read \" + path);\n" +
+      "  }\n" +
+      "}\n";
+
+  @Rule
+  public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+  private JavaCompiler mCompiler;
+  private BaseJavaModule mModule;
+  private ReactMethodDispatcher<NativeModule> mDispatcher;
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setUp() throws Exception {
+    mCompiler = ToolProvider.getSystemJavaCompiler();
+    // Only JDKs ship with a compiler.
+    assumeNotNull(mCompiler);
+
+    ClassLoader classLoader = compile();
+    mModule = (BaseJavaModule) classLoader.loadClass(MODULE_CLASS_NAME).newInstance();
+    mDispatcher = (ReactMethodDispatcher<NativeModule>) classLoader
+        .loadClass(MODULE_CLASS_NAME + "$$ReactMethodDispatcher")
+        .newInstance();
+  }
+
+  @Test
+  public void testMethodsAreIndexedByName() {
+    assertThat(mDispatcher.getMethodIndex("fail")).isEqualTo(0);
+    assertThat(mDispatcher.getMethodIndex("read")).isEqualTo(1);
+    assertThat(mDispatcher.getMethodIndex("setName")).isEqualTo(2);
+    assertThat(mDispatcher.getMethodIndex("update")).isEqualTo(3);
+    assertThat(mDispatcher.getMethodIndex("getName")).isEqualTo(ReactMethodDispatcher.NO_METHOD);
+  }
+
+  @Test
+  public void testDispatcherCallsMethodWithArguments() throws Exception {
+    createMethodWrapper("update").invoke(null, JavaOnlyArray.of(3.0, 0.25, 1.5, true));
+
+    assertThat(getField("mSum")).isEqualTo(3 + 0.25 + 1.5f + 1);
+  }
+
+  @Test
+  public void testDispatcherPassesSameArgumentsAsReflection() throws Exception {
+    BaseJavaModule reflectedModule = mModule.getClass().newInstance();
+    JavaMethodWrapper reflectedMethod = new JavaMethodWrapper(
+        new JavaModuleWrapper(null, new ModuleHolder(reflectedModule)),
+        findMethod("update"),
+        false,
+        null);
+
+    createMethodWrapper("update").invoke(null, JavaOnlyArray.of(3.0, 0.25, 1.5, true));
+    reflectedMethod.invoke(null, JavaOnlyArray.of(3.0, 0.25, 1.5, true));
+
+    assertThat(getField("mSum")).isEqualTo(getField(reflectedModule, "mSum"));
+    assertThat(getField("mUpdateCalledBy"))
+        .isNotEqualTo(getField(reflectedModule, "mUpdateCalledBy"));
+  }
+
+  @Test
+  public void testModuleWrapperCallsMethodsThroughGeneratedDispatcher() throws Exception {
+    PowerMockito.mockStatic(SoLoader.class);
+    ReadableNativeArray arguments = PowerMockito.mock(ReadableNativeArray.class);
+    when(arguments.size()).thenReturn(4);
+    when(arguments.getDouble(0)).thenReturn(3.0);
+    when(arguments.getDouble(1)).thenReturn(0.25);
+    when(arguments.getDouble(2)).thenReturn(1.5);
+    when(arguments.getBoolean(3)).thenReturn(true);
+
+    JavaModuleWrapper wrapper = new JavaModuleWrapper(null, new ModuleHolder(mModule));
+    assertThat(wrapper.getMethodDescriptors()).hasSize(4);
+    wrapper.invoke(getMethodId("update"), arguments);
+
+    assertThat(getField("mSum")).isEqualTo(3 + 0.25 + 1.5f + 1);
+    assertThat(getField("mUpdateCalledBy"))
+        .isEqualTo(MODULE_CLASS_NAME + "$$ReactMethodDispatcher");
+  }
+
+  @Test
+  public void testDispatcherCreatesCallbacks() throws Exception {
+    JavaMethodWrapper method = createMethodWrapper("setName");
+
+    method.invoke(mock(JSInstance.class), JavaOnlyArray.of("first", 5.0));
+    assertThat(getField("mName")).isEqualTo("first");
+    assertThat(getField("mCallback")).isInstanceOf(CallbackImpl.class);
+
+    method.invoke(mock(JSInstance.class), JavaOnlyArray.of("second", null));
+    assertThat(getField("mName")).isEqualTo("second");
+    assertThat(getField("mCallback")).isNull();
+  }
+
+  @Test
+  public void testArgumentOfUnexpectedTypeIsReported() throws Exception {
+    ReadableArray arguments = mock(ReadableArray.class);
+    when(arguments.size()).thenReturn(4);
+    when(arguments.getDouble(0)).thenThrow(new UnexpectedNativeTypeException("Not a number"));
+
+    try {
+      createMethodWrapper("update").invoke(null, arguments);
+      fail("Expected NativeArgumentsParseException");
+    } catch (NativeArgumentsParseException e) {
+      assertThat(e.getMessage()).contains("Not a number");
+      assertThat(e.getMessage()).contains("DispatchedModule.update");
+    }
+  }
+
+  @Test
+  public void testExceptionThrownByMethodIsNotReportedAsArgumentError() throws Exception {
+    try {
+      createMethodWrapper("fail").invoke(null, JavaOnlyArray.of());
+      fail("Expected UnexpectedNativeTypeException");
+    } catch (UnexpectedNativeTypeException e) {
+      assertThat(e.getMessage()).isEqualTo("Thrown by fail");
+    }
+  }
+
+  @Test
+  public void testCheckedExceptionThrownByMethodIsWrapped() throws Exception {
+    try {
+      createMethodWrapper("read").invoke(null, JavaOnlyArray.of("config.json"));
+      fail("Expected RuntimeException");
+    } catch (RuntimeException e) {
+      assertThat(e.getMessage()).isEqualTo("Could not invoke DispatchedModule.read");
+      assertThat(e.getCause()).isInstanceOf(IOException.class);
+      assertThat(e.getCause().getMessage()).isEqualTo("Cannot read config.json");
+    }
+  }
+
+  private JavaMethodWrapper createMethodWrapper(String methodName) {
+    return new JavaMethodWrapper(
+        new JavaModuleWrapper(null, new ModuleHolder(mModule)),
+        findMethod(methodName),
+        false,
+        mDispatcher);
+  }
+
+  private Method findMethod(String methodName) {
+    for (Method method : mModule.getClass().getDeclaredMethods()) {
+      if (method.getName().equals(methodName)) {
+        return method;
+      }
+    }
+    throw new AssertionError("No method " + methodName);
+  }
+
+  /**
+   * @return the ID JavaModuleWrapper gives the method, which is its position among the
+   * {@link ReactMethod}s the module class declares.
+   */
+  private int getMethodId(String methodName) {
+    int methodId = 0;
+    for (Method method : mModule.getClass().getDeclaredMethods()) {
+      if (method.getAnnotation(ReactMethod.class) == null) {
+        continue;
+      }
+      if (method.getName().equals(methodName)) {
+        return methodId;
+      }
+      methodId++;
+    }
+    throw new AssertionError("No method " + methodName);
+  }
+
+  private Object getField(String name) throws Exception {
+    return getField(mModule, name);
+  }
+
+  private static Object getField(BaseJavaModule module, String name) throws Exception {
+    return module.getClass().getField(name).get(module);
+  }
+
+  /**
+   * Compiles the test module with {@link ReactMethodDispatcherProcessor}, and returns a class
+   * loader for the compiled and generated classes.
+   */
+  private ClassLoader compile() throws IOException {
+    File outputDir = mTemporaryFolder.newFolder();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    StandardJavaFileManager fileManager = mCompiler.getStandardFileManager(diagnostics, null, null);
+    fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Arrays.asList(outputDir));
+    fileManager.setLocation(StandardLocation.SOURCE_OUTPUT, Arrays.asList(outputDir));
+    fileManager.setLocation(StandardLocation.CLASS_PATH, getClassPath());
+
+    JavaFileObject source = new SimpleJavaFileObject(
+        URI.create("string:///" + MODULE_CLASS_NAME.replace('.', '/') + ".java"),
+        JavaFileObject.Kind.SOURCE) {
+      @Override
+      public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+        return DISPATCHED_MODULE;
+      }
+    };
+    JavaCompiler.CompilationTask task =
+        mCompiler.getTask(null, fileManager, diagnostics, null, null, Arrays.asList(source));
+    task.setProcessors(Arrays.asList(new ReactMethodDispatcherProcessor()));
+    boolean success = task.call();
+    fileManager.close();
+
+    for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+      assertThat(diagnostic.getKind())
+          .overridingErrorMessage("%s", diagnostic)
+          .isNotEqualTo(Diagnostic.Kind.ERROR);
+    }
+    assertThat(success).isTrue();
+    return new URLClassLoader(
+        new URL[] {outputDir.toURI().toURL()},
+        getClass().getClassLoader());
+  }
+
+  /**
+   * The class path of this test, including the jar or directory the bridge classes are loaded
+   * from, which the test runner may not list in java.class.path.
+   */
+  private Set<File> getClassPath() {
+    Set<File> classPath = new LinkedHashSet<>();
+    for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+      classPath.add(new File(entry));
+    }
+    String resourceName = ReactMethod.class.getName().replace('.', '/') + ".class";
+    URL url = getClass().getClassLoader().getResource(resourceName);
+    if (url != null) {
+      String path = url.toString();
+      if (path.startsWith("jar:file:")) {
+        classPath.add(new File(URI.create(path.substring("jar:".length(), path.indexOf("!/")))));
+      } else if (path.startsWith("file:")) {
+        String directory = path.substring(0, path.length() - resourceName.length());
+        classPath.add(new File(URI.create(directory)));
+      }
+    }
+    return classPath;
+  }
+}
@@ -12,6 +12,7 @@ import android.net.Uri;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.JavaOnlyArray;
 import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactTestHelper;
 
 import org.junit.After;
@@ -26,9 +27,11 @@ import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.rule.PowerMockRule;
+import org.robolectric.Robolectric;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
+import java.io.File;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.Arrays;
@@ -36,8 +39,10 @@ import java.util.Random;
 import java.util.UUID;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 @PrepareForTest({Arguments.class})
 @RunWith(RobolectricTestRunner.class)
@@ -146,6 +151,41 @@ public class BlobModuleTest {
     assertArrayEquals(result, buffer.array());
   }
 
+  @Test(expected = IllegalArgumentException.class)
+  public void testCreateFromPartsWithMissingBlob() {
+    JavaOnlyMap blobData = new JavaOnlyMap();
+    blobData.putString("blobId", UUID.randomUUID().toString());
+    blobData.putInt("offset", 0);
+    blobData.putInt("size", mBytes.length);
+    JavaOnlyMap blob = new JavaOnlyMap();
+    blob.putMap("data", blobData);
+    blob.putString("type", "blob");
+
+    JavaOnlyArray parts = new JavaOnlyArray();
+    parts.pushMap(blob);
+
+    mBlobModule.createFromParts(parts, UUID.randomUUID().toString());
+  }
+
+  @Test
+  public void testStaleDirectoriesAreRemoved() throws Exception {
+    ReactApplicationContext context = ReactTestHelper.createCatalystContextForTest();
+    File blobsDirectory = new File(context.getCacheDir(), "blobs");
+    File staleDirectory = new File(blobsDirectory, "stale");
+    assertTrue(staleDirectory.mkdirs());
+    assertTrue(new File(staleDirectory, "blob").createNewFile());
+    // Spills to a directory that the new module has to keep.
+    BlobModule liveModule = new BlobModule(context);
+    String liveBlobId = liveModule.store(new byte[BlobStore.DEFAULT_SPILL_THRESHOLD_BYTES + 1]);
+
+    new BlobModule(context);
+    Robolectric.flushBackgroundThreadScheduler();
+
+    assertFalse(staleDirectory.exists());
+    // The blob's file is only read now, it would be gone if the directory had been deleted.
+    assertNotNull(liveModule.resolve(liveBlobId, 0, 1));
+  }
+
   @Test
   public void testRelease() {
     assertNotNull(mBlobModule.resolve(mBlobId, 0, mBytes.length));
@@ -0,0 +1,294 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.modules.blob;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Sink;
+import okio.Source;
+import okio.Timeout;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Tests for {@link BlobStore} and {@link BlobRequestBody}, including the memory allocated by round
+ * trips of a large blob.
+ */
+public class BlobStoreTest {
+
+  private static final int SPILL_THRESHOLD_BYTES = 1024;
+  private static final int LARGE_BLOB_BYTES = 100 * 1024 * 1024;
+  private static final int PART_BYTES = 64 * 1024;
+
+  @Rule
+  public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+  private File mDirectory;
+  private BlobStore mStore;
+
+  @Before
+  public void setUp() throws Exception {
+    mDirectory = new File(mTemporaryFolder.getRoot(), "blobs");
+    mStore = new BlobStore(mDirectory, SPILL_THRESHOLD_BYTES);
+  }
+
+  @Test
+  public void testSmallBlobsStayInMemory() throws Exception {
+    byte[] data = randomBytes(SPILL_THRESHOLD_BYTES);
+    mStore.store(data, "small");
+
+    assertThat(mStore.getFile("small")).isNull();
+    assertThat(mDirectory.exists()).isFalse();
+    ByteBuffer slice = mStore.slice("small", 10, 20);
+    assertThat(slice.array()).isSameAs(data);
+    assertArrayEquals(Arrays.copyOfRange(data, 10, 30), toByteArray(slice));
+  }
+
+  @Test
+  public void testLargeBlobsSpillToFile() throws Exception {
+    byte[] data = randomBytes(SPILL_THRESHOLD_BYTES * 10);
+    mStore.store(data, "large");
+
+    File file = mStore.getFile("large");
+    assertThat(file).isNotNull();
+    assertThat(file.length()).isEqualTo(data.length);
+    assertThat(mStore.getSize("large")).isEqualTo(data.length);
+    assertArrayEquals(data, toByteArray(mStore.slice("large", 0, -1)));
+    assertArrayEquals(
+        Arrays.copyOfRange(data, 5000, 7000),
+        toByteArray(mStore.slice("large", 5000, 2000)));
+
+    mStore.remove("large");
+    assertThat(file.exists()).isFalse();
+    assertThat(mStore.slice("large", 0, -1)).isNull();
+  }
+
+  @Test
+  public void testWriterSpillsOnceItPassesThreshold() throws Exception {
+    byte[] data = randomBytes(SPILL_THRESHOLD_BYTES * 3);
+    BlobStore.Writer writer = mStore.newWriter();
+    writer.write(data, 0, SPILL_THRESHOLD_BYTES / 2);
+    writer.write(ByteBuffer.wrap(data, SPILL_THRESHOLD_BYTES / 2, SPILL_THRESHOLD_BYTES));
+    writer.write(data, SPILL_THRESHOLD_BYTES * 3 / 2, data.length - SPILL_THRESHOLD_BYTES * 3 / 2);
+    assertThat(writer.commit("written")).isEqualTo(data.length);
+    writer.close();
+
+    assertThat(mStore.getFile("written")).isNotNull();
+    assertArrayEquals(data, toByteArray(mStore.slice("written", 0, -1)));
+  }
+
+  @Test
+  public void testClosedWriterLeavesNothingBehind() throws Exception {
+    BlobStore.Writer writer = mStore.newWriter();
+    writer.write(randomBytes(SPILL_THRESHOLD_BYTES * 2));
+    writer.close();
+
+    assertThat(mDirectory.list()).isEmpty();
+  }
+
+  @Test
+  public void testClearRemovesDirectory() throws Exception {
+    mStore.store(randomBytes(SPILL_THRESHOLD_BYTES * 2), "large");
+    mStore.store(randomBytes(10), "small");
+    mStore.clear();
+
+    assertThat(mDirectory.exists()).isFalse();
+    assertThat(mStore.getSize("small")).isEqualTo(-1);
+  }
+
+  @Test
+  public void testClearReleasesLock() throws Exception {
+    mStore.store(randomBytes(SPILL_THRESHOLD_BYTES * 2), "large");
+    assertThat(new File(mTemporaryFolder.getRoot(), "blobs.lock").exists()).isTrue();
+    mStore.clear();
+
+    assertThat(mTemporaryFolder.getRoot().list()).isEmpty();
+    // The store can still spill after it has been cleared.
+    mStore.store(randomBytes(SPILL_THRESHOLD_BYTES * 2), "large");
+    assertThat(mStore.getFile("large").exists()).isTrue();
+  }
+
+  @Test
+  public void testOnlyDirectoriesOfDeadStoresAreDeleted() throws Exception {
+    File blobsDirectory = mTemporaryFolder.newFolder("stores");
+    File ownDirectory = new File(blobsDirectory, "own");
+    BlobStore liveStore = new BlobStore(new File(blobsDirectory, "live"), SPILL_THRESHOLD_BYTES);
+    liveStore.store(randomBytes(SPILL_THRESHOLD_BYTES * 2), "large");
+    // Left behind by a process killed while it held its lock.
+    File deadDirectory = new File(blobsDirectory, "dead");
+    assertThat(deadDirectory.mkdir()).isTrue();
+    assertThat(new File(deadDirectory, "blob").createNewFile()).isTrue();
+    assertThat(new File(blobsDirectory, "dead.lock").createNewFile()).isTrue();
+    // Killed after taking its lock, before creating its directory.
+    assertThat(new File(blobsDirectory, "early.lock").createNewFile()).isTrue();
+    // Left behind without a lock file.
+    assertThat(new File(blobsDirectory, "unlocked").mkdir()).isTrue();
+    assertThat(ownDirectory.mkdir()).isTrue();
+
+    BlobStore.deleteStaleDirectories(blobsDirectory, ownDirectory);
+
+    assertThat(blobsDirectory.list()).containsOnly("live", "live.lock", "own");
+    assertThat(liveStore.getFile("large").exists()).isTrue();
+  }
+
+  @Test
+  public void testLargeBlobRoundTripAllocation() throws Exception {
+    com.sun.management.ThreadMXBean threadMXBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    BlobStore store = new BlobStore(mDirectory, BlobStore.DEFAULT_SPILL_THRESHOLD_BYTES);
+    byte[] part = randomBytes(PART_BYTES);
+    byte[] readPart = new byte[PART_BYTES];
+
+    long startBytes = threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    // Written and read back in parts, as network bodies and file streams are.
+    BlobStore.Writer writer = store.newWriter();
+    for (int written = 0; written < LARGE_BLOB_BYTES; written += PART_BYTES) {
+      writer.write(part, 0, PART_BYTES);
+    }
+    writer.commit("large");
+    for (int offset = 0; offset < LARGE_BLOB_BYTES; offset += PART_BYTES) {
+      store.slice("large", offset, PART_BYTES).get(readPart);
+    }
+    long allocatedBytes =
+        threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - startBytes;
+
+    assertArrayEquals(part, readPart);
+    // Only the in-memory buffer up to the spill threshold and per part views are allocated.
+    assertThat(allocatedBytes).isLessThan(BlobStore.DEFAULT_SPILL_THRESHOLD_BYTES * 4);
+    store.clear();
+  }
+
+  @Test
+  public void testStoreFromSource() throws Exception {
+    byte[] data = randomBytes(SPILL_THRESHOLD_BYTES * 20 + 7);
+
+    assertThat(mStore.store(new Buffer().write(data), "source")).isEqualTo(data.length);
+    assertThat(mStore.getFile("source")).isNotNull();
+    assertArrayEquals(data, toByteArray(mStore.slice("source", 0, -1)));
+  }
+
+  @Test
+  public void testRequestBodyWritesSlice() throws Exception {
+    byte[] data = randomBytes(BlobStore.SEGMENT_SIZE_BYTES * 3);
+    mStore.store(data, "upload");
+    BlobRequestBody body =
+        new BlobRequestBody(null, mStore.slice("upload", 100, data.length - 200));
+
+    assertThat(body.contentLength()).isEqualTo(data.length - 200);
+    // Written twice, as OkHttp does when it retries.
+    for (int i = 0; i < 2; i++) {
+      Buffer sink = new Buffer();
+      body.writeTo(sink);
+      assertArrayEquals(Arrays.copyOfRange(data, 100, data.length - 100), sink.readByteArray());
+    }
+  }
+
+  @Test
+  public void testLargeBlobDownloadAndUploadAllocation() throws Exception {
+    com.sun.management.ThreadMXBean threadMXBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    BlobStore store = new BlobStore(mDirectory, BlobStore.DEFAULT_SPILL_THRESHOLD_BYTES);
+
+    long startBytes = threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    store.store(new GeneratingSource(LARGE_BLOB_BYTES), "large");
+    CountingSink sink = new CountingSink();
+    BufferedSink bufferedSink = Okio.buffer(sink);
+    new BlobRequestBody(null, store.slice("large", 0, -1)).writeTo(bufferedSink);
+    bufferedSink.flush();
+    long allocatedBytes =
+        threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - startBytes;
+
+    assertThat(sink.mBytesWritten).isEqualTo(LARGE_BLOB_BYTES);
+    assertThat(allocatedBytes).isLessThan(BlobStore.DEFAULT_SPILL_THRESHOLD_BYTES * 4);
+    store.clear();
+  }
+
+  /**
+   * Produces the given number of bytes without holding them in memory, like a socket would.
+   */
+  private static class GeneratingSource implements Source {
+    private final byte[] mPattern = new byte[BlobStore.SEGMENT_SIZE_BYTES];
+    private long mRemaining;
+
+    private GeneratingSource(long length) {
+      mRemaining = length;
+      new Random(42).nextBytes(mPattern);
+    }
+
+    @Override
+    public long read(Buffer sink, long byteCount) {
+      if (mRemaining == 0) {
+        return -1;
+      }
+      int count = (int) Math.min(Math.min(byteCount, mRemaining), mPattern.length);
+      sink.write(mPattern, 0, count);
+      mRemaining -= count;
+      return count;
+    }
+
+    @Override
+    public Timeout timeout() {
+      return Timeout.NONE;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  /**
+   * Discards what is written to it, like a socket would.
+   */
+  private static class CountingSink implements Sink {
+    private long mBytesWritten;
+
+    @Override
+    public void write(Buffer source, long byteCount) throws IOException {
+      source.skip(byteCount);
+      mBytesWritten += byteCount;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public Timeout timeout() {
+      return Timeout.NONE;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  private static byte[] randomBytes(int length) {
+    byte[] bytes = new byte[length];
+    new Random(42).nextBytes(bytes);
+    return bytes;
+  }
+
+  private static byte[] toByteArray(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.duplicate().get(bytes);
+    return bytes;
+  }
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.modules.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link TimerWheel}, checked against {@link PriorityTimerQueue}.
+ */
+public class TimerWheelTest {
+
+  private static final long START_TIME_MS = 123456789;
+  private static final long FRAME_MS = 16;
+  private static final int ACTIVE_TIMERS = 10000;
+  private static final int CHURN_FRAMES = 600;
+  private static final int CHURN_PER_FRAME = 200;
+
+  @Test
+  public void testExpiresTimersAtTheirTargetTime() {
+    TimerWheel wheel = new TimerWheel(START_TIME_MS);
+    wheel.add(timer(1, START_TIME_MS + 10));
+    wheel.add(timer(2, START_TIME_MS + 300));
+    wheel.add(timer(3, START_TIME_MS + 100000));
+
+    assertThat(poll(wheel, START_TIME_MS + 10)).isEmpty();
+    assertThat(poll(wheel, START_TIME_MS + 11)).containsExactly(1);
+    assertThat(poll(wheel, START_TIME_MS + 300)).isEmpty();
+    assertThat(poll(wheel, START_TIME_MS + 301)).containsExactly(2);
+    assertThat(poll(wheel, START_TIME_MS + 100000)).isEmpty();
+    assertThat(poll(wheel, START_TIME_MS + 100001)).containsExactly(3);
+  }
+
+  @Test
+  public void testRemovedTimersDoNotExpire() {
+    TimerWheel wheel = new TimerWheel(START_TIME_MS);
+    Timing.Timer removed = timer(1, START_TIME_MS + 10);
+    wheel.add(removed);
+    wheel.add(timer(2, START_TIME_MS + 10));
+    wheel.remove(removed);
+
+    assertThat(poll(wheel, START_TIME_MS + 20)).containsExactly(2);
+  }
+
+  @Test
+  public void testOverdueTimersExpireOnNextPoll() {
+    TimerWheel wheel = new TimerWheel(START_TIME_MS);
+    poll(wheel, START_TIME_MS + 1000);
+    wheel.add(timer(1, START_TIME_MS + 500));
+
+    assertThat(poll(wheel, START_TIME_MS + 1000)).containsExactly(1);
+  }
+
+  @Test
+  public void testLongTimersAfterLongPause() {
+    TimerWheel wheel = new TimerWheel(START_TIME_MS);
+    wheel.add(timer(1, START_TIME_MS + (1L << 33)));
+    wheel.add(timer(2, START_TIME_MS + 3600 * 1000));
+
+    assertThat(poll(wheel, START_TIME_MS + 3600 * 1000 + 1)).containsExactly(2);
+    assertThat(poll(wheel, START_TIME_MS + (1L << 33))).isEmpty();
+    assertThat(poll(wheel, START_TIME_MS + (1L << 33) + 1)).containsExactly(1);
+  }
+
+  @Test
+  public void testMatchesPriorityTimerQueue() {
+    Random random = new Random(42);
+    TimerWheel wheel = new TimerWheel(START_TIME_MS);
+    PriorityTimerQueue queue = new PriorityTimerQueue();
+    List<Timing.Timer> wheelTimers = new ArrayList<>();
+    List<Timing.Timer> queueTimers = new ArrayList<>();
+
+    long time = START_TIME_MS;
+    for (int frame = 0; frame < 2000; frame++) {
+      for (int i = 0; i < 20; i++) {
+        int id = frame * 20 + i;
+        long targetTime = time + randomDelay(random);
+        wheelTimers.add(timer(id, targetTime));
+        queueTimers.add(timer(id, targetTime));
+        wheel.add(wheelTimers.get(wheelTimers.size() - 1));
+        queue.add(queueTimers.get(queueTimers.size() - 1));
+      }
+      for (int i = 0; i < 5 && !wheelTimers.isEmpty(); i++) {
+        int index = random.nextInt(wheelTimers.size());
+        wheel.remove(wheelTimers.remove(index));
+        queue.remove(queueTimers.remove(index));
+      }
+
+      // Occasionally skip a long stretch of frames, as while the app is in the background.
+      time += random.nextInt(100) == 0 ? random.nextInt(1000000) : FRAME_MS;
+      List<Integer> wheelExpired = poll(wheel, time);
+      List<Integer> queueExpired = poll(queue, time);
+      Collections.sort(wheelExpired);
+      Collections.sort(queueExpired);
+      assertThat(wheelExpired).isEqualTo(queueExpired);
+    }
+  }
+
+  @Test
+  public void testMatchesPriorityQueueWithManyActiveTimers() {
+    long wheelExpired = runWithChurn(new TimerWheel(START_TIME_MS), CHURN_FRAMES);
+    long queueExpired = runWithChurn(new PriorityTimerQueue(), CHURN_FRAMES);
+
+    assertThat(wheelExpired).isGreaterThan(0);
+    assertThat(wheelExpired).isEqualTo(queueExpired);
+  }
+
+  /**
+   * Keeps {@link #ACTIVE_TIMERS} timers active, creating and deleting short lived ones every frame
+   * as debounced code does, and re-adding repeating ones as they expire.
+   *
+   * @return a sum identifying which timers expired in which frame, whatever their order within a
+   * frame.
+   */
+  private static long runWithChurn(TimerQueue timers, int frames) {
+    Random random = new Random(7);
+    Timing.Timer[] active = new Timing.Timer[ACTIVE_TIMERS];
+    long time = START_TIME_MS;
+    for (int i = 0; i < ACTIVE_TIMERS; i++) {
+      active[i] = timer(i, time + 1 + random.nextInt(10000));
+      timers.add(active[i]);
+    }
+
+    long expired = 0;
+    for (int frame = 0; frame < frames; frame++) {
+      for (int i = 0; i < CHURN_PER_FRAME; i++) {
+        int index = random.nextInt(ACTIVE_TIMERS);
+        timers.remove(active[index]);
+        active[index] = timer(index, time + 1 + random.nextInt(10000));
+        timers.add(active[index]);
+      }
+      time += FRAME_MS;
+      Timing.Timer timer;
+      while ((timer = timers.pollExpired(time)) != null) {
+        expired += (long) frame * ACTIVE_TIMERS + timer.mCallbackID;
+        // Not random, so that the order timers expire in within a frame doesn't matter.
+        timer.mTargetTime = time + 1 + (timer.mCallbackID * 31L + frame) % 10000;
+        timers.add(timer);
+      }
+    }
+    return expired;
+  }
+
+  private static long randomDelay(Random random) {
+    switch (random.nextInt(4)) {
+      case 0:
+        return random.nextInt(300) - 10;
+      case 1:
+        return random.nextInt(20000);
+      case 2:
+        return random.nextInt(2000000);
+      default:
+        return random.nextInt(Integer.MAX_VALUE);
+    }
+  }
+
+  private static List<Integer> poll(TimerQueue timers, long timeMillis) {
+    List<Integer> expired = new ArrayList<>();
+    Timing.Timer timer;
+    while ((timer = timers.pollExpired(timeMillis)) != null) {
+      expired.add(timer.mCallbackID);
+    }
+    return expired;
+  }
+
+  private static Timing.Timer timer(int callbackID, long targetTime) {
+    return new Timing.Timer(callbackID, targetTime, 0, false);
+  }
+}
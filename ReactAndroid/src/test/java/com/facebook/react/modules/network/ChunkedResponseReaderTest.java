@@ -0,0 +1,201 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.modules.network;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.util.Random;
+
+import android.util.Base64;
+
+import com.facebook.react.common.StandardCharsets;
+
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.Okio;
+import okio.Source;
+import okio.Timeout;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ChunkedResponseReader}, including a comparison of the memory allocated while
+ * reading bodies of different sizes in chunks and whole.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ChunkedResponseReaderTest {
+
+  private static final int SMALL_BODY_BYTES = 1024 * 1024;
+  private static final int LARGE_BODY_BYTES = 20 * 1024 * 1024;
+
+  private static class CollectingListener implements ChunkedResponseReader.ChunkListener {
+    private final StringBuilder mData = new StringBuilder();
+    private int mChunkCount;
+    private int mMaxChunkLength;
+    private long mBytesRead;
+
+    @Override
+    public void onChunk(String chunk, long bytesRead) {
+      mData.append(chunk);
+      mChunkCount++;
+      mMaxChunkLength = Math.max(mMaxChunkLength, chunk.length());
+      mBytesRead = bytesRead;
+    }
+  }
+
+  private static class CountingListener implements ChunkedResponseReader.ChunkListener {
+    private int mChunkCount;
+
+    @Override
+    public void onChunk(String chunk, long bytesRead) {
+      mChunkCount++;
+    }
+  }
+
+  /**
+   * Produces the given number of bytes without holding them in memory, like a socket would.
+   */
+  private static class GeneratingSource implements Source {
+    private final byte[] mPattern = new byte[4096];
+    private long mRemaining;
+
+    private GeneratingSource(long length) {
+      mRemaining = length;
+      for (int i = 0; i < mPattern.length; i++) {
+        mPattern[i] = (byte) ('a' + i % 26);
+      }
+    }
+
+    @Override
+    public long read(Buffer sink, long byteCount) throws IOException {
+      if (mRemaining == 0) {
+        return -1;
+      }
+      int count = (int) Math.min(Math.min(byteCount, mRemaining), mPattern.length);
+      sink.write(mPattern, 0, count);
+      mRemaining -= count;
+      return count;
+    }
+
+    @Override
+    public Timeout timeout() {
+      return Timeout.NONE;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  @Test
+  public void testTextCharactersSplitAcrossChunks() throws Exception {
+    StringBuilder text = new StringBuilder();
+    while (text.length() < 3 * ChunkedResponseReader.CHUNK_SIZE_BYTES) {
+      text.append("h\u00e9llo w\u00f6rld \u2713 \uD83D\uDE00 ");
+    }
+    byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+
+    CollectingListener listener = new CollectingListener();
+    new ChunkedResponseReader().readText(source(bytes), StandardCharsets.UTF_8, listener);
+
+    assertThat(listener.mData.toString()).isEqualTo(text.toString());
+    assertThat(listener.mChunkCount).isGreaterThan(1);
+    assertThat(listener.mMaxChunkLength)
+        .isLessThanOrEqualTo(ChunkedResponseReader.CHUNK_SIZE_BYTES);
+    assertThat(listener.mBytesRead).isEqualTo(bytes.length);
+  }
+
+  @Test
+  public void testTextInOtherCharset() throws Exception {
+    Charset charset = Charset.forName("UTF-16");
+    String text = "h\u00e9llo w\u00f6rld";
+
+    CollectingListener listener = new CollectingListener();
+    new ChunkedResponseReader().readText(source(text.getBytes(charset)), charset, listener);
+
+    assertThat(listener.mData.toString()).isEqualTo(text);
+  }
+
+  @Test
+  public void testBase64ChunksConcatenate() throws Exception {
+    byte[] bytes = new byte[2 * ChunkedResponseReader.CHUNK_SIZE_BYTES + 17];
+    new Random(42).nextBytes(bytes);
+
+    CollectingListener listener = new CollectingListener();
+    new ChunkedResponseReader().readBase64(source(bytes), listener);
+
+    assertThat(listener.mChunkCount).isEqualTo(3);
+    assertThat(listener.mData.toString())
+        .isEqualTo(Base64.encodeToString(bytes, Base64.NO_WRAP));
+    assertThat(Base64.decode(listener.mData.toString(), Base64.NO_WRAP)).isEqualTo(bytes);
+  }
+
+  @Test
+  public void testEmptyBody() throws Exception {
+    CollectingListener listener = new CollectingListener();
+    new ChunkedResponseReader().readText(source(new byte[0]), StandardCharsets.UTF_8, listener);
+    new ChunkedResponseReader().readBase64(source(new byte[0]), listener);
+
+    assertThat(listener.mChunkCount).isEqualTo(0);
+  }
+
+  @Test
+  public void testAllocationPerChunkIndependentOfBodySize() throws Exception {
+    com.sun.management.ThreadMXBean threadMXBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Warm up.
+    readText(SMALL_BODY_BYTES, threadMXBean);
+    readBase64(SMALL_BODY_BYTES, threadMXBean);
+
+    long smallTextBytesPerChunk = readText(SMALL_BODY_BYTES, threadMXBean);
+    long largeTextBytesPerChunk = readText(LARGE_BODY_BYTES, threadMXBean);
+    long smallBase64BytesPerChunk = readBase64(SMALL_BODY_BYTES, threadMXBean);
+    long largeBase64BytesPerChunk = readBase64(LARGE_BODY_BYTES, threadMXBean);
+
+    long startBytes = threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    Okio.buffer(new GeneratingSource(LARGE_BODY_BYTES)).readString(StandardCharsets.UTF_8);
+    long wholeTextBytes =
+        threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - startBytes;
+
+    // Everything allocated is per chunk garbage, no buffer grows with the body.
+    assertThat(largeTextBytesPerChunk).isLessThan(smallTextBytesPerChunk * 2);
+    assertThat(largeBase64BytesPerChunk).isLessThan(smallBase64BytesPerChunk * 2);
+    assertThat(largeTextBytesPerChunk).isLessThan(wholeTextBytes / 20);
+  }
+
+  private static long readText(int length, com.sun.management.ThreadMXBean threadMXBean)
+      throws IOException {
+    CountingListener listener = new CountingListener();
+    BufferedSource source = Okio.buffer(new GeneratingSource(length));
+    long startBytes = threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    new ChunkedResponseReader().readText(source, StandardCharsets.UTF_8, listener);
+    long allocatedBytes =
+        threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - startBytes;
+    return allocatedBytes / listener.mChunkCount;
+  }
+
+  private static long readBase64(int length, com.sun.management.ThreadMXBean threadMXBean)
+      throws IOException {
+    CountingListener listener = new CountingListener();
+    BufferedSource source = Okio.buffer(new GeneratingSource(length));
+    long startBytes = threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    new ChunkedResponseReader().readBase64(source, listener);
+    long allocatedBytes =
+        threadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId()) - startBytes;
+    return allocatedBytes / listener.mChunkCount;
+  }
+
+  private static BufferedSource source(byte[] bytes) {
+    return new Buffer().write(bytes);
+  }
+}
@@ -0,0 +1,214 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.modules.network;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link NetworkRequestScheduler}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class NetworkRequestSchedulerTest {
+
+  private static final String HOST = "somedomain";
+  // Not OkHttp's default, to check that the limit is read from the dispatcher.
+  private static final int MAX_REQUESTS_PER_HOST = 3;
+
+  private NetworkRequestScheduler mScheduler;
+  // The ids of the requests handed to OkHttp, in order, and the calls and callbacks to finish them.
+  private List<Integer> mStartedRequestIds;
+  private Map<Integer, Call> mStartedCalls;
+  private Map<Integer, Callback> mStartedCallbacks;
+
+  @Before
+  public void setUp() {
+    Dispatcher dispatcher = new Dispatcher();
+    dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+    mScheduler = new NetworkRequestScheduler(dispatcher);
+    mStartedRequestIds = new ArrayList<>();
+    mStartedCalls = new HashMap<>();
+    mStartedCallbacks = new HashMap<>();
+  }
+
+  @Test
+  public void testStartsRequestsRightAwayBelowTheLimits() {
+    enqueue(1, NetworkRequestScheduler.PRIORITY_NORMAL, HOST);
+    enqueue(2, NetworkRequestScheduler.PRIORITY_LOW, HOST);
+    enqueue(3, NetworkRequestScheduler.PRIORITY_HIGH, "otherdomain");
+
+    assertThat(mStartedRequestIds).containsExactly(1, 2, 3);
+  }
+
+  @Test
+  public void testLimitsRequestsPerHost() {
+    for (int i = 0; i < MAX_REQUESTS_PER_HOST + 1; i++) {
+      enqueue(i, NetworkRequestScheduler.PRIORITY_NORMAL, HOST);
+    }
+    enqueue(100, NetworkRequestScheduler.PRIORITY_NORMAL, "otherdomain");
+
+    assertThat(mStartedRequestIds).hasSize(MAX_REQUESTS_PER_HOST + 1);
+    assertThat(mStartedRequestIds).contains(100);
+    assertThat(mStartedRequestIds)
+        .doesNotContain(MAX_REQUESTS_PER_HOST);
+
+    finish(0);
+    assertThat(mStartedRequestIds).contains(MAX_REQUESTS_PER_HOST);
+  }
+
+  @Test
+  public void testLimitsLowPriorityRequests() {
+    for (int i = 0; i < NetworkRequestScheduler.MAX_LOW_PRIORITY_REQUESTS + 1; i++) {
+      enqueue(i, NetworkRequestScheduler.PRIORITY_LOW, "domain" + i);
+    }
+    enqueue(100, NetworkRequestScheduler.PRIORITY_NORMAL, "otherdomain");
+
+    assertThat(mStartedRequestIds)
+        .doesNotContain(NetworkRequestScheduler.MAX_LOW_PRIORITY_REQUESTS);
+    assertThat(mStartedRequestIds).contains(100);
+  }
+
+  @Test
+  public void testHigherPriorityRequestsOvertakeQueuedOnes() {
+    for (int i = 0; i < MAX_REQUESTS_PER_HOST; i++) {
+      enqueue(i, NetworkRequestScheduler.PRIORITY_NORMAL, HOST);
+    }
+    enqueue(10, NetworkRequestScheduler.PRIORITY_LOW, HOST);
+    enqueue(11, NetworkRequestScheduler.PRIORITY_NORMAL, HOST);
+    enqueue(12, NetworkRequestScheduler.PRIORITY_HIGH, HOST);
+    mStartedRequestIds.clear();
+
+    finish(0);
+    finish(1);
+    finish(2);
+    assertThat(mStartedRequestIds).containsExactly(12, 11, 10);
+  }
+
+  @Test
+  public void testCancelQueuedRequest() throws Exception {
+    for (int i = 0; i < MAX_REQUESTS_PER_HOST; i++) {
+      enqueue(i, NetworkRequestScheduler.PRIORITY_NORMAL, HOST);
+    }
+    Call call = mock(Call.class);
+    Callback callback = mock(Callback.class);
+    mScheduler.enqueue(10, NetworkRequestScheduler.PRIORITY_NORMAL, HOST, call, callback);
+
+    assertThat(mScheduler.cancel(10)).isTrue();
+    verify(call).cancel();
+    verify(callback).onFailure(eq(call), any(IOException.class));
+
+    finish(0);
+    verify(call, never()).enqueue(any(Callback.class));
+    assertThat(mScheduler.cancel(10)).isFalse();
+  }
+
+  /**
+   * A call is handed to OkHttp after the scheduler's lock is released, so it must be canceled even
+   * if an abort comes in before it gets there. OkHttp then fails it when it is enqueued.
+   */
+  @Test
+  public void testCancelStartedRequest() throws Exception {
+    enqueue(1, NetworkRequestScheduler.PRIORITY_NORMAL, HOST);
+    Call call = mStartedCalls.get(1);
+
+    assertThat(mScheduler.cancel(1)).isTrue();
+    verify(call).cancel();
+    assertThat(mScheduler.getPerformanceCounters().get("RunningRequests")).isEqualTo(1);
+
+    mStartedCallbacks.get(1).onFailure(call, new IOException("Canceled"));
+    assertThat(mScheduler.getPerformanceCounters().get("RunningRequests")).isEqualTo(0);
+    assertThat(mScheduler.cancel(1)).isFalse();
+  }
+
+  @Test
+  public void testLimitsAreReadFromTheDispatcher() {
+    Dispatcher dispatcher = new Dispatcher();
+    dispatcher.setMaxRequests(2);
+    mScheduler = new NetworkRequestScheduler(dispatcher);
+    enqueue(1, NetworkRequestScheduler.PRIORITY_HIGH, "domain1");
+    enqueue(2, NetworkRequestScheduler.PRIORITY_HIGH, "domain2");
+    enqueue(3, NetworkRequestScheduler.PRIORITY_HIGH, "domain3");
+    assertThat(mStartedRequestIds).containsExactly(1, 2);
+
+    dispatcher.setMaxRequests(3);
+    enqueue(4, NetworkRequestScheduler.PRIORITY_HIGH, "domain4");
+    assertThat(mStartedRequestIds).containsExactly(1, 2, 3);
+  }
+
+  @Test
+  public void testReportsQueueWaitTime() throws Exception {
+    enqueue(1, NetworkRequestScheduler.PRIORITY_NORMAL, HOST);
+    assertThat(mScheduler.getQueueWaitTimeMs(1)).isGreaterThanOrEqualTo(0);
+    assertThat(mScheduler.getPerformanceCounters().get("NormalPriorityRequests")).isEqualTo(1);
+
+    finish(1);
+    assertThat(mScheduler.getQueueWaitTimeMs(1)).isEqualTo(-1);
+    assertThat(mScheduler.getPerformanceCounters().get("RunningRequests")).isEqualTo(0);
+
+    mScheduler.resetPerformanceCounters();
+    assertThat(mScheduler.getPerformanceCounters().get("NormalPriorityRequests")).isEqualTo(0);
+  }
+
+  @Test
+  public void testParsePriority() {
+    assertThat(NetworkRequestScheduler.parsePriority("high"))
+        .isEqualTo(NetworkRequestScheduler.PRIORITY_HIGH);
+    assertThat(NetworkRequestScheduler.parsePriority("low"))
+        .isEqualTo(NetworkRequestScheduler.PRIORITY_LOW);
+    assertThat(NetworkRequestScheduler.parsePriority(null))
+        .isEqualTo(NetworkRequestScheduler.PRIORITY_NORMAL);
+    assertThat(NetworkRequestScheduler.parsePriority("unknown"))
+        .isEqualTo(NetworkRequestScheduler.PRIORITY_NORMAL);
+  }
+
+  private void enqueue(final int requestId, int priority, String host) {
+    final Call call = mock(Call.class);
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        mStartedRequestIds.add(requestId);
+        mStartedCalls.put(requestId, call);
+        mStartedCallbacks.put(requestId, (Callback) invocation.getArguments()[0]);
+        return null;
+      }
+    }).when(call).enqueue(any(Callback.class));
+    mScheduler.enqueue(requestId, priority, host, call, mock(Callback.class));
+  }
+
+  /**
+   * Completes the started request, as OkHttp would once its response has been read.
+   */
+  private void finish(int requestId) {
+    try {
+      mStartedCallbacks.get(requestId).onResponse(mStartedCalls.get(requestId), null);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -7,7 +7,9 @@
 
 package com.facebook.react.modules.network;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -16,19 +18,28 @@ import com.facebook.react.bridge.JavaOnlyArray;
 import com.facebook.react.bridge.JavaOnlyMap;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.bridge.ReadableType;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.common.network.OkHttpCallUtil;
+import com.facebook.react.config.ReactFeatureFlags;
 import com.facebook.react.modules.core.DeviceEventManagerModule.RCTDeviceEventEmitter;
 
 import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Dispatcher;
 import okhttp3.Headers;
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
 import okio.Buffer;
+import org.junit.After;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -44,8 +55,10 @@ import org.robolectric.RobolectricTestRunner;
 
 import static org.fest.assertions.api.Assertions.assertThat;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -72,9 +85,21 @@ public class NetworkingModuleTest {
   @Rule
   public PowerMockRule rule = new PowerMockRule();
 
+  private boolean mCoalesceNetworkRequests;
+
+  @Before
+  public void setUp() {
+    mCoalesceNetworkRequests = ReactFeatureFlags.coalesceNetworkRequests;
+  }
+
+  @After
+  public void tearDown() {
+    ReactFeatureFlags.coalesceNetworkRequests = mCoalesceNetworkRequests;
+  }
+
   @Test
   public void testGetWithoutHeaders() throws Exception {
-    OkHttpClient httpClient = mock(OkHttpClient.class);
+    OkHttpClient httpClient = mockHttpClient();
     when(httpClient.newCall(any(Request.class))).thenAnswer(new Answer<Object>() {
       @Override
       public Object answer(InvocationOnMock invocation) throws Throwable {
@@ -113,7 +138,7 @@ public class NetworkingModuleTest {
     ReactApplicationContext context = mock(ReactApplicationContext.class);
     when(context.getJSModule(any(Class.class))).thenReturn(emitter);
 
-    OkHttpClient httpClient = mock(OkHttpClient.class);
+    OkHttpClient httpClient = mockHttpClient();
     OkHttpClient.Builder clientBuilder = mock(OkHttpClient.Builder.class);
     when(clientBuilder.build()).thenReturn(httpClient);
     when(httpClient.newBuilder()).thenReturn(clientBuilder);
@@ -143,7 +168,7 @@ public class NetworkingModuleTest {
     ReactApplicationContext context = mock(ReactApplicationContext.class);
     when(context.getJSModule(any(Class.class))).thenReturn(emitter);
 
-    OkHttpClient httpClient = mock(OkHttpClient.class);
+    OkHttpClient httpClient = mockHttpClient();
     OkHttpClient.Builder clientBuilder = mock(OkHttpClient.Builder.class);
     when(clientBuilder.build()).thenReturn(httpClient);
     when(httpClient.newBuilder()).thenReturn(clientBuilder);
@@ -174,7 +199,7 @@ public class NetworkingModuleTest {
     ReactApplicationContext context = mock(ReactApplicationContext.class);
     when(context.getJSModule(any(Class.class))).thenReturn(emitter);
 
-    OkHttpClient httpClient = mock(OkHttpClient.class);
+    OkHttpClient httpClient = mockHttpClient();
     OkHttpClient.Builder clientBuilder = mock(OkHttpClient.Builder.class);
     when(clientBuilder.build()).thenReturn(httpClient);
     when(httpClient.newBuilder()).thenReturn(clientBuilder);
@@ -230,7 +255,7 @@ public class NetworkingModuleTest {
     ReactApplicationContext context = mock(ReactApplicationContext.class);
     when(context.getJSModule(any(Class.class))).thenReturn(emitter);
 
-    OkHttpClient httpClient = mock(OkHttpClient.class);
+    OkHttpClient httpClient = mockHttpClient();
     when(httpClient.newCall(any(Request.class))).thenAnswer(new Answer<Object>() {
           @Override
           public Object answer(InvocationOnMock invocation) throws Throwable {
@@ -273,7 +298,7 @@ public class NetworkingModuleTest {
 
   @Test
   public void testHeaders() throws Exception {
-    OkHttpClient httpClient = mock(OkHttpClient.class);
+    OkHttpClient httpClient = mockHttpClient();
     when(httpClient.newCall(any(Request.class))).thenAnswer(new Answer<Object>() {
       @Override
       public Object answer(InvocationOnMock invocation) throws Throwable {
@@ -331,7 +356,7 @@ public class NetworkingModuleTest {
     formData.pushMap(bodyPart);
     body.putArray("formData", formData);
 
-    OkHttpClient httpClient = mock(OkHttpClient.class);
+    OkHttpClient httpClient = mockHttpClient();
     when(httpClient.newCall(any(Request.class))).thenAnswer(
         new Answer<Object>() {
           @Override
@@ -396,7 +421,7 @@ public class NetworkingModuleTest {
     formData.pushMap(bodyPart);
     body.putArray("formData", formData);
 
-    OkHttpClient httpClient = mock(OkHttpClient.class);
+    OkHttpClient httpClient = mockHttpClient();
     when(httpClient.newCall(any(Request.class))).thenAnswer(
         new Answer<Object>() {
           @Override
@@ -498,7 +523,7 @@ public class NetworkingModuleTest {
                 JavaOnlyArray.of("content-disposition", "filename=photo.jpg"))));
     formData.pushMap(imageBodyPart);
 
-    OkHttpClient httpClient = mock(OkHttpClient.class);
+    OkHttpClient httpClient = mockHttpClient();
     when(httpClient.newCall(any(Request.class))).thenAnswer(
         new Answer<Object>() {
           @Override
@@ -554,7 +579,7 @@ public class NetworkingModuleTest {
   @Test
   public void testCancelAllCallsOnCatalystInstanceDestroy() throws Exception {
     PowerMockito.mockStatic(OkHttpCallUtil.class);
-    OkHttpClient httpClient = mock(OkHttpClient.class);
+    OkHttpClient httpClient = mockHttpClient();
     final int requests = 3;
     final Call[] calls = new Call[requests];
     for (int idx = 0; idx < requests; idx++) {
@@ -605,7 +630,7 @@ public class NetworkingModuleTest {
   @Test
   public void testCancelSomeCallsOnCatalystInstanceDestroy() throws Exception {
     PowerMockito.mockStatic(OkHttpCallUtil.class);
-    OkHttpClient httpClient = mock(OkHttpClient.class);
+    OkHttpClient httpClient = mockHttpClient();
     final int requests = 3;
     final Call[] calls = new Call[requests];
     for (int idx = 0; idx < requests; idx++) {
@@ -661,4 +686,164 @@ public class NetworkingModuleTest {
       assertThat(requestIdArguments.getAllValues().contains(idx + 1)).isTrue();
     }
   }
+
+  @Test
+  public void testCoalescedRequestsReceiveResponseAndData() throws Exception {
+    ReactFeatureFlags.coalesceNetworkRequests = true;
+    RCTDeviceEventEmitter emitter = mock(RCTDeviceEventEmitter.class);
+    OkHttpClient httpClient = mockHttpClient();
+    Call call = mock(Call.class);
+    mockEvents();
+
+    NetworkingModule networkingModule = createNetworkingModule(emitter, httpClient, call);
+    Callback callback = sendCoalescedRequests(networkingModule, httpClient, call, 1, 2, 3);
+    callback.onResponse(call, createResponse(httpClient, "hello"));
+
+    assertThat(getEvents(emitter)).containsExactly(
+        "didReceiveNetworkResponse 1 200",
+        "didReceiveNetworkResponse 2 200",
+        "didReceiveNetworkResponse 3 200",
+        "didReceiveNetworkData 1 hello",
+        "didCompleteNetworkResponse 1 null",
+        "didReceiveNetworkData 2 hello",
+        "didCompleteNetworkResponse 2 null",
+        "didReceiveNetworkData 3 hello",
+        "didCompleteNetworkResponse 3 null");
+  }
+
+  @Test
+  public void testCoalescedRequestsReceiveError() throws Exception {
+    ReactFeatureFlags.coalesceNetworkRequests = true;
+    RCTDeviceEventEmitter emitter = mock(RCTDeviceEventEmitter.class);
+    OkHttpClient httpClient = mockHttpClient();
+    Call call = mock(Call.class);
+    mockEvents();
+
+    NetworkingModule networkingModule = createNetworkingModule(emitter, httpClient, call);
+    Callback callback = sendCoalescedRequests(networkingModule, httpClient, call, 1, 2, 3);
+    callback.onFailure(call, new IOException("Network down"));
+
+    assertThat(getEvents(emitter)).containsExactly(
+        "didCompleteNetworkResponse 1 Network down",
+        "didCompleteNetworkResponse 2 Network down",
+        "didCompleteNetworkResponse 3 Network down");
+  }
+
+  @Test
+  public void testAbortingCoalescedCallerKeepsJoinedRequests() throws Exception {
+    ReactFeatureFlags.coalesceNetworkRequests = true;
+    PowerMockito.mockStatic(OkHttpCallUtil.class);
+    RCTDeviceEventEmitter emitter = mock(RCTDeviceEventEmitter.class);
+    OkHttpClient httpClient = mockHttpClient();
+    Call call = mock(Call.class);
+    mockEvents();
+
+    NetworkingModule networkingModule = createNetworkingModule(emitter, httpClient, call);
+    Callback callback = sendCoalescedRequests(networkingModule, httpClient, call, 1, 2, 3);
+    networkingModule.abortRequest(1);
+
+    // The call made for request 1 is still needed by the others.
+    PowerMockito.verifyStatic(never());
+    OkHttpCallUtil.cancelTag(any(OkHttpClient.class), any());
+    verify(call, never()).cancel();
+
+    callback.onResponse(call, createResponse(httpClient, "hello"));
+    assertThat(getEvents(emitter)).containsExactly(
+        "didReceiveNetworkResponse 2 200",
+        "didReceiveNetworkResponse 3 200",
+        "didReceiveNetworkData 2 hello",
+        "didCompleteNetworkResponse 2 null",
+        "didReceiveNetworkData 3 hello",
+        "didCompleteNetworkResponse 3 null");
+  }
+
+  private static OkHttpClient mockHttpClient() {
+    OkHttpClient httpClient = mock(OkHttpClient.class);
+    when(httpClient.dispatcher()).thenReturn(new Dispatcher());
+    return httpClient;
+  }
+
+  private static NetworkingModule createNetworkingModule(
+      RCTDeviceEventEmitter emitter,
+      OkHttpClient httpClient,
+      Call call) {
+    ReactApplicationContext context = mock(ReactApplicationContext.class);
+    when(context.getJSModule(any(Class.class))).thenReturn(emitter);
+    when(httpClient.newCall(any(Request.class))).thenReturn(call);
+    OkHttpClient.Builder clientBuilder = mock(OkHttpClient.Builder.class);
+    when(clientBuilder.build()).thenReturn(httpClient);
+    when(httpClient.newBuilder()).thenReturn(clientBuilder);
+    return new NetworkingModule(context, "", httpClient);
+  }
+
+  /**
+   * Sends identical GETs, which all join the call made for the first one.
+   *
+   * @return the callback of that call.
+   */
+  private static Callback sendCoalescedRequests(
+      NetworkingModule networkingModule,
+      OkHttpClient httpClient,
+      Call call,
+      int... requestIds) {
+    final Callback[] callback = new Callback[1];
+    doAnswer(new Answer<Object>() {
+      @Override
+      public Object answer(InvocationOnMock invocation) throws Throwable {
+        callback[0] = (Callback) invocation.getArguments()[0];
+        return null;
+      }
+    }).when(call).enqueue(any(Callback.class));
+
+    for (int requestId : requestIds) {
+      networkingModule.sendRequest(
+        "GET",
+        "http://somedomain/foo",
+        requestId,
+        JavaOnlyArray.of(),
+        null,
+        /* responseType */ "text",
+        /* useIncrementalUpdates*/ false,
+        /* timeout */ 0,
+        /* withCredentials */ false);
+    }
+    verify(httpClient, times(1)).newCall(any(Request.class));
+    verify(call, times(1)).enqueue(any(Callback.class));
+    return callback[0];
+  }
+
+  private static Response createResponse(OkHttpClient httpClient, String body) {
+    ArgumentCaptor<Request> requestCaptor = ArgumentCaptor.forClass(Request.class);
+    verify(httpClient).newCall(requestCaptor.capture());
+    return new Response.Builder()
+        .request(requestCaptor.getValue())
+        .protocol(Protocol.HTTP_1_1)
+        .code(200)
+        .message("OK")
+        .body(ResponseBody.create(MediaType.parse("text/plain"), body))
+        .build();
+  }
+
+  /**
+   * @return the events emitted to JS, as their name, request id and second argument.
+   */
+  private static List<String> getEvents(RCTDeviceEventEmitter emitter) {
+    ArgumentCaptor<String> nameCaptor = ArgumentCaptor.forClass(String.class);
+    ArgumentCaptor<WritableArray> argsCaptor = ArgumentCaptor.forClass(WritableArray.class);
+    verify(emitter, Mockito.atLeastOnce()).emit(nameCaptor.capture(), argsCaptor.capture());
+    List<String> events = new ArrayList<>();
+    for (int i = 0; i < nameCaptor.getAllValues().size(); i++) {
+      WritableArray args = argsCaptor.getAllValues().get(i);
+      String argument;
+      if (args.isNull(1)) {
+        argument = "null";
+      } else if (args.getType(1) == ReadableType.Number) {
+        argument = String.valueOf(args.getInt(1));
+      } else {
+        argument = args.getString(1);
+      }
+      events.add(nameCaptor.getAllValues().get(i) + " " + args.getInt(0) + " " + argument);
+    }
+    return events;
+  }
 }
@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.modules.network;
+
+import okhttp3.Request;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link RequestCoalescer}.
+ */
+public class RequestCoalescerTest {
+
+  private static final String URL = "http://somedomain/foo";
+
+  private RequestCoalescer mCoalescer;
+
+  @Before
+  public void setUp() {
+    mCoalescer = new RequestCoalescer();
+  }
+
+  @Test
+  public void testKeyDependsOnUrlHeadersAndResponseType() {
+    Request request = new Request.Builder().url(URL).build();
+    String key = RequestCoalescer.getKey(request, "text", false, 0);
+
+    assertThat(RequestCoalescer.getKey(new Request.Builder().url(URL).build(), "text", false, 0))
+        .isEqualTo(key);
+    assertThat(RequestCoalescer.getKey(request, "base64", false, 0)).isNotEqualTo(key);
+    assertThat(RequestCoalescer.getKey(request, "text", true, 0)).isNotEqualTo(key);
+    assertThat(RequestCoalescer.getKey(
+        new Request.Builder().url(URL).header("Accept", "text/plain").build(), "text", false, 0))
+        .isNotEqualTo(key);
+    assertThat(RequestCoalescer.getKey(
+        new Request.Builder().url(URL + "?bar").build(), "text", false, 0))
+        .isNotEqualTo(key);
+  }
+
+  @Test
+  public void testIdenticalRequestsShareOneCall() {
+    RequestCoalescer.InFlightRequest first = mCoalescer.join("key", 1);
+    RequestCoalescer.InFlightRequest second = mCoalescer.join("key", 2);
+    RequestCoalescer.InFlightRequest other = mCoalescer.join("other", 3);
+
+    assertThat(first.isCalledBy(1)).isTrue();
+    assertThat(second).isSameAs(first);
+    assertThat(second.isCalledBy(2)).isFalse();
+    assertThat(other).isNotSameAs(first);
+    assertThat(mCoalescer.getCoalescedRequestCount()).isEqualTo(1);
+
+    assertThat(mCoalescer.finish(first)).isEqualTo(new int[] {1, 2});
+    assertThat(mCoalescer.join("key", 4).isCalledBy(4)).isTrue();
+  }
+
+  @Test
+  public void testAbortingOneRequestKeepsTheSharedCall() {
+    RequestCoalescer.InFlightRequest inFlightRequest = mCoalescer.join("key", 1);
+    mCoalescer.join("key", 2);
+    mCoalescer.join("key", 3);
+
+    assertThat(mCoalescer.leave(1)).isEqualTo(RequestCoalescer.NO_REQUEST);
+    assertThat(mCoalescer.leave(3)).isEqualTo(RequestCoalescer.NO_REQUEST);
+    assertThat(mCoalescer.finish(inFlightRequest)).isEqualTo(new int[] {2});
+  }
+
+  @Test
+  public void testAbortingAllRequestsCancelsTheSharedCall() {
+    RequestCoalescer.InFlightRequest inFlightRequest = mCoalescer.join("key", 1);
+    mCoalescer.join("key", 2);
+
+    assertThat(mCoalescer.leave(1)).isEqualTo(RequestCoalescer.NO_REQUEST);
+    assertThat(mCoalescer.leave(2)).isEqualTo(1);
+    assertThat(mCoalescer.finish(inFlightRequest)).isEmpty();
+
+    // Requests issued while the call is being canceled don't join it.
+    assertThat(mCoalescer.join("key", 3).isCalledBy(3)).isTrue();
+  }
+
+  @Test
+  public void testRequestsNotCoalescedAreCanceledDirectly() {
+    assertThat(mCoalescer.leave(5)).isEqualTo(5);
+  }
+}
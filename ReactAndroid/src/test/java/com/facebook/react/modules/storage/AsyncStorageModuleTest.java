@@ -10,7 +10,11 @@ package com.facebook.react.modules.storage;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import android.app.Activity;
 import android.content.Context;
@@ -59,6 +63,8 @@ import static org.fest.assertions.api.Assertions.assertThat;
 @RunWith(RobolectricTestRunner.class)
 public class AsyncStorageModuleTest {
 
+  private static final int STARTUP_KEY_COUNT = 500;
+
   private AsyncStorageModule mStorage;
   private JavaOnlyArray mEmptyArray;
 
@@ -324,6 +330,152 @@ public class AsyncStorageModuleTest {
         });
   }
 
+  @Test
+  public void testReadCacheObservesWrites() throws Exception {
+    AsyncStorageModule storage = createStorage(true);
+    JavaOnlyArray keys = getArray("foo", "bar");
+
+    storage.multiSet(
+        JavaOnlyArray.of(getArray("foo", "{\"a\":1}"), getArray("bar", "bar1")),
+        mock(Callback.class));
+    Callback getCallback = mock(Callback.class);
+    storage.multiGet(keys, getCallback);
+    verify(getCallback, Mockito.times(1)).invoke(
+        null,
+        JavaOnlyArray.of(getArray("foo", "{\"a\":1}"), getArray("bar", "bar1")));
+
+    // Served from the cache now
+    Callback cachedGetCallback = mock(Callback.class);
+    storage.multiGet(keys, cachedGetCallback);
+    Mockito.verify(cachedGetCallback, Mockito.times(1)).invoke(
+        null,
+        JavaOnlyArray.of(getArray("foo", "{\"a\":1}"), getArray("bar", "bar1")));
+
+    storage.multiMerge(JavaOnlyArray.of(getArray("foo", "{\"b\":2}")), mock(Callback.class));
+    storage.multiRemove(getArray("bar"), mock(Callback.class));
+    Callback mergedGetCallback = mock(Callback.class);
+    storage.multiGet(keys, mergedGetCallback);
+    JavaOnlyArray missingBar = new JavaOnlyArray();
+    missingBar.pushString("bar");
+    missingBar.pushNull();
+    verify(mergedGetCallback, Mockito.times(1)).invoke(
+        null,
+        JavaOnlyArray.of(getArray("foo", "{\"a\":1,\"b\":2}"), missingBar));
+
+    storage.clear(mock(Callback.class));
+    Callback clearedGetCallback = mock(Callback.class);
+    storage.multiGet(getArray("foo"), clearedGetCallback);
+    JavaOnlyArray missingFoo = new JavaOnlyArray();
+    missingFoo.pushString("foo");
+    missingFoo.pushNull();
+    verify(clearedGetCallback, Mockito.times(1)).invoke(null, JavaOnlyArray.of(missingFoo));
+  }
+
+  /**
+   * Keys read from the database, as at startup, are cached, so reading them again is answered
+   * without going through the executor.
+   */
+  @Test
+  public void testReadsPopulateReadCache() {
+    JavaOnlyArray keyValues = new JavaOnlyArray();
+    JavaOnlyArray keys = new JavaOnlyArray();
+    for (int i = 0; i < STARTUP_KEY_COUNT; i++) {
+      keyValues.pushArray(getArray("key" + i, "value" + i));
+      keys.pushString("key" + i);
+    }
+    mStorage.multiSet(keyValues, mock(Callback.class));
+    waitForAsync();
+
+    AsyncStorageModule storage = createStorage(true);
+    Callback coldGetCallback = mock(Callback.class);
+    storage.multiGet(keys, coldGetCallback);
+    verify(coldGetCallback, Mockito.times(1)).invoke(null, keyValues);
+
+    Callback warmGetCallback = mock(Callback.class);
+    storage.multiGet(keys, warmGetCallback);
+    Mockito.verify(warmGetCallback, Mockito.times(1)).invoke(null, keyValues);
+  }
+
+  /**
+   * A read that has already read the database when the sensitive data is cleared must not cache
+   * what it read, or later reads would be answered with the cleared values.
+   */
+  @Test
+  public void testReadInFlightDuringClearSensitiveDataIsNotCached() throws Exception {
+    mStorage.multiSet(JavaOnlyArray.of(getArray("token", "secret")), mock(Callback.class));
+    waitForAsync();
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      AsyncStorageModule storage = new AsyncStorageModule(
+          ReactTestHelper.createCatalystContextForTest(),
+          executor,
+          true);
+
+      final CountDownLatch databaseRead = new CountDownLatch(1);
+      final CountDownLatch cleared = new CountDownLatch(1);
+      Mockito.when(Arguments.createArray()).thenAnswer(
+          new Answer<Object>() {
+            private int mCalls;
+
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+              // The second array of a multiGet holds the first row, and is created once the
+              // database has been read and before the row is cached.
+              if (++mCalls == 2) {
+                databaseRead.countDown();
+                assertThat(cleared.await(5, TimeUnit.SECONDS)).isTrue();
+              }
+              return new JavaOnlyArray();
+            }
+          });
+      LatchCallback inFlightGetCallback = new LatchCallback();
+      storage.multiGet(getArray("token"), inFlightGetCallback);
+      assertThat(databaseRead.await(5, TimeUnit.SECONDS)).isTrue();
+      storage.clearSensitiveData();
+      cleared.countDown();
+      inFlightGetCallback.await();
+
+      LatchCallback getCallback = new LatchCallback();
+      storage.multiGet(getArray("token"), getCallback);
+      getCallback.await();
+      JavaOnlyArray missingToken = new JavaOnlyArray();
+      missingToken.pushString("token");
+      missingToken.pushNull();
+      assertThat(inFlightGetCallback.mArgs[1])
+          .isEqualTo(JavaOnlyArray.of(getArray("token", "secret")));
+      assertThat(getCallback.mArgs[0]).isNull();
+      assertThat(getCallback.mArgs[1]).isEqualTo(JavaOnlyArray.of(missingToken));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Records the arguments of the first invocation, which may happen on another thread.
+   */
+  private static class LatchCallback implements Callback {
+    private final CountDownLatch mInvoked = new CountDownLatch(1);
+    private volatile Object[] mArgs;
+
+    @Override
+    public void invoke(Object... args) {
+      mArgs = args;
+      mInvoked.countDown();
+    }
+
+    private void await() throws InterruptedException {
+      assertThat(mInvoked.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+  }
+
+  private static AsyncStorageModule createStorage(boolean useReadCache) {
+    return new AsyncStorageModule(
+        ReactTestHelper.createCatalystContextForTest(),
+        new RoboExecutorService(),
+        useReadCache);
+  }
+
   private static JSONArray createJSONArray(Object... objects) {
     return new JSONArray(Arrays.asList(objects));
   }
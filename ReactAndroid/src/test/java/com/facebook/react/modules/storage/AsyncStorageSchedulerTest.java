@@ -0,0 +1,239 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.modules.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link AsyncStorageScheduler}, including reads running on a thread pool while a write
+ * of another key is blocked, compared with running all operations serially.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class AsyncStorageSchedulerTest {
+
+  private static final int MAX_CONCURRENT_READS = 2;
+  private static final int READS = 8;
+  private static final long TIMEOUT_SECONDS = 10;
+
+  /**
+   * Holds the runnables handed to it until the test runs them.
+   */
+  private static class ManualExecutor implements Executor {
+    private final List<Runnable> mRunnables = new ArrayList<>();
+
+    @Override
+    public void execute(Runnable runnable) {
+      mRunnables.add(runnable);
+    }
+
+    private int size() {
+      return mRunnables.size();
+    }
+
+    private void runFirst() {
+      mRunnables.remove(0).run();
+    }
+  }
+
+  private ManualExecutor mExecutor;
+  private AsyncStorageScheduler mScheduler;
+  private List<String> mLog;
+
+  @Before
+  public void setUp() {
+    mExecutor = new ManualExecutor();
+    mScheduler = new AsyncStorageScheduler(mExecutor, MAX_CONCURRENT_READS);
+    mLog = new ArrayList<>();
+  }
+
+  @Test
+  public void testReadDoesNotWaitForWriteOfOtherKeys() {
+    mScheduler.forWrite(keys("a")).execute(log("write a"));
+    mScheduler.forRead(keys("b")).execute(log("read b"));
+
+    assertThat(mExecutor.size()).isEqualTo(2);
+  }
+
+  @Test
+  public void testReadWaitsForEarlierWriteOfSameKey() {
+    mScheduler.forWrite(keys("a", "b")).execute(log("write a b"));
+    mScheduler.forRead(keys("b")).execute(log("read b"));
+    mScheduler.forRead(null).execute(log("read all"));
+
+    assertThat(mExecutor.size()).isEqualTo(1);
+    mExecutor.runFirst();
+    assertThat(mExecutor.size()).isEqualTo(2);
+    mExecutor.runFirst();
+    mExecutor.runFirst();
+    assertThat(mLog).containsExactly("write a b", "read b", "read all");
+  }
+
+  @Test
+  public void testWriteWaitsForEarlierReadOfSameKey() {
+    mScheduler.forRead(keys("a")).execute(log("read a"));
+    mScheduler.forWrite(keys("a")).execute(log("write a"));
+    mScheduler.forWrite(keys("b")).execute(log("write b"));
+
+    // The write of b can't overtake the write of a, writes run one at a time in order.
+    assertThat(mExecutor.size()).isEqualTo(1);
+    mExecutor.runFirst();
+    mExecutor.runFirst();
+    mExecutor.runFirst();
+    assertThat(mLog).containsExactly("read a", "write a", "write b");
+  }
+
+  @Test
+  public void testClearWaitsForEarlierReads() {
+    mScheduler.forRead(keys("a")).execute(log("read a"));
+    mScheduler.forWrite(null).execute(log("clear"));
+    mScheduler.forRead(keys("b")).execute(log("read b"));
+
+    assertThat(mExecutor.size()).isEqualTo(1);
+    mExecutor.runFirst();
+    mExecutor.runFirst();
+    mExecutor.runFirst();
+    assertThat(mLog).containsExactly("read a", "clear", "read b");
+  }
+
+  @Test
+  public void testConcurrentReadsAreLimited() {
+    mScheduler.forRead(keys("a")).execute(log("read a"));
+    mScheduler.forRead(keys("b")).execute(log("read b"));
+    mScheduler.forRead(keys("c")).execute(log("read c"));
+
+    assertThat(mExecutor.size()).isEqualTo(MAX_CONCURRENT_READS);
+    mExecutor.runFirst();
+    assertThat(mExecutor.size()).isEqualTo(MAX_CONCURRENT_READS);
+  }
+
+  @Test
+  public void testPriorityReadsStartFirst() {
+    mScheduler.addPriorityKeys(Arrays.asList("theme"));
+    mScheduler.forRead(keys("a")).execute(log("read a"));
+    mScheduler.forRead(keys("b")).execute(log("read b"));
+    mScheduler.forRead(keys("c")).execute(log("read c"));
+    mScheduler.forRead(keys("theme")).execute(log("read theme"));
+
+    mExecutor.runFirst();
+    mExecutor.runFirst();
+    mExecutor.runFirst();
+    mExecutor.runFirst();
+    assertThat(mLog).containsExactly("read a", "read b", "read theme", "read c");
+  }
+
+  @Test
+  public void testReadsCompleteWhileWriteOfOtherKeyIsBlocked() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(MAX_CONCURRENT_READS + 1);
+    try {
+      AsyncStorageScheduler scheduler = new AsyncStorageScheduler(executor, MAX_CONCURRENT_READS);
+      CountDownLatch releaseWrite = new CountDownLatch(1);
+      CountDownLatch writeDone = blockedWrite(scheduler, keys("slow"), releaseWrite);
+      CountDownLatch readsDone = reads(scheduler, false);
+
+      assertThat(readsDone.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+      assertThat(writeDone.getCount()).isEqualTo(1);
+      releaseWrite.countDown();
+      assertThat(writeDone.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Every operation used to be ordered as a write of all keys, which makes reads wait for any
+   * write issued before them.
+   */
+  @Test
+  public void testSerialReadsWaitForBlockedWrite() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(MAX_CONCURRENT_READS + 1);
+    try {
+      AsyncStorageScheduler scheduler = new AsyncStorageScheduler(executor, MAX_CONCURRENT_READS);
+      CountDownLatch releaseWrite = new CountDownLatch(1);
+      CountDownLatch writeDone = blockedWrite(scheduler, null, releaseWrite);
+      CountDownLatch readsDone = reads(scheduler, true);
+
+      // The reads are only handed to the executor once the write has finished.
+      assertThat(readsDone.getCount()).isEqualTo(READS);
+      releaseWrite.countDown();
+      assertThat(writeDone.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+      assertThat(readsDone.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)).isTrue();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * @return a latch counted down once the write has finished, which it only does once
+   * {@code release} is counted down.
+   */
+  private static CountDownLatch blockedWrite(
+      AsyncStorageScheduler scheduler,
+      String[] keys,
+      final CountDownLatch release) {
+    final CountDownLatch done = new CountDownLatch(1);
+    scheduler.forWrite(keys).execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        done.countDown();
+      }
+    });
+    return done;
+  }
+
+  /**
+   * @param serial issue the reads as writes of all keys.
+   * @return a latch counted down by each of the reads.
+   */
+  private static CountDownLatch reads(AsyncStorageScheduler scheduler, boolean serial) {
+    final CountDownLatch done = new CountDownLatch(READS);
+    for (int i = 0; i < READS; i++) {
+      Executor readExecutor = serial
+          ? scheduler.forWrite(null)
+          : scheduler.forRead(keys("key" + i));
+      readExecutor.execute(new Runnable() {
+        @Override
+        public void run() {
+          done.countDown();
+        }
+      });
+    }
+    return done;
+  }
+
+  private Runnable log(final String message) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        mLog.add(message);
+      }
+    };
+  }
+
+  private static String[] keys(String... keys) {
+    return keys;
+  }
+}
@@ -30,6 +30,7 @@ import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.modules.junit4.rule.PowerMockRule;
 import org.robolectric.RobolectricTestRunner;
 
+import static org.fest.assertions.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
 /**
@@ -236,6 +237,29 @@ public class TimingModuleTest {
     verifyNoMoreInteractions(mJSTimersMock);
   }
 
+  @Test
+  public void testTimersFiredInOneBatch() {
+    mTiming.onHostResume();
+    mTiming.createTimer(1, 1, 0, false);
+    mTiming.createTimer(2, 1, 0, true);
+    mTiming.createTimer(3, 100, 0, false);
+
+    stepChoreographerFrame();
+    verify(mJSTimersMock).callTimers(JavaOnlyArray.of(1, 2));
+
+    stepChoreographerFrame();
+    assertThat(mTiming.getPerformanceCounters().get("Frames")).isEqualTo(2);
+    assertThat(mTiming.getPerformanceCounters().get("TimersFired")).isEqualTo(3);
+    assertThat(mTiming.getPerformanceCounters().get("MaxTimersFiredPerFrame")).isEqualTo(2);
+
+    mTiming.profileNextBatch();
+    assertThat(mTiming.getPerformanceCounters().get("Frames")).isEqualTo(0);
+    assertThat(mTiming.getPerformanceCounters().get("TimersFired")).isEqualTo(0);
+    stepChoreographerFrame();
+    assertThat(mTiming.getPerformanceCounters().get("Frames")).isEqualTo(1);
+    assertThat(mTiming.getPerformanceCounters().get("TimersFired")).isEqualTo(1);
+  }
+
   @Test
   public void testSetTimeoutZero() {
     mTiming.createTimer(100, 0, 0, false);
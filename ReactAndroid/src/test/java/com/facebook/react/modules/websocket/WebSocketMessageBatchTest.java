@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.modules.websocket;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import android.util.Base64;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import okio.ByteString;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.rule.PowerMockRule;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link WebSocketMessageBatch}.
+ */
+@PrepareForTest({Arguments.class})
+@RunWith(RobolectricTestRunner.class)
+@PowerMockIgnore({"org.mockito.*", "org.robolectric.*", "android.*"})
+public class WebSocketMessageBatchTest {
+
+  @Rule
+  public PowerMockRule rule = new PowerMockRule();
+
+  private WebSocketMessageBatch mBatch;
+
+  @Before
+  public void setUp() {
+    PowerMockito.mockStatic(Arguments.class);
+    Mockito.when(Arguments.createArray()).thenAnswer(
+        new Answer<WritableArray>() {
+          @Override
+          public WritableArray answer(InvocationOnMock invocation) throws Throwable {
+            return new JavaOnlyArray();
+          }
+        });
+    Mockito.when(Arguments.createMap()).thenAnswer(
+        new Answer<WritableMap>() {
+          @Override
+          public WritableMap answer(InvocationOnMock invocation) throws Throwable {
+            return new JavaOnlyMap();
+          }
+        });
+
+    mBatch = new WebSocketMessageBatch(7);
+  }
+
+  @Test
+  public void testMessagesAreDeliveredInOneEventInOrder() {
+    JavaOnlyMap blob = JavaOnlyMap.of("type", "blob", "data", JavaOnlyMap.of("size", 3));
+
+    assertThat(mBatch.addText("first")).isTrue();
+    assertThat(mBatch.addBinary(ByteString.of(new byte[] {1, 2}))).isFalse();
+    assertThat(mBatch.addMessage(blob, 3)).isFalse();
+    assertThat(mBatch.addBinary(ByteString.of(new byte[] {3, 4, 5}))).isFalse();
+    assertThat(mBatch.addText("last")).isFalse();
+
+    WritableMap event = mBatch.take();
+    assertThat(event.getInt("id")).isEqualTo(7);
+    ReadableArray messages = event.getArray("messages");
+    assertThat(messages.size()).isEqualTo(5);
+    assertThat(messages.getString(0)).isEqualTo("first");
+    assertThat(messages.getInt(1)).isEqualTo(2);
+    assertThat(messages.getMap(2)).isSameAs(blob);
+    assertThat(messages.getInt(3)).isEqualTo(3);
+    assertThat(messages.getString(4)).isEqualTo("last");
+    assertThat(Base64.decode(event.getString("binaryData"), Base64.NO_WRAP))
+        .isEqualTo(new byte[] {1, 2, 3, 4, 5});
+
+    assertThat(mBatch.take()).isNull();
+  }
+
+  @Test
+  public void testTakeStartsNewBatch() {
+    mBatch.addBinary(ByteString.of(new byte[] {1, 2}));
+    mBatch.take();
+
+    assertThat(mBatch.addText("next")).isTrue();
+    WritableMap event = mBatch.take();
+    assertThat(event.getArray("messages").size()).isEqualTo(1);
+    assertThat(event.hasKey("binaryData")).isFalse();
+  }
+
+  @Test
+  public void testCounters() {
+    mBatch.addText("abc");
+    mBatch.addBinary(ByteString.of(new byte[10]));
+    mBatch.take();
+    mBatch.addText("de");
+    mBatch.take();
+
+    Map<String, Long> perfMap = new HashMap<>();
+    mBatch.putPerformanceCounters(perfMap);
+    assertThat(perfMap.get("WebSocket7.Messages")).isEqualTo(3);
+    assertThat(perfMap.get("WebSocket7.Bytes")).isEqualTo(15);
+    assertThat(perfMap.get("WebSocket7.Batches")).isEqualTo(2);
+    assertThat(perfMap.get("WebSocket7.MaxBatchMessages")).isEqualTo(2);
+    assertThat(perfMap.get("WebSocket7.BackpressuredMessages")).isEqualTo(0);
+    assertThat(perfMap.get("WebSocket7.DroppedMessages")).isEqualTo(0);
+
+    mBatch.resetPerformanceCounters();
+    mBatch.putPerformanceCounters(perfMap);
+    assertThat(perfMap.get("WebSocket7.Messages")).isEqualTo(0);
+  }
+
+  @Test
+  public void testCountersOfClosedBatchesAddUp() {
+    mBatch.addText("abc");
+    mBatch.addText("de");
+    mBatch.take();
+    WebSocketMessageBatch other = new WebSocketMessageBatch(8);
+    other.addText("f");
+    other.take();
+    other.addText("pending");
+    other.close();
+
+    Map<String, Long> totals = new HashMap<>();
+    mBatch.addPerformanceCounters(totals, "Closed.");
+    other.addPerformanceCounters(totals, "Closed.");
+    assertThat(totals.get("Closed.Messages")).isEqualTo(4);
+    assertThat(totals.get("Closed.Bytes")).isEqualTo(13);
+    assertThat(totals.get("Closed.Batches")).isEqualTo(2);
+    assertThat(totals.get("Closed.MaxBatchMessages")).isEqualTo(2);
+    assertThat(totals.get("Closed.DroppedMessages")).isEqualTo(1);
+  }
+
+  @Test
+  public void testClosedBatchDropsMessages() {
+    mBatch.addText("pending");
+    mBatch.close();
+
+    assertThat(mBatch.addText("late")).isFalse();
+    assertThat(mBatch.take()).isNull();
+    Map<String, Long> perfMap = new HashMap<>();
+    mBatch.putPerformanceCounters(perfMap);
+    assertThat(perfMap.get("WebSocket7.DroppedMessages")).isEqualTo(2);
+  }
+
+  @Test
+  public void testReaderWaitsWhileBatchIsFull() throws Exception {
+    mBatch.addBinary(ByteString.of(new byte[WebSocketMessageBatch.MAX_PENDING_BYTES]));
+    Thread reader = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        mBatch.addText("blocked");
+      }
+    });
+    reader.start();
+    reader.join(100);
+    assertThat(reader.isAlive()).isTrue();
+
+    mBatch.take();
+    reader.join();
+    WritableMap event = mBatch.take();
+    assertThat(event.getArray("messages").getString(0)).isEqualTo("blocked");
+    Map<String, Long> perfMap = new HashMap<>();
+    mBatch.putPerformanceCounters(perfMap);
+    assertThat(perfMap.get("WebSocket7.BackpressuredMessages")).isEqualTo(1);
+  }
+}
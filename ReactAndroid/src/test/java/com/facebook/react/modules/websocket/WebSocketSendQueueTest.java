@@ -0,0 +1,221 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.modules.websocket;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.WebSocket;
+import okio.ByteString;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link WebSocketSendQueue}.
+ */
+public class WebSocketSendQueueTest {
+
+  private static final int HALF_WINDOW = (int) WebSocketSendQueue.HIGH_WATER_MARK_BYTES / 2;
+
+  private WebSocket mWebSocket;
+  private ScheduledExecutorService mExecutor;
+  private ScheduledFuture<?> mDrainFuture;
+  private long mDrainedBytes;
+  private long mWrittenBytes;
+  private WebSocketSendQueue mSendQueue;
+
+  @Before
+  public void setUp() {
+    mWebSocket = mock(WebSocket.class);
+    mExecutor = mock(ScheduledExecutorService.class);
+    mDrainFuture = mock(ScheduledFuture.class);
+    doReturn(mDrainFuture).when(mExecutor).scheduleWithFixedDelay(
+        any(Runnable.class),
+        anyLong(),
+        anyLong(),
+        any(TimeUnit.class));
+    mDrainedBytes = -1;
+    mWrittenBytes = -1;
+    mSendQueue = new WebSocketSendQueue(
+        3,
+        mWebSocket,
+        mExecutor,
+        new WebSocketSendQueue.Listener() {
+          @Override
+          public void onDrain(long writtenBytes) {
+            mDrainedBytes = writtenBytes;
+          }
+
+          @Override
+          public void onWritten(long writtenBytes) {
+            mWrittenBytes = writtenBytes;
+          }
+        });
+  }
+
+  @Test
+  public void testSendsUnderHighWaterMarkGoStraightToSocket() {
+    when(mWebSocket.queueSize()).thenReturn((long) HALF_WINDOW);
+
+    assertThat(mSendQueue.send("text")).isEqualTo(WebSocketSendQueue.RESULT_SENT);
+    assertThat(mSendQueue.send(ByteString.of(new byte[10]))).isEqualTo(
+        WebSocketSendQueue.RESULT_SENT);
+
+    verify(mWebSocket).send("text");
+
+    // The queue is polled until what was sent has been written out.
+    mSendQueue.drain();
+    assertThat(mWrittenBytes).isEqualTo(-1);
+    when(mWebSocket.queueSize()).thenReturn(0L);
+    mSendQueue.drain();
+    assertThat(mWrittenBytes).isEqualTo(4 + 10);
+    assertThat(mDrainedBytes).isEqualTo(-1);
+    verify(mExecutor, times(1)).scheduleWithFixedDelay(
+        any(Runnable.class),
+        anyLong(),
+        anyLong(),
+        any(TimeUnit.class));
+    verify(mDrainFuture).cancel(false);
+  }
+
+  @Test
+  public void testSendsOverHighWaterMarkAreParkedInOrderUntilDrained() {
+    ByteString first = ByteString.of(new byte[HALF_WINDOW]);
+    ByteString second = ByteString.of(new byte[HALF_WINDOW]);
+    when(mWebSocket.queueSize()).thenReturn((long) HALF_WINDOW + 1);
+
+    assertThat(mSendQueue.send(first)).isEqualTo(WebSocketSendQueue.RESULT_PARKED);
+    assertThat(mSendQueue.send("after")).isEqualTo(WebSocketSendQueue.RESULT_PARKED);
+    assertThat(mSendQueue.getBufferedAmount()).isEqualTo(HALF_WINDOW * 2 + 1 + 5);
+    verify(mWebSocket, never()).send(first);
+
+    mSendQueue.drain();
+    verify(mWebSocket, never()).send(first);
+    assertThat(mDrainedBytes).isEqualTo(-1);
+
+    when(mWebSocket.queueSize()).thenReturn(0L);
+    mSendQueue.drain();
+    InOrder inOrder = inOrder(mWebSocket);
+    inOrder.verify(mWebSocket).send(first);
+    inOrder.verify(mWebSocket).send("after");
+    // Handing them over filled the queue up again.
+    assertThat(mDrainedBytes).isEqualTo(-1);
+
+    mSendQueue.drain();
+    verify(mDrainFuture).cancel(false);
+    assertThat(mDrainedBytes).isEqualTo(HALF_WINDOW + 5);
+    assertThat(mWrittenBytes).isEqualTo(-1);
+
+    // Parked sends keep later ones behind them.
+    when(mWebSocket.queueSize()).thenReturn((long) HALF_WINDOW + 1);
+    assertThat(mSendQueue.send(second)).isEqualTo(WebSocketSendQueue.RESULT_PARKED);
+    when(mWebSocket.queueSize()).thenReturn(0L);
+    assertThat(mSendQueue.send("behind")).isEqualTo(WebSocketSendQueue.RESULT_PARKED);
+  }
+
+  @Test
+  public void testTextIsCountedInUtf8Bytes() {
+    int euroCount = HALF_WINDOW / 3 + 1;
+    StringBuilder euros = new StringBuilder();
+    for (int i = 0; i < euroCount; i++) {
+      euros.append('\u20ac');
+    }
+    String text = euros.toString();
+    when(mWebSocket.queueSize()).thenReturn((long) HALF_WINDOW);
+
+    // Fewer chars than the room left, but more bytes.
+    assertThat(mSendQueue.send(text)).isEqualTo(WebSocketSendQueue.RESULT_PARKED);
+    assertThat(mSendQueue.getBufferedAmount()).isEqualTo(HALF_WINDOW + euroCount * 3);
+
+    when(mWebSocket.queueSize()).thenReturn(0L);
+    mSendQueue.drain();
+    verify(mWebSocket).send(text);
+    mSendQueue.drain();
+    assertThat(mDrainedBytes).isEqualTo(euroCount * 3);
+  }
+
+  @Test
+  public void testUtf8Length() throws Exception {
+    String[] texts = {"", "hello", "h\u00e9llo", "\u20ac", "\ud83d\ude00x", "\u0000\u07ff\u0800"};
+    for (String text : texts) {
+      assertThat(WebSocketSendQueue.utf8Length(text)).isEqualTo(text.getBytes("UTF-8").length);
+    }
+    // Unpaired surrogates are replaced by '?'.
+    assertThat(WebSocketSendQueue.utf8Length("\ud83d")).isEqualTo(1);
+    assertThat(WebSocketSendQueue.utf8Length("\ude00\ud83d")).isEqualTo(2);
+    assertThat(WebSocketSendQueue.utf8Length("\ud83dx")).isEqualTo(2);
+  }
+
+  @Test
+  public void testSendsOverLimitAreRejected() {
+    when(mWebSocket.queueSize()).thenReturn(WebSocketSendQueue.MAX_BUFFERED_BYTES - 5);
+
+    assertThat(mSendQueue.send("too long")).isEqualTo(WebSocketSendQueue.RESULT_REJECTED);
+    verify(mWebSocket, never()).send("too long");
+
+    when(mWebSocket.queueSize()).thenReturn(0L);
+    mSendQueue.drain();
+    // Nothing was written, the rejected message is not counted.
+    assertThat(mDrainedBytes).isEqualTo(0);
+
+    // Messages larger than the limit are sent once nothing else is buffered.
+    ByteString large = ByteString.of(new byte[(int) WebSocketSendQueue.MAX_BUFFERED_BYTES + 1]);
+    assertThat(mSendQueue.send(large)).isEqualTo(WebSocketSendQueue.RESULT_SENT);
+  }
+
+  @Test
+  public void testCloseHandsParkedMessagesOver() {
+    when(mWebSocket.queueSize()).thenReturn((long) WebSocketSendQueue.HIGH_WATER_MARK_BYTES);
+    mSendQueue.send("parked");
+    mSendQueue.close();
+
+    verify(mWebSocket).send("parked");
+    verify(mDrainFuture).cancel(false);
+    assertThat(mSendQueue.send("late")).isEqualTo(WebSocketSendQueue.RESULT_SENT);
+  }
+
+  @Test
+  public void testCounters() {
+    mSendQueue.send("sent");
+    when(mWebSocket.queueSize()).thenReturn((long) WebSocketSendQueue.HIGH_WATER_MARK_BYTES);
+    mSendQueue.send("parked");
+    when(mWebSocket.queueSize()).thenReturn(WebSocketSendQueue.MAX_BUFFERED_BYTES);
+    mSendQueue.send("rejected");
+    when(mWebSocket.queueSize()).thenReturn(0L);
+    mSendQueue.drain();
+
+    Map<String, Long> perfMap = new HashMap<>();
+    mSendQueue.putPerformanceCounters(perfMap);
+    assertThat(perfMap.get("WebSocket3.SentMessages")).isEqualTo(2);
+    assertThat(perfMap.get("WebSocket3.ParkedMessages")).isEqualTo(1);
+    assertThat(perfMap.get("WebSocket3.RejectedMessages")).isEqualTo(1);
+    assertThat(perfMap.get("WebSocket3.MaxBufferedBytes"))
+        .isEqualTo(WebSocketSendQueue.HIGH_WATER_MARK_BYTES + 6);
+    assertThat(perfMap.get("WebSocket3.Drains")).isEqualTo(1);
+    verify(mExecutor, times(1)).scheduleWithFixedDelay(
+        any(Runnable.class),
+        anyLong(),
+        anyLong(),
+        any(TimeUnit.class));
+  }
+}
@@ -0,0 +1,254 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.processing;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.junit.Assume.assumeNotNull;
+
+import android.view.View;
+import android.widget.TextView;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.uimanager.ReactStylesDiffMap;
+import com.facebook.react.uimanager.SimpleViewManager;
+import com.facebook.react.uimanager.ViewManager;
+import com.facebook.react.uimanager.ViewManagerPropertyUpdater;
+import com.facebook.react.uimanager.annotations.ReactProp;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Tests for {@link ReactPropertyProcessor}: compiles view managers with the processor and checks
+ * the {@code $$PropsSetter} classes it generates, and that {@link ViewManagerPropertyUpdater} sets
+ * props through them.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ReactPropertyProcessorTest {
+
+  private static final String PACKAGE_NAME = "com.facebook.react.processing.test";
+
+  private static final String GENERIC_VIEW_MANAGER =
+      "package " + PACKAGE_NAME + ";\n" +
+      "\n" +
+      "import android.view.View;\n" +
+      "import com.facebook.react.uimanager.SimpleViewManager;\n" +
+      "import com.facebook.react.uimanager.ThemedReactContext;\n" +
+      "import com.facebook.react.uimanager.annotations.ReactProp;\n" +
+      "\n" +
+      "public class GenericViewManager<V extends View> extends SimpleViewManager<V> {\n" +
+      "  public int mIntProp;\n" +
+      "  public String mIntPropSetBy;\n" +
+      "  public String mStringProp;\n" +
+      "\n" +
+      "  @Override\n" +
+      "  public String getName() {\n" +
+      "    return \"GenericView\";\n" +
+      "  }\n" +
+      "\n" +
+      "  @Override\n" +
+      "  protected V createViewInstance(ThemedReactContext reactContext) {\n" +
+      "    return null;\n" +
+      "  }\n" +
+      "\n" +
+      "  @ReactProp(name = \"intProp\")\n" +
+      "  public void setIntProp(V view, int value) {\n" +
+      "    mIntProp = value;\n" +
+      "    mIntPropSetBy = new Throwable().getStackTrace()[1].getClassName();\n" +
+      "  }\n" +
+      "\n" +
+      "  @ReactProp(name = \"stringProp\")\n" +
+      "  public void setStringProp(V view, String value) {\n" +
+      "    mStringProp = value;\n" +
+      "  }\n" +
+      "}\n";
+
+  private static final String GENERIC_TEXT_VIEW_MANAGER =
+      "package " + PACKAGE_NAME + ";\n" +
+      "\n" +
+      "import android.widget.TextView;\n" +
+      "\n" +
+      "public class GenericTextViewManager<T extends TextView> extends GenericViewManager<T> {\n" +
+      "}\n";
+
+  @Rule
+  public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+  private JavaCompiler mCompiler;
+
+  @Before
+  public void setUp() {
+    mCompiler = ToolProvider.getSystemJavaCompiler();
+    // Only JDKs ship with a compiler.
+    assumeNotNull(mCompiler);
+  }
+
+  @Test
+  public void testGenericViewManagerSetterUsesBoundOfViewType() throws Exception {
+    ClassLoader classLoader = compile(
+        source("GenericViewManager", GENERIC_VIEW_MANAGER),
+        source("GenericTextViewManager", GENERIC_TEXT_VIEW_MANAGER));
+
+    assertThat(getViewParameterType(classLoader, "GenericViewManager")).isEqualTo(View.class);
+    assertThat(getViewParameterType(classLoader, "GenericTextViewManager"))
+        .isEqualTo(TextView.class);
+  }
+
+  @Test
+  public void testGenericViewManagerSetterSetsProps() throws Exception {
+    ClassLoader classLoader = compile(source("GenericViewManager", GENERIC_VIEW_MANAGER));
+    ViewManager manager =
+        (ViewManager) classLoader.loadClass(PACKAGE_NAME + ".GenericViewManager").newInstance();
+    @SuppressWarnings("unchecked")
+    ViewManagerPropertyUpdater.ViewManagerSetter<ViewManager, View> setter =
+        (ViewManagerPropertyUpdater.ViewManagerSetter<ViewManager, View>) classLoader
+            .loadClass(PACKAGE_NAME + ".GenericViewManager$$PropsSetter")
+            .newInstance();
+
+    ReactStylesDiffMap props =
+        new ReactStylesDiffMap(JavaOnlyMap.of("intProp", 7, "stringProp", "hello"));
+    setter.setProperty(manager, null, "intProp", props);
+    setter.setProperty(manager, null, "stringProp", props);
+    assertThat(manager.getClass().getField("mIntProp").get(manager)).isEqualTo(7);
+    assertThat(manager.getClass().getField("mStringProp").get(manager)).isEqualTo("hello");
+
+    Map<String, String> nativeProps = new HashMap<>();
+    setter.getProperties(nativeProps);
+    assertThat(nativeProps.get("intProp")).isEqualTo("number");
+    assertThat(nativeProps.get("stringProp")).isEqualTo("String");
+    // Props inherited from BaseViewManager are set through the same setter.
+    assertThat(nativeProps.get("opacity")).isEqualTo("number");
+  }
+
+  @Test
+  public void testPropertyUpdaterSetsPropsThroughGeneratedSetter() throws Exception {
+    ClassLoader classLoader = compile(source("GenericViewManager", GENERIC_VIEW_MANAGER));
+    ViewManager manager =
+        (ViewManager) classLoader.loadClass(PACKAGE_NAME + ".GenericViewManager").newInstance();
+
+    ViewManagerPropertyUpdater.updateProps(
+        manager,
+        null,
+        new ReactStylesDiffMap(JavaOnlyMap.of("intProp", 7)));
+
+    assertThat(manager.getClass().getField("mIntProp").get(manager)).isEqualTo(7);
+    // Set through reflection, the prop would be set by a Method instead.
+    assertThat(manager.getClass().getField("mIntPropSetBy").get(manager))
+        .isEqualTo(PACKAGE_NAME + ".GenericViewManager$$PropsSetter");
+  }
+
+  private static Class<?> getViewParameterType(ClassLoader classLoader, String managerName)
+      throws ClassNotFoundException {
+    Class<?> managerClass = classLoader.loadClass(PACKAGE_NAME + "." + managerName);
+    Class<?> setterClass = classLoader.loadClass(managerClass.getName() + "$$PropsSetter");
+    assertThat(ViewManagerPropertyUpdater.ViewManagerSetter.class.isAssignableFrom(setterClass))
+        .isTrue();
+    for (java.lang.reflect.Method method : setterClass.getDeclaredMethods()) {
+      if (method.getName().equals("setProperty") && !method.isBridge()) {
+        assertThat(method.getParameterTypes()[0]).isEqualTo(managerClass);
+        return method.getParameterTypes()[1];
+      }
+    }
+    throw new AssertionError("No setProperty in " + setterClass);
+  }
+
+  /**
+   * Compiles the given sources with {@link ReactPropertyProcessor}, and returns a class loader for
+   * the compiled and generated classes.
+   */
+  private ClassLoader compile(JavaFileObject... sources) throws IOException {
+    File outputDir = mTemporaryFolder.newFolder();
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    StandardJavaFileManager fileManager = mCompiler.getStandardFileManager(diagnostics, null, null);
+    fileManager.setLocation(StandardLocation.CLASS_OUTPUT, Arrays.asList(outputDir));
+    fileManager.setLocation(StandardLocation.SOURCE_OUTPUT, Arrays.asList(outputDir));
+    fileManager.setLocation(StandardLocation.CLASS_PATH, getClassPath());
+
+    JavaCompiler.CompilationTask task =
+        mCompiler.getTask(null, fileManager, diagnostics, null, null, Arrays.asList(sources));
+    task.setProcessors(Arrays.asList(new ReactPropertyProcessor()));
+    boolean success = task.call();
+    fileManager.close();
+
+    for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+      assertThat(diagnostic.getKind())
+          .overridingErrorMessage("%s", diagnostic)
+          .isNotEqualTo(Diagnostic.Kind.ERROR);
+    }
+    assertThat(success).isTrue();
+    return new URLClassLoader(
+        new URL[] {outputDir.toURI().toURL()},
+        getClass().getClassLoader());
+  }
+
+  /**
+   * The class path of this test, including the jars and directories the classes referenced by the
+   * compiled sources are loaded from, which the test runner may not list in java.class.path.
+   */
+  private Set<File> getClassPath() throws IOException {
+    Set<File> classPath = new LinkedHashSet<>();
+    for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+      classPath.add(new File(entry));
+    }
+    List<Class<?>> referencedClasses = Arrays.<Class<?>>asList(
+        View.class,
+        TextView.class,
+        ReadableMap.class,
+        ReactProp.class,
+        SimpleViewManager.class,
+        javax.annotation.Nullable.class);
+    for (Class<?> referencedClass : referencedClasses) {
+      String resourceName = referencedClass.getName().replace('.', '/') + ".class";
+      URL url = getClass().getClassLoader().getResource(resourceName);
+      if (url == null) {
+        continue;
+      }
+      String path = url.toString();
+      if (path.startsWith("jar:file:")) {
+        classPath.add(new File(URI.create(path.substring("jar:".length(), path.indexOf("!/")))));
+      } else if (path.startsWith("file:")) {
+        String directory = path.substring(0, path.length() - resourceName.length());
+        classPath.add(new File(URI.create(directory)));
+      }
+    }
+    return classPath;
+  }
+
+  private static JavaFileObject source(String className, final String code) {
+    return new SimpleJavaFileObject(
+        URI.create("string:///" + PACKAGE_NAME.replace('.', '/') + "/" + className + ".java"),
+        JavaFileObject.Kind.SOURCE) {
+      @Override
+      public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+        return code;
+      }
+    };
+  }
+}
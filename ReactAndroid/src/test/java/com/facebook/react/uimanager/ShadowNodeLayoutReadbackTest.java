@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.uimanager;
+
+import com.facebook.yoga.YogaFlexDirection;
+import com.facebook.yoga.YogaLayoutBuffer;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for reading the layouts that changed back from Yoga through a {@link YogaLayoutBuffer}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ShadowNodeLayoutReadbackTest {
+
+  private static final int ROW_COUNT = 1000;
+  private static final int PASS_COUNT = 50;
+
+  @Test
+  public void testReadbackMatchesLayout() {
+    LayoutShadowNode expected = createTree();
+    LayoutShadowNode actual = createTree();
+    YogaLayoutBuffer layoutBuffer = new YogaLayoutBuffer();
+
+    expected.calculateLayout();
+    assertThat(actual.calculateLayout(layoutBuffer)).isEqualTo(1 + ROW_COUNT * 3);
+    assertSameLayout(actual, expected);
+    markLayoutSeenRecursive(actual);
+
+    // Rows whose size came from the layout cache get a new position, but their cells don't.
+    ((LayoutShadowNode) expected.getChildAt(ROW_COUNT - 2).getChildAt(1)).setStyleHeight(60);
+    ((LayoutShadowNode) actual.getChildAt(ROW_COUNT - 2).getChildAt(1)).setStyleHeight(60);
+    expected.calculateLayout();
+    int recordCount = actual.calculateLayout(layoutBuffer);
+    assertThat(recordCount).isLessThan(1 + ROW_COUNT * 3);
+    assertThat(recordCount).isEqualTo(layoutBuffer.getRecordCount());
+    assertSameLayout(actual, expected);
+    assertThat(actual.getChildAt(0).getChildAt(0).hasNewLayout()).isFalse();
+    assertThat(actual.getChildAt(ROW_COUNT - 2).getChildAt(1).hasNewLayout()).isTrue();
+  }
+
+  @Test
+  public void testRepeatedLayoutsOfLargeTreeWithOneChange() {
+    LayoutShadowNode expected = createTree();
+    LayoutShadowNode actual = createTree();
+    YogaLayoutBuffer layoutBuffer = new YogaLayoutBuffer();
+    expected.calculateLayout();
+    actual.calculateLayout(layoutBuffer);
+
+    LayoutShadowNode expectedLeaf =
+        (LayoutShadowNode) expected.getChildAt(ROW_COUNT / 2).getChildAt(0);
+    LayoutShadowNode actualLeaf =
+        (LayoutShadowNode) actual.getChildAt(ROW_COUNT / 2).getChildAt(0);
+    for (int pass = 0; pass < PASS_COUNT; pass++) {
+      markLayoutSeenRecursive(actual);
+      expectedLeaf.setStyleWidth(40 + pass % 2);
+      actualLeaf.setStyleWidth(40 + pass % 2);
+      expected.calculateLayout();
+      // Only the nodes around the leaf get a new layout.
+      assertThat(actual.calculateLayout(layoutBuffer)).isLessThan(1 + ROW_COUNT * 3);
+    }
+    assertSameLayout(actual, expected);
+  }
+
+  private static LayoutShadowNode createTree() {
+    LayoutShadowNode root = new LayoutShadowNode();
+    root.setStyleWidth(400);
+    for (int i = 0; i < ROW_COUNT; i++) {
+      LayoutShadowNode row = new LayoutShadowNode();
+      row.setFlexDirection(YogaFlexDirection.ROW);
+      row.setPadding(Spacing.ALL, 8);
+      for (int j = 0; j < 2; j++) {
+        LayoutShadowNode cell = new LayoutShadowNode();
+        cell.setStyleWidth(40);
+        cell.setStyleHeight(40);
+        cell.setMargin(Spacing.START, 4);
+        row.addChildAt(cell, j);
+      }
+      root.addChildAt(row, i);
+    }
+    return root;
+  }
+
+  private static void assertSameLayout(ReactShadowNode actual, ReactShadowNode expected) {
+    assertThat(actual.getLayoutX()).isEqualTo(expected.getLayoutX());
+    assertThat(actual.getLayoutY()).isEqualTo(expected.getLayoutY());
+    assertThat(actual.getLayoutWidth()).isEqualTo(expected.getLayoutWidth());
+    assertThat(actual.getLayoutHeight()).isEqualTo(expected.getLayoutHeight());
+    assertThat(actual.getPadding(Spacing.LEFT)).isEqualTo(expected.getPadding(Spacing.LEFT));
+    for (int i = 0; i < expected.getChildCount(); i++) {
+      assertSameLayout(actual.getChildAt(i), expected.getChildAt(i));
+    }
+  }
+
+  private static void markLayoutSeenRecursive(ReactShadowNode node) {
+    node.markLayoutSeen();
+    for (int i = 0; i < node.getChildCount(); i++) {
+      markLayoutSeenRecursive(node.getChildAt(i));
+    }
+  }
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.uimanager;
+
+import android.util.DisplayMetrics;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.config.ReactFeatureFlags;
+import com.facebook.yoga.YogaEdge;
+import com.facebook.yoga.YogaNode;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for setting the layout props of a shadow node on its {@link YogaNode} in one batch.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ShadowNodeStyleBatchTest {
+
+  private boolean mBatchYogaStyleUpdates;
+
+  @Before
+  public void setup() {
+    DisplayMetricsHolder.setWindowDisplayMetrics(new DisplayMetrics());
+    DisplayMetricsHolder.setScreenDisplayMetrics(new DisplayMetrics());
+    mBatchYogaStyleUpdates = ReactFeatureFlags.batchYogaStyleUpdates;
+  }
+
+  @After
+  public void teardown() {
+    DisplayMetricsHolder.setWindowDisplayMetrics(null);
+    DisplayMetricsHolder.setScreenDisplayMetrics(null);
+    ReactFeatureFlags.batchYogaStyleUpdates = mBatchYogaStyleUpdates;
+  }
+
+  @Test
+  public void testBatchedStyleMatchesUnbatchedStyle() {
+    // A list row, its avatar and its label.
+    assertBatchedStyleMatchesUnbatchedStyle(rowStyle());
+    assertBatchedStyleMatchesUnbatchedStyle(avatarStyle());
+    assertBatchedStyleMatchesUnbatchedStyle(labelStyle());
+  }
+
+  @Test
+  public void testReadingStyleAppliesBatch() {
+    YogaNode yogaNode = new YogaNode();
+    yogaNode.beginStyleBatch();
+    yogaNode.setMargin(YogaEdge.TOP, 10);
+    // Reading the style applies what was set so far.
+    assertThat(yogaNode.getMargin(YogaEdge.TOP).value).isEqualTo(10);
+    yogaNode.setMargin(YogaEdge.TOP, 20);
+    yogaNode.applyStyleBatch();
+    assertThat(yogaNode.getMargin(YogaEdge.TOP).value).isEqualTo(20);
+  }
+
+  private static void assertBatchedStyleMatchesUnbatchedStyle(ReactStylesDiffMap styles) {
+    ReactFeatureFlags.batchYogaStyleUpdates = false;
+    LayoutShadowNode unbatched = createNode(styles);
+    ReactFeatureFlags.batchYogaStyleUpdates = true;
+    LayoutShadowNode batched = createNode(styles);
+
+    assertThat(batched.getStyleWidth()).isEqualTo(unbatched.getStyleWidth());
+    assertThat(batched.getStyleHeight()).isEqualTo(unbatched.getStyleHeight());
+    for (int spacingType = Spacing.LEFT; spacingType <= Spacing.ALL; spacingType++) {
+      assertThat(batched.getStylePadding(spacingType))
+          .isEqualTo(unbatched.getStylePadding(spacingType));
+    }
+
+    unbatched.calculateLayout();
+    batched.calculateLayout();
+    assertThat(batched.getLayoutX()).isEqualTo(unbatched.getLayoutX());
+    assertThat(batched.getLayoutY()).isEqualTo(unbatched.getLayoutY());
+    assertThat(batched.getLayoutWidth()).isEqualTo(unbatched.getLayoutWidth());
+    assertThat(batched.getLayoutHeight()).isEqualTo(unbatched.getLayoutHeight());
+    unbatched.dispose();
+    batched.dispose();
+  }
+
+  private static LayoutShadowNode createNode(ReactStylesDiffMap styles) {
+    LayoutShadowNode node = new LayoutShadowNode();
+    node.updateProperties(styles);
+    return node;
+  }
+
+  private static ReactStylesDiffMap rowStyle() {
+    return new ReactStylesDiffMap(JavaOnlyMap.of(
+        "flexDirection", "row",
+        "alignItems", "center",
+        "justifyContent", "space-between",
+        "width", "100%",
+        "height", 64.0,
+        "paddingHorizontal", 16.0,
+        "paddingVertical", 8.0,
+        "marginBottom", 1.0,
+        "borderBottomWidth", 1.0));
+  }
+
+  private static ReactStylesDiffMap avatarStyle() {
+    return new ReactStylesDiffMap(JavaOnlyMap.of(
+        "width", 48.0,
+        "height", 48.0,
+        "marginRight", 12.0,
+        "borderWidth", 1.0,
+        "alignSelf", "center",
+        "aspectRatio", 1.0));
+  }
+
+  private static ReactStylesDiffMap labelStyle() {
+    return new ReactStylesDiffMap(JavaOnlyMap.of(
+        "flex", 1.0,
+        "flexShrink", 1.0,
+        "marginTop", 4.0,
+        "marginBottom", 4.0,
+        "paddingLeft", 4.0,
+        "position", "relative",
+        "top", 0.0,
+        "left", 0.0,
+        "minHeight", 20.0,
+        "maxWidth", "80%",
+        "overflow", "hidden",
+        "display", "flex",
+        "flexWrap", "nowrap",
+        "alignContent", "flex-start",
+        "flexBasis", "auto"));
+  }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.uimanager;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactMarker;
+import com.facebook.react.bridge.ReactMarkerConstants;
+import com.facebook.react.config.ReactFeatureFlags;
+import com.facebook.react.uimanager.events.EventDispatcher;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Tests for laying out only the roots with updates in
+ * {@link UIImplementation#updateViewHierarchy}, with {@link ReactFeatureFlags#layoutDirtyRootsOnly}.
+ *
+ * The roots are mocked, so that the tests don't need Yoga.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class UIImplementationLayoutRootsTest {
+
+  private static final int UPDATED_ROOT_TAG = 1;
+  private static final int CLEAN_ROOT_TAG = 11;
+
+  private boolean mLayoutDirtyRootsOnly;
+  private boolean mReadLayoutsInBulk;
+  private UIImplementation mUIImplementation;
+  private ReactShadowNode mUpdatedRoot;
+  private ReactShadowNode mCleanRoot;
+  private List<Integer> mLaidOutRootTags;
+  private ReactMarker.MarkerListener mMarkerListener;
+
+  @Before
+  public void setUp() {
+    mLayoutDirtyRootsOnly = ReactFeatureFlags.layoutDirtyRootsOnly;
+    mReadLayoutsInBulk = ReactFeatureFlags.readLayoutsInBulk;
+    ReactFeatureFlags.readLayoutsInBulk = false;
+
+    mUIImplementation = new UIImplementation(
+        mock(ReactApplicationContext.class),
+        new ViewManagerRegistry(Collections.<ViewManager>emptyList()),
+        mock(UIViewOperationQueue.class),
+        mock(EventDispatcher.class));
+    mUpdatedRoot = addRoot(UPDATED_ROOT_TAG, true);
+    mCleanRoot = addRoot(CLEAN_ROOT_TAG, false);
+
+    mLaidOutRootTags = new ArrayList<>();
+    mMarkerListener = new ReactMarker.MarkerListener() {
+      @Override
+      public void logMarker(ReactMarkerConstants name, @Nullable String tag, int instanceKey) {
+        if (name == ReactMarkerConstants.LAYOUT_ROOT_START) {
+          mLaidOutRootTags.add(instanceKey);
+        }
+      }
+    };
+    ReactMarker.addListener(mMarkerListener);
+  }
+
+  @After
+  public void tearDown() {
+    ReactMarker.removeListener(mMarkerListener);
+    ReactFeatureFlags.layoutDirtyRootsOnly = mLayoutDirtyRootsOnly;
+    ReactFeatureFlags.readLayoutsInBulk = mReadLayoutsInBulk;
+  }
+
+  @Test
+  public void testOnlyRootsWithUpdatesAreLaidOut() {
+    ReactFeatureFlags.layoutDirtyRootsOnly = true;
+
+    mUIImplementation.updateViewHierarchy();
+
+    verify(mUpdatedRoot).calculateLayout();
+    verify(mUpdatedRoot).markUpdateSeen();
+    verify(mCleanRoot, never()).calculateLayout();
+    verify(mCleanRoot, never()).markUpdateSeen();
+    assertThat(mLaidOutRootTags).containsOnly(UPDATED_ROOT_TAG);
+  }
+
+  @Test
+  public void testWithoutFlagEveryRootIsLaidOutWithoutMarkers() {
+    ReactFeatureFlags.layoutDirtyRootsOnly = false;
+
+    mUIImplementation.updateViewHierarchy();
+
+    verify(mUpdatedRoot).calculateLayout();
+    verify(mCleanRoot).calculateLayout();
+    assertThat(mLaidOutRootTags).isEmpty();
+  }
+
+  private ReactShadowNode addRoot(int tag, boolean hasUpdates) {
+    ReactShadowNode root = mock(ReactShadowNode.class);
+    when(root.getReactTag()).thenReturn(tag);
+    when(root.hasUpdates()).thenReturn(hasUpdates);
+    mUIImplementation.mShadowNodeRegistry.addRootNode(root);
+    mUIImplementation.enableLayoutCalculationForRootNode(tag);
+    return root;
+  }
+}
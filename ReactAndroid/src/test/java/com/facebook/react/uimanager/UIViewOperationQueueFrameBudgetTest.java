@@ -0,0 +1,241 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.uimanager;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.modules.core.ChoreographerCompat;
+import com.facebook.react.modules.core.ReactChoreographer;
+import com.facebook.react.uimanager.debug.NotThreadSafeUIOperationsFrameListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.rule.PowerMockRule;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Tests for executing batches over several frames with
+ * {@link UIViewOperationQueue#setBatchedOperationsFrameBudgetMs}.
+ *
+ * Frames are either late, in which case their budget has already run out when they start, or on
+ * time with a budget large enough for every pending operation. A late frame still executes one
+ * view creation, or the rest of a batch.
+ */
+@PrepareForTest({ReactChoreographer.class})
+@PowerMockIgnore({"org.mockito.*", "org.robolectric.*", "android.*"})
+@RunWith(RobolectricTestRunner.class)
+public class UIViewOperationQueueFrameBudgetTest {
+
+  private static final int ROOT_TAG = 1;
+  private static final int FRAME_BUDGET_MS = 1000;
+  private static final long LATE_FRAME_DELAY_NS = 10L * FRAME_BUDGET_MS * 1000000;
+
+  /**
+   * Records the operations executed on the UI thread instead of touching real views.
+   */
+  private static class RecordingNativeViewHierarchyManager extends NativeViewHierarchyManager {
+
+    private final List<String> mOperations = new ArrayList<>();
+
+    private RecordingNativeViewHierarchyManager() {
+      super(new ViewManagerRegistry(Collections.<ViewManager>emptyList()));
+    }
+
+    @Override
+    public synchronized void createView(
+        ThemedReactContext themedContext,
+        int tag,
+        String className,
+        @Nullable ReactStylesDiffMap initialProps) {
+      mOperations.add("create " + tag);
+    }
+
+    @Override
+    public synchronized void updateProperties(int tag, ReactStylesDiffMap props) {
+      mOperations.add("props " + tag);
+    }
+
+    @Override
+    public synchronized void manageChildren(
+        int tag,
+        @Nullable int[] indicesToRemove,
+        @Nullable ViewAtIndex[] viewsToAdd,
+        @Nullable int[] tagsToDelete) {
+      mOperations.add("children " + tag);
+    }
+
+    @Override
+    public synchronized void updateLayout(
+        int parentTag, int tag, int x, int y, int width, int height) {
+      mOperations.add("layout " + tag);
+    }
+
+    private List<String> getAndClearOperations() {
+      List<String> operations = new ArrayList<>(mOperations);
+      mOperations.clear();
+      return operations;
+    }
+  }
+
+  @Rule
+  public PowerMockRule rule = new PowerMockRule();
+
+  private RecordingNativeViewHierarchyManager mNativeViewHierarchyManager;
+  private UIViewOperationQueue mQueue;
+  private ChoreographerCompat.FrameCallback mFrameCallback;
+  private List<Boolean> mFrameListenerCalls;
+
+  @Before
+  public void setUp() {
+    ReactChoreographer reactChoreographerMock = mock(ReactChoreographer.class);
+    PowerMockito.mockStatic(ReactChoreographer.class);
+    when(ReactChoreographer.getInstance()).thenReturn(reactChoreographerMock);
+    doAnswer(new Answer() {
+      @Override
+      public Object answer(InvocationOnMock invocation) throws Throwable {
+        mFrameCallback = (ChoreographerCompat.FrameCallback) invocation.getArguments()[1];
+        return null;
+      }
+    }).when(reactChoreographerMock).postFrameCallback(
+        eq(ReactChoreographer.CallbackType.DISPATCH_UI),
+        any(ChoreographerCompat.FrameCallback.class));
+
+    mNativeViewHierarchyManager = new RecordingNativeViewHierarchyManager();
+    mQueue = new UIViewOperationQueue(
+        mock(ReactApplicationContext.class),
+        mNativeViewHierarchyManager,
+        -1);
+    mFrameListenerCalls = new ArrayList<>();
+    mQueue.setUIOperationsFrameListener(new NotThreadSafeUIOperationsFrameListener() {
+      @Override
+      public void onUIOperationsFrameExecuted(long executionTimeMs, boolean hasPendingBatches) {
+        mFrameListenerCalls.add(hasPendingBatches);
+      }
+    });
+    mQueue.resumeFrameCallback();
+  }
+
+  @Test
+  public void testWithoutBudgetBatchExecutesInOneFrame() {
+    mountView(1, 2, 3);
+
+    runLateFrame();
+
+    assertThat(mNativeViewHierarchyManager.getAndClearOperations()).isEqualTo(Arrays.asList(
+        "create 2", "create 3", "props 2", "children 1", "layout 2", "layout 3"));
+    assertThat(mFrameListenerCalls).isEqualTo(Arrays.asList(false));
+  }
+
+  @Test
+  public void testBatchCreatesViewsOverSeveralFramesAndAttachesThemInOne() {
+    mQueue.setBatchedOperationsFrameBudgetMs(FRAME_BUDGET_MS);
+    mountView(1, 2, 3);
+
+    runLateFrame();
+    assertThat(mNativeViewHierarchyManager.getAndClearOperations())
+        .isEqualTo(Arrays.asList("create 2"));
+    runLateFrame();
+    assertThat(mNativeViewHierarchyManager.getAndClearOperations())
+        .isEqualTo(Arrays.asList("create 3"));
+    runLateFrame();
+    assertThat(mNativeViewHierarchyManager.getAndClearOperations()).isEqualTo(Arrays.asList(
+        "props 2", "children 1", "layout 2", "layout 3"));
+    assertThat(mFrameListenerCalls).isEqualTo(Arrays.asList(true, true, false));
+  }
+
+  @Test
+  public void testBatchesExecuteInSeparateLateFrames() {
+    mQueue.setBatchedOperationsFrameBudgetMs(FRAME_BUDGET_MS);
+    updateProps(1, 2);
+    updateProps(2, 3);
+
+    runLateFrame();
+    assertThat(mNativeViewHierarchyManager.getAndClearOperations())
+        .isEqualTo(Arrays.asList("props 2"));
+    runLateFrame();
+    assertThat(mNativeViewHierarchyManager.getAndClearOperations())
+        .isEqualTo(Arrays.asList("props 3"));
+  }
+
+  @Test
+  public void testUnfinishedBatchStaysAheadOfLaterBatches() {
+    mQueue.setBatchedOperationsFrameBudgetMs(FRAME_BUDGET_MS);
+    mountView(1, 2, 3);
+    runLateFrame();
+    assertThat(mNativeViewHierarchyManager.getAndClearOperations())
+        .isEqualTo(Arrays.asList("create 2"));
+
+    mountView(2, 4, 5);
+    updateProps(3, 2);
+    runFrame();
+
+    assertThat(mNativeViewHierarchyManager.getAndClearOperations()).isEqualTo(Arrays.asList(
+        "create 3", "props 2", "children 1", "layout 2", "layout 3",
+        "create 4", "create 5", "props 4", "children 1", "layout 4", "layout 5",
+        "props 2"));
+    assertThat(mFrameListenerCalls).isEqualTo(Arrays.asList(true, false));
+  }
+
+  @Test
+  public void testFrameListenerIsOnlyCalledForFramesWithOperations() {
+    mQueue.setBatchedOperationsFrameBudgetMs(FRAME_BUDGET_MS);
+    runFrame();
+    assertThat(mFrameListenerCalls).isEmpty();
+
+    updateProps(1, 2);
+    runFrame();
+    runFrame();
+    assertThat(mFrameListenerCalls).isEqualTo(Arrays.asList(false));
+  }
+
+  /**
+   * Dispatches a batch that creates {@code tag} and {@code childTag}, attaches {@code tag} to the
+   * root view and lays both out.
+   */
+  private void mountView(int batchId, int tag, int childTag) {
+    mQueue.enqueueCreateView(null, tag, "RCTView", null);
+    mQueue.enqueueCreateView(null, childTag, "RCTView", null);
+    mQueue.enqueueUpdateProperties(tag, "RCTView", new ReactStylesDiffMap(JavaOnlyMap.of()));
+    mQueue.enqueueManageChildren(
+        ROOT_TAG, null, new ViewAtIndex[] {new ViewAtIndex(tag, 0)}, null);
+    mQueue.enqueueUpdateLayout(ROOT_TAG, tag, 0, 0, 100, 100);
+    mQueue.enqueueUpdateLayout(tag, childTag, 0, 0, 50, 50);
+    mQueue.dispatchViewUpdates(batchId, 0, 0);
+  }
+
+  private void updateProps(int batchId, int tag) {
+    mQueue.enqueueUpdateProperties(tag, "RCTView", new ReactStylesDiffMap(JavaOnlyMap.of()));
+    mQueue.dispatchViewUpdates(batchId, 0, 0);
+  }
+
+  private void runFrame() {
+    mFrameCallback.doFrame(System.nanoTime());
+  }
+
+  private void runLateFrame() {
+    mFrameCallback.doFrame(System.nanoTime() - LATE_FRAME_DELAY_NS);
+  }
+}
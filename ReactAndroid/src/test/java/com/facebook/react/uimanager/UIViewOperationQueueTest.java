@@ -0,0 +1,275 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.uimanager;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReactApplicationContext;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import javax.annotation.Nullable;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+/**
+ * Tests for {@link UIViewOperationQueue}, including allocation numbers for a synthetic mount of
+ * {@link #MOUNT_SIZE} nodes.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class UIViewOperationQueueTest {
+
+  private static final int MOUNT_SIZE = 5000;
+  private static final int ROOT_TAG = 1;
+  // Fits in the operation pools, so that a warmed up queue reuses every operation.
+  private static final int INTERLEAVED_SIZE = 500;
+
+  /**
+   * Records the operations executed on the UI thread instead of touching real views.
+   */
+  private static class RecordingNativeViewHierarchyManager extends NativeViewHierarchyManager {
+
+    private int mLayoutUpdates;
+    private int mLayoutBatches;
+    private int mPropertyUpdates;
+    private int mChildrenUpdates;
+    private long mLayoutChecksum;
+
+    private RecordingNativeViewHierarchyManager() {
+      super(new ViewManagerRegistry(Collections.<ViewManager>emptyList()));
+    }
+
+    @Override
+    public synchronized void updateLayout(
+        int parentTag, int tag, int x, int y, int width, int height) {
+      mLayoutUpdates++;
+      mLayoutChecksum += parentTag + tag + x + y + width + height;
+    }
+
+    @Override
+    public synchronized void updateLayout(int[] layoutBatch, int entryCount) {
+      mLayoutBatches++;
+      for (int i = 0; i < entryCount; i++) {
+        int offset = i * LAYOUT_BATCH_ENTRY_SIZE;
+        updateLayout(
+            layoutBatch[offset],
+            layoutBatch[offset + 1],
+            layoutBatch[offset + 2],
+            layoutBatch[offset + 3],
+            layoutBatch[offset + 4],
+            layoutBatch[offset + 5]);
+      }
+    }
+
+    @Override
+    public synchronized void updateProperties(int tag, ReactStylesDiffMap props) {
+      assertThat(props.getInt("tag", -1)).isEqualTo(tag);
+      mPropertyUpdates++;
+    }
+
+    @Override
+    public synchronized void manageChildren(
+        int tag,
+        @Nullable int[] indicesToRemove,
+        @Nullable ViewAtIndex[] viewsToAdd,
+        @Nullable int[] tagsToDelete) {
+      assertThat(viewsToAdd[0].mTag).isEqualTo(tag + 1);
+      mChildrenUpdates++;
+    }
+  }
+
+  private RecordingNativeViewHierarchyManager mNativeViewHierarchyManager;
+  private UIViewOperationQueue mQueue;
+  private ReactStylesDiffMap[] mProps;
+  private ViewAtIndex[][] mChildren;
+
+  @Before
+  public void setUp() {
+    mNativeViewHierarchyManager = new RecordingNativeViewHierarchyManager();
+    mQueue = new UIViewOperationQueue(
+        mock(ReactApplicationContext.class),
+        mNativeViewHierarchyManager,
+        -1);
+    mProps = new ReactStylesDiffMap[MOUNT_SIZE];
+    mChildren = new ViewAtIndex[MOUNT_SIZE][];
+    for (int i = 0; i < MOUNT_SIZE; i++) {
+      int tag = ROOT_TAG + 1 + i;
+      mProps[i] = new ReactStylesDiffMap(JavaOnlyMap.of("tag", tag));
+      mChildren[i] = new ViewAtIndex[] {new ViewAtIndex(tag + 1, 0)};
+    }
+  }
+
+  @Test
+  public void testRecycledOperationsCarryNewArguments() {
+    for (int batch = 1; batch <= 3; batch++) {
+      mount(batch);
+    }
+
+    assertThat(mNativeViewHierarchyManager.mLayoutUpdates).isEqualTo(3 * MOUNT_SIZE);
+    assertThat(mNativeViewHierarchyManager.mPropertyUpdates).isEqualTo(3 * MOUNT_SIZE);
+    assertThat(mNativeViewHierarchyManager.mChildrenUpdates).isEqualTo(3 * MOUNT_SIZE);
+
+    long expectedChecksum = 0;
+    for (int batch = 1; batch <= 3; batch++) {
+      for (int i = 0; i < MOUNT_SIZE; i++) {
+        int tag = ROOT_TAG + 1 + i;
+        expectedChecksum += ROOT_TAG + tag + batch + i + 100 * batch + 50;
+      }
+    }
+    assertThat(mNativeViewHierarchyManager.mLayoutChecksum).isEqualTo(expectedChecksum);
+  }
+
+  @Test
+  public void testMountAllocations() {
+    com.sun.management.ThreadMXBean threadMXBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    if (!threadMXBean.isThreadAllocatedMemorySupported()) {
+      return;
+    }
+    threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    long threadId = Thread.currentThread().getId();
+
+    ArrayList<Long> allocatedPerMount = new ArrayList<>();
+    for (int batch = 1; batch <= 4; batch++) {
+      long before = threadMXBean.getThreadAllocatedBytes(threadId);
+      mount(batch);
+      allocatedPerMount.add(threadMXBean.getThreadAllocatedBytes(threadId) - before);
+    }
+    // Later mounts reuse the operations released by the first one.
+    assertThat(allocatedPerMount.get(3)).isLessThan(allocatedPerMount.get(0));
+  }
+
+  /**
+   * Compares a layout-only frame (e.g. a rotation) dispatched as one operation object per view, as
+   * the queue used to, with the packed layout batch.
+   */
+  @Test
+  public void testLayoutOnlyFrameAllocations() {
+    com.sun.management.ThreadMXBean threadMXBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    if (!threadMXBean.isThreadAllocatedMemorySupported()) {
+      return;
+    }
+    threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    long threadId = Thread.currentThread().getId();
+
+    // Warm up both paths.
+    layoutPerOperation(1);
+    layoutPacked(1);
+
+    long before = threadMXBean.getThreadAllocatedBytes(threadId);
+    layoutPerOperation(2);
+    long perOperationBytes = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+
+    before = threadMXBean.getThreadAllocatedBytes(threadId);
+    layoutPacked(2);
+    long packedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+
+    assertThat(mNativeViewHierarchyManager.mLayoutUpdates).isEqualTo(4 * MOUNT_SIZE);
+    assertThat(packedBytes).isLessThan(perOperationBytes);
+  }
+
+  /**
+   * Every other operation ends a layout batch, so a mount where views are laid out one at a time
+   * must not cost more than one small pooled operation per view.
+   */
+  @Test
+  public void testInterleavedLayoutAllocations() {
+    com.sun.management.ThreadMXBean threadMXBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    if (!threadMXBean.isThreadAllocatedMemorySupported()) {
+      return;
+    }
+    threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    long threadId = Thread.currentThread().getId();
+
+    // Warm up both paths.
+    layoutInterleavedPerOperation(1);
+    layoutInterleaved(1);
+
+    long before = threadMXBean.getThreadAllocatedBytes(threadId);
+    layoutInterleavedPerOperation(2);
+    long perOperationBytes = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+
+    int batchesBefore = mNativeViewHierarchyManager.mLayoutBatches;
+    before = threadMXBean.getThreadAllocatedBytes(threadId);
+    layoutInterleaved(2);
+    long batchedBytes = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+
+    assertThat(mNativeViewHierarchyManager.mLayoutBatches - batchesBefore)
+        .isEqualTo(INTERLEAVED_SIZE);
+    assertThat(mNativeViewHierarchyManager.mPropertyUpdates).isEqualTo(4 * INTERLEAVED_SIZE);
+    assertThat(batchedBytes).isLessThan(perOperationBytes);
+  }
+
+  private void layoutInterleavedPerOperation(final int frame) {
+    for (int i = 0; i < INTERLEAVED_SIZE; i++) {
+      final int tag = ROOT_TAG + 1 + i;
+      mQueue.enqueueUpdateProperties(tag, "RCTView", mProps[i]);
+      mQueue.enqueueUIOperation(
+          new UIViewOperationQueue.UIOperation() {
+            @Override
+            public void execute() {
+              mNativeViewHierarchyManager.updateLayout(ROOT_TAG, tag, frame, tag, 100, 50);
+            }
+          });
+    }
+    mQueue.dispatchViewUpdates(frame, 0, 0);
+    ShadowLooper.runUiThreadTasks();
+  }
+
+  private void layoutInterleaved(int frame) {
+    for (int i = 0; i < INTERLEAVED_SIZE; i++) {
+      int tag = ROOT_TAG + 1 + i;
+      mQueue.enqueueUpdateProperties(tag, "RCTView", mProps[i]);
+      mQueue.enqueueUpdateLayout(ROOT_TAG, tag, frame, tag, 100, 50);
+    }
+    mQueue.dispatchViewUpdates(frame, 0, 0);
+    ShadowLooper.runUiThreadTasks();
+  }
+
+  private void layoutPerOperation(final int frame) {
+    for (int i = 0; i < MOUNT_SIZE; i++) {
+      final int tag = ROOT_TAG + 1 + i;
+      mQueue.enqueueUIOperation(
+          new UIViewOperationQueue.UIOperation() {
+            @Override
+            public void execute() {
+              mNativeViewHierarchyManager.updateLayout(ROOT_TAG, tag, frame, tag, 100, 50);
+            }
+          });
+    }
+    mQueue.dispatchViewUpdates(frame, 0, 0);
+    ShadowLooper.runUiThreadTasks();
+  }
+
+  private void layoutPacked(int frame) {
+    for (int i = 0; i < MOUNT_SIZE; i++) {
+      int tag = ROOT_TAG + 1 + i;
+      mQueue.enqueueUpdateLayout(ROOT_TAG, tag, frame, tag, 100, 50);
+    }
+    mQueue.dispatchViewUpdates(frame, 0, 0);
+    ShadowLooper.runUiThreadTasks();
+  }
+
+  private void mount(int batch) {
+    for (int i = 0; i < MOUNT_SIZE; i++) {
+      int tag = ROOT_TAG + 1 + i;
+      mQueue.enqueueUpdateProperties(tag, "RCTView", mProps[i]);
+      mQueue.enqueueManageChildren(tag, null, mChildren[i], null);
+      mQueue.enqueueUpdateLayout(ROOT_TAG, tag, batch, i, 100 * batch, 50);
+    }
+    mQueue.dispatchViewUpdates(batch, 0, 0);
+    ShadowLooper.runUiThreadTasks();
+  }
+}
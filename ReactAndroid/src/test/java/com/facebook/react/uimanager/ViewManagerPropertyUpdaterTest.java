@@ -0,0 +1,217 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.uimanager;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import android.view.View;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.uimanager.annotations.ReactProp;
+import com.facebook.react.views.text.ReactRawTextManager;
+import com.facebook.react.views.text.ReactTextViewManager;
+import com.facebook.react.views.text.ReactVirtualTextViewManager;
+import com.facebook.react.views.view.ReactViewManager;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+/**
+ * Tests for the reflection fallback of {@link ViewManagerPropertyUpdater}, which looks setters up by
+ * interned prop ID. Setting props through a generated setter is tested by ReactPropertyProcessorTest
+ * with the setters the processor generates.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ViewManagerPropertyUpdaterTest {
+
+  // The view and text managers registered by MainReactPackage, which handle most style props.
+  private static final List<ViewManager> CORE_VIEW_MANAGERS = Arrays.<ViewManager>asList(
+      new ReactViewManager(),
+      new ReactTextViewManager(),
+      new ReactRawTextManager(),
+      new ReactVirtualTextViewManager());
+
+  private View mView;
+  private ReactStylesDiffMap mProps;
+
+  @Before
+  public void setUp() {
+    ViewManagerPropertyUpdater.clear();
+    mView = new View(RuntimeEnvironment.application);
+    mProps = new ReactStylesDiffMap(
+        JavaOnlyMap.of(
+            "intProp", 7,
+            "floatProp", 2.5,
+            "boolProp", true,
+            "stringProp", "hello"));
+  }
+
+  @Test
+  public void testReflectionFallback() {
+    ReflectionViewManager manager = new ReflectionViewManager();
+    ViewManagerPropertyUpdater.updateProps(manager, mView, mProps);
+
+    assertUpdated(manager);
+  }
+
+  @Test
+  public void testPropSetterTablesOfCoreViewManagersMatchPropSetterMaps() {
+    for (ViewManager manager : CORE_VIEW_MANAGERS) {
+      List<Map<String, ViewManagersPropertyCache.PropSetter>> setterMaps = Arrays.asList(
+          ViewManagersPropertyCache.getNativePropSettersForViewManagerClass(manager.getClass()),
+          ViewManagersPropertyCache.getNativePropSettersForShadowNodeClass(
+              manager.getShadowNodeClass()));
+      for (Map<String, ViewManagersPropertyCache.PropSetter> setters : setterMaps) {
+        ViewManagersPropertyCache.PropSetter[] table =
+            ViewManagersPropertyCache.getPropSetterTable(setters);
+        int tableSize = 0;
+        for (ViewManagersPropertyCache.PropSetter setter : table) {
+          tableSize += setter != null ? 1 : 0;
+        }
+        assertThat(tableSize).isEqualTo(setters.size());
+        for (Map.Entry<String, ViewManagersPropertyCache.PropSetter> entry : setters.entrySet()) {
+          // Prop names come from the bridge as new strings.
+          int propId = ViewManagersPropertyCache.getPropId(new String(entry.getKey()));
+          assertThat(ViewManagersPropertyCache.findPropSetter(table, propId))
+              .isSameAs(entry.getValue());
+        }
+      }
+    }
+    assertThat(ViewManagersPropertyCache.getPropId("notAProp"))
+        .isEqualTo(ViewManagersPropertyCache.NO_PROP_ID);
+  }
+
+  @Test
+  public void testKeptPropIdsAreResolvedOnce() {
+    KeyCountingMap backingMap = new KeyCountingMap();
+    ReactStylesDiffMap props = new ReactStylesDiffMap(backingMap, true);
+    ReflectionViewManager manager = new ReflectionViewManager();
+
+    ViewManagerPropertyUpdater.updateProps(manager, mView, props);
+    ViewManagerPropertyUpdater.updateProps(new ReflectionViewManager(), mView, props);
+
+    assertUpdated(manager);
+    assertThat(backingMap.mKeySetIterations).isEqualTo(1);
+  }
+
+  @Test
+  public void testPropIdsAreResolvedPerUpdateForChangingMaps() {
+    KeyCountingMap backingMap = new KeyCountingMap();
+    ReactStylesDiffMap props = new ReactStylesDiffMap(backingMap);
+    ReflectionViewManager manager = new ReflectionViewManager();
+
+    ViewManagerPropertyUpdater.updateProps(manager, mView, props);
+    backingMap.putInt("intProp", 8);
+    ViewManagerPropertyUpdater.updateProps(manager, mView, props);
+
+    assertThat(manager.mIntProp).isEqualTo(8);
+    assertThat(backingMap.mKeySetIterations).isEqualTo(2);
+  }
+
+  @Test
+  public void testKeptPropIdsPickUpPropsOfLaterSetters() {
+    ReactStylesDiffMap props = new ReactStylesDiffMap(
+        JavaOnlyMap.of("intProp", 7, "laterProp", 3),
+        true);
+    ViewManagerPropertyUpdater.updateProps(new ReflectionViewManager(), mView, props);
+
+    LaterPropViewManager manager = new LaterPropViewManager();
+    ViewManagerPropertyUpdater.updateProps(manager, mView, props);
+
+    assertThat(manager.mIntProp).isEqualTo(7);
+    assertThat(manager.mLaterProp).isEqualTo(3);
+  }
+
+  private static void assertUpdated(ReflectionViewManager manager) {
+    assertThat(manager.mIntProp).isEqualTo(7);
+    assertThat(manager.mFloatProp).isEqualTo(2.5f);
+    assertThat(manager.mBoolProp).isTrue();
+    assertThat(manager.mStringProp).isEqualTo("hello");
+  }
+}
+
+/**
+ * A view manager without a generated setter, its props are set through reflection.
+ */
+class ReflectionViewManager extends SimpleViewManager<View> {
+
+  int mIntProp;
+  float mFloatProp;
+  boolean mBoolProp;
+  String mStringProp;
+
+  @Override
+  public String getName() {
+    return "RCTPropertyUpdaterTestView";
+  }
+
+  @Override
+  protected View createViewInstance(ThemedReactContext reactContext) {
+    return new View(reactContext);
+  }
+
+  @ReactProp(name = "intProp")
+  public void setIntProp(View view, int value) {
+    mIntProp = value;
+  }
+
+  @ReactProp(name = "floatProp")
+  public void setFloatProp(View view, float value) {
+    mFloatProp = value;
+  }
+
+  @ReactProp(name = "boolProp")
+  public void setBoolProp(View view, boolean value) {
+    mBoolProp = value;
+  }
+
+  @ReactProp(name = "stringProp")
+  public void setStringProp(View view, String value) {
+    mStringProp = value;
+  }
+}
+
+/**
+ * Declares a prop no other class in these tests declares, so that it is interned after maps with it
+ * have been resolved.
+ */
+class LaterPropViewManager extends ReflectionViewManager {
+
+  int mLaterProp;
+
+  @ReactProp(name = "laterProp")
+  public void setLaterProp(View view, int value) {
+    mLaterProp = value;
+  }
+}
+
+/**
+ * Counts how many times the keys of the map are iterated.
+ */
+class KeyCountingMap extends JavaOnlyMap {
+
+  int mKeySetIterations;
+
+  KeyCountingMap() {
+    putInt("intProp", 7);
+    putDouble("floatProp", 2.5);
+    putBoolean("boolProp", true);
+    putString("stringProp", "hello");
+  }
+
+  @Override
+  public ReadableMapKeySetIterator keySetIterator() {
+    mKeySetIterations++;
+    return super.keySetIterator();
+  }
+}
@@ -0,0 +1,197 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.uimanager.events;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.config.ReactFeatureFlags;
+import com.facebook.react.modules.core.ChoreographerCompat;
+import com.facebook.react.modules.core.ReactChoreographer;
+import java.lang.management.ManagementFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.rule.PowerMockRule;
+import org.robolectric.RobolectricTestRunner;
+
+/**
+ * Tests for coalescing events in {@link EventDispatcher}.
+ */
+@PrepareForTest({ReactChoreographer.class})
+@PowerMockIgnore({"org.mockito.*", "org.robolectric.*", "android.*"})
+@RunWith(RobolectricTestRunner.class)
+public class EventDispatcherTest {
+
+  private static final long FRAME_TIME_NS = 17 * 1000 * 1000;
+  private static final int VIEW_COUNT = 16;
+  private static final int FEW_EVENTS_PER_FRAME = 50;
+  private static final int MANY_EVENTS_PER_FRAME = 400;
+  private static final int FRAMES = 200;
+
+  @Rule
+  public PowerMockRule rule = new PowerMockRule();
+
+  private ChoreographerCompat.FrameCallback mFrameCallback;
+  private Runnable mDispatchRunnable;
+  private ReactApplicationContext mReactContext;
+  private boolean mUseLockFreeEventStaging;
+  private int mDispatchedEventCount;
+
+  private class TestEvent extends Event<TestEvent> {
+    private String mEventName;
+
+    private void reset(int viewTag, String eventName) {
+      init(viewTag);
+      mEventName = eventName;
+    }
+
+    @Override
+    public String getEventName() {
+      return mEventName;
+    }
+
+    @Override
+    public void dispatch(RCTEventEmitter rctEventEmitter) {
+      mDispatchedEventCount++;
+    }
+  }
+
+  @Before
+  public void setUp() {
+    mUseLockFreeEventStaging = ReactFeatureFlags.useLockFreeEventStaging;
+
+    ReactChoreographer reactChoreographerMock = mock(ReactChoreographer.class);
+    PowerMockito.mockStatic(ReactChoreographer.class);
+    when(ReactChoreographer.getInstance()).thenReturn(reactChoreographerMock);
+    doAnswer(new Answer() {
+      @Override
+      public Object answer(InvocationOnMock invocation) throws Throwable {
+        mFrameCallback = (ChoreographerCompat.FrameCallback) invocation.getArguments()[1];
+        return null;
+      }
+    }).when(reactChoreographerMock).postFrameCallback(
+        eq(ReactChoreographer.CallbackType.TIMERS_EVENTS),
+        any(ChoreographerCompat.FrameCallback.class));
+
+    mReactContext = mock(ReactApplicationContext.class);
+    when(mReactContext.isOnUiQueueThread()).thenReturn(true);
+    doAnswer(new Answer() {
+      @Override
+      public Object answer(InvocationOnMock invocation) throws Throwable {
+        mDispatchRunnable = (Runnable) invocation.getArguments()[0];
+        return null;
+      }
+    }).when(mReactContext).runOnJSQueueThread(any(Runnable.class));
+  }
+
+  @After
+  public void tearDown() {
+    ReactFeatureFlags.useLockFreeEventStaging = mUseLockFreeEventStaging;
+  }
+
+  @Test
+  public void testEventsWithSameCookieAreCoalesced() {
+    EventDispatcher dispatcher = new EventDispatcher(mReactContext);
+    TestEvent[] events = createEvents(MANY_EVENTS_PER_FRAME);
+
+    runFrames(dispatcher, events, MANY_EVENTS_PER_FRAME, 1);
+
+    // Every view has emitted both event types.
+    assertThat(mDispatchedEventCount).isEqualTo(VIEW_COUNT * 2);
+  }
+
+  @Test
+  public void testNoAllocationPerCoalescedEvent() {
+    ReactFeatureFlags.useLockFreeEventStaging = false;
+    assertNoAllocationPerCoalescedEvent();
+  }
+
+  @Test
+  public void testNoAllocationPerCoalescedEventWithLockFreeStaging() {
+    ReactFeatureFlags.useLockFreeEventStaging = true;
+    assertNoAllocationPerCoalescedEvent();
+  }
+
+  /**
+   * Stages frames of events through the dispatcher and compares the bytes allocated by frames with
+   * few and with many events, so that what is allocated once per frame cancels out.
+   */
+  private void assertNoAllocationPerCoalescedEvent() {
+    com.sun.management.ThreadMXBean threadMXBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    if (!threadMXBean.isThreadAllocatedMemorySupported()) {
+      return;
+    }
+    threadMXBean.setThreadAllocatedMemoryEnabled(true);
+    EventDispatcher dispatcher = new EventDispatcher(mReactContext);
+    TestEvent[] events = createEvents(MANY_EVENTS_PER_FRAME);
+
+    // Warm up, so the dispatch queue and the cookie map reach their steady-state size and the
+    // coalescing path is compiled.
+    runFrames(dispatcher, events, MANY_EVENTS_PER_FRAME, FRAMES);
+    runFrames(dispatcher, events, FEW_EVENTS_PER_FRAME, FRAMES);
+
+    long fewAllocated = runFrames(dispatcher, events, FEW_EVENTS_PER_FRAME, FRAMES);
+    long manyAllocated = runFrames(dispatcher, events, MANY_EVENTS_PER_FRAME, FRAMES);
+    int extraEvents = (MANY_EVENTS_PER_FRAME - FEW_EVENTS_PER_FRAME) * FRAMES;
+
+    assertThat((manyAllocated - fewAllocated) / (double) extraEvents).isLessThan(1.0);
+  }
+
+  private TestEvent[] createEvents(int count) {
+    TestEvent[] events = new TestEvent[count];
+    for (int i = 0; i < count; i++) {
+      events[i] = new TestEvent();
+    }
+    return events;
+  }
+
+  /**
+   * Dispatches the given number of events in each frame, from a handful of views emitting scroll
+   * and touch events, most of which coalesce.
+   *
+   * @return the bytes allocated while staging and coalescing the events. Dispatching them to JS is
+   * not counted.
+   */
+  private long runFrames(
+      EventDispatcher dispatcher,
+      TestEvent[] events,
+      int eventsPerFrame,
+      int frames) {
+    com.sun.management.ThreadMXBean threadMXBean =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    long allocated = 0;
+    for (int frame = 0; frame < frames; frame++) {
+      long before = threadMXBean.getThreadAllocatedBytes(threadId);
+      for (int i = 0; i < eventsPerFrame; i++) {
+        events[i].reset(i % VIEW_COUNT, (i / VIEW_COUNT) % 2 == 0 ? "topScroll" : "topTouchMove");
+        dispatcher.dispatchEvent(events[i]);
+      }
+      mFrameCallback.doFrame(frame * FRAME_TIME_NS);
+      allocated += threadMXBean.getThreadAllocatedBytes(threadId) - before;
+
+      mDispatchedEventCount = 0;
+      mDispatchRunnable.run();
+    }
+    return allocated;
+  }
+}
@@ -0,0 +1,285 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.uimanager.events;
+
+import com.facebook.react.common.LongIntHashMap;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link LockFreeEventStagingQueue}, including staging events from several producers
+ * through it and through the locked list {@link EventDispatcher} uses without it. The ring itself
+ * doesn't coalesce: both paths hand drained events to the same coalescing step.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class LockFreeEventStagingQueueTest {
+
+  private static final int EVENTS_PER_PRODUCER = 50000;
+  private static final int VIEWS_PER_PRODUCER = 8;
+  private static final short TEST_EVENT_TYPE_ID = 0;
+
+  private static class TestEvent extends Event<TestEvent> {
+    private final int mProducer;
+    private final int mSequence;
+
+    private TestEvent(int viewTag, int producer, int sequence) {
+      super(viewTag);
+      mProducer = producer;
+      mSequence = sequence;
+    }
+
+    @Override
+    public String getEventName() {
+      return "topTest";
+    }
+
+    @Override
+    public TestEvent coalesce(TestEvent otherEvent) {
+      return mSequence > otherEvent.mSequence ? this : otherEvent;
+    }
+
+    @Override
+    public void dispatch(RCTEventEmitter rctEventEmitter) {
+    }
+  }
+
+  /**
+   * Coalesces drained events by the cookie {@link EventDispatcher} derives from their view tag,
+   * event type and coalescing key, keeping the index of the last event of each cookie.
+   */
+  private static class CoalescedEvents {
+    private final LongIntHashMap mCookieToLastEventIdx =
+        LongIntHashMap.createWithInitialCapacity(16);
+    private final ArrayList<TestEvent> mEvents = new ArrayList<>();
+
+    private void add(Event event) {
+      TestEvent testEvent = (TestEvent) event;
+      long cookie = EventDispatcher.getEventCookie(
+          event.getViewTag(),
+          TEST_EVENT_TYPE_ID,
+          event.getCoalescingKey());
+      int lastEventIdx = mCookieToLastEventIdx.get(cookie, -1);
+      if (lastEventIdx == -1) {
+        mCookieToLastEventIdx.put(cookie, mEvents.size());
+        mEvents.add(testEvent);
+      } else {
+        mEvents.set(lastEventIdx, testEvent.coalesce(mEvents.get(lastEventIdx)));
+      }
+    }
+
+    /**
+     * @return the sequence number of the event each view was left with, indexed by view tag.
+     */
+    private int[] getLastSequences(int producers) {
+      int[] lastSequences = new int[producers * VIEWS_PER_PRODUCER];
+      for (TestEvent event : mEvents) {
+        lastSequences[event.getViewTag()] = event.mSequence;
+      }
+      return lastSequences;
+    }
+  }
+
+  private interface Stager {
+    boolean stage(Event event);
+    int drain();
+  }
+
+  @Test
+  public void testCapacityIsRoundedToPowerOfTwo() {
+    assertThat(new LockFreeEventStagingQueue(1).capacity()).isEqualTo(2);
+    assertThat(new LockFreeEventStagingQueue(16).capacity()).isEqualTo(16);
+    assertThat(new LockFreeEventStagingQueue(100).capacity()).isEqualTo(128);
+  }
+
+  @Test
+  public void testSingleProducerIsFifo() {
+    LockFreeEventStagingQueue queue = new LockFreeEventStagingQueue(8);
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < 8; i++) {
+        assertThat(queue.offer(new TestEvent(1, 0, i))).isTrue();
+      }
+      assertThat(queue.isEmpty()).isFalse();
+      for (int i = 0; i < 8; i++) {
+        assertThat(((TestEvent) queue.poll()).mSequence).isEqualTo(i);
+      }
+      assertThat(queue.poll()).isNull();
+      assertThat(queue.isEmpty()).isTrue();
+    }
+  }
+
+  @Test
+  public void testOfferFailsWhenFull() {
+    LockFreeEventStagingQueue queue = new LockFreeEventStagingQueue(4);
+    for (int i = 0; i < 4; i++) {
+      assertThat(queue.offer(new TestEvent(1, 0, i))).isTrue();
+    }
+    assertThat(queue.offer(new TestEvent(1, 0, 4))).isFalse();
+    queue.poll();
+    assertThat(queue.offer(new TestEvent(1, 0, 4))).isTrue();
+  }
+
+  @Test
+  public void testMultipleProducersDeliverEveryEventOnceInProducerOrder() throws Exception {
+    final int producers = 4;
+    final LockFreeEventStagingQueue queue = new LockFreeEventStagingQueue(64);
+    final int[] lastSequence = new int[producers];
+    final int[] received = new int[producers];
+    for (int i = 0; i < producers; i++) {
+      lastSequence[i] = -1;
+    }
+
+    runProducers(producers, new Stager() {
+      @Override
+      public boolean stage(Event event) {
+        return queue.offer(event);
+      }
+
+      @Override
+      public int drain() {
+        int drained = 0;
+        Event event;
+        while ((event = queue.poll()) != null) {
+          TestEvent testEvent = (TestEvent) event;
+          assertThat(testEvent.mSequence).isGreaterThan(lastSequence[testEvent.mProducer]);
+          lastSequence[testEvent.mProducer] = testEvent.mSequence;
+          received[testEvent.mProducer]++;
+          drained++;
+        }
+        return drained;
+      }
+    });
+
+    for (int i = 0; i < producers; i++) {
+      assertThat(received[i]).isEqualTo(EVENTS_PER_PRODUCER);
+    }
+  }
+
+  @Test
+  public void testLockedAndLockFreeStagingCoalesceToTheSameEvents() throws Exception {
+    for (int producers : new int[] {1, 4, 8}) {
+      CoalescedEvents locked = new CoalescedEvents();
+      runProducers(producers, createLockedStager(locked));
+      CoalescedEvents lockFree = new CoalescedEvents();
+      runProducers(producers, createLockFreeStager(lockFree));
+
+      int[] expected = new int[producers * VIEWS_PER_PRODUCER];
+      for (int viewTag = 0; viewTag < expected.length; viewTag++) {
+        // Each view is left with the last event its producer sent it.
+        expected[viewTag] =
+            EVENTS_PER_PRODUCER - VIEWS_PER_PRODUCER + viewTag % VIEWS_PER_PRODUCER;
+      }
+      assertThat(locked.mEvents).hasSize(expected.length);
+      assertThat(locked.getLastSequences(producers)).isEqualTo(expected);
+      assertThat(lockFree.mEvents).hasSize(expected.length);
+      assertThat(lockFree.getLastSequences(producers)).isEqualTo(expected);
+    }
+  }
+
+  /**
+   * Stages events in a list guarded by a lock, which the consumer coalesces while holding it, like
+   * {@link EventDispatcher} does without the ring.
+   */
+  private static Stager createLockedStager(final CoalescedEvents coalescedEvents) {
+    return new Stager() {
+      private final Object mLock = new Object();
+      private final ArrayList<Event> mStaging = new ArrayList<>();
+
+      @Override
+      public boolean stage(Event event) {
+        synchronized (mLock) {
+          mStaging.add(event);
+        }
+        return true;
+      }
+
+      @Override
+      public int drain() {
+        int drained;
+        synchronized (mLock) {
+          drained = mStaging.size();
+          for (int i = 0; i < drained; i++) {
+            coalescedEvents.add(mStaging.get(i));
+          }
+          mStaging.clear();
+        }
+        return drained;
+      }
+    };
+  }
+
+  private static Stager createLockFreeStager(final CoalescedEvents coalescedEvents) {
+    return new Stager() {
+      private final LockFreeEventStagingQueue mQueue = new LockFreeEventStagingQueue(512);
+
+      @Override
+      public boolean stage(Event event) {
+        return mQueue.offer(event);
+      }
+
+      @Override
+      public int drain() {
+        int drained = 0;
+        Event event;
+        while ((event = mQueue.poll()) != null) {
+          coalescedEvents.add(event);
+          drained++;
+        }
+        return drained;
+      }
+    };
+  }
+
+  /**
+   * Runs the given number of producer threads against a single consumer draining on the calling
+   * thread, until every event was drained.
+   */
+  private static void runProducers(int producers, final Stager stager) throws Exception {
+    final CountDownLatch start = new CountDownLatch(1);
+    final AtomicBoolean failed = new AtomicBoolean();
+    Thread[] threads = new Thread[producers];
+    for (int p = 0; p < producers; p++) {
+      final int producer = p;
+      threads[p] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+            for (int i = 0; i < EVENTS_PER_PRODUCER; i++) {
+              int viewTag = producer * VIEWS_PER_PRODUCER + i % VIEWS_PER_PRODUCER;
+              TestEvent event = new TestEvent(viewTag, producer, i);
+              while (!stager.stage(event)) {
+                Thread.yield();
+              }
+            }
+          } catch (InterruptedException e) {
+            failed.set(true);
+          }
+        }
+      });
+      threads[p].start();
+    }
+
+    start.countDown();
+    int remaining = producers * EVENTS_PER_PRODUCER;
+    while (remaining > 0) {
+      remaining -= stager.drain();
+    }
+
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertThat(failed.get()).isFalse();
+    assertThat(remaining).isEqualTo(0);
+  }
+}
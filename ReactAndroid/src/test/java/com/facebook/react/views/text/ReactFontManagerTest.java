@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.views.text;
+
+import javax.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import android.content.res.AssetManager;
+import android.graphics.Typeface;
+
+import com.facebook.react.bridge.ReactMarker;
+import com.facebook.react.bridge.ReactMarkerConstants;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ReactFontManager} looking typefaces up in the listing of the fonts folder.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ReactFontManagerTest {
+
+  private static final String FAMILY = "Family";
+  private static final String OTHER_FAMILY = "Other";
+
+  private static final Executor DIRECT_EXECUTOR = new Executor() {
+    @Override
+    public void execute(Runnable command) {
+      command.run();
+    }
+  };
+
+  private AssetManager mAssetManager;
+  private FontAssetsManager mFontManager;
+  private int mTypefaceLoads;
+  private ReactMarker.MarkerListener mMarkerListener;
+
+  @Before
+  public void setUp() {
+    mAssetManager = RuntimeEnvironment.application.getAssets();
+    mFontManager = new FontAssetsManager(FAMILY + ".ttf", FAMILY + "_italic.otf");
+    mMarkerListener = new ReactMarker.MarkerListener() {
+      @Override
+      public void logMarker(ReactMarkerConstants name, @Nullable String tag, int instanceKey) {
+        if (name == ReactMarkerConstants.LOAD_TYPEFACE_START) {
+          mTypefaceLoads++;
+        }
+      }
+    };
+    ReactMarker.addListener(mMarkerListener);
+  }
+
+  @After
+  public void tearDown() {
+    ReactMarker.removeListener(mMarkerListener);
+  }
+
+  @Test
+  public void testVariantsInFontAssetsAreCreatedFromThem() {
+    Typeface regular = mFontManager.getTypeface(FAMILY, Typeface.NORMAL, mAssetManager);
+    Typeface italic = mFontManager.getTypeface(FAMILY, Typeface.ITALIC, mAssetManager);
+
+    // Family_italic.ttf isn't listed, so it isn't tried before Family_italic.otf.
+    assertThat(mFontManager.mAssetPaths)
+        .containsExactly("fonts/" + FAMILY + ".ttf", "fonts/" + FAMILY + "_italic.otf");
+    assertThat(regular).isSameAs(mFontManager.mAssetTypefaces.get("fonts/" + FAMILY + ".ttf"));
+    assertThat(italic)
+        .isSameAs(mFontManager.mAssetTypefaces.get("fonts/" + FAMILY + "_italic.otf"));
+  }
+
+  @Test
+  public void testVariantMissingFromFontAssetsFallsBackToSystemTypeface() {
+    Typeface bold = mFontManager.getTypeface(FAMILY, Typeface.BOLD, mAssetManager);
+    Typeface other = mFontManager.getTypeface(OTHER_FAMILY, Typeface.NORMAL, mAssetManager);
+
+    assertThat(bold).isNotNull();
+    assertThat(bold.getStyle()).isEqualTo(Typeface.BOLD);
+    assertThat(other).isNotNull();
+    assertThat(mFontManager.mAssetPaths).isEmpty();
+    assertThat(mFontManager.mListings).isEqualTo(1);
+  }
+
+  @Test
+  public void testPreloadTypefacesFillsCache() {
+    String[] families = {FAMILY, OTHER_FAMILY};
+    int[] styles = {Typeface.NORMAL, Typeface.BOLD};
+    mFontManager.preloadTypefaces(mAssetManager, families, styles, DIRECT_EXECUTOR);
+    assertThat(mTypefaceLoads).isEqualTo(families.length * styles.length);
+
+    Typeface regular = mFontManager.getTypeface(FAMILY, Typeface.NORMAL, mAssetManager);
+    for (String family : families) {
+      for (int style : styles) {
+        assertThat(mFontManager.getTypeface(family, style, mAssetManager)).isNotNull();
+      }
+    }
+
+    assertThat(mTypefaceLoads).isEqualTo(families.length * styles.length);
+    assertThat(mFontManager.mAssetPaths).containsExactly("fonts/" + FAMILY + ".ttf");
+    assertThat(regular).isSameAs(mFontManager.mAssetTypefaces.get("fonts/" + FAMILY + ".ttf"));
+  }
+
+  /**
+   * Lists the given files in the fonts folder, and records the typefaces created from them.
+   */
+  private static class FontAssetsManager extends ReactFontManager {
+
+    private final String[] mFontAssets;
+    private final List<String> mAssetPaths = new ArrayList<>();
+    private final Map<String, Typeface> mAssetTypefaces = new HashMap<>();
+    private int mListings;
+
+    private FontAssetsManager(String... fontAssets) {
+      mFontAssets = fontAssets;
+    }
+
+    @Override
+    /* package */ String[] listFontAssets(AssetManager assetManager) {
+      mListings++;
+      return mFontAssets;
+    }
+
+    @Override
+    /* package */ Typeface createFromAsset(AssetManager assetManager, String path) {
+      mAssetPaths.add(path);
+      Typeface typeface = Typeface.create(path, Typeface.NORMAL);
+      mAssetTypefaces.put(path, typeface);
+      return typeface;
+    }
+  }
+}
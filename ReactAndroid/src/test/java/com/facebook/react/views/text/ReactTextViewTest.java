@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.views.text;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.text.Layout;
+import android.text.SpannableString;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.view.Gravity;
+import android.view.View;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+/**
+ * Tests for {@link ReactTextView} drawing the layout its text was measured with, and falling back
+ * to laying the text out itself.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ReactTextViewTest {
+
+  private static final String TEXT = "Measured text";
+  private static final int WIDTH = 200;
+
+  private ReactTextView mView;
+  private Layout mLayout;
+
+  @Before
+  public void setUp() {
+    mView = new ReactTextView(RuntimeEnvironment.application);
+    TextPaint paint = new TextPaint(TextPaint.ANTI_ALIAS_FLAG);
+    paint.setTextSize(14);
+    mLayout = new StaticLayout(
+        TEXT,
+        paint,
+        WIDTH,
+        Layout.Alignment.ALIGN_NORMAL,
+        1.f,
+        0.f,
+        true);
+  }
+
+  @Test
+  public void testMeasuredLayoutIsDrawn() {
+    mView.setText(createUpdate(false));
+    measure(WIDTH);
+
+    // TextView didn't lay the text out again.
+    assertThat(mView.getLayout()).isNull();
+    assertThat(mView.getMeasuredWidth()).isEqualTo(WIDTH);
+    assertThat(mView.getMeasuredHeight()).isEqualTo(mLayout.getHeight());
+
+    mView.setTextColor(Color.RED);
+    Bitmap bitmap = Bitmap.createBitmap(WIDTH, mLayout.getHeight(), Bitmap.Config.ARGB_8888);
+    mView.draw(new Canvas(bitmap));
+    assertThat(mLayout.getPaint().getColor()).isEqualTo(Color.RED);
+  }
+
+  @Test
+  public void testTextWithImagesIsLaidOut() {
+    mView.setText(createUpdate(true));
+    assertTextIsLaidOut(WIDTH);
+  }
+
+  @Test
+  public void testSelectableTextIsLaidOut() {
+    mView.setTextIsSelectable(true);
+    mView.setText(createUpdate(false));
+    assertTextIsLaidOut(WIDTH);
+  }
+
+  @Test
+  public void testTextMadeSelectableIsLaidOut() {
+    mView.setText(createUpdate(false));
+    mView.setTextIsSelectable(true);
+    assertTextIsLaidOut(WIDTH);
+  }
+
+  @Test
+  public void testTextWithNumberOfLinesIsLaidOut() {
+    mView.setNumberOfLines(1);
+    mView.setText(createUpdate(false));
+    assertTextIsLaidOut(WIDTH);
+  }
+
+  @Test
+  public void testTextThatIsNotTopAlignedIsLaidOut() {
+    mView.setGravityVertical(Gravity.CENTER_VERTICAL);
+    mView.setText(createUpdate(false));
+    assertTextIsLaidOut(WIDTH);
+  }
+
+  @Test
+  public void testTextMeasuredAtAnotherWidthIsLaidOut() {
+    mView.setText(createUpdate(false));
+    assertTextIsLaidOut(WIDTH + 10);
+  }
+
+  @Test
+  public void testViewLaidOutBeforeKeepsItsLayout() {
+    mView.setText(createUpdate(true));
+    measure(WIDTH);
+
+    mView.setText(createUpdate(false));
+    measure(WIDTH);
+    assertThat(mView.getLayout()).isNotNull();
+    assertThat(mView.getLayout()).isNotSameAs(mLayout);
+  }
+
+  private ReactTextUpdate createUpdate(boolean containsImages) {
+    return new ReactTextUpdate(
+        new SpannableString(TEXT),
+        -1,
+        containsImages,
+        0,
+        0,
+        0,
+        0,
+        Gravity.NO_GRAVITY,
+        Layout.BREAK_STRATEGY_HIGH_QUALITY,
+        mLayout);
+  }
+
+  private void measure(int width) {
+    mView.measure(
+        View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+        View.MeasureSpec.makeMeasureSpec(mLayout.getHeight(), View.MeasureSpec.EXACTLY));
+  }
+
+  private void assertTextIsLaidOut(int width) {
+    measure(width);
+    assertThat(mView.getLayout()).isNotNull();
+    assertThat(mView.getMeasuredWidth()).isEqualTo(width);
+  }
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.views.text;
+
+import java.util.Map;
+
+import com.facebook.react.config.ReactFeatureFlags;
+import com.facebook.react.uimanager.DisplayMetricsHolder;
+import com.facebook.react.uimanager.UIViewOperationQueue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Lays out the labels of a long list through the measure function of {@link ReactTextShadowNode},
+ * with {@link ReactFeatureFlags#cacheTextMeasurements}, and with
+ * {@link ReactFeatureFlags#useMeasuredTextLayout} as well.
+ */
+@RunWith(RobolectricTestRunner.class)
+@PowerMockIgnore({"org.mockito.*", "org.robolectric.*", "android.*"})
+public class TextMeasurementCacheLayoutTest {
+
+  private static final int ROW_COUNT = 1000;
+  private static final int LABEL_COUNT = 20;
+  private static final float ROW_WIDTH = 300;
+
+  private boolean mCacheTextMeasurements;
+  private boolean mUseMeasuredTextLayout;
+
+  @Before
+  public void setUp() {
+    mCacheTextMeasurements = ReactFeatureFlags.cacheTextMeasurements;
+    mUseMeasuredTextLayout = ReactFeatureFlags.useMeasuredTextLayout;
+    ReactFeatureFlags.cacheTextMeasurements = true;
+    ReactFeatureFlags.useMeasuredTextLayout = false;
+    DisplayMetricsHolder.initDisplayMetrics(RuntimeEnvironment.application);
+  }
+
+  @After
+  public void tearDown() {
+    ReactFeatureFlags.cacheTextMeasurements = mCacheTextMeasurements;
+    ReactFeatureFlags.useMeasuredTextLayout = mUseMeasuredTextLayout;
+  }
+
+  @Test
+  public void testListOfRepeatedLabels() {
+    TextMeasurementCache cache = TextMeasurementCache.getInstance();
+    ReactTextViewManager viewManager = new ReactTextViewManager();
+
+    float[] uncachedHeights = new float[ROW_COUNT];
+    for (int row = 0; row < ROW_COUNT; row++) {
+      cache.clear();
+      uncachedHeights[row] = layOutRowHeight(row);
+    }
+
+    cache.clear();
+    viewManager.profileNextBatch();
+    float[] cachedHeights = new float[ROW_COUNT];
+    for (int row = 0; row < ROW_COUNT; row++) {
+      cachedHeights[row] = layOutRowHeight(row);
+    }
+
+    Map<String, Long> perfMap = viewManager.getPerformanceCounters();
+    assertThat(cachedHeights).isEqualTo(uncachedHeights);
+    // Only the first row with each label builds a layout.
+    assertThat(perfMap.get("TextMeasurementCacheMisses")).isEqualTo(LABEL_COUNT);
+    assertThat(perfMap.get("TextMeasurementCacheHits"))
+        .isGreaterThanOrEqualTo(ROW_COUNT - LABEL_COUNT);
+  }
+
+  @Test
+  public void testRepeatedLabelsAreHandedTheirLayout() {
+    ReactFeatureFlags.useMeasuredTextLayout = true;
+    TextMeasurementCache.getInstance().clear();
+
+    for (int row = 0; row < 2 * LABEL_COUNT; row++) {
+      UIViewOperationQueue queue = mock(UIViewOperationQueue.class);
+      layOutRow(row).onCollectExtraUpdates(queue);
+
+      ArgumentCaptor<ReactTextUpdate> update = ArgumentCaptor.forClass(ReactTextUpdate.class);
+      verify(queue).enqueueUpdateExtraData(eq(row + 1), update.capture());
+      assertThat(update.getValue().getLayout()).isNotNull();
+    }
+  }
+
+  private static float layOutRowHeight(int row) {
+    return layOutRow(row).getLayoutHeight();
+  }
+
+  /**
+   * Lays out the label of a row, which Yoga measures with the measure function of
+   * {@link ReactTextShadowNode}.
+   */
+  private static ReactTextShadowNode layOutRow(int row) {
+    ReactRawTextShadowNode rawText = new ReactRawTextShadowNode();
+    rawText.setText(labelText(row));
+    ReactTextShadowNode text = new ReactTextShadowNode();
+    text.setReactTag(row + 1);
+    // Rows differ in color, which doesn't change the size of their labels.
+    text.setColor(row % 2 == 0 ? 0xFF000000 : 0xFFFF0000);
+    text.addChildAt(rawText, 0);
+    text.setStyleWidth(ROW_WIDTH);
+    text.onBeforeLayout();
+    text.calculateLayout();
+    return text;
+  }
+
+  private static String labelText(int row) {
+    return "Label number " + (row % LABEL_COUNT);
+  }
+}
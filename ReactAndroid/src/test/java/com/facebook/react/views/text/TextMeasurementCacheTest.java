@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.react.views.text;
+
+import java.util.Map;
+
+import android.graphics.Typeface;
+import android.text.Layout;
+import android.text.Spannable;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.style.AbsoluteSizeSpan;
+import android.text.style.ForegroundColorSpan;
+import android.text.style.ImageSpan;
+
+import com.facebook.yoga.YogaMeasureMode;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.core.classloader.annotations.PowerMockIgnore;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for the keys and eviction of {@link TextMeasurementCache}. Laying out text through the
+ * cache is tested by {@link TextMeasurementCacheLayoutTest}, which needs Yoga.
+ */
+@RunWith(RobolectricTestRunner.class)
+@PowerMockIgnore({"org.mockito.*", "org.robolectric.*", "android.*"})
+public class TextMeasurementCacheTest {
+
+  private static final float ROW_WIDTH = 300;
+
+  @Test
+  public void testKeyIgnoresSpansThatDontAffectSize() {
+    TextMeasurementCache.Key key =
+        getKey(label("Label", 1, 0xFF000000), ROW_WIDTH, YogaMeasureMode.EXACTLY);
+
+    assertThat(getKey(label("Label", 2, 0xFFFF0000), ROW_WIDTH, YogaMeasureMode.EXACTLY))
+        .isEqualTo(key);
+    assertThat(getKey(label("Label", 1, 0xFF000000), ROW_WIDTH, YogaMeasureMode.AT_MOST))
+        .isEqualTo(key);
+    assertThat(getKey(label("Other", 1, 0xFF000000), ROW_WIDTH, YogaMeasureMode.EXACTLY))
+        .isNotEqualTo(key);
+    assertThat(getKey(label("Label", 1, 0xFF000000), ROW_WIDTH + 1, YogaMeasureMode.EXACTLY))
+        .isNotEqualTo(key);
+    assertThat(getKey(label("Label", 1, 0xFF000000), ROW_WIDTH, YogaMeasureMode.UNDEFINED))
+        .isNotEqualTo(key);
+
+    Spannable bold = label("Label", 1, 0xFF000000);
+    bold.setSpan(new CustomStyleSpan(Typeface.NORMAL, Typeface.BOLD, null, null), 0, 5, 0);
+    assertThat(getKey(bold, ROW_WIDTH, YogaMeasureMode.EXACTLY)).isNotEqualTo(key);
+  }
+
+  @Test
+  public void testKeyOfLongTextKeepsBoundedCopy() {
+    String paragraph = repeat('a', 10 * TextMeasurementCache.MAX_COPIED_TEXT_LENGTH);
+    TextMeasurementCache.Key key = getKey(label(paragraph, 1, 0xFF000000));
+
+    assertThat(key.getCopiedText()).hasSize(TextMeasurementCache.MAX_COPIED_TEXT_LENGTH);
+    assertThat(getKey(label(paragraph, 2, 0xFF000000))).isEqualTo(key);
+    // Texts that only differ past the copied characters are told apart by their hash.
+    String otherEnd = paragraph.substring(0, paragraph.length() - 1) + 'b';
+    assertThat(getKey(label(otherEnd, 1, 0xFF000000))).isNotEqualTo(key);
+    assertThat(getKey(label(paragraph + 'a', 1, 0xFF000000))).isNotEqualTo(key);
+  }
+
+  @Test
+  public void testTextWithUnknownSpansIsNotCached() {
+    Spannable text = label("Label", 1, 0xFF000000);
+    text.setSpan(mock(ImageSpan.class), 0, 1, 0);
+
+    assertThat(getKey(text, ROW_WIDTH, YogaMeasureMode.EXACTLY)).isNull();
+  }
+
+  @Test
+  public void testLeastRecentlyUsedMeasurementsAreEvicted() {
+    TextMeasurementCache.Key a = getKey(label("a", 1, 0xFF000000));
+    TextMeasurementCache.Key b = getKey(label("b", 1, 0xFF000000));
+    TextMeasurementCache.Key c = getKey(label("c", 1, 0xFF000000));
+    TextMeasurementCache cache = new TextMeasurementCache(2);
+    cache.put(a, 1);
+    cache.put(b, 2);
+    assertThat(cache.get(a)).isEqualTo(1);
+    cache.put(c, 3);
+
+    assertThat(cache.get(b)).isNull();
+    assertThat(cache.get(a)).isEqualTo(1);
+    assertThat(cache.get(c)).isEqualTo(3);
+    Map<String, Long> perfMap = cache.getPerformanceCounters();
+    assertThat(perfMap.get("TextMeasurementCacheHits")).isEqualTo(3);
+    assertThat(perfMap.get("TextMeasurementCacheMisses")).isEqualTo(1);
+    assertThat(perfMap.get("TextMeasurementCacheHitRatioPercent")).isEqualTo(75);
+    assertThat(perfMap.get("TextMeasurementCacheEvictions")).isEqualTo(1);
+    assertThat(perfMap.get("TextMeasurementCacheSize")).isEqualTo(2);
+  }
+
+  private static Spannable label(String text, int reactTag, int color) {
+    SpannableStringBuilder sb = new SpannableStringBuilder(text);
+    sb.setSpan(new AbsoluteSizeSpan(14), 0, text.length(), Spannable.SPAN_INCLUSIVE_INCLUSIVE);
+    sb.setSpan(new ForegroundColorSpan(color), 0, text.length(), Spannable.SPAN_INCLUSIVE_INCLUSIVE);
+    sb.setSpan(new ReactTagSpan(reactTag), 0, text.length(), Spannable.SPAN_INCLUSIVE_INCLUSIVE);
+    return sb;
+  }
+
+  private static TextMeasurementCache.Key getKey(Spanned text) {
+    return getKey(text, ROW_WIDTH, YogaMeasureMode.EXACTLY);
+  }
+
+  private static TextMeasurementCache.Key getKey(
+      Spanned text,
+      float width,
+      YogaMeasureMode widthMode) {
+    return TextMeasurementCache.getKey(
+        text,
+        14,
+        TextAttributeProps.UNSET,
+        true,
+        Layout.BREAK_STRATEGY_HIGH_QUALITY,
+        TextAttributeProps.UNSET,
+        width,
+        widthMode);
+  }
+
+  private static String repeat(char c, int count) {
+    StringBuilder sb = new StringBuilder(count);
+    for (int i = 0; i < count; i++) {
+      sb.append(c);
+    }
+    return sb.toString();
+  }
+}
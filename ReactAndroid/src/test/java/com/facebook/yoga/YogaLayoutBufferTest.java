@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.yoga;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Tests for reading the records of a {@link YogaLayoutBuffer}, as filled in by
+ * YGNodeCalculateLayoutIntoBuffer, back into a tree. The tree is made of {@link TestNode}s so that
+ * no native node is needed.
+ */
+public class YogaLayoutBufferTest {
+
+  private static class TestNode {
+    private final String mName;
+    private final List<TestNode> mChildren = new ArrayList<>();
+
+    private TestNode(String name, TestNode... children) {
+      mName = name;
+      for (TestNode child : children) {
+        mChildren.add(child);
+      }
+    }
+  }
+
+  /**
+   * Records the node of each record, and its layout.
+   */
+  private static class RecordingReader implements YogaLayoutBuffer.RecordReader<TestNode> {
+    private final List<String> mNames = new ArrayList<>();
+    private final List<Float> mLefts = new ArrayList<>();
+
+    @Override
+    public TestNode getChildAt(TestNode owner, int index) {
+      return owner.mChildren.get(index);
+    }
+
+    @Override
+    public void readRecord(TestNode node, YogaLayoutBuffer buffer, int record) {
+      mNames.add(node.mName);
+      mLefts.add(buffer.getLeft(record));
+    }
+  }
+
+  @Test
+  public void testRecordsAreMatchedToNodesByPath() {
+    TestNode root = new TestNode(
+        "root",
+        new TestNode("a", new TestNode("a0"), new TestNode("a1", new TestNode("a1x"))),
+        new TestNode("b"),
+        new TestNode("c", new TestNode("c0")));
+    // Only some nodes changed, each record's owner is the last record one level up.
+    YogaLayoutBuffer buffer = buffer(
+        record(0, 0),
+        record(1, 0),
+        record(2, 1),
+        record(3, 0),
+        record(1, 2),
+        record(2, 0));
+
+    RecordingReader reader = new RecordingReader();
+    assertThat(buffer.readRecords(root, reader)).isEqualTo(6);
+    assertThat(reader.mNames).containsExactly("root", "a", "a1", "a1x", "c", "c0");
+    assertThat(reader.mLefts).containsExactly(0f, 1f, 2f, 3f, 4f, 5f);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testPathIsNotKeptAcrossPasses() {
+    TestNode root = new TestNode("root", new TestNode("a", new TestNode("a0")));
+    YogaLayoutBuffer buffer = buffer(record(0, 0), record(1, 0), record(2, 0));
+    buffer.readRecords(root, new RecordingReader());
+
+    // A pass always starts at the root, a record without its owners only resolves against the
+    // path left over from the previous pass.
+    buffer.mValues = buffer(record(2, 0)).mValues;
+    buffer.readRecords(root, new RecordingReader());
+  }
+
+  @Test
+  public void testNoRecords() {
+    YogaLayoutBuffer buffer = new YogaLayoutBuffer();
+    RecordingReader reader = new RecordingReader();
+
+    assertThat(buffer.getRecordCount()).isEqualTo(0);
+    assertThat(buffer.readRecords(new TestNode("root"), reader)).isEqualTo(0);
+    assertThat(reader.mNames).isEmpty();
+  }
+
+  @Test
+  public void testRecordFieldsAreDecoded() {
+    float[] record = new float[YogaLayoutBuffer.RECORD_SIZE];
+    for (int i = 0; i < record.length; i++) {
+      record[i] = 100 + i;
+    }
+    record[YogaLayoutBuffer.DEPTH] = 0;
+    record[YogaLayoutBuffer.DIRECTION] = YogaDirection.RTL.intValue();
+    record[YogaLayoutBuffer.DID_LEGACY_STRETCH_FLAG_AFFECT_LAYOUT] = 1;
+    // The record is read at the second position, past a first record.
+    YogaLayoutBuffer buffer = buffer(record(0, 0), record);
+
+    assertThat(buffer.getLeft(1)).isEqualTo(100 + YogaLayoutBuffer.LEFT);
+    assertThat(buffer.getTop(1)).isEqualTo(100 + YogaLayoutBuffer.TOP);
+    assertThat(buffer.getWidth(1)).isEqualTo(100 + YogaLayoutBuffer.WIDTH);
+    assertThat(buffer.getHeight(1)).isEqualTo(100 + YogaLayoutBuffer.HEIGHT);
+    assertThat(buffer.getDirection(1)).isEqualTo(YogaDirection.RTL.intValue());
+    assertThat(buffer.didLegacyStretchFlagAffectLayout(1)).isTrue();
+    assertThat(buffer.didLegacyStretchFlagAffectLayout(0)).isFalse();
+    for (int side = 0; side < 4; side++) {
+      assertThat(buffer.getMargin(1, side)).isEqualTo(100 + YogaLayoutBuffer.MARGIN + side);
+      assertThat(buffer.getPadding(1, side)).isEqualTo(100 + YogaLayoutBuffer.PADDING + side);
+      assertThat(buffer.getBorder(1, side)).isEqualTo(100 + YogaLayoutBuffer.BORDER + side);
+    }
+    // The last field of a record is right before the next record.
+    assertThat(YogaLayoutBuffer.BORDER + 4).isEqualTo(YogaLayoutBuffer.RECORD_SIZE);
+  }
+
+  /**
+   * @return a record at the given depth and index in its owner, with the index of the record in
+   * the buffer as its left, which is filled in by {@link #buffer}.
+   */
+  private static float[] record(int depth, int index) {
+    float[] record = new float[YogaLayoutBuffer.RECORD_SIZE];
+    record[YogaLayoutBuffer.DEPTH] = depth;
+    record[YogaLayoutBuffer.INDEX] = index;
+    record[YogaLayoutBuffer.LEFT] = -1;
+    return record;
+  }
+
+  private static YogaLayoutBuffer buffer(float[]... records) {
+    YogaLayoutBuffer buffer = new YogaLayoutBuffer();
+    float[] values = new float[1 + records.length * YogaLayoutBuffer.RECORD_SIZE];
+    values[0] = records.length;
+    for (int i = 0; i < records.length; i++) {
+      float[] record = records[i];
+      if (record[YogaLayoutBuffer.LEFT] == -1) {
+        record[YogaLayoutBuffer.LEFT] = i;
+      }
+      System.arraycopy(
+          record, 0, values, 1 + i * YogaLayoutBuffer.RECORD_SIZE, YogaLayoutBuffer.RECORD_SIZE);
+    }
+    buffer.mValues = values;
+    return buffer;
+  }
+}
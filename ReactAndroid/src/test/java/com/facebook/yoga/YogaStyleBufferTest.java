@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) Facebook, Inc. and its affiliates.
+ *
+ * This source code is licensed under the MIT license found in the
+ * LICENSE file in the root directory of this source tree.
+ */
+
+package com.facebook.yoga;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link YogaStyleBuffer}, the style changes batched by
+ * {@link YogaNode#beginStyleBatch()}.
+ */
+public class YogaStyleBufferTest {
+
+  @Test
+  public void testChangesArePackedInOrder() {
+    YogaStyleBuffer buffer = new YogaStyleBuffer();
+    buffer.add(YogaStyleBuffer.FLEX_DIRECTION, YogaFlexDirection.ROW.intValue());
+    buffer.add(YogaStyleBuffer.WIDTH_PERCENT, 50f);
+    buffer.add(YogaStyleBuffer.MARGIN, YogaEdge.TOP, 8f);
+
+    assertThat(buffer.getCount()).isEqualTo(3);
+    assertThat(buffer.getProperties()[0]).isEqualTo(YogaStyleBuffer.FLEX_DIRECTION);
+    assertThat(buffer.getValues()[0]).isEqualTo(YogaFlexDirection.ROW.intValue());
+    assertThat(buffer.getProperties()[1]).isEqualTo(YogaStyleBuffer.WIDTH_PERCENT);
+    assertThat(buffer.getValues()[1]).isEqualTo(50f);
+    assertThat(buffer.getValues()[2]).isEqualTo(8f);
+  }
+
+  @Test
+  public void testEdgeIsPackedAboveProperty() {
+    YogaStyleBuffer buffer = new YogaStyleBuffer();
+    buffer.add(YogaStyleBuffer.PADDING_PERCENT, YogaEdge.ALL, 10f);
+    buffer.add(YogaStyleBuffer.ASPECT_RATIO, 1.5f);
+
+    int packed = buffer.getProperties()[0];
+    int propertyMask = (1 << YogaStyleBuffer.EDGE_SHIFT) - 1;
+    assertThat(packed & propertyMask).isEqualTo(YogaStyleBuffer.PADDING_PERCENT);
+    assertThat(packed >> YogaStyleBuffer.EDGE_SHIFT).isEqualTo(YogaEdge.ALL.intValue());
+    // Properties without an edge are stored as is.
+    assertThat(buffer.getProperties()[1]).isEqualTo(YogaStyleBuffer.ASPECT_RATIO);
+    // Every property fits below the edge.
+    assertThat(YogaStyleBuffer.ASPECT_RATIO).isLessThan(1 << YogaStyleBuffer.EDGE_SHIFT);
+  }
+
+  @Test
+  public void testBufferGrowsAndIsReusedAfterClear() {
+    YogaStyleBuffer buffer = new YogaStyleBuffer();
+    int count = 100;
+    for (int i = 0; i < count; i++) {
+      buffer.add(YogaStyleBuffer.BORDER, YogaEdge.fromInt(i % 9), i);
+    }
+
+    assertThat(buffer.getCount()).isEqualTo(count);
+    for (int i = 0; i < count; i++) {
+      assertThat(buffer.getProperties()[i] >> YogaStyleBuffer.EDGE_SHIFT).isEqualTo(i % 9);
+      assertThat(buffer.getValues()[i]).isEqualTo((float) i);
+    }
+
+    int[] properties = buffer.getProperties();
+    buffer.clear();
+    assertThat(buffer.getCount()).isEqualTo(0);
+    buffer.add(YogaStyleBuffer.FLEX, 1f);
+    assertThat(buffer.getProperties()).isSameAs(properties);
+    assertThat(buffer.getValues()[0]).isEqualTo(1f);
+  }
+}
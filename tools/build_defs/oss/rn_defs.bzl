@@ -115,6 +115,9 @@ def rn_android_library(name, deps = [], plugins = [], *args, **kwargs):
             react_native_target(
                 "java/com/facebook/react/module/processing:processing",
             ),
+            react_native_target(
+                "java/com/facebook/react/module/processing:method-processing",
+            ),
         ]
 
         plugins = list(set(plugins + react_module_plugins))